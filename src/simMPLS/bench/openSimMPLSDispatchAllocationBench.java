@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.bench;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import simMPLS.hardware.timer.TTimer;
+import simMPLS.io.osm.TOSMLoader;
+import simMPLS.main.TBatchRunner;
+import simMPLS.scenario.TScenario;
+
+/**
+ * This class measures from the command line how many bytes the thread of
+ * the timer allocates, on average, to dispatch the timer events of a tick.
+ * Each scenario is simulated several times with every engine, with
+ * statistics for every node and a fixed seed, as openSimMPLSBatch -allstats
+ * -seed does. The memory is measured by the timer itself through
+ * com.sun.management.ThreadMXBean, so the JVM has to support measuring the
+ * memory allocated by each thread. The first run of each scenario and
+ * engine only warms up the JVM and is not reported.
+ *
+ * Usage: openSimMPLSDispatchAllocationBench [options] output-directory scenario.osm...
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class openSimMPLSDispatchAllocationBench {
+
+    /**
+     * This method shows how to run the benchmark from the command line.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public static void showUsage() {
+        System.out.println("Usage: openSimMPLSDispatchAllocationBench [options] output-directory scenario.osm...");
+        System.out.println("Options:");
+        System.out.println("  -engine tick|event     Engine to be measured. Can be repeated. Default tick and event.");
+        System.out.println("  -runs <n>              Measured runs of each scenario and engine. Default " + DEFAULT_RUNS + ".");
+        System.out.println("  -seed <n>              Master seed of the simulations. Default " + DEFAULT_SEED + ".");
+    }
+
+    /**
+     * This method runs the benchmark. It exits with status 0 if every
+     * scenario has been measured, 1 if not and 2 if the arguments are not
+     * valid.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param args Arguments specified at command line.
+     * @since 2.0
+     */
+    public static void main(String args[]) {
+        System.setProperty("java.awt.headless", "true");
+        ArrayList<String> engineNames = new ArrayList<String>();
+        ArrayList<File> scenarioFiles = new ArrayList<File>();
+        File outputDirectory = null;
+        int runs = DEFAULT_RUNS;
+        long seed = DEFAULT_SEED;
+        int i;
+        try {
+            for (i = 0; i < args.length; i++) {
+                if (args[i].equals("-engine") && (i + 1 < args.length)) {
+                    if (getEngine(args[i + 1]) == TBatchRunner.SCENARIO_DEFAULT) {
+                        throw new IllegalArgumentException("Unknown engine " + args[i + 1]);
+                    }
+                    engineNames.add(args[++i]);
+                } else if (args[i].equals("-runs") && (i + 1 < args.length)) {
+                    runs = Integer.parseInt(args[++i]);
+                    if (runs <= 0) {
+                        throw new IllegalArgumentException("Invalid number of runs " + runs);
+                    }
+                } else if (args[i].equals("-seed") && (i + 1 < args.length)) {
+                    seed = Long.parseLong(args[++i]);
+                } else if (args[i].startsWith("-")) {
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+                } else if (outputDirectory == null) {
+                    outputDirectory = new File(args[i]);
+                } else {
+                    scenarioFiles.add(new File(args[i]));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            showUsage();
+            System.exit(2);
+        }
+        if (scenarioFiles.isEmpty()) {
+            showUsage();
+            System.exit(2);
+        }
+        if (engineNames.isEmpty()) {
+            engineNames.add("tick");
+            engineNames.add("event");
+        }
+        int j;
+        for (i = 0; i < scenarioFiles.size(); i++) {
+            for (j = 0; j < engineNames.size(); j++) {
+                if (!measure(scenarioFiles.get(i), engineNames.get(j), runs, seed, outputDirectory)) {
+                    System.exit(1);
+                }
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * This method simulates a scenario with an engine once to warm up and
+     * then the specified number of times, and prints the bytes allocated per
+     * tick by the timer in each measured run.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param scenarioFile The scenario.
+     * @param engineName The engine: tick or event.
+     * @param runs Number of measured runs.
+     * @param seed Master seed of the simulations.
+     * @param outputDirectory Directory the results of the runs are written
+     * to.
+     * @return TRUE, if every run has been measured. Otherwise, returns FALSE.
+     * @since 2.0
+     */
+    private static boolean measure(File scenarioFile, String engineName, int runs, long seed, File outputDirectory) {
+        String name = scenarioFile.getName();
+        if (name.endsWith(".osm")) {
+            name = name.substring(0, name.length() - 4);
+        }
+        File runDirectory = new File(outputDirectory, name + "-" + engineName);
+        long allocations[] = new long[runs];
+        long numberOfTicks = 0;
+        String line = name + " " + engineName + ":";
+        int i;
+        for (i = -1; i < runs; i++) {
+            TOSMLoader osmLoader = new TOSMLoader();
+            if (!osmLoader.cargar(scenarioFile)) {
+                System.out.println("Unable to load scenario " + scenarioFile.getPath());
+                return false;
+            }
+            TScenario scenario = osmLoader.getScenario();
+            TBatchRunner batchRunner = new TBatchRunner(runDirectory);
+            batchRunner.setSchedulingEngine(getEngine(engineName));
+            batchRunner.setGenerateAllStats(true);
+            batchRunner.setSeed(seed);
+            if (!batchRunner.run(scenario)) {
+                System.out.println(batchRunner.getErrorMessage());
+                return false;
+            }
+            TTimer timer = scenario.getTopology().obtenerReloj();
+            long allocation = timer.getTimerEventExecutor().getAverageDispatchAllocation();
+            if (allocation < 0) {
+                System.out.println("This JVM can not measure the memory allocated by each thread");
+                return false;
+            }
+            if (i >= 0) {
+                allocations[i] = allocation;
+                line += " " + allocation;
+            }
+            numberOfTicks = batchRunner.getNumberOfTicks();
+        }
+        Arrays.sort(allocations);
+        System.out.println(line + " bytes/tick (median " + allocations[runs / 2] + ", " + numberOfTicks + " ticks)");
+        return true;
+    }
+
+    /**
+     * This method translates the name of an engine.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param name tick or event.
+     * @return The engine, as defined in TTimer, or
+     * TBatchRunner.SCENARIO_DEFAULT if the name is not valid.
+     * @since 2.0
+     */
+    private static int getEngine(String name) {
+        if (name.equals("tick")) {
+            return TTimer.TICK_DRIVEN_ENGINE;
+        }
+        if (name.equals("event")) {
+            return TTimer.EVENT_DRIVEN_ENGINE;
+        }
+        return TBatchRunner.SCENARIO_DEFAULT;
+    }
+
+    private static final int DEFAULT_RUNS = 3;
+    private static final long DEFAULT_SEED = 7;
+}
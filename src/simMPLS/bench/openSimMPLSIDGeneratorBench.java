@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.bench;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import simMPLS.utils.EIDGeneratorOverflow;
+import simMPLS.utils.TLongIDGenerator;
+
+/**
+ * This class measures from the command line how long it takes to get an
+ * identifier from a TLongIDGenerator shared by several threads. Every thread
+ * calls getNextID() in a tight loop and the result is the wall-clock time
+ * divided by the total number of identifiers. Three generators are measured:
+ * one whose calls are serialized by a monitor, as getNextID() was before it
+ * stopped using locks, the plain atomic one and the one that hands out
+ * identifiers in per-thread blocks.
+ *
+ * When there are fewer processors than threads, the threads are time-sliced
+ * on the same processors, so the results show the cost of switching the
+ * monitor between threads and of scheduling, not the contention between
+ * processors. That is said in the output too.
+ *
+ * Usage: openSimMPLSIDGeneratorBench [-ids n] [-threads n]...
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class openSimMPLSIDGeneratorBench {
+
+    /**
+     * This method shows how to run the benchmark from the command line.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public static void showUsage() {
+        System.out.println("Usage: openSimMPLSIDGeneratorBench [-ids n] [-threads n]...");
+        System.out.println("  -ids n      Identifiers each thread gets. Default " + DEFAULT_IDS_PER_THREAD + ".");
+        System.out.println("  -threads n  Number of threads to be measured. Can be repeated. Default 1, 8, 16 and 32.");
+    }
+
+    /**
+     * This method runs the benchmark. It exits with status 0 if the block
+     * generator handed out unique identifiers, 1 if not and 2 if the
+     * arguments are not valid.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param args Arguments specified at command line.
+     * @since 2.0
+     */
+    public static void main(String args[]) {
+        int idsPerThread = DEFAULT_IDS_PER_THREAD;
+        int numbersOfThreads[] = new int[args.length];
+        int numberOfCounts = 0;
+        int i;
+        try {
+            for (i = 0; i < args.length; i++) {
+                if (args[i].equals("-ids") && (i + 1 < args.length)) {
+                    idsPerThread = Integer.parseInt(args[++i]);
+                    if (idsPerThread <= 0) {
+                        throw new NumberFormatException();
+                    }
+                } else if (args[i].equals("-threads") && (i + 1 < args.length)) {
+                    numbersOfThreads[numberOfCounts] = Integer.parseInt(args[++i]);
+                    if (numbersOfThreads[numberOfCounts] <= 0) {
+                        throw new NumberFormatException();
+                    }
+                    numberOfCounts++;
+                } else {
+                    throw new NumberFormatException();
+                }
+            }
+        } catch (NumberFormatException e) {
+            showUsage();
+            System.exit(2);
+        }
+        if (numberOfCounts == 0) {
+            numbersOfThreads = DEFAULT_NUMBERS_OF_THREADS;
+        } else {
+            numbersOfThreads = Arrays.copyOf(numbersOfThreads, numberOfCounts);
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        System.out.println(processors + " processors available, " + idsPerThread + " identifiers per thread, wall ns per identifier.");
+        if (processors == 1) {
+            System.out.println("With a single processor the threads are time-sliced: the rows with several threads do not measure contention between processors.");
+        }
+        // Warm up, so that the first row is not measured while interpreted.
+        for (i = 0; i < GENERATOR_NAMES.length; i++) {
+            measure(i, 2, idsPerThread);
+        }
+        System.out.println("threads  synchronized  atomic  blocks(" + TLongIDGenerator.TAMANIO_DE_BLOQUE_COMPARTIDO + ")");
+        for (i = 0; i < numbersOfThreads.length; i++) {
+            String line = String.format("%7d", numbersOfThreads[i]);
+            int j;
+            for (j = 0; j < GENERATOR_NAMES.length; j++) {
+                line += String.format("  %" + GENERATOR_NAMES[j].length() + ".1f", measure(j, numbersOfThreads[i], idsPerThread));
+            }
+            System.out.println(line);
+        }
+        int uniqueIDs = countUniqueIDs(UNIQUENESS_THREADS, UNIQUENESS_IDS_PER_THREAD);
+        System.out.println(UNIQUENESS_THREADS + " threads x " + UNIQUENESS_IDS_PER_THREAD + " identifiers from a block generator: " + uniqueIDs + " unique identifiers.");
+        System.exit((uniqueIDs == UNIQUENESS_THREADS * UNIQUENESS_IDS_PER_THREAD) ? 0 : 1);
+    }
+
+    /**
+     * This method measures a generator with the specified number of threads.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param generatorType SYNCHRONIZED, ATOMIC or BLOCKS.
+     * @param numberOfThreads Number of threads getting identifiers.
+     * @param idsPerThread Identifiers each thread gets.
+     * @return The wall-clock time per identifier, in nanoseconds.
+     * @since 2.0
+     */
+    private static double measure(final int generatorType, int numberOfThreads, final int idsPerThread) {
+        final TLongIDGenerator generator;
+        if (generatorType == BLOCKS) {
+            generator = new TLongIDGenerator(TLongIDGenerator.TAMANIO_DE_BLOQUE_COMPARTIDO);
+        } else {
+            generator = new TLongIDGenerator();
+        }
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread threads[] = new Thread[numberOfThreads];
+        int i;
+        for (i = 0; i < numberOfThreads; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        int j;
+                        if (generatorType == SYNCHRONIZED) {
+                            for (j = 0; j < idsPerThread; j++) {
+                                synchronized (generator) {
+                                    generator.getNextID();
+                                }
+                            }
+                        } else {
+                            for (j = 0; j < idsPerThread; j++) {
+                                generator.getNextID();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (EIDGeneratorOverflow e) {
+                        e.printStackTrace();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        long startTime = System.nanoTime();
+        start.countDown();
+        join(threads);
+        long wallTime = System.nanoTime() - startTime;
+        return ((double) wallTime) / ((double) numberOfThreads * idsPerThread);
+    }
+
+    /**
+     * This method gets identifiers from a block generator from several
+     * threads at the same time and counts how many different ones there are.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param numberOfThreads Number of threads getting identifiers.
+     * @param idsPerThread Identifiers each thread gets.
+     * @return The number of different identifiers.
+     * @since 2.0
+     */
+    private static int countUniqueIDs(int numberOfThreads, final int idsPerThread) {
+        final TLongIDGenerator generator = new TLongIDGenerator(TLongIDGenerator.TAMANIO_DE_BLOQUE_COMPARTIDO);
+        final long ids[] = new long[numberOfThreads * idsPerThread];
+        Thread threads[] = new Thread[numberOfThreads];
+        int i;
+        for (i = 0; i < numberOfThreads; i++) {
+            final int firstPosition = i * idsPerThread;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    int j;
+                    try {
+                        for (j = 0; j < idsPerThread; j++) {
+                            ids[firstPosition + j] = generator.getNextID();
+                        }
+                    } catch (EIDGeneratorOverflow e) {
+                        e.printStackTrace();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        join(threads);
+        Arrays.sort(ids);
+        int uniqueIDs = 0;
+        for (i = 0; i < ids.length; i++) {
+            if ((ids[i] > 0) && ((i == 0) || (ids[i] != ids[i - 1]))) {
+                uniqueIDs++;
+            }
+        }
+        return uniqueIDs;
+    }
+
+    /**
+     * This method waits until every thread has finished.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param threads The threads.
+     * @since 2.0
+     */
+    private static void join(Thread threads[]) {
+        int i;
+        for (i = 0; i < threads.length; i++) {
+            try {
+                threads[i].join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static final int SYNCHRONIZED = 0;
+    private static final int ATOMIC = 1;
+    private static final int BLOCKS = 2;
+    private static final String GENERATOR_NAMES[] = {"synchronized", "atomic", "blocks(" + TLongIDGenerator.TAMANIO_DE_BLOQUE_COMPARTIDO + ")"};
+    private static final int DEFAULT_NUMBERS_OF_THREADS[] = {1, 8, 16, 32};
+    private static final int DEFAULT_IDS_PER_THREAD = 1000000;
+    private static final int UNIQUENESS_THREADS = 16;
+    private static final int UNIQUENESS_IDS_PER_THREAD = 100000;
+}
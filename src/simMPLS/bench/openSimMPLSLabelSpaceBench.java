@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.bench;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import simMPLS.hardware.tldp.TSwitchingMatrix;
+import simMPLS.hardware.tldp.TSwitchingMatrixEntry;
+
+/**
+ * This class measures from the command line how long a switching matrix
+ * takes to allocate a new label when it already holds many live labels. The
+ * switching matrix is filled with label entries and then, many times, a
+ * random entry is removed and a new one is added with the label the
+ * switching matrix gives. As the labels in use are contiguous, the new label
+ * has to be the one just freed, and that is checked too.
+ *
+ * With -reference, a few allocations are also timed with the sequential
+ * search used before the label space existed, that tries every label from
+ * the first unreserved one and walks the whole switching matrix for each of
+ * them. It is quadratic in the number of live labels, so it is only run for
+ * 10.000 live labels.
+ *
+ * Usage: openSimMPLSLabelSpaceBench [-allocations n] [-reference]
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class openSimMPLSLabelSpaceBench {
+
+    /**
+     * This method shows how to run the benchmark from the command line.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public static void showUsage() {
+        System.out.println("Usage: openSimMPLSLabelSpaceBench [-allocations n] [-reference]");
+        System.out.println("  -allocations n  Allocations timed for each number of live labels. Default " + DEFAULT_ALLOCATIONS + ".");
+        System.out.println("  -reference      Time " + REFERENCE_ALLOCATIONS + " allocations with the former sequential search too, up to " + REFERENCE_MAX_LIVE_LABELS + " live labels.");
+    }
+
+    /**
+     * This method runs the benchmark for 10.000 and 100.000 live labels. It
+     * exits with status 0 if every allocated label was the expected one, 1 if
+     * not and 2 if the arguments are not valid.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param args Arguments specified at command line.
+     * @since 2.0
+     */
+    public static void main(String args[]) {
+        int allocations = DEFAULT_ALLOCATIONS;
+        boolean reference = false;
+        int i;
+        for (i = 0; i < args.length; i++) {
+            if (args[i].equals("-allocations") && (i + 1 < args.length)) {
+                try {
+                    allocations = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    allocations = 0;
+                }
+                if (allocations <= 0) {
+                    showUsage();
+                    System.exit(2);
+                }
+            } else if (args[i].equals("-reference")) {
+                reference = true;
+            } else {
+                showUsage();
+                System.exit(2);
+            }
+        }
+        // Warm up, so that the first size is not measured while interpreted.
+        run(WARM_UP_LIVE_LABELS, allocations, false, false);
+        int mismatches = 0;
+        for (i = 0; i < LIVE_LABELS.length; i++) {
+            mismatches += run(LIVE_LABELS[i], allocations, reference, true);
+        }
+        System.exit((mismatches == 0) ? 0 : 1);
+    }
+
+    /**
+     * This method fills a new switching matrix with the specified number of
+     * label entries and times the allocation of new labels while random
+     * entries are removed.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param liveLabels Number of labels in use during the measure.
+     * @param allocations Number of allocations to be timed.
+     * @param reference TRUE, to time the former sequential search too.
+     * @param report TRUE, to print the results.
+     * @return The number of allocations that did not return the expected
+     * label.
+     * @since 2.0
+     */
+    private static int run(int liveLabels, int allocations, boolean reference, boolean report) {
+        TSwitchingMatrix switchingMatrix = new TSwitchingMatrix();
+        int labels[] = new int[liveLabels];
+        int i;
+        for (i = 0; i < liveLabels; i++) {
+            labels[i] = switchingMatrix.getNewLabel();
+            switchingMatrix.addEntry(createEntry(labels[i], i));
+        }
+        Random random = new Random(RANDOM_SEED);
+        long latencies[] = new long[allocations];
+        int mismatches = 0;
+        int position;
+        int freedLabel;
+        int label;
+        long startTime;
+        for (i = 0; i < allocations; i++) {
+            position = random.nextInt(liveLabels);
+            freedLabel = labels[position];
+            switchingMatrix.removeEntry(INCOMING_PORT, freedLabel, TSwitchingMatrixEntry.LABEL_ENTRY);
+            startTime = System.nanoTime();
+            label = switchingMatrix.getNewLabel();
+            switchingMatrix.addEntry(createEntry(label, liveLabels + i));
+            latencies[i] = System.nanoTime() - startTime;
+            if (label != freedLabel) {
+                mismatches++;
+            }
+            labels[position] = label;
+        }
+        if (report) {
+            Arrays.sort(latencies);
+            long total = 0;
+            for (i = 0; i < allocations; i++) {
+                total += latencies[i];
+            }
+            System.out.println(liveLabels + " live labels: " + allocations + " allocations, mean " + (total / allocations) + " ns, median " + latencies[allocations / 2] + " ns, p99 " + latencies[(int) ((allocations - 1) * 0.99)] + " ns, " + mismatches + " unexpected labels");
+            if (reference && (liveLabels <= REFERENCE_MAX_LIVE_LABELS)) {
+                runReference(switchingMatrix, labels, random);
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * This method times a few allocations with the sequential search used
+     * before the label space existed.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param switchingMatrix The switching matrix, already filled.
+     * @param labels The labels in use.
+     * @param random The random generator used to choose the entries to be
+     * removed.
+     * @since 2.0
+     */
+    private static void runReference(TSwitchingMatrix switchingMatrix, int labels[], Random random) {
+        long total = 0;
+        long startTime;
+        int position;
+        int i;
+        for (i = 0; i < REFERENCE_ALLOCATIONS; i++) {
+            position = random.nextInt(labels.length);
+            switchingMatrix.removeEntry(INCOMING_PORT, labels[position], TSwitchingMatrixEntry.LABEL_ENTRY);
+            startTime = System.nanoTime();
+            labels[position] = getNewLabelSequentially(switchingMatrix);
+            total += System.nanoTime() - startTime;
+            switchingMatrix.addEntry(createEntry(labels[position], -1 - i));
+        }
+        System.out.println(labels.length + " live labels, sequential search: " + REFERENCE_ALLOCATIONS + " allocations, mean " + (total / REFERENCE_ALLOCATIONS / 1000000) + " ms");
+    }
+
+    /**
+     * This method looks for the lowest free label as the switching matrix did
+     * before the label space existed.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param switchingMatrix The switching matrix.
+     * @return The lowest label no label entry is using.
+     * @since 2.0
+     */
+    private static int getNewLabelSequentially(TSwitchingMatrix switchingMatrix) {
+        int label = TSwitchingMatrixEntry.FIRST_UNRESERVED_LABEL;
+        boolean labelIsUsed = true;
+        switchingMatrix.getMonitor().lock();
+        while (labelIsUsed && (label <= TSwitchingMatrixEntry.LABEL_SPACE)) {
+            labelIsUsed = false;
+            Iterator<?> iterator = switchingMatrix.getEntriesIterator();
+            while (!labelIsUsed && iterator.hasNext()) {
+                TSwitchingMatrixEntry switchingMatrixEntry = (TSwitchingMatrixEntry) iterator.next();
+                if ((switchingMatrixEntry.getLabelOrFEC() == label) && (switchingMatrixEntry.getEntryType() == TSwitchingMatrixEntry.LABEL_ENTRY)) {
+                    labelIsUsed = true;
+                }
+            }
+            if (labelIsUsed) {
+                label++;
+            }
+        }
+        switchingMatrix.getMonitor().unlock();
+        return label;
+    }
+
+    /**
+     * This method creates a label entry for the incoming port used by the
+     * benchmark.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param label The incoming label.
+     * @param localTLDPSessionID The local TLDP session ID of the entry, that
+     * is used as its upstream TLDP session ID too.
+     * @return The new switching entry.
+     * @since 2.0
+     */
+    private static TSwitchingMatrixEntry createEntry(int label, int localTLDPSessionID) {
+        TSwitchingMatrixEntry switchingMatrixEntry = new TSwitchingMatrixEntry();
+        switchingMatrixEntry.setIncomingPortID(INCOMING_PORT);
+        switchingMatrixEntry.setEntryType(TSwitchingMatrixEntry.LABEL_ENTRY);
+        switchingMatrixEntry.setLabelOrFEC(label);
+        switchingMatrixEntry.setLocalTLDPSessionID(localTLDPSessionID);
+        switchingMatrixEntry.setUpstreamTLDPSessionID(localTLDPSessionID);
+        return switchingMatrixEntry;
+    }
+
+    private static final int LIVE_LABELS[] = {10000, 100000};
+    private static final int WARM_UP_LIVE_LABELS = 10000;
+    private static final int DEFAULT_ALLOCATIONS = 200000;
+    private static final int REFERENCE_ALLOCATIONS = 3;
+    private static final int REFERENCE_MAX_LIVE_LABELS = 10000;
+    private static final int INCOMING_PORT = 0;
+    private static final long RANDOM_SEED = 1L;
+}
@@ -15,12 +15,13 @@
  */
 package simMPLS.hardware.dmgp;
 
+import java.io.Serializable;
 import java.util.Iterator;
 import java.util.TreeSet;
 import simMPLS.protocols.TAbstractPDU;
 import simMPLS.protocols.TMPLSPDU;
 import simMPLS.utils.TRotaryIDGenerator;
-import simMPLS.utils.TMonitor;
+import simMPLS.utils.TLock;
 
 /**
  * This class implements a DMGP memory to save GoS-aware PDUs temporarily.
@@ -28,7 +29,7 @@ import simMPLS.utils.TMonitor;
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public class TDMGP {
+public class TDMGP implements Serializable {
 
     /**
      * This method is the class constructor. It creates a new instance of TDMGP
@@ -38,7 +39,7 @@ public class TDMGP {
      * @since 2.0
      */
     public TDMGP() {
-        this.monitor = new TMonitor();
+        this.monitor = new TLock("TDMGP.monitor");
         this.idGenerator = new TRotaryIDGenerator();
         this.flows = new TreeSet();
         this.totalAvailablePercentage = 100;
@@ -89,11 +90,11 @@ public class TDMGP {
                 dmgpEntry = (TDMGPEntry) it.next();
                 if (dmgpEntry.getPacketID() == packetID) {
                     wantedPacket = dmgpEntry.getPacket();
-                    this.monitor.unLock();
+                    this.monitor.unlock();
                     return wantedPacket;
                 }
             }
-            this.monitor.unLock();
+            this.monitor.unlock();
         }
         return null;
     }
@@ -128,7 +129,7 @@ public class TDMGP {
         this.monitor = null;
         this.idGenerator = null;
         this.flows = null;
-        this.monitor = new TMonitor();
+        this.monitor = new TLock("TDMGP.monitor");
         this.idGenerator = new TRotaryIDGenerator();
         this.flows = new TreeSet();
         this.totalAvailablePercentage = 100;
@@ -153,11 +154,11 @@ public class TDMGP {
         while (ite.hasNext()) {
             dmgpFlowEntry = (TDMGPFlowEntry) ite.next();
             if (dmgpFlowEntry.getFlowID() == idf) {
-                this.monitor.unLock();
+                this.monitor.unlock();
                 return dmgpFlowEntry;
             }
         }
-        this.monitor.unLock();
+        this.monitor.unlock();
         return null;
     }
 
@@ -178,11 +179,11 @@ public class TDMGP {
                 dmgpFlowEntry.setAssignedPercentage(percentageToBeAssigned);
                 dmgpFlowEntry.setAssignedOctects(octectsToBeAssigned);
                 flows.add(dmgpFlowEntry);
-                this.monitor.unLock();
+                this.monitor.unlock();
                 return dmgpFlowEntry;
             }
         }
-        this.monitor.unLock();
+        this.monitor.unlock();
         return null;
     }
 
@@ -247,7 +248,8 @@ public class TDMGP {
         return 1;
     }
 
-    private TMonitor monitor;
+    private static final long serialVersionUID = 1L;
+    private TLock monitor;
     private TRotaryIDGenerator idGenerator;
     private TreeSet flows;
     private int totalAvailablePercentage;
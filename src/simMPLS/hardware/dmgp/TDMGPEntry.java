@@ -15,6 +15,7 @@
  */
 package simMPLS.hardware.dmgp;
 
+import java.io.Serializable;
 import simMPLS.protocols.TMPLSPDU;
 
 /**
@@ -24,7 +25,7 @@ import simMPLS.protocols.TMPLSPDU;
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public class TDMGPEntry implements Comparable {
+public class TDMGPEntry implements Comparable, Serializable {
 
     /**
      * This method is the constructor. It creates a new instance of TDMGPEntry
@@ -122,6 +123,7 @@ public class TDMGPEntry implements Comparable {
         return TDMGPEntry.ESTE_IGUAL;
     }
 
+    private static final long serialVersionUID = 1L;
     private static final int ESTE_MENOR = -1;
     private static final int ESTE_IGUAL = 0;
     private static final int ESTE_MAYOR = 1;
@@ -15,11 +15,12 @@
  */
 package simMPLS.hardware.dmgp;
 
+import java.io.Serializable;
 import java.util.Iterator;
 import java.util.TreeSet;
 import simMPLS.protocols.TMPLSPDU;
 import simMPLS.utils.TRotaryIDGenerator;
-import simMPLS.utils.TMonitor;
+import simMPLS.utils.TLock;
 
 /**
  * This class implements a flow entry for the DMGP memory.
@@ -27,7 +28,7 @@ import simMPLS.utils.TMonitor;
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public class TDMGPFlowEntry implements Comparable {
+public class TDMGPFlowEntry implements Comparable, Serializable {
 
     /**
      * This method is the constructor. It creates a new TDMGPFlowEntry
@@ -44,7 +45,7 @@ public class TDMGPFlowEntry implements Comparable {
         this.assignedOctects = 0;
         this.usedOctects = 0;
         this.entries = new TreeSet();
-        this.monitor = new TMonitor();
+        this.monitor = new TLock("TDMGPFlowEntry.monitor");
         this.idGenerator = new TRotaryIDGenerator();
     }
 
@@ -166,7 +167,7 @@ public class TDMGPFlowEntry implements Comparable {
      * @since 2.0
      * @return The monitor of this flow.
      */
-    public TMonitor getMonitor() {
+    public TLock getMonitor() {
         return this.monitor;
     }
 
@@ -211,7 +212,7 @@ public class TDMGPFlowEntry implements Comparable {
                 packet = null;
             }
         }
-        this.monitor.unLock();
+        this.monitor.unlock();
     }
 
     /**
@@ -236,6 +237,7 @@ public class TDMGPFlowEntry implements Comparable {
         return TDMGPFlowEntry.THIS_EQUAL;
     }
 
+    private static final long serialVersionUID = 1L;
     private static final int THIS_LOWER = -1;
     private static final int THIS_EQUAL = 0;
     private static final int THIS_GREATER = 1;
@@ -246,6 +248,6 @@ public class TDMGPFlowEntry implements Comparable {
     private int assignedOctects;
     private int usedOctects;
     private TreeSet entries;
-    private TMonitor monitor;
+    private TLock monitor;
     private TRotaryIDGenerator idGenerator;
 }
@@ -15,6 +15,7 @@
  */
 package simMPLS.hardware.dmgp;
 
+import java.io.Serializable;
 import java.util.LinkedList;
 
 /**
@@ -24,7 +25,7 @@ import java.util.LinkedList;
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public class TGPSRPRequestEntry implements Comparable {
+public class TGPSRPRequestEntry implements Comparable, Serializable {
 
     /**
      * This is the class constructor. Implements a new instance of
@@ -263,6 +264,7 @@ public class TGPSRPRequestEntry implements Comparable {
         return TGPSRPRequestEntry.THIS_EQUAL;
     }
 
+    private static final long serialVersionUID = 1L;
     private static final int THIS_LOWER = -1;
     private static final int THIS_EQUAL = 0;
     private static final int THIS_GREATER = 1;
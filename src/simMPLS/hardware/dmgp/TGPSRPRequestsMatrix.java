@@ -15,11 +15,12 @@
  */
 package simMPLS.hardware.dmgp;
 
+import java.io.Serializable;
 import java.util.Iterator;
 import java.util.TreeSet;
 import simMPLS.protocols.TMPLSPDU;
 import simMPLS.utils.TRotaryIDGenerator;
-import simMPLS.utils.TMonitor;
+import simMPLS.utils.TLock;
 
 /**
  * This class implements a table where received requests for retrnasmission will
@@ -28,7 +29,7 @@ import simMPLS.utils.TMonitor;
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public class TGPSRPRequestsMatrix {
+public class TGPSRPRequestsMatrix implements Serializable {
 
     /**
      * This is the class constructor. It creates a new instance of
@@ -40,7 +41,7 @@ public class TGPSRPRequestsMatrix {
     public TGPSRPRequestsMatrix() {
         this.entries = new TreeSet();
         this.idGenerator = new TRotaryIDGenerator();
-        this.monitor = new TMonitor();
+        this.monitor = new TLock("TGPSRPRequestsMatrix.monitor");
     }
 
     /**
@@ -56,7 +57,7 @@ public class TGPSRPRequestsMatrix {
         this.monitor = null;
         this.entries = new TreeSet();
         this.idGenerator = new TRotaryIDGenerator();
-        this.monitor = new TMonitor();
+        this.monitor = new TLock("TGPSRPRequestsMatrix.monitor");
     }
 
     /**
@@ -78,7 +79,7 @@ public class TGPSRPRequestsMatrix {
                 gpsrpRequestEntry.setOutgoingPort(newOutgoingPort);
             }
         }
-        this.monitor.unLock();
+        this.monitor.unlock();
     }
 
     /**
@@ -100,7 +101,7 @@ public class TGPSRPRequestsMatrix {
                 iterator.remove();
             }
         }
-        this.monitor.unLock();
+        this.monitor.unlock();
     }
 
     /**
@@ -130,7 +131,7 @@ public class TGPSRPRequestsMatrix {
             }
         }
         entries.add(gpsrpRequestEntry);
-        this.monitor.unLock();
+        this.monitor.unlock();
         return gpsrpRequestEntry;
     }
 
@@ -154,7 +155,7 @@ public class TGPSRPRequestsMatrix {
                 }
             }
         }
-        this.monitor.unLock();
+        this.monitor.unlock();
     }
 
     /**
@@ -174,12 +175,12 @@ public class TGPSRPRequestsMatrix {
             gpsrpRequestEntry = (TGPSRPRequestEntry) iterator.next();
             if (gpsrpRequestEntry.getFlowID() == flowID) {
                 if (gpsrpRequestEntry.getPacketID() == packetID) {
-                    this.monitor.unLock();
+                    this.monitor.unlock();
                     return gpsrpRequestEntry;
                 }
             }
         }
-        this.monitor.unLock();
+        this.monitor.unlock();
         return null;
     }
 
@@ -202,7 +203,7 @@ public class TGPSRPRequestsMatrix {
                 gpsrpRequestEntry.resetTimeout();
             }
         }
-        this.monitor.unLock();
+        this.monitor.unlock();
     }
 
     /**
@@ -220,7 +221,7 @@ public class TGPSRPRequestsMatrix {
             gpsrpRequestEntry = (TGPSRPRequestEntry) iterator.next();
             gpsrpRequestEntry.decreaseTimeout(nanoseconds);
         }
-        this.monitor.unLock();
+        this.monitor.unlock();
     }
 
     /**
@@ -240,12 +241,12 @@ public class TGPSRPRequestsMatrix {
             gpsrpRequestEntry = (TGPSRPRequestEntry) iterator.next();
             if (gpsrpRequestEntry.getFlowID() == flowID) {
                 if (gpsrpRequestEntry.getPacketID() == packetID) {
-                    this.monitor.unLock();
+                    this.monitor.unlock();
                     return gpsrpRequestEntry.getOutgoingPort();
                 }
             }
         }
-        this.monitor.unLock();
+        this.monitor.unlock();
         return -1;
     }
 
@@ -268,12 +269,12 @@ public class TGPSRPRequestsMatrix {
             gpsrpRequestEntry = (TGPSRPRequestEntry) iterator.next();
             if (gpsrpRequestEntry.getFlowID() == flowID) {
                 if (gpsrpRequestEntry.getPacketID() == packetID) {
-                    this.monitor.unLock();
+                    this.monitor.unlock();
                     return gpsrpRequestEntry.getCrossedNodeIPv4();
                 }
             }
         }
-        this.monitor.unLock();
+        this.monitor.unlock();
         return null;
     }
 
@@ -288,6 +289,22 @@ public class TGPSRPRequestsMatrix {
         return entries.iterator();
     }
 
+    /**
+     * This method checks whether there is any pending GPSRP request in the
+     * table.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return TRUE, if there is no pending GPSRP request. Otherwise, returns
+     * FALSE.
+     * @since 2.0
+     */
+    public boolean isEmpty() {
+        this.monitor.lock();
+        boolean isEmpty = this.entries.isEmpty();
+        this.monitor.unlock();
+        return isEmpty;
+    }
+
     /**
      * This method allow accesing the sync monitor of this table.
      *
@@ -295,10 +312,11 @@ public class TGPSRPRequestsMatrix {
      * @return Sync monitor of the table.
      * @since 2.0
      */
-    public TMonitor getMonitor() {
+    public TLock getMonitor() {
         return this.monitor;
     }
 
+    private static final long serialVersionUID = 1L;
     /**
      * Timer used to know when a retransmission request should be retried.
      *
@@ -314,5 +332,5 @@ public class TGPSRPRequestsMatrix {
 
     private TreeSet entries;
     private TRotaryIDGenerator idGenerator;
-    private TMonitor monitor;
+    private TLock monitor;
 }
@@ -15,15 +15,12 @@
  */
 package simMPLS.hardware.ports;
 
-import java.util.Iterator;
-import java.util.TreeSet;
 import simMPLS.scenario.TSEPacketReceived;
+import simMPLS.scenario.TSimulationEvent;
 import simMPLS.scenario.TStats;
 import simMPLS.scenario.TNode;
 import simMPLS.protocols.TAbstractPDU;
 import simMPLS.protocols.TMPLSPDU;
-import simMPLS.utils.TRotaryIDGenerator;
-import simMPLS.utils.TMonitor;
 
 /**
  * This class implements an active port. Active ports will be available in
@@ -49,40 +46,8 @@ public class TActivePort extends TPort {
         super(parentSetOfActivePorts, portID);
         this.packetRead = null;
         this.isUnlimitedBuffer = false;
-        this.rotaryIdentifierGenerator = new TRotaryIDGenerator();
-        this.priority0Monitor = new TMonitor();
-        this.priority1Monitor = new TMonitor();
-        this.priority2Monitor = new TMonitor();
-        this.priority3Monitor = new TMonitor();
-        this.priority4Monitor = new TMonitor();
-        this.priority5Monitor = new TMonitor();
-        this.priority6Monitor = new TMonitor();
-        this.priority7Monitor = new TMonitor();
-        this.priority8Monitor = new TMonitor();
-        this.priority9Monitor = new TMonitor();
-        this.priority10Monitor = new TMonitor();
-
-        this.priority0Buffer = new TreeSet();
-        this.priority1Buffer = new TreeSet();
-        this.priority2Buffer = new TreeSet();
-        this.priority3Buffer = new TreeSet();
-        this.priority4Buffer = new TreeSet();
-        this.priority5Buffer = new TreeSet();
-        this.priority6Buffer = new TreeSet();
-        this.priority7Buffer = new TreeSet();
-        this.priority8Buffer = new TreeSet();
-        this.priority9Buffer = new TreeSet();
-        this.priority10Buffer = new TreeSet();
-
-        this.selectedBuffer = 0;
+        this.buffer = new TActivePortBuffer();
         this.nextPacketToBeRead = null;
-        this.maxReadsOfBuffer = new int[11];
-        this.currentReadsOfBuffer = new int[11];
-        int i;
-        for (i = 0; i < 11; i++) {
-            this.maxReadsOfBuffer[i] = i + 1;
-            this.currentReadsOfBuffer[i] = 0;
-        }
     }
 
     /**
@@ -114,259 +79,16 @@ public class TActivePort extends TPort {
      * This method prepares the next read that follow this scheme. And, in case
      * of existing only best effort traffic without gosLevel requirements, the
      * port works as a traditional one, dispatching one packet per cicle
-     * followin a FIFO paradigm.
+     * followin a FIFO paradigm. The selection itself is done by the
+     * multi-level queue of the port, in a number of steps that does not depend
+     * on the number of packets waiting.
      *
      * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
      * @since 2.0
      */
     private void doPrioritizedRoundRobinPacketSelection() {
-        boolean end = false;
-        int numberOfEmptyBuffers = 0;
-        int numberOfBuffersAlreadyRead = 0;
-        Iterator iterator = null;
-        TActivePortBufferEntry activePortBufferEntry = null;
         if (this.nextPacketToBeRead == null) {
-            while ((!end) && (numberOfEmptyBuffers < 12)) {
-                if (this.selectedBuffer == 10) {
-                    if (this.priority10Buffer.size() > 0) {
-                        if (this.currentReadsOfBuffer[10] < this.maxReadsOfBuffer[10]) {
-                            this.priority10Monitor.lock();
-                            iterator = priority10Buffer.iterator();
-                            if (iterator.hasNext()) {
-                                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                                this.nextPacketToBeRead = activePortBufferEntry.getPacket();
-                                iterator.remove();
-                            }
-                            this.priority10Monitor.unLock();
-                            this.currentReadsOfBuffer[10]++;
-                            end = true;
-                        } else {
-                            numberOfBuffersAlreadyRead++;
-                        }
-                    } else {
-                        this.currentReadsOfBuffer[10] = this.maxReadsOfBuffer[10];
-                        numberOfBuffersAlreadyRead++;
-                        numberOfEmptyBuffers++;
-                    }
-                } else if (this.selectedBuffer == 9) {
-                    if (this.priority9Buffer.size() > 0) {
-                        if (this.currentReadsOfBuffer[9] < this.maxReadsOfBuffer[9]) {
-                            this.priority9Monitor.lock();
-                            iterator = this.priority9Buffer.iterator();
-                            if (iterator.hasNext()) {
-                                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                                this.nextPacketToBeRead = activePortBufferEntry.getPacket();
-                                iterator.remove();
-                            }
-                            this.priority9Monitor.unLock();
-                            this.currentReadsOfBuffer[9]++;
-                            end = true;
-                        } else {
-                            numberOfBuffersAlreadyRead++;
-                        }
-                    } else {
-                        this.currentReadsOfBuffer[9] = this.maxReadsOfBuffer[9];
-                        numberOfBuffersAlreadyRead++;
-                        numberOfEmptyBuffers++;
-                    }
-                } else if (this.selectedBuffer == 8) {
-                    if (this.priority8Buffer.size() > 0) {
-                        if (this.currentReadsOfBuffer[8] < this.maxReadsOfBuffer[8]) {
-                            this.priority8Monitor.lock();
-                            iterator = this.priority8Buffer.iterator();
-                            if (iterator.hasNext()) {
-                                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                                this.nextPacketToBeRead = activePortBufferEntry.getPacket();
-                                iterator.remove();
-                            }
-                            this.priority8Monitor.unLock();
-                            this.currentReadsOfBuffer[8]++;
-                            end = true;
-                        } else {
-                            numberOfBuffersAlreadyRead++;
-                        }
-                    } else {
-                        this.currentReadsOfBuffer[8] = this.maxReadsOfBuffer[8];
-                        numberOfBuffersAlreadyRead++;
-                        numberOfEmptyBuffers++;
-                    }
-                } else if (this.selectedBuffer == 7) {
-                    if (this.priority7Buffer.size() > 0) {
-                        if (this.currentReadsOfBuffer[7] < this.maxReadsOfBuffer[7]) {
-                            this.priority7Monitor.lock();
-                            iterator = this.priority7Buffer.iterator();
-                            if (iterator.hasNext()) {
-                                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                                this.nextPacketToBeRead = activePortBufferEntry.getPacket();
-                                iterator.remove();
-                            }
-                            this.priority7Monitor.unLock();
-                            this.currentReadsOfBuffer[7]++;
-                            end = true;
-                        } else {
-                            numberOfBuffersAlreadyRead++;
-                        }
-                    } else {
-                        this.currentReadsOfBuffer[7] = this.maxReadsOfBuffer[7];
-                        numberOfBuffersAlreadyRead++;
-                        numberOfEmptyBuffers++;
-                    }
-                } else if (this.selectedBuffer == 6) {
-                    if (this.priority6Buffer.size() > 0) {
-                        if (this.currentReadsOfBuffer[6] < this.maxReadsOfBuffer[6]) {
-                            this.priority6Monitor.lock();
-                            iterator = this.priority6Buffer.iterator();
-                            if (iterator.hasNext()) {
-                                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                                this.nextPacketToBeRead = activePortBufferEntry.getPacket();
-                                iterator.remove();
-                            }
-                            this.priority6Monitor.unLock();
-                            this.currentReadsOfBuffer[6]++;
-                            end = true;
-                        } else {
-                            numberOfBuffersAlreadyRead++;
-                        }
-                    } else {
-                        this.currentReadsOfBuffer[6] = this.maxReadsOfBuffer[6];
-                        numberOfBuffersAlreadyRead++;
-                        numberOfEmptyBuffers++;
-                    }
-                } else if (this.selectedBuffer == 5) {
-                    if (this.priority5Buffer.size() > 0) {
-                        if (this.currentReadsOfBuffer[5] < this.maxReadsOfBuffer[5]) {
-                            this.priority5Monitor.lock();
-                            iterator = this.priority5Buffer.iterator();
-                            if (iterator.hasNext()) {
-                                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                                this.nextPacketToBeRead = activePortBufferEntry.getPacket();
-                                iterator.remove();
-                            }
-                            this.priority5Monitor.unLock();
-                            this.currentReadsOfBuffer[5]++;
-                            end = true;
-                        } else {
-                            numberOfBuffersAlreadyRead++;
-                        }
-                    } else {
-                        this.currentReadsOfBuffer[5] = this.maxReadsOfBuffer[5];
-                        numberOfBuffersAlreadyRead++;
-                        numberOfEmptyBuffers++;
-                    }
-                } else if (this.selectedBuffer == 4) {
-                    if (this.priority4Buffer.size() > 0) {
-                        if (this.currentReadsOfBuffer[4] < this.maxReadsOfBuffer[4]) {
-                            this.priority4Monitor.lock();
-                            iterator = this.priority4Buffer.iterator();
-                            if (iterator.hasNext()) {
-                                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                                this.nextPacketToBeRead = activePortBufferEntry.getPacket();
-                                iterator.remove();
-                            }
-                            this.priority4Monitor.unLock();
-                            this.currentReadsOfBuffer[4]++;
-                            end = true;
-                        } else {
-                            numberOfBuffersAlreadyRead++;
-                        }
-                    } else {
-                        this.currentReadsOfBuffer[4] = this.maxReadsOfBuffer[4];
-                        numberOfBuffersAlreadyRead++;
-                        numberOfEmptyBuffers++;
-                    }
-                } else if (this.selectedBuffer == 3) {
-                    if (this.priority3Buffer.size() > 0) {
-                        if (this.currentReadsOfBuffer[3] < this.maxReadsOfBuffer[3]) {
-                            this.priority3Monitor.lock();
-                            iterator = this.priority3Buffer.iterator();
-                            if (iterator.hasNext()) {
-                                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                                this.nextPacketToBeRead = activePortBufferEntry.getPacket();
-                                iterator.remove();
-                            }
-                            this.priority3Monitor.unLock();
-                            this.currentReadsOfBuffer[3]++;
-                            end = true;
-                        } else {
-                            numberOfBuffersAlreadyRead++;
-                        }
-                    } else {
-                        this.currentReadsOfBuffer[3] = this.maxReadsOfBuffer[3];
-                        numberOfBuffersAlreadyRead++;
-                        numberOfEmptyBuffers++;
-                    }
-                } else if (this.selectedBuffer == 2) {
-                    if (this.priority2Buffer.size() > 0) {
-                        if (this.currentReadsOfBuffer[2] < this.maxReadsOfBuffer[2]) {
-                            this.priority2Monitor.lock();
-                            iterator = this.priority2Buffer.iterator();
-                            if (iterator.hasNext()) {
-                                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                                this.nextPacketToBeRead = activePortBufferEntry.getPacket();
-                                iterator.remove();
-                            }
-                            this.priority2Monitor.unLock();
-                            this.currentReadsOfBuffer[2]++;
-                            end = true;
-                        } else {
-                            numberOfBuffersAlreadyRead++;
-                        }
-                    } else {
-                        this.currentReadsOfBuffer[2] = this.maxReadsOfBuffer[2];
-                        numberOfBuffersAlreadyRead++;
-                        numberOfEmptyBuffers++;
-                    }
-                } else if (this.selectedBuffer == 1) {
-                    if (this.priority1Buffer.size() > 0) {
-                        if (this.currentReadsOfBuffer[1] < this.maxReadsOfBuffer[1]) {
-                            this.priority1Monitor.lock();
-                            iterator = this.priority1Buffer.iterator();
-                            if (iterator.hasNext()) {
-                                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                                this.nextPacketToBeRead = activePortBufferEntry.getPacket();
-                                iterator.remove();
-                            }
-                            this.priority1Monitor.unLock();
-                            this.currentReadsOfBuffer[1]++;
-                            end = true;
-                        } else {
-                            numberOfBuffersAlreadyRead++;
-                        }
-                    } else {
-                        this.currentReadsOfBuffer[1] = this.maxReadsOfBuffer[1];
-                        numberOfBuffersAlreadyRead++;
-                        numberOfEmptyBuffers++;
-                    }
-                } else if (this.selectedBuffer == 0) {
-                    if (this.priority0Buffer.size() > 0) {
-                        if (this.currentReadsOfBuffer[0] < this.maxReadsOfBuffer[0]) {
-                            this.priority0Monitor.lock();
-                            iterator = this.priority0Buffer.iterator();
-                            if (iterator.hasNext()) {
-                                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                                this.nextPacketToBeRead = activePortBufferEntry.getPacket();
-                                iterator.remove();
-                            }
-                            this.priority0Monitor.unLock();
-                            this.currentReadsOfBuffer[0]++;
-                            end = true;
-                        } else {
-                            numberOfBuffersAlreadyRead++;
-                        }
-                    } else {
-                        this.currentReadsOfBuffer[0] = this.maxReadsOfBuffer[0];
-                        numberOfBuffersAlreadyRead++;
-                        numberOfEmptyBuffers++;
-                    }
-                }
-                this.selectedBuffer = ((this.selectedBuffer + 1) % 11);
-                if (numberOfBuffersAlreadyRead >= 11) {
-                    int i;
-                    for (i = 0; i < 11; i++) {
-                        this.currentReadsOfBuffer[i] = 0;
-                    }
-                }
-            }
+            this.nextPacketToBeRead = this.buffer.selectNextPacket();
         }
     }
 
@@ -389,10 +111,10 @@ public class TActivePort extends TPort {
         this.doPrioritizedRoundRobinPacketSelection();
         if (this.nextPacketToBeRead != null) {
             priorityAux = this.loadPacketPriority(this.nextPacketToBeRead);
-            this.monitor.unLock();
+            this.monitor.unlock();
             return priorityAux;
         }
-        this.monitor.unLock();
+        this.monitor.unlock();
         return -1;
     }
 
@@ -435,21 +157,23 @@ public class TActivePort extends TPort {
         monitor.lock();
         TNode parentNode = this.parentPortSet.getParentNode();
         long eventID = 0;
-        int packetOrder = 0;
         int priority = this.loadPacketPriority(packet);
-        try {
-            eventID = parentNode.longIdentifierGenerator.getNextID();
-            packetOrder = this.rotaryIdentifierGenerator.getNextID();
-        } catch (Exception ex) {
-            ex.printStackTrace();
+        boolean packetReceivedWanted = parentNode.isSimulationEventWanted(TSimulationEvent.PACKET_RECEIVED);
+        if (packetReceivedWanted) {
+            try {
+                eventID = parentNode.longIdentifierGenerator.getNextID();
+            } catch (Exception ex) {
+                ex.printStackTrace();
+            }
         }
         int packetSubtype = packet.getSubtype();
         if (this.isUnlimitedBuffer) {
-            TActivePortBufferEntry activePortBufferEntry = new TActivePortBufferEntry(priority, packetOrder, packet);
-            this.addPrioritizedBufferEntry(activePortBufferEntry);
+            this.addPrioritizedPacket(priority, packet);
             parentPortSetAux.increasePortSetOccupancy(packet.getSize());
-            TSEPacketReceived packetReceivedEvent = new TSEPacketReceived(parentNode, eventID, this.getPortSet().getParentNode().getAvailableTime(), packetSubtype, packet.getSize());
-            parentNode.simulationEventsListener.captureSimulationEvents(packetReceivedEvent);
+            if (packetReceivedWanted) {
+                TSEPacketReceived packetReceivedEvent = new TSEPacketReceived(parentNode, eventID, this.getPortSet().getParentNode().getAvailableTime(), packetSubtype, packet.getSize());
+                parentNode.simulationEventsListener.captureSimulationEvents(packetReceivedEvent);
+            }
             if (this.getPortSet().getParentNode().getStats() != null) {
                 this.getPortSet().getParentNode().getStats().addStatEntry(packet, TStats.INCOMING);
             }
@@ -458,8 +182,8 @@ public class TActivePort extends TPort {
                 this.discardPacket(packet);
             }
         }
-        monitor.unLock();
-        parentPortSetAux.portSetMonitor.unLock();
+        monitor.unlock();
+        parentPortSetAux.portSetMonitor.unlock();
     }
 
     /**
@@ -488,22 +212,24 @@ public class TActivePort extends TPort {
     public boolean runEarlyPacketCatchAndDiscard(TAbstractPDU packet) {
         TActivePortSet parentPortSetAux = (TActivePortSet) parentPortSet;
         long eventID = 0;
-        int packetOrder = 0;
         int packetPriority = this.loadPacketPriority(packet);
         TNode parentNode = this.parentPortSet.getParentNode();
-        try {
-            eventID = parentNode.longIdentifierGenerator.getNextID();
-            packetOrder = this.rotaryIdentifierGenerator.getNextID();
-        } catch (Exception ex) {
-            ex.printStackTrace();
+        boolean packetReceivedWanted = parentNode.isSimulationEventWanted(TSimulationEvent.PACKET_RECEIVED);
+        if (packetReceivedWanted) {
+            try {
+                eventID = parentNode.longIdentifierGenerator.getNextID();
+            } catch (Exception ex) {
+                ex.printStackTrace();
+            }
         }
         int packetSubtype = packet.getSubtype();
         if ((parentPortSetAux.getPortSetOccupancy() + packet.getSize()) <= ((parentPortSetAux.getBufferSizeInMBytes() * 1024 * 1024) - EPCD_THRESHOLD)) {
-            TActivePortBufferEntry activePortBufferEntry = new TActivePortBufferEntry(packetPriority, packetOrder, packet);
-            this.addPrioritizedBufferEntry(activePortBufferEntry);
+            this.addPrioritizedPacket(packetPriority, packet);
             parentPortSetAux.increasePortSetOccupancy(packet.getSize());
-            TSEPacketReceived packetReceivedEvent = new TSEPacketReceived(parentNode, eventID, this.getPortSet().getParentNode().getAvailableTime(), packetSubtype, packet.getSize());
-            parentNode.simulationEventsListener.captureSimulationEvents(packetReceivedEvent);
+            if (packetReceivedWanted) {
+                TSEPacketReceived packetReceivedEvent = new TSEPacketReceived(parentNode, eventID, this.getPortSet().getParentNode().getAvailableTime(), packetSubtype, packet.getSize());
+                parentNode.simulationEventsListener.captureSimulationEvents(packetReceivedEvent);
+            }
             if (this.getPortSet().getParentNode().getStats() != null) {
                 this.getPortSet().getParentNode().getStats().addStatEntry(packet, TStats.INCOMING);
             }
@@ -516,53 +242,8 @@ public class TActivePort extends TPort {
         return false;
     }
 
-    private void addPrioritizedBufferEntry(TActivePortBufferEntry activePortBufferEntry) {
-        int priorityAux = activePortBufferEntry.getPriority();
-        if (priorityAux == TActivePort.PRIORITY_10) {
-            this.priority10Monitor.lock();
-            this.priority10Buffer.add(activePortBufferEntry);
-            this.priority10Monitor.unLock();
-        } else if (priorityAux == TActivePort.PRIORITY_9) {
-            this.priority9Monitor.lock();
-            this.priority9Buffer.add(activePortBufferEntry);
-            this.priority9Monitor.unLock();
-        } else if (priorityAux == TActivePort.PRIORITY_8) {
-            this.priority8Monitor.lock();
-            this.priority8Buffer.add(activePortBufferEntry);
-            this.priority8Monitor.unLock();
-        } else if (priorityAux == TActivePort.PRIORITY_7) {
-            this.priority7Monitor.lock();
-            this.priority7Buffer.add(activePortBufferEntry);
-            this.priority7Monitor.unLock();
-        } else if (priorityAux == TActivePort.PRIORITY_6) {
-            this.priority6Monitor.lock();
-            this.priority6Buffer.add(activePortBufferEntry);
-            this.priority6Monitor.unLock();
-        } else if (priorityAux == TActivePort.PRIORITY_5) {
-            this.priority5Monitor.lock();
-            this.priority5Buffer.add(activePortBufferEntry);
-            this.priority5Monitor.unLock();
-        } else if (priorityAux == TActivePort.PRIORITY_4) {
-            this.priority4Monitor.lock();
-            this.priority4Buffer.add(activePortBufferEntry);
-            this.priority4Monitor.unLock();
-        } else if (priorityAux == TActivePort.PRIORITY_3) {
-            this.priority3Monitor.lock();
-            this.priority3Buffer.add(activePortBufferEntry);
-            this.priority3Monitor.unLock();
-        } else if (priorityAux == TActivePort.PRIORITY_2) {
-            this.priority2Monitor.lock();
-            this.priority2Buffer.add(activePortBufferEntry);
-            this.priority2Monitor.unLock();
-        } else if (priorityAux == TActivePort.PRIORITY_1) {
-            this.priority1Monitor.lock();
-            this.priority1Buffer.add(activePortBufferEntry);
-            this.priority1Monitor.unLock();
-        } else if (priorityAux == TActivePort.WITHOUT_PRIORITY) {
-            this.priority0Monitor.lock();
-            this.priority0Buffer.add(activePortBufferEntry);
-            this.priority0Monitor.unLock();
-        }
+    private void addPrioritizedPacket(int priority, TAbstractPDU packet) {
+        this.buffer.enqueue(priority, packet);
     }
 
     private int loadPacketPriority(TAbstractPDU packet) {
@@ -656,31 +337,20 @@ public class TActivePort extends TPort {
         parentPortSetAux.portSetMonitor.lock();
         this.monitor.lock();
         TNode parentNode = this.parentPortSet.getParentNode();
-        long eventID = 0;
-        int packetOrder = 0;
         int packetPriority = this.loadPacketPriority(packet);
-        try {
-            eventID = parentNode.longIdentifierGenerator.getNextID();
-            packetOrder = this.rotaryIdentifierGenerator.getNextID();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        int packetSubtype = packet.getSubtype();
         if (this.isUnlimitedBuffer) {
-            TActivePortBufferEntry activePortBufferEntry = new TActivePortBufferEntry(packetPriority, packetOrder, packet);
-            this.addPrioritizedBufferEntry(activePortBufferEntry);
+            this.addPrioritizedPacket(packetPriority, packet);
             parentPortSetAux.increasePortSetOccupancy(packet.getSize());
         } else {
             if ((parentPortSetAux.getPortSetOccupancy() + packet.getSize()) <= (parentPortSetAux.getBufferSizeInMBytes() * 1024 * 1024)) {
-                TActivePortBufferEntry activePortBufferEntry = new TActivePortBufferEntry(packetPriority, packetOrder, packet);
-                this.addPrioritizedBufferEntry(activePortBufferEntry);
+                this.addPrioritizedPacket(packetPriority, packet);
                 parentPortSetAux.increasePortSetOccupancy(packet.getSize());
             } else {
                 this.discardPacket(packet);
             }
         }
-        this.monitor.unLock();
-        parentPortSetAux.portSetMonitor.unLock();
+        this.monitor.unlock();
+        parentPortSetAux.portSetMonitor.unlock();
     }
 
     /**
@@ -704,8 +374,8 @@ public class TActivePort extends TPort {
             }
             this.nextPacketToBeRead = null;
         }
-        this.monitor.unLock();
-        parentPortSetAux.portSetMonitor.unLock();
+        this.monitor.unlock();
+        parentPortSetAux.portSetMonitor.unlock();
         return packetRead;
     }
 
@@ -727,12 +397,12 @@ public class TActivePort extends TPort {
         this.doPrioritizedRoundRobinPacketSelection();
         if (this.nextPacketToBeRead != null) {
             this.packetRead = this.nextPacketToBeRead;
-            this.monitor.unLock();
+            this.monitor.unlock();
             if (this.packetRead.getSize() <= octets) {
                 return true;
             }
         }
-        monitor.unLock();
+        monitor.unlock();
         return false;
     }
 
@@ -765,37 +435,7 @@ public class TActivePort extends TPort {
      */
     @Override
     public boolean thereIsAPacketWaiting() {
-        if (this.priority10Buffer.size() > 0) {
-            return true;
-        }
-        if (this.priority9Buffer.size() > 0) {
-            return true;
-        }
-        if (this.priority8Buffer.size() > 0) {
-            return true;
-        }
-        if (this.priority7Buffer.size() > 0) {
-            return true;
-        }
-        if (this.priority6Buffer.size() > 0) {
-            return true;
-        }
-        if (this.priority5Buffer.size() > 0) {
-            return true;
-        }
-        if (this.priority4Buffer.size() > 0) {
-            return true;
-        }
-        if (this.priority3Buffer.size() > 0) {
-            return true;
-        }
-        if (this.priority2Buffer.size() > 0) {
-            return true;
-        }
-        if (this.priority1Buffer.size() > 0) {
-            return true;
-        }
-        if (this.priority0Buffer.size() > 0) {
+        if (!this.buffer.isEmpty()) {
             return true;
         }
         if (this.nextPacketToBeRead != null) {
@@ -817,124 +457,11 @@ public class TActivePort extends TPort {
     public long getOccupancy() {
         if (this.isUnlimitedBuffer) {
             this.monitor.lock();
-            int occupancyAux = 0;
-            TAbstractPDU packet = null;
-            TActivePortBufferEntry activePortBufferEntry = null;
-
-            this.priority10Monitor.lock();
-            Iterator iterator = this.priority10Buffer.iterator();
-            while (iterator.hasNext()) {
-                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                packet = activePortBufferEntry.getPacket();
-                if (packet != null) {
-                    occupancyAux += packet.getSize();
-                }
-            }
-            this.priority10Monitor.unLock();
-            this.priority9Monitor.lock();
-            iterator = this.priority9Buffer.iterator();
-            while (iterator.hasNext()) {
-                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                packet = activePortBufferEntry.getPacket();
-                if (packet != null) {
-                    occupancyAux += packet.getSize();
-                }
-            }
-            this.priority9Monitor.unLock();
-            this.priority8Monitor.lock();
-            iterator = this.priority8Buffer.iterator();
-            while (iterator.hasNext()) {
-                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                packet = activePortBufferEntry.getPacket();
-                if (packet != null) {
-                    occupancyAux += packet.getSize();
-                }
-            }
-            this.priority8Monitor.unLock();
-            this.priority7Monitor.lock();
-            iterator = this.priority7Buffer.iterator();
-            while (iterator.hasNext()) {
-                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                packet = activePortBufferEntry.getPacket();
-                if (packet != null) {
-                    occupancyAux += packet.getSize();
-                }
-            }
-            this.priority7Monitor.unLock();
-            this.priority6Monitor.lock();
-            iterator = this.priority6Buffer.iterator();
-            while (iterator.hasNext()) {
-                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                packet = activePortBufferEntry.getPacket();
-                if (packet != null) {
-                    occupancyAux += packet.getSize();
-                }
-            }
-            this.priority6Monitor.unLock();
-            this.priority5Monitor.lock();
-            iterator = this.priority5Buffer.iterator();
-            while (iterator.hasNext()) {
-                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                packet = activePortBufferEntry.getPacket();
-                if (packet != null) {
-                    occupancyAux += packet.getSize();
-                }
-            }
-            this.priority5Monitor.unLock();
-            this.priority4Monitor.lock();
-            iterator = this.priority4Buffer.iterator();
-            while (iterator.hasNext()) {
-                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                packet = activePortBufferEntry.getPacket();
-                if (packet != null) {
-                    occupancyAux += packet.getSize();
-                }
-            }
-            this.priority4Monitor.unLock();
-            this.priority3Monitor.lock();
-            iterator = this.priority3Buffer.iterator();
-            while (iterator.hasNext()) {
-                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                packet = activePortBufferEntry.getPacket();
-                if (packet != null) {
-                    occupancyAux += packet.getSize();
-                }
-            }
-            this.priority3Monitor.unLock();
-            this.priority2Monitor.lock();
-            iterator = this.priority2Buffer.iterator();
-            while (iterator.hasNext()) {
-                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                packet = activePortBufferEntry.getPacket();
-                if (packet != null) {
-                    occupancyAux += packet.getSize();
-                }
-            }
-            this.priority2Monitor.unLock();
-            this.priority1Monitor.lock();
-            iterator = this.priority1Buffer.iterator();
-            while (iterator.hasNext()) {
-                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                packet = activePortBufferEntry.getPacket();
-                if (packet != null) {
-                    occupancyAux += packet.getSize();
-                }
-            }
-            this.priority1Monitor.unLock();
-            this.priority0Monitor.lock();
-            iterator = this.priority0Buffer.iterator();
-            while (iterator.hasNext()) {
-                activePortBufferEntry = (TActivePortBufferEntry) iterator.next();
-                packet = activePortBufferEntry.getPacket();
-                if (packet != null) {
-                    occupancyAux += packet.getSize();
-                }
-            }
-            this.priority0Monitor.unLock();
+            long occupancyAux = this.buffer.getNumberOfOctets();
             if (this.nextPacketToBeRead != null) {
                 occupancyAux += this.nextPacketToBeRead.getSize();
             }
-            this.monitor.unLock();
+            this.monitor.unlock();
             return occupancyAux;
         }
         TActivePortSet parentPortSetAux = (TActivePortSet) this.parentPortSet;
@@ -952,18 +479,7 @@ public class TActivePort extends TPort {
      */
     @Override
     public int getNumberOfPackets() {
-        int numPackets = 0;
-        numPackets += this.priority10Buffer.size();
-        numPackets += this.priority9Buffer.size();
-        numPackets += this.priority8Buffer.size();
-        numPackets += this.priority7Buffer.size();
-        numPackets += this.priority6Buffer.size();
-        numPackets += this.priority5Buffer.size();
-        numPackets += this.priority4Buffer.size();
-        numPackets += this.priority3Buffer.size();
-        numPackets += this.priority2Buffer.size();
-        numPackets += this.priority1Buffer.size();
-        numPackets += this.priority0Buffer.size();
+        int numPackets = this.buffer.getNumberOfPackets();
         if (this.nextPacketToBeRead != null) {
             numPackets++;
         }
@@ -980,94 +496,13 @@ public class TActivePort extends TPort {
     @Override
     public void reset() {
         this.monitor.lock();
-
-        this.priority10Monitor.lock();
-        Iterator iterator = this.priority10Buffer.iterator();
-        while (iterator.hasNext()) {
-            iterator.next();
-            iterator.remove();
-        }
-        this.priority10Monitor.unLock();
-        this.priority9Monitor.lock();
-        iterator = this.priority9Buffer.iterator();
-        while (iterator.hasNext()) {
-            iterator.next();
-            iterator.remove();
-        }
-        this.priority9Monitor.unLock();
-        this.priority8Monitor.lock();
-        iterator = this.priority8Buffer.iterator();
-        while (iterator.hasNext()) {
-            iterator.next();
-            iterator.remove();
-        }
-        this.priority8Monitor.unLock();
-        this.priority7Monitor.lock();
-        iterator = this.priority7Buffer.iterator();
-        while (iterator.hasNext()) {
-            iterator.next();
-            iterator.remove();
-        }
-        this.priority7Monitor.unLock();
-        this.priority6Monitor.lock();
-        iterator = this.priority6Buffer.iterator();
-        while (iterator.hasNext()) {
-            iterator.next();
-            iterator.remove();
-        }
-        this.priority6Monitor.unLock();
-        this.priority5Monitor.lock();
-        iterator = this.priority5Buffer.iterator();
-        while (iterator.hasNext()) {
-            iterator.next();
-            iterator.remove();
-        }
-        this.priority5Monitor.unLock();
-        this.priority4Monitor.lock();
-        iterator = this.priority4Buffer.iterator();
-        while (iterator.hasNext()) {
-            iterator.next();
-            iterator.remove();
-        }
-        this.priority4Monitor.unLock();
-        this.priority3Monitor.lock();
-        iterator = this.priority3Buffer.iterator();
-        while (iterator.hasNext()) {
-            iterator.next();
-            iterator.remove();
-        }
-        this.priority3Monitor.unLock();
-        this.priority2Monitor.lock();
-        iterator = this.priority2Buffer.iterator();
-        while (iterator.hasNext()) {
-            iterator.next();
-            iterator.remove();
-        }
-        this.priority2Monitor.unLock();
-        this.priority1Monitor.lock();
-        iterator = this.priority1Buffer.iterator();
-        while (iterator.hasNext()) {
-            iterator.next();
-            iterator.remove();
-        }
-        this.priority1Monitor.unLock();
-        this.priority0Monitor.lock();
-        iterator = this.priority0Buffer.iterator();
-        while (iterator.hasNext()) {
-            iterator.next();
-            iterator.remove();
-        }
-        this.priority0Monitor.unLock();
-        this.monitor.unLock();
+        this.buffer.reset();
+        this.monitor.unlock();
         this.packetRead = null;
-        this.selectedBuffer = 0;
         this.nextPacketToBeRead = null;
-        int i;
-        for (i = 0; i < 11; i++) {
-            this.currentReadsOfBuffer[i] = 0;
-        }
     }
 
+    private static final long serialVersionUID = 1L;
     private static final int PRIORITY_10 = 10;
     private static final int PRIORITY_9 = 9;
     private static final int PRIORITY_8 = 8;
@@ -1082,34 +517,8 @@ public class TActivePort extends TPort {
 
     private static final int EPCD_THRESHOLD = 100;
 
-    private TMonitor priority0Monitor;
-    private TMonitor priority1Monitor;
-    private TMonitor priority2Monitor;
-    private TMonitor priority3Monitor;
-    private TMonitor priority4Monitor;
-    private TMonitor priority5Monitor;
-    private TMonitor priority6Monitor;
-    private TMonitor priority7Monitor;
-    private TMonitor priority8Monitor;
-    private TMonitor priority9Monitor;
-    private TMonitor priority10Monitor;
-    private TreeSet priority0Buffer;
-    private TreeSet priority1Buffer;
-    private TreeSet priority2Buffer;
-    private TreeSet priority3Buffer;
-    private TreeSet priority4Buffer;
-    private TreeSet priority5Buffer;
-    private TreeSet priority6Buffer;
-    private TreeSet priority7Buffer;
-    private TreeSet priority8Buffer;
-    private TreeSet priority9Buffer;
-    private TreeSet priority10Buffer;
-
-    private int selectedBuffer;
+    private TActivePortBuffer buffer;
     private TAbstractPDU packetRead;
     private boolean isUnlimitedBuffer;
-    private TRotaryIDGenerator rotaryIdentifierGenerator;
-    private int[] maxReadsOfBuffer;
-    private int[] currentReadsOfBuffer;
     private TAbstractPDU nextPacketToBeRead;
 }
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.ports;
+
+import java.io.Serializable;
+import simMPLS.protocols.TAbstractPDU;
+
+/**
+ * This class implements the buffer of an active port. It is a multi-level
+ * queue with a ring buffer for each one of the 11 priorities defined by
+ * "Guarantee of Service (GoS) support over MPLS using active techniques".
+ * Packets of the same priority are dispatched following a FIFO paradigm.
+ * The buffer keeps a running counter of the octets and packets it stores and
+ * a bitmask of the priorities that have packets waiting, so that enqueuing,
+ * dequeuing, computing the occupancy and selecting the next packet following
+ * the prioritized Round Robin algorithm do not depend on the number of
+ * packets in the buffer. It is not thread safe; the active port that owns it
+ * is in charge of that.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TActivePortBuffer implements Serializable {
+
+    /**
+     * This method is the constructor of the class. It creates a new empty
+     * instance of TActivePortBuffer.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public TActivePortBuffer() {
+        this.queues = new TAbstractPDU[TActivePortBuffer.NUMBER_OF_PRIORITIES][];
+        this.heads = new int[TActivePortBuffer.NUMBER_OF_PRIORITIES];
+        this.sizes = new int[TActivePortBuffer.NUMBER_OF_PRIORITIES];
+        this.maxReadsOfBuffer = new int[TActivePortBuffer.NUMBER_OF_PRIORITIES];
+        this.currentReadsOfBuffer = new int[TActivePortBuffer.NUMBER_OF_PRIORITIES];
+        int i;
+        for (i = 0; i < TActivePortBuffer.NUMBER_OF_PRIORITIES; i++) {
+            this.queues[i] = new TAbstractPDU[TActivePortBuffer.INITIAL_QUEUE_CAPACITY];
+            this.heads[i] = 0;
+            this.sizes[i] = 0;
+            this.maxReadsOfBuffer[i] = i + 1;
+            this.currentReadsOfBuffer[i] = 0;
+        }
+        this.nonEmptyQueues = 0;
+        this.numberOfOctets = 0;
+        this.numberOfPackets = 0;
+        this.selectedBuffer = 0;
+    }
+
+    /**
+     * This method inserts a packet at the end of the queue of the specified
+     * priority.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param priority The priority of the packet, between 0 (no priority) and
+     * 10 (maximum priority).
+     * @param packet The packet.
+     * @since 2.0
+     */
+    public void enqueue(int priority, TAbstractPDU packet) {
+        TAbstractPDU[] queue = this.queues[priority];
+        if (this.sizes[priority] == queue.length) {
+            queue = this.growQueue(priority);
+        }
+        queue[(this.heads[priority] + this.sizes[priority]) & (queue.length - 1)] = packet;
+        this.sizes[priority]++;
+        this.nonEmptyQueues |= (1 << priority);
+        this.numberOfOctets += packet.getSize();
+        this.numberOfPackets++;
+    }
+
+    /**
+     * This method removes and returns the first packet of the queue of the
+     * specified priority.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param priority The priority, between 0 (no priority) and 10 (maximum
+     * priority).
+     * @return The first packet of the queue, or NULL if the queue is empty.
+     * @since 2.0
+     */
+    public TAbstractPDU dequeue(int priority) {
+        if (this.sizes[priority] == 0) {
+            return null;
+        }
+        TAbstractPDU[] queue = this.queues[priority];
+        TAbstractPDU packet = queue[this.heads[priority]];
+        queue[this.heads[priority]] = null;
+        this.heads[priority] = (this.heads[priority] + 1) & (queue.length - 1);
+        this.sizes[priority]--;
+        if (this.sizes[priority] == 0) {
+            this.nonEmptyQueues &= ~(1 << priority);
+        }
+        this.numberOfOctets -= packet.getSize();
+        this.numberOfPackets--;
+        return packet;
+    }
+
+    /**
+     * This method selects, removes and returns the next packet to be read
+     * from the buffer. Instead of following a FIFO paradigm, it executes the
+     * prioritized Round Robin algorithm described in "Guarantee of Service
+     * (GoS) support over MPLS using active techniques": it goes on queue by
+     * queue avoiding undefined relegation of packets but assuring that more
+     * prioritized packets will be handled before less prioritized ones. In a
+     * complete cycle, if there are enough packets, it reads 11 packets from
+     * the queue of priority 10, 10 packets from the queue of priority 9, and
+     * so on, down to 1 packet from the queue of priority 0. Empty queues are
+     * detected using the bitmask of non-empty queues, and the selection gives
+     * up after visiting 12 empty queues, so the number of steps is bounded by
+     * the number of priorities.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The next packet to be read, or NULL if no packet has been
+     * selected.
+     * @since 2.0
+     */
+    public TAbstractPDU selectNextPacket() {
+        int i;
+        if (this.nonEmptyQueues == 0) {
+            // Every queue is visited once as empty, and the cycle starts
+            // again one queue later.
+            this.selectedBuffer = ((this.selectedBuffer + 1) % TActivePortBuffer.NUMBER_OF_PRIORITIES);
+            for (i = 0; i < TActivePortBuffer.NUMBER_OF_PRIORITIES; i++) {
+                this.currentReadsOfBuffer[i] = 0;
+            }
+            return null;
+        }
+        TAbstractPDU packet = null;
+        int numberOfBuffersAlreadyRead = 0;
+        int numberOfEmptyBuffers = 0;
+        while ((packet == null) && (numberOfEmptyBuffers <= TActivePortBuffer.NUMBER_OF_PRIORITIES)) {
+            if ((this.nonEmptyQueues & (1 << this.selectedBuffer)) != 0) {
+                if (this.currentReadsOfBuffer[this.selectedBuffer] < this.maxReadsOfBuffer[this.selectedBuffer]) {
+                    packet = this.dequeue(this.selectedBuffer);
+                    this.currentReadsOfBuffer[this.selectedBuffer]++;
+                } else {
+                    numberOfBuffersAlreadyRead++;
+                }
+            } else {
+                this.currentReadsOfBuffer[this.selectedBuffer] = this.maxReadsOfBuffer[this.selectedBuffer];
+                numberOfBuffersAlreadyRead++;
+                numberOfEmptyBuffers++;
+            }
+            this.selectedBuffer = ((this.selectedBuffer + 1) % TActivePortBuffer.NUMBER_OF_PRIORITIES);
+            if (numberOfBuffersAlreadyRead >= TActivePortBuffer.NUMBER_OF_PRIORITIES) {
+                for (i = 0; i < TActivePortBuffer.NUMBER_OF_PRIORITIES; i++) {
+                    this.currentReadsOfBuffer[i] = 0;
+                }
+            }
+        }
+        return packet;
+    }
+
+    /**
+     * This method checks whether there is any packet waiting in the buffer.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return TRUE, if the buffer is empty. Otherwise, returns FALSE.
+     * @since 2.0
+     */
+    public boolean isEmpty() {
+        return (this.nonEmptyQueues == 0);
+    }
+
+    /**
+     * This method returns the sum of the sizes of the packets in the buffer.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The occupancy of the buffer, in octets.
+     * @since 2.0
+     */
+    public long getNumberOfOctets() {
+        return this.numberOfOctets;
+    }
+
+    /**
+     * This method returns the number of packets in the buffer.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of packets.
+     * @since 2.0
+     */
+    public int getNumberOfPackets() {
+        return this.numberOfPackets;
+    }
+
+    /**
+     * This method removes every packet from the buffer and restarts the
+     * prioritized Round Robin cycle, as when created by the constructor.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void reset() {
+        int i;
+        for (i = 0; i < TActivePortBuffer.NUMBER_OF_PRIORITIES; i++) {
+            this.queues[i] = new TAbstractPDU[TActivePortBuffer.INITIAL_QUEUE_CAPACITY];
+            this.heads[i] = 0;
+            this.sizes[i] = 0;
+            this.currentReadsOfBuffer[i] = 0;
+        }
+        this.nonEmptyQueues = 0;
+        this.numberOfOctets = 0;
+        this.numberOfPackets = 0;
+        this.selectedBuffer = 0;
+    }
+
+    /**
+     * This method doubles the capacity of the ring buffer of the specified
+     * priority, keeping its packets in the same order.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param priority The priority of the queue.
+     * @return The new ring buffer.
+     * @since 2.0
+     */
+    private TAbstractPDU[] growQueue(int priority) {
+        TAbstractPDU[] oldQueue = this.queues[priority];
+        TAbstractPDU[] newQueue = new TAbstractPDU[oldQueue.length * 2];
+        int firstPart = oldQueue.length - this.heads[priority];
+        System.arraycopy(oldQueue, this.heads[priority], newQueue, 0, firstPart);
+        System.arraycopy(oldQueue, 0, newQueue, firstPart, this.heads[priority]);
+        this.queues[priority] = newQueue;
+        this.heads[priority] = 0;
+        return newQueue;
+    }
+
+    private static final long serialVersionUID = 1L;
+    public static final int NUMBER_OF_PRIORITIES = 11;
+
+    // Must be a power of two.
+    private static final int INITIAL_QUEUE_CAPACITY = 16;
+
+    private TAbstractPDU[][] queues;
+    private int[] heads;
+    private int[] sizes;
+    private volatile int nonEmptyQueues;
+    private long numberOfOctets;
+    private volatile int numberOfPackets;
+    private int selectedBuffer;
+    private int[] maxReadsOfBuffer;
+    private int[] currentReadsOfBuffer;
+}
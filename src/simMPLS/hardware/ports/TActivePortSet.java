@@ -282,6 +282,21 @@ public class TActivePortSet extends TPortSet {
         return packetAux;
     }
 
+    /**
+     * This method checks whether a packet has already been selected as the
+     * next one to be switched, and taken from its port, but it has not been
+     * switched yet because the parent node could not switch so many octects.
+     * That packet is not waiting in any port buffer.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return TRUE, if there is a packet selected to be switched. Otherwise,
+     * returns FALSE.
+     * @since 2.0
+     */
+    public boolean isThereAnySelectedPacket() {
+        return (this.nextPacketToBeRead != null);
+    }
+
     /**
      * This method check whether there are packets waiting in the incoming
      * buffer to be switched or not.
@@ -451,7 +466,7 @@ public class TActivePortSet extends TPortSet {
      */
     @Override
     public void reset() {
-        this.portSetMonitor.unLock();
+        this.portSetMonitor.lock();
         int i = 0;
         for (i = 0; i < this.numberOfPorts; i++) {
             ports[i].reset();
@@ -464,7 +479,7 @@ public class TActivePortSet extends TPortSet {
         }
         this.artificiallyCongested = false;
         this.occupancy = 0;
-        this.portSetMonitor.unLock();
+        this.portSetMonitor.unlock();
     }
 
     /**
@@ -502,6 +517,7 @@ public class TActivePortSet extends TPortSet {
         }
     }
 
+    private static final long serialVersionUID = 1L;
     private TPort[] ports;
     private int readPort;
 
@@ -18,6 +18,7 @@ package simMPLS.hardware.ports;
 import java.util.Iterator;
 import java.util.LinkedList;
 import simMPLS.scenario.TSEPacketReceived;
+import simMPLS.scenario.TSimulationEvent;
 import simMPLS.scenario.TStats;
 import simMPLS.scenario.TNode;
 import simMPLS.protocols.TAbstractPDU;
@@ -88,17 +89,22 @@ public class TFIFOPort extends TPort {
         this.monitor.lock();
         TNode parentNode = this.parentPortSet.getParentNode();
         long eventID = 0;
-        try {
-            eventID = parentNode.longIdentifierGenerator.getNextID();
-        } catch (Exception e) {
-            e.printStackTrace();
+        boolean packetReceivedWanted = parentNode.isSimulationEventWanted(TSimulationEvent.PACKET_RECEIVED);
+        if (packetReceivedWanted) {
+            try {
+                eventID = parentNode.longIdentifierGenerator.getNextID();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
         }
         int packetSubtype = packet.getSubtype();
         if (this.isUnlimitedBuffer) {
             this.buffer.addLast(packet);
             parentPortSetAux.increasePortSetOccupancy(packet.getSize());
-            TSEPacketReceived packetReceivedEvent = new TSEPacketReceived(parentNode, eventID, this.getPortSet().getParentNode().getAvailableTime(), packetSubtype, packet.getSize());
-            parentNode.simulationEventsListener.captureSimulationEvents(packetReceivedEvent);
+            if (packetReceivedWanted) {
+                TSEPacketReceived packetReceivedEvent = new TSEPacketReceived(parentNode, eventID, this.getPortSet().getParentNode().getAvailableTime(), packetSubtype, packet.getSize());
+                parentNode.simulationEventsListener.captureSimulationEvents(packetReceivedEvent);
+            }
             if (this.getPortSet().getParentNode().getStats() != null) {
                 this.getPortSet().getParentNode().getStats().addStatEntry(packet, TStats.INCOMING);
             }
@@ -106,8 +112,10 @@ public class TFIFOPort extends TPort {
             if ((parentPortSetAux.getPortSetOccupancy() + packet.getSize()) <= (parentPortSetAux.getBufferSizeInMBytes() * 1024 * 1024)) {
                 this.buffer.addLast(packet);
                 parentPortSetAux.increasePortSetOccupancy(packet.getSize());
-                TSEPacketReceived packetReceivedEvent = new TSEPacketReceived(parentNode, eventID, this.getPortSet().getParentNode().getAvailableTime(), packetSubtype, packet.getSize());
-                parentNode.simulationEventsListener.captureSimulationEvents(packetReceivedEvent);
+                if (packetReceivedWanted) {
+                    TSEPacketReceived packetReceivedEvent = new TSEPacketReceived(parentNode, eventID, this.getPortSet().getParentNode().getAvailableTime(), packetSubtype, packet.getSize());
+                    parentNode.simulationEventsListener.captureSimulationEvents(packetReceivedEvent);
+                }
                 if (this.getPortSet().getParentNode().getStats() != null) {
                     this.getPortSet().getParentNode().getStats().addStatEntry(packet, TStats.INCOMING);
                 }
@@ -115,8 +123,8 @@ public class TFIFOPort extends TPort {
                 this.discardPacket(packet);
             }
         }
-        this.monitor.unLock();
-        parentPortSetAux.portSetMonitor.unLock();
+        this.monitor.unlock();
+        parentPortSetAux.portSetMonitor.unlock();
     }
 
     /**
@@ -134,13 +142,6 @@ public class TFIFOPort extends TPort {
         parentPortSetAux.portSetMonitor.lock();
         this.monitor.lock();
         TNode parentNode = this.parentPortSet.getParentNode();
-        long eventID = 0;
-        try {
-            eventID = parentNode.longIdentifierGenerator.getNextID();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        int packetSubtype = packet.getSubtype();
         if (this.isUnlimitedBuffer) {
             this.buffer.addLast(packet);
             parentPortSetAux.increasePortSetOccupancy(packet.getSize());
@@ -152,8 +153,8 @@ public class TFIFOPort extends TPort {
                 this.discardPacket(packet);
             }
         }
-        this.monitor.unLock();
-        parentPortSetAux.portSetMonitor.unLock();
+        this.monitor.unlock();
+        parentPortSetAux.portSetMonitor.unlock();
     }
 
     /**
@@ -173,8 +174,8 @@ public class TFIFOPort extends TPort {
         if (!this.isUnlimitedBuffer) {
             parentPortSetAux.decreasePortSetOccupancySize(this.packetRead.getSize());
         }
-        this.monitor.unLock();
-        parentPortSetAux.portSetMonitor.unLock();
+        this.monitor.unlock();
+        parentPortSetAux.portSetMonitor.unlock();
         return this.packetRead;
     }
 
@@ -194,7 +195,7 @@ public class TFIFOPort extends TPort {
     public boolean canSwitchPacket(int octets) {
         this.monitor.lock();
         this.packetRead = (TAbstractPDU) this.buffer.getFirst();
-        this.monitor.unLock();
+        this.monitor.unlock();
         if (this.packetRead.getSize() <= octets) {
             return true;
         }
@@ -257,7 +258,7 @@ public class TFIFOPort extends TPort {
                     occupancy += packet.getSize();
                 }
             }
-            this.monitor.unLock();
+            this.monitor.unlock();
             return occupancy;
         }
         TFIFOPortSet parentPortSetAux = (TFIFOPortSet) parentPortSet;
@@ -292,9 +293,10 @@ public class TFIFOPort extends TPort {
             iterator.next();
             iterator.remove();
         }
-        this.monitor.unLock();
+        this.monitor.unlock();
     }
 
+    private static final long serialVersionUID = 1L;
     private LinkedList buffer;
     private TAbstractPDU packetRead;
     private boolean isUnlimitedBuffer;
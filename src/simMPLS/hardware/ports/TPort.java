@@ -15,10 +15,11 @@
  */
 package simMPLS.hardware.ports;
 
+import java.io.Serializable;
 import simMPLS.scenario.TLink;
 import simMPLS.scenario.TStats;
 import simMPLS.protocols.TAbstractPDU;
-import simMPLS.utils.TMonitor;
+import simMPLS.utils.TLock;
 
 /**
  * This abstract class will be implemented to have an I/O port of a port set.
@@ -26,7 +27,7 @@ import simMPLS.utils.TMonitor;
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public abstract class TPort {
+public abstract class TPort implements Serializable {
 
     /**
      * This method is the constructor of the class. It creates a new instance of
@@ -42,7 +43,7 @@ public abstract class TPort {
     public TPort(TPortSet parentPortSet, int portID) {
         this.link = null;
         this.parentPortSet = parentPortSet;
-        this.monitor = new TMonitor();
+        this.monitor = new TLock("TPort.monitor");
         this.portID = portID;
     }
 
@@ -147,12 +148,14 @@ public abstract class TPort {
             if (!this.link.isBroken()) {
                 if (this.link.getLinkType() == TLink.INTERNAL) {
                     this.link.carryPacket(packet, endID);
+                    this.getPortSet().getParentNode().addSwitchedPacket(packet.getSize());
                     if (this.getPortSet().getParentNode().getStats() != null) {
                         this.getPortSet().getParentNode().getStats().addStatEntry(packet, TStats.OUTGOING);
                     }
                 } else {
                     if ((packet.getType() != TAbstractPDU.GPSRP) && (packet.getType() != TAbstractPDU.TLDP)) {
                         this.link.carryPacket(packet, endID);
+                        this.getPortSet().getParentNode().addSwitchedPacket(packet.getSize());
                         if (this.getPortSet().getParentNode().getStats() != null) {
                             this.getPortSet().getParentNode().getStats().addStatEntry(packet, TStats.OUTGOING);
                         }
@@ -282,8 +285,9 @@ public abstract class TPort {
      */
     public abstract void setUnlimitedBuffer(boolean unlimitedBuffer);
 
-    protected TLink link;
+    private static final long serialVersionUID = 1L;
+    protected transient TLink link;
     protected TPortSet parentPortSet;
-    protected TMonitor monitor;
+    protected TLock monitor;
     protected int portID;
 }
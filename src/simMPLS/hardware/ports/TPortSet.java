@@ -15,10 +15,11 @@
  */
 package simMPLS.hardware.ports;
 
+import java.io.Serializable;
 import simMPLS.scenario.TLink;
 import simMPLS.scenario.TNode;
 import simMPLS.protocols.TAbstractPDU;
-import simMPLS.utils.TMonitor;
+import simMPLS.utils.TLock;
 
 /**
  * This class implements a set of ports for a node.
@@ -26,7 +27,7 @@ import simMPLS.utils.TMonitor;
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public abstract class TPortSet {
+public abstract class TPortSet implements Serializable {
 
     /**
      * This is the constructor of the class. It creates a new instance of
@@ -43,7 +44,7 @@ public abstract class TPortSet {
         this.parentNode = parentNode;
         this.portSetBufferSize = 1;
         this.portSetBufferOccupancy = 0;
-        this.portSetMonitor = new TMonitor();
+        this.portSetMonitor = new TLock("TPortSet.portSetMonitor");
         this.artificiallyCongested = false;
         this.occupancy = 0;
     }
@@ -357,11 +358,12 @@ public abstract class TPortSet {
      */
     public abstract boolean hasAvailablePorts();
 
+    private static final long serialVersionUID = 1L;
     protected int numberOfPorts;
     protected TNode parentNode;
     protected int portSetBufferSize;
     private long portSetBufferOccupancy;
-    public TMonitor portSetMonitor;
+    public TLock portSetMonitor;
     protected boolean artificiallyCongested;
     protected long occupancy;
 }
@@ -15,15 +15,19 @@
  */
 package simMPLS.hardware.simulationcollector;
 
-import java.util.Iterator;
-import java.util.TreeSet;
 import simMPLS.scenario.TSimulationEvent;
 import simMPLS.ui.simulator.JSimulationPanel;
-import simMPLS.utils.TMonitor;
 
 /**
  * This class implements a simulation event listener that will receive
- * simulation events.
+ * simulation events from the topology elements and hand them to any number
+ * of subscribers: the simulation panel, trace writers, metrics... Each
+ * subscriber has its own TSimulationEventSubscription with its own ring
+ * buffer and drop policy, so the threads of the simulation do not share any
+ * lock when they generate simulation events and only wait for a slow
+ * subscriber that cannot lose any of them, like a trace writer. Subscribers register the subtypes they want in the interest
+ * registry of the collector, and topology elements do not even create the
+ * simulation events nobody wants.
  *
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
@@ -38,124 +42,199 @@ public class TSimulationCollector implements ISimulationEventListener {
      * @since 2.0
      */
     public TSimulationCollector() {
-        this.simulationEventsBuffer = new TreeSet();
-        this.monitor = new TMonitor();
+        this.subscriptions = new TSimulationEventSubscription[0];
+        this.interestRegistry = new TSimulationEventInterestRegistry();
         this.simulationPanel = null;
     }
 
     /**
      * This method establishes the simulation panel where collected simulation
-     * events will be displayed. It connects the generated events to the GUI.
+     * events will be displayed. It connects the generated events to the GUI:
+     * the panel subscribes itself to this collector, and unsubscribes from
+     * it when it is replaced.
      *
      * @since 2.0
      * @param simulationPanel The simulation panel where collected simulation
      * events will be displayed.
      */
     public synchronized void setSimulationPanel(JSimulationPanel simulationPanel) {
+        if (this.simulationPanel != null) {
+            this.simulationPanel.ponerRecolector(null);
+        }
         this.simulationPanel = simulationPanel;
+        if (this.simulationPanel != null) {
+            this.simulationPanel.ponerRecolector(this);
+        }
+    }
+
+    /**
+     * This method subscribes a simulation event listener to this collector.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param listener The simulation event listener.
+     * @param dropPolicy One of the drop policies defined in
+     * TSimulationEventSubscription.
+     * @param capacity The number of simulation events that can wait to be
+     * delivered to the listener before the drop policy is applied.
+     * @return The subscription of the listener.
+     * @since 2.0
+     */
+    public synchronized TSimulationEventSubscription addSubscriber(ISimulationEventListener listener, int dropPolicy, int capacity) {
+        return this.addSubscriber(listener, dropPolicy, capacity, TSimulationEventInterestRegistry.ALL_SUBTYPES);
+    }
+
+    /**
+     * This method subscribes a simulation event listener to this collector
+     * for the specified subtypes only. Topology elements stop creating
+     * simulation events of the subtypes no subscriber wants.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param listener The simulation event listener.
+     * @param dropPolicy One of the drop policies defined in
+     * TSimulationEventSubscription.
+     * @param capacity The number of simulation events that can wait to be
+     * delivered to the listener before the drop policy is applied.
+     * @param subtypesMask The bitmask of the subtypes the listener wants, as
+     * defined in TSimulationEventInterestRegistry.
+     * @return The subscription of the listener.
+     * @since 2.0
+     */
+    public synchronized TSimulationEventSubscription addSubscriber(ISimulationEventListener listener, int dropPolicy, int capacity, long subtypesMask) {
+        TSimulationEventSubscription subscription = new TSimulationEventSubscription(listener, dropPolicy, capacity, subtypesMask);
+        TSimulationEventSubscription[] subscriptionsAux = new TSimulationEventSubscription[this.subscriptions.length + 1];
+        System.arraycopy(this.subscriptions, 0, subscriptionsAux, 0, this.subscriptions.length);
+        subscriptionsAux[this.subscriptions.length] = subscription;
+        this.subscriptions = subscriptionsAux;
+        this.interestRegistry.register(subscription, subtypesMask);
+        return subscription;
+    }
+
+    /**
+     * This method cancels a subscription to this collector.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param subscription The subscription returned by addSubscriber().
+     * @since 2.0
+     */
+    public synchronized void removeSubscriber(TSimulationEventSubscription subscription) {
+        int position = -1;
+        int i;
+        for (i = 0; i < this.subscriptions.length; i++) {
+            if (this.subscriptions[i] == subscription) {
+                position = i;
+            }
+        }
+        if (position < 0) {
+            return;
+        }
+        TSimulationEventSubscription[] subscriptionsAux = new TSimulationEventSubscription[this.subscriptions.length - 1];
+        System.arraycopy(this.subscriptions, 0, subscriptionsAux, 0, position);
+        System.arraycopy(this.subscriptions, position + 1, subscriptionsAux, position, this.subscriptions.length - position - 1);
+        this.subscriptions = subscriptionsAux;
+        this.interestRegistry.unregister(subscription);
+        subscription.cancel();
     }
 
     /**
-     * This method, when implemented, will capture simulation events. It also
-     * delivers them to the simulation panel to be displayed.
+     * This method returns the subscriptions to this collector.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return A copy of the array of subscriptions.
+     * @since 2.0
+     */
+    public TSimulationEventSubscription[] getSubscriptions() {
+        return this.subscriptions.clone();
+    }
+
+    /**
+     * This method returns the interest registry of this collector.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The interest registry.
+     * @since 2.0
+     */
+    public TSimulationEventInterestRegistry getInterestRegistry() {
+        return this.interestRegistry;
+    }
+
+    /**
+     * This method checks whether anybody wants simulation events of the
+     * specified subtype. Topology elements call it before creating a
+     * simulation event, so it does not take any lock.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param subtype The subtype, as defined in TSimulationEvent.
+     * @return TRUE, if simulation events of that subtype have to be
+     * generated. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public boolean isInterestedIn(int subtype) {
+        return this.interestRegistry.isInterestedIn(subtype);
+    }
+
+    /**
+     * This method waits until every subscriber has received, or dropped,
+     * every simulation event captured so far.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void flush() {
+        TSimulationEventSubscription[] subscriptionsAux = this.subscriptions;
+        int i;
+        for (i = 0; i < subscriptionsAux.length; i++) {
+            subscriptionsAux[i].flush();
+        }
+    }
+
+    /**
+     * This method captures a simulation event and publishes it to every
+     * subscriber. It is called at the same time by the threads of many
+     * topology elements and does not take any lock.
      *
      * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
      * @since 2.0
      * @param simulationEvent The simulation event received.
      */
     @Override
-    public synchronized void captureSimulationEvents(TSimulationEvent simulationEvent) {
-        switch (simulationEvent.getSubtype()) {
-            case TSimulationEvent.PACKET_GENERATED: {
-                this.simulationPanel.addEvent(simulationEvent);
-                break;
-            }
-            case TSimulationEvent.PACKET_SENT: {
-                this.simulationPanel.addEvent(simulationEvent);
-                break;
-            }
-            case TSimulationEvent.PACKET_RECEIVED: {
-                this.simulationPanel.addEvent(simulationEvent);
-                break;
-            }
-            case TSimulationEvent.PACKET_SWITCHED: {
-                this.simulationPanel.addEvent(simulationEvent);
-                break;
-            }
-            case TSimulationEvent.PACKET_DISCARDED: {
-                this.simulationPanel.addEvent(simulationEvent);
-                break;
-            }
-            case TSimulationEvent.PACKET_ON_FLY: {
-                this.simulationPanel.addEvent(simulationEvent);
-                break;
-            }
-            case TSimulationEvent.PACKET_ROUTED: {
-                this.simulationPanel.addEvent(simulationEvent);
-                break;
-            }
-            case TSimulationEvent.LSP_ESTABLISHED: {
-                this.simulationPanel.addEvent(simulationEvent);
-                break;
-            }
-            case TSimulationEvent.LSP_REMOVED: {
-                this.simulationPanel.addEvent(simulationEvent);
-                break;
-            }
-            case TSimulationEvent.LABEL_ASSIGNED: {
-                this.simulationPanel.addEvent(simulationEvent);
-                break;
-            }
-            case TSimulationEvent.LABEL_DENIED: {
-                this.simulationPanel.addEvent(simulationEvent);
-                break;
-            }
-            case TSimulationEvent.LABEL_REMOVED: {
-                this.simulationPanel.addEvent(simulationEvent);
-                break;
-            }
-            case TSimulationEvent.LABEL_RECEIVED: {
-                this.simulationPanel.addEvent(simulationEvent);
-                break;
-            }
-            case TSimulationEvent.LABEL_REQUESTED: {
-                this.simulationPanel.addEvent(simulationEvent);
-                break;
-            }
-            case TSimulationEvent.NODE_CONGESTED: {
-                this.simulationPanel.addEvent(simulationEvent);
-                break;
-            }
-            case TSimulationEvent.LINK_BROKEN: {
-                this.simulationPanel.addEvent(simulationEvent);
-                break;
-            }
-            case TSimulationEvent.LINK_RECOVERED: {
-                this.simulationPanel.addEvent(simulationEvent);
-                break;
-            }
+    public void captureSimulationEvents(TSimulationEvent simulationEvent) {
+        TSimulationEventSubscription[] subscriptionsAux = this.subscriptions;
+        int i;
+        for (i = 0; i < subscriptionsAux.length; i++) {
+            subscriptionsAux[i].publish(simulationEvent);
         }
     }
 
     /**
      * This method reset to value of the class attributes to their original
-     * values, as when created by the constructor.
+     * values, as when created by the constructor. The simulation events that
+     * have not been delivered yet are delivered first; the subscribers stay
+     * subscribed.
      *
      * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
      * @since 2.0
      *
      */
     public void reset() {
-        this.monitor.lock();
-        Iterator iterator = this.simulationEventsBuffer.iterator();
-        while (iterator.hasNext()) {
-            iterator.next();
-            iterator.remove();
+        TSimulationEventSubscription[] subscriptionsAux = this.subscriptions;
+        int i;
+        for (i = 0; i < subscriptionsAux.length; i++) {
+            subscriptionsAux[i].reset();
         }
-        this.monitor.unLock();
     }
 
-    private TMonitor monitor;
-    private TreeSet simulationEventsBuffer;
+    /**
+     * Subtypes the simulation panel is able to display.
+     */
+    public static final long SIMULATION_PANEL_SUBTYPES = TSimulationEventInterestRegistry.getMask(new int[]{
+        TSimulationEvent.PACKET_GENERATED, TSimulationEvent.PACKET_SENT, TSimulationEvent.PACKET_RECEIVED,
+        TSimulationEvent.PACKET_SWITCHED, TSimulationEvent.PACKET_DISCARDED, TSimulationEvent.PACKET_ON_FLY,
+        TSimulationEvent.PACKET_ROUTED, TSimulationEvent.LSP_ESTABLISHED, TSimulationEvent.LSP_REMOVED,
+        TSimulationEvent.LABEL_ASSIGNED, TSimulationEvent.LABEL_DENIED, TSimulationEvent.LABEL_REMOVED,
+        TSimulationEvent.LABEL_RECEIVED, TSimulationEvent.LABEL_REQUESTED, TSimulationEvent.NODE_CONGESTED,
+        TSimulationEvent.LINK_BROKEN, TSimulationEvent.LINK_RECOVERED});
+
+    private volatile TSimulationEventSubscription[] subscriptions;
+    private TSimulationEventInterestRegistry interestRegistry;
     private JSimulationPanel simulationPanel;
 }
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.simulationcollector;
+
+import java.util.concurrent.atomic.LongAdder;
+import simMPLS.scenario.TSimulationEvent;
+
+/**
+ * This class implements a simulation collector that does not display
+ * simulation events anywhere. It counts how many simulation events of each
+ * subtype it receives and hands them to its subscribers, if any. It is used
+ * to run simulations without a graphical user interface. The counters do not
+ * take any lock, so the threads of the topology elements can count events at
+ * the same time. By default every subtype is counted; a counter that only
+ * counts some subtypes, or none, lets topology elements skip the creation of
+ * the others when no subscriber wants them.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TSimulationEventCounter extends TSimulationCollector {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TSimulationEventCounter with every counter set to zero.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public TSimulationEventCounter() {
+        super();
+        this.eventCounters = TSimulationEventCounter.createCounters(TSimulationEventCounter.INITIAL_NUMBER_OF_SUBTYPES);
+        this.totalNumberOfEvents = new LongAdder();
+        this.countedSubtypes = TSimulationEventInterestRegistry.ALL_SUBTYPES;
+        this.getInterestRegistry().register(this, this.countedSubtypes);
+    }
+
+    /**
+     * This method establishes the subtypes this counter counts. The simulation
+     * events of the other subtypes are only created if a subscriber wants
+     * them, and they are not counted.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param subtypesMask The bitmask of the subtypes to be counted, as
+     * defined in TSimulationEventInterestRegistry.
+     * @since 2.0
+     */
+    public void setCountedSubtypes(long subtypesMask) {
+        this.countedSubtypes = subtypesMask;
+        this.getInterestRegistry().register(this, subtypesMask);
+    }
+
+    /**
+     * This method returns the subtypes this counter counts.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The bitmask of the counted subtypes.
+     * @since 2.0
+     */
+    public long getCountedSubtypes() {
+        return this.countedSubtypes;
+    }
+
+    /**
+     * This method captures a simulation event, increases the counter of its
+     * subtype and publishes it to the subscribers of this collector.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param simulationEvent The simulation event.
+     * @since 2.0
+     */
+    @Override
+    public void captureSimulationEvents(TSimulationEvent simulationEvent) {
+        int subtype = simulationEvent.getSubtype();
+        if (TSimulationEventInterestRegistry.includes(this.countedSubtypes, subtype)) {
+            if (subtype >= 0) {
+                this.getCounter(subtype).increment();
+            }
+            this.totalNumberOfEvents.increment();
+        }
+        super.captureSimulationEvents(simulationEvent);
+    }
+
+    /**
+     * This method adds to the counter of a subtype the simulation events
+     * captured somewhere else, for example before a checkpoint was saved.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param subtype The subtype of the simulation events, as defined in
+     * TSimulationEvent.
+     * @param numberOfEvents The number of simulation events of that subtype.
+     * @since 2.0
+     */
+    public void addEvents(int subtype, long numberOfEvents) {
+        if (subtype >= 0) {
+            this.getCounter(subtype).add(numberOfEvents);
+        }
+        this.totalNumberOfEvents.add(numberOfEvents);
+    }
+
+    /**
+     * This method returns how many simulation events of the specified subtype
+     * have been captured.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param subtype The subtype of the simulation events, as defined in
+     * TSimulationEvent.
+     * @return The number of simulation events of that subtype.
+     * @since 2.0
+     */
+    public long getNumberOfEvents(int subtype) {
+        LongAdder[] eventCountersAux = this.eventCounters;
+        if ((subtype < 0) || (subtype >= eventCountersAux.length)) {
+            return 0;
+        }
+        return eventCountersAux[subtype].sum();
+    }
+
+    /**
+     * This method returns the highest subtype this counter has room for. Every
+     * subtype above it has not been captured.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The highest subtype.
+     * @since 2.0
+     */
+    public int getHighestSubtype() {
+        return this.eventCounters.length - 1;
+    }
+
+    /**
+     * This method returns how many simulation events have been captured.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of simulation events.
+     * @since 2.0
+     */
+    public long getTotalNumberOfEvents() {
+        return this.totalNumberOfEvents.sum();
+    }
+
+    /**
+     * This method sets every counter to zero, as when created by the
+     * constructor.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    @Override
+    public synchronized void reset() {
+        super.reset();
+        this.eventCounters = TSimulationEventCounter.createCounters(TSimulationEventCounter.INITIAL_NUMBER_OF_SUBTYPES);
+        this.totalNumberOfEvents.reset();
+    }
+
+    /**
+     * This method returns the counter of the specified subtype, making room
+     * for it if the subtype is higher than any seen so far.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param subtype The subtype of the simulation events.
+     * @return The counter of the subtype.
+     * @since 2.0
+     */
+    private LongAdder getCounter(int subtype) {
+        LongAdder[] eventCountersAux = this.eventCounters;
+        if (subtype < eventCountersAux.length) {
+            return eventCountersAux[subtype];
+        }
+        synchronized (this) {
+            if (subtype >= this.eventCounters.length) {
+                eventCountersAux = TSimulationEventCounter.createCounters(subtype + 1);
+                System.arraycopy(this.eventCounters, 0, eventCountersAux, 0, this.eventCounters.length);
+                this.eventCounters = eventCountersAux;
+            }
+            return this.eventCounters[subtype];
+        }
+    }
+
+    /**
+     * This method creates an array of counters set to zero.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param numberOfCounters The number of counters.
+     * @return The array of counters.
+     * @since 2.0
+     */
+    private static LongAdder[] createCounters(int numberOfCounters) {
+        LongAdder[] counters = new LongAdder[numberOfCounters];
+        int i;
+        for (i = 0; i < numberOfCounters; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+
+    private static final int INITIAL_NUMBER_OF_SUBTYPES = 32;
+
+    private volatile LongAdder[] eventCounters;
+    private LongAdder totalNumberOfEvents;
+    private volatile long countedSubtypes;
+}
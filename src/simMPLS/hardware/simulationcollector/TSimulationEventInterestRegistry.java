@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.simulationcollector;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+
+/**
+ * This class implements the registry of the simulation event subtypes the
+ * consumers of a simulation collector are interested in. Each consumer
+ * registers a bitmask with a bit for each subtype, as defined in
+ * TSimulationEvent, and the registry keeps the union of all of them in a
+ * single volatile field. Topology elements check that field before
+ * allocating a simulation event or taking an identifier for it, so a subtype
+ * nobody consumes costs a single read and a bitwise AND.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TSimulationEventInterestRegistry {
+
+    /**
+     * This method is the constructor of the class. It creates a new registry
+     * without any interest.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public TSimulationEventInterestRegistry() {
+        this.interests = new IdentityHashMap<Object, Long>();
+        this.interestMask = TSimulationEventInterestRegistry.NO_SUBTYPES;
+    }
+
+    /**
+     * This method registers, or replaces, the interest of a consumer.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param consumer The consumer. Any object that identifies it.
+     * @param subtypesMask The bitmask of the subtypes the consumer wants.
+     * @since 2.0
+     */
+    public synchronized void register(Object consumer, long subtypesMask) {
+        this.interests.put(consumer, Long.valueOf(subtypesMask));
+        this.updateInterestMask();
+    }
+
+    /**
+     * This method removes the interest of a consumer. If the consumer has not
+     * been registered, nothing is done.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param consumer The consumer, as registered.
+     * @since 2.0
+     */
+    public synchronized void unregister(Object consumer) {
+        if (this.interests.remove(consumer) != null) {
+            this.updateInterestMask();
+        }
+    }
+
+    /**
+     * This method checks whether any consumer is interested in simulation
+     * events of the specified subtype. It does not take any lock.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param subtype The subtype, as defined in TSimulationEvent.
+     * @return TRUE, if simulation events of that subtype have to be
+     * generated. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public boolean isInterestedIn(int subtype) {
+        return TSimulationEventInterestRegistry.includes(this.interestMask, subtype);
+    }
+
+    /**
+     * This method returns the union of the interests of every consumer.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The bitmask of the subtypes that have to be generated.
+     * @since 2.0
+     */
+    public long getInterestMask() {
+        return this.interestMask;
+    }
+
+    /**
+     * This method returns the bitmask that only includes the specified
+     * subtypes.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param subtypes The subtypes, as defined in TSimulationEvent.
+     * @return The bitmask of the subtypes.
+     * @since 2.0
+     */
+    public static long getMask(int[] subtypes) {
+        long subtypesMask = TSimulationEventInterestRegistry.NO_SUBTYPES;
+        int i;
+        for (i = 0; i < subtypes.length; i++) {
+            subtypesMask |= (1L << subtypes[i]);
+        }
+        return subtypesMask;
+    }
+
+    /**
+     * This method checks whether a bitmask includes the specified subtype.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param subtypesMask The bitmask.
+     * @param subtype The subtype, as defined in TSimulationEvent.
+     * @return TRUE, if the bitmask includes the subtype. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public static boolean includes(long subtypesMask, int subtype) {
+        return ((subtypesMask & (1L << subtype)) != 0);
+    }
+
+    /**
+     * This method computes again the union of the interests of every
+     * consumer.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    private void updateInterestMask() {
+        long interestMaskAux = TSimulationEventInterestRegistry.NO_SUBTYPES;
+        Iterator<Long> iterator = this.interests.values().iterator();
+        while (iterator.hasNext()) {
+            interestMaskAux |= iterator.next().longValue();
+        }
+        this.interestMask = interestMaskAux;
+    }
+
+    /**
+     * Bitmask that includes every subtype.
+     */
+    public static final long ALL_SUBTYPES = -1L;
+    /**
+     * Bitmask that does not include any subtype.
+     */
+    public static final long NO_SUBTYPES = 0L;
+
+    private IdentityHashMap<Object, Long> interests;
+    private volatile long interestMask;
+}
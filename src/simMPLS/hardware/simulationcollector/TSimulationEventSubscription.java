@@ -0,0 +1,397 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.simulationcollector;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import simMPLS.scenario.TSimulationEvent;
+import simMPLS.utils.TRingBuffer;
+
+/**
+ * This class implements the subscription of a simulation event listener to
+ * a simulation collector. Unless the subscription is inline, simulation
+ * events are put in a ring buffer owned by the subscription and a daemon
+ * thread delivers them to the listener in batches. A subscription without
+ * listener has no thread: its owner takes the simulation events from the ring
+ * with poll(), as the simulation panel does from the timer of Swing. What
+ * happens when the ring is full depends on the drop policy of the
+ * subscription: the DROP_* policies never make the threads of the simulation
+ * wait and BLOCK makes them wait until there is room, so no simulation event
+ * is lost. A subscription only receives the subtypes included in its bitmask
+ * of subtypes.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TSimulationEventSubscription {
+
+    /**
+     * This method is the constructor of the class. It creates a new
+     * subscription and, unless it is inline or has no listener, starts the
+     * thread that delivers the simulation events to the listener.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param listener The simulation event listener, or NULL if the owner of
+     * the subscription takes the simulation events with poll().
+     * @param dropPolicy DROP_OLDEST, DROP_NEWEST, BLOCK or INLINE.
+     * @param capacity The number of simulation events the ring of the
+     * subscription can hold. Ignored by inline subscriptions.
+     * @since 2.0
+     */
+    public TSimulationEventSubscription(ISimulationEventListener listener, int dropPolicy, int capacity) {
+        this(listener, dropPolicy, capacity, TSimulationEventInterestRegistry.ALL_SUBTYPES);
+    }
+
+    /**
+     * This method is the constructor of the class. It creates a new
+     * subscription that only receives the specified subtypes and, unless it
+     * is inline or has no listener, starts the thread that delivers the
+     * simulation events to the listener.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param listener The simulation event listener, or NULL if the owner of
+     * the subscription takes the simulation events with poll().
+     * @param dropPolicy DROP_OLDEST, DROP_NEWEST, BLOCK or INLINE.
+     * @param capacity The number of simulation events the ring of the
+     * subscription can hold. Ignored by inline subscriptions.
+     * @param subtypesMask The bitmask of the subtypes the listener wants, as
+     * defined in TSimulationEventInterestRegistry.
+     * @since 2.0
+     */
+    public TSimulationEventSubscription(ISimulationEventListener listener, int dropPolicy, int capacity, long subtypesMask) {
+        this.listener = listener;
+        this.subtypesMask = subtypesMask;
+        this.dropPolicy = dropPolicy;
+        this.numberOfPublishedEvents = new AtomicLong(0);
+        this.numberOfDroppedEvents = new AtomicLong(0);
+        this.numberOfDeliveredEvents = 0;
+        this.cancelled = false;
+        if (this.dropPolicy == TSimulationEventSubscription.INLINE) {
+            this.ringBuffer = null;
+            this.freeSlots = null;
+            this.consumerThread = null;
+            return;
+        }
+        this.ringBuffer = new TRingBuffer(capacity);
+        if (this.dropPolicy == TSimulationEventSubscription.BLOCK) {
+            this.freeSlots = new Semaphore(this.ringBuffer.getCapacity());
+        } else {
+            this.freeSlots = null;
+        }
+        if (this.listener == null) {
+            this.consumerThread = null;
+        } else {
+            this.consumerThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    deliverEvents();
+                }
+            }, "TSimulationEventSubscription-" + listener.getClass().getSimpleName());
+            this.consumerThread.setDaemon(true);
+            this.consumerThread.start();
+        }
+    }
+
+    /**
+     * This method publishes a simulation event for the listener. An inline
+     * subscription delivers the event in the calling thread and the others
+     * put it in the ring. If the ring is full, a BLOCK subscription waits
+     * until the listener makes room, and only drops the event if the
+     * subscription is cancelled meanwhile; the others drop an event at once.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param simulationEvent The simulation event.
+     * @since 2.0
+     */
+    public void publish(TSimulationEvent simulationEvent) {
+        if (this.cancelled) {
+            return;
+        }
+        if (!TSimulationEventInterestRegistry.includes(this.subtypesMask, simulationEvent.getSubtype())) {
+            return;
+        }
+        this.numberOfPublishedEvents.incrementAndGet();
+        if (this.ringBuffer == null) {
+            this.listener.captureSimulationEvents(simulationEvent);
+            return;
+        }
+        if (this.dropPolicy == TSimulationEventSubscription.BLOCK) {
+            if (this.waitForFreeSlot()) {
+                this.ringBuffer.offer(simulationEvent);
+            } else {
+                this.numberOfDroppedEvents.incrementAndGet();
+            }
+            return;
+        }
+        if (this.dropPolicy == TSimulationEventSubscription.DROP_NEWEST) {
+            if (!this.ringBuffer.offer(simulationEvent)) {
+                this.numberOfDroppedEvents.incrementAndGet();
+            }
+            return;
+        }
+        while (!this.ringBuffer.offer(simulationEvent)) {
+            if (this.ringBuffer.poll() != null) {
+                this.numberOfDroppedEvents.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * This method takes the oldest simulation event of the ring of a
+     * subscription without listener. It is called by the owner of the
+     * subscription, never by the threads of the simulation.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The oldest simulation event, or NULL if there is none.
+     * @since 2.0
+     */
+    public TSimulationEvent poll() {
+        if ((this.ringBuffer == null) || (this.consumerThread != null)) {
+            return null;
+        }
+        TSimulationEvent simulationEvent = (TSimulationEvent) this.ringBuffer.poll();
+        if (simulationEvent != null) {
+            this.numberOfDeliveredEvents++;
+            if (this.freeSlots != null) {
+                this.freeSlots.release();
+            }
+        }
+        return simulationEvent;
+    }
+
+    /**
+     * This method waits until every simulation event published so far has
+     * been delivered to the listener or dropped. It does not wait for
+     * subscriptions without listener, whose owner takes the simulation events
+     * at its own pace.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void flush() {
+        if (this.consumerThread == null) {
+            return;
+        }
+        while ((!this.cancelled) && ((this.numberOfDeliveredEvents + this.numberOfDroppedEvents.get()) < this.numberOfPublishedEvents.get())) {
+            LockSupport.parkNanos(TSimulationEventSubscription.IDLE_WAIT);
+        }
+    }
+
+    /**
+     * This method cancels the subscription. The simulation events that have
+     * not been delivered yet are discarded, and counted as dropped, and the
+     * thread of the subscription finishes. When this method returns, the
+     * listener is not called any more.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void cancel() {
+        this.cancelled = true;
+        if ((this.consumerThread != null) && (this.consumerThread != Thread.currentThread())) {
+            LockSupport.unpark(this.consumerThread);
+            try {
+                this.consumerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * This method discards the simulation events that have not been delivered
+     * yet and sets the counters of the subscription to zero.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void reset() {
+        this.flush();
+        while (this.poll() != null) {
+            // Subscriptions without listener discard the pending events.
+        }
+        this.numberOfPublishedEvents.set(0);
+        this.numberOfDroppedEvents.set(0);
+        this.numberOfDeliveredEvents = 0;
+    }
+
+    /**
+     * This method returns the listener of the subscription.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The simulation event listener.
+     * @since 2.0
+     */
+    public ISimulationEventListener getListener() {
+        return this.listener;
+    }
+
+    /**
+     * This method returns the drop policy of the subscription.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return DROP_OLDEST, DROP_NEWEST, BLOCK or INLINE.
+     * @since 2.0
+     */
+    public int getDropPolicy() {
+        return this.dropPolicy;
+    }
+
+    /**
+     * This method returns the bitmask of the subtypes the listener wants.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The bitmask of the subtypes.
+     * @since 2.0
+     */
+    public long getSubtypesMask() {
+        return this.subtypesMask;
+    }
+
+    /**
+     * This method returns the number of simulation events published for the
+     * listener.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of published simulation events.
+     * @since 2.0
+     */
+    public long getNumberOfPublishedEvents() {
+        return this.numberOfPublishedEvents.get();
+    }
+
+    /**
+     * This method returns the number of simulation events that have been
+     * dropped because the ring was full or the subscription was cancelled.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of dropped simulation events.
+     * @since 2.0
+     */
+    public long getNumberOfDroppedEvents() {
+        return this.numberOfDroppedEvents.get();
+    }
+
+    /**
+     * This method is run by the thread of the subscription. It takes batches
+     * of simulation events from the ring and delivers them to the listener,
+     * sleeping for a while when the ring is empty.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    private void deliverEvents() {
+        TSimulationEvent simulationEvent;
+        int i;
+        while (!this.cancelled) {
+            simulationEvent = (TSimulationEvent) this.ringBuffer.poll();
+            if (simulationEvent == null) {
+                LockSupport.parkNanos(TSimulationEventSubscription.IDLE_WAIT);
+                continue;
+            }
+            i = 0;
+            while (simulationEvent != null) {
+                try {
+                    this.listener.captureSimulationEvents(simulationEvent);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                i++;
+                if (i < TSimulationEventSubscription.BATCH_SIZE) {
+                    simulationEvent = (TSimulationEvent) this.ringBuffer.poll();
+                } else {
+                    simulationEvent = null;
+                }
+            }
+            this.numberOfDeliveredEvents += i;
+            if (this.freeSlots != null) {
+                this.freeSlots.release(i);
+            }
+        }
+        while (this.ringBuffer.poll() != null) {
+            this.numberOfDroppedEvents.incrementAndGet();
+        }
+    }
+
+    /**
+     * This method waits until there is room in the ring of a BLOCK
+     * subscription and reserves it. While it waits, it wakes the thread of
+     * the subscription up, as it may be sleeping on an empty ring.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return TRUE, if there is room for a simulation event. FALSE, if the
+     * subscription has been cancelled meanwhile.
+     * @since 2.0
+     */
+    private boolean waitForFreeSlot() {
+        if (this.freeSlots.tryAcquire()) {
+            return true;
+        }
+        try {
+            do {
+                if (this.cancelled) {
+                    return false;
+                }
+                if (this.consumerThread != null) {
+                    LockSupport.unpark(this.consumerThread);
+                }
+            } while (!this.freeSlots.tryAcquire(TSimulationEventSubscription.IDLE_WAIT, TimeUnit.NANOSECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * When the ring is full, the oldest simulation event of the ring is
+     * dropped to make room for the new one.
+     */
+    public static final int DROP_OLDEST = 0;
+    /**
+     * When the ring is full, the new simulation event is dropped.
+     */
+    public static final int DROP_NEWEST = 1;
+    /**
+     * Simulation events are delivered in the thread that publishes them,
+     * without a ring. It is meant for listeners that are fast and thread safe
+     * and cannot lose simulation events, like TSimulationEventCounter.
+     */
+    public static final int INLINE = 2;
+    /**
+     * When the ring is full, the thread that publishes the simulation event
+     * waits until the listener makes room. It is meant for listeners that
+     * cannot lose simulation events but are too slow to be inline, like
+     * TTraceWriter.
+     */
+    public static final int BLOCK = 3;
+    public static final int DEFAULT_CAPACITY = 8192;
+    private static final int BATCH_SIZE = 256;
+    private static final long IDLE_WAIT = 1000000;
+
+    private ISimulationEventListener listener;
+    private int dropPolicy;
+    private long subtypesMask;
+    private TRingBuffer ringBuffer;
+    private Semaphore freeSlots;
+    private Thread consumerThread;
+    private AtomicLong numberOfPublishedEvents;
+    private AtomicLong numberOfDroppedEvents;
+    private volatile long numberOfDeliveredEvents;
+    private volatile boolean cancelled;
+}
@@ -0,0 +1,447 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import simMPLS.scenario.TLink;
+import simMPLS.scenario.TNode;
+import simMPLS.scenario.TTopologyElement;
+
+/**
+ * This class implements a conservative parallel discrete-event engine for the
+ * timer. The topology is partitioned into regions, each one simulated by its
+ * own thread. The only links between regions are cut links, whose packets are
+ * exchanged as timestamped messages. Each cut link is still simulated, by the
+ * region of its first end, so that it keeps its state and generates its
+ * events, but the packets it carries travel through its channel. As a packet
+ * needs at least the delay of
+ * the link to cross it, regions can simulate on their own a window of ticks
+ * as long as that delay (the lookahead) and only have to synchronize at the
+ * end of each window (the horizon).
+ *
+ * The partition puts the nodes joined by the shortest links in the same
+ * region, so the links that are cut are the longest ones and the lookahead is
+ * as large as possible, while keeping regions of a similar size when the
+ * delays allow it.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TConservativeParallelEngine {
+
+    /**
+     * This method is the constructor of the class. It partitions the
+     * specified nodes and links into regions.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param timer The timer that uses the engine.
+     * @param nodes The nodes that receive timer events.
+     * @param links The links that receive timer events.
+     * @param numberOfRegions The maximum number of regions.
+     * @param tick The length of a tick, in nanoseconds.
+     * @since 2.0
+     */
+    public TConservativeParallelEngine(TTimer timer, TTopologyElement[] nodes, TTopologyElement[] links, int numberOfRegions, int tick) {
+        this.timer = timer;
+        this.nodes = new ArrayList<TNode>(nodes.length);
+        this.links = new ArrayList<TLink>(links.length);
+        int i;
+        for (i = 0; i < nodes.length; i++) {
+            this.nodes.add((TNode) nodes[i]);
+        }
+        for (i = 0; i < links.length; i++) {
+            this.links.add((TLink) links[i]);
+        }
+        this.regions = new ArrayList<TSimulationRegion>();
+        this.channels = new ArrayList<TCutLinkChannel>();
+        this.executorService = null;
+        this.lookahead = 0;
+        this.windowLength = TConservativeParallelEngine.MAX_WINDOW_LENGTH;
+        this.numberOfHorizons = 0;
+        this.partition(Math.max(1, numberOfRegions), tick);
+    }
+
+    /**
+     * This method prepares the topology elements to be simulated by the
+     * regions. It has to be called before the first window.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void start() {
+        int i;
+        for (i = 0; i < this.nodes.size(); i++) {
+            this.nodes.get(i).setInlineOperation(true);
+        }
+        for (i = 0; i < this.links.size(); i++) {
+            this.links.get(i).setInlineOperation(true);
+        }
+        for (i = 0; i < this.channels.size(); i++) {
+            TCutLinkChannel channel = this.channels.get(i);
+            channel.takePacketsFromLink();
+            channel.getLink().setCutLinkChannel(channel);
+        }
+        this.executorService = Executors.newFixedThreadPool(this.regions.size(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread regionThread = new Thread(runnable);
+                regionThread.setDaemon(true);
+                return regionThread;
+            }
+        });
+    }
+
+    /**
+     * This method simulates a window of ticks. Every region simulates the
+     * window in its own thread and, when all of them have reached the
+     * horizon, the messages sent through cut links are handed to the regions
+     * of their destinations.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param lowerLimits The start of each tick, in nanoseconds.
+     * @param upperLimits The end of each tick, in nanoseconds.
+     * @param numberOfTicks The number of ticks of the window. It must not be
+     * greater than getWindowLength().
+     * @since 2.0
+     */
+    public void runWindow(long[] lowerLimits, long[] upperLimits, int numberOfTicks) {
+        ArrayList<Future<?>> futures = new ArrayList<Future<?>>(this.regions.size());
+        int i;
+        for (i = 0; i < this.regions.size(); i++) {
+            TSimulationRegion region = this.regions.get(i);
+            region.setWindow(lowerLimits, upperLimits, numberOfTicks);
+            futures.add(this.executorService.submit(region));
+        }
+        for (i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        long horizon = upperLimits[numberOfTicks - 1];
+        for (i = 0; i < this.channels.size(); i++) {
+            this.channels.get(i).exchange(horizon);
+        }
+        this.numberOfHorizons++;
+    }
+
+    /**
+     * This method returns the topology elements to their usual behaviour. It
+     * has to be called after the last window.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void stop() {
+        int i;
+        for (i = 0; i < this.nodes.size(); i++) {
+            this.nodes.get(i).setInlineOperation(false);
+        }
+        for (i = 0; i < this.links.size(); i++) {
+            this.links.get(i).setInlineOperation(false);
+        }
+        for (i = 0; i < this.channels.size(); i++) {
+            TCutLinkChannel channel = this.channels.get(i);
+            channel.getLink().setCutLinkChannel(null);
+            channel.returnPacketsToLink();
+        }
+        if (this.executorService != null) {
+            this.executorService.shutdown();
+            this.executorService = null;
+        }
+    }
+
+    /**
+     * This method returns the number of regions the topology has been
+     * partitioned into.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of regions.
+     * @since 2.0
+     */
+    public int getNumberOfRegions() {
+        return this.regions.size();
+    }
+
+    /**
+     * This method returns the regions the topology has been partitioned into.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The regions.
+     * @since 2.0
+     */
+    public TSimulationRegion[] getRegions() {
+        return this.regions.toArray(new TSimulationRegion[this.regions.size()]);
+    }
+
+    /**
+     * This method returns the number of links whose ends are in different
+     * regions.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of cut links.
+     * @since 2.0
+     */
+    public int getNumberOfCutLinks() {
+        return this.channels.size();
+    }
+
+    /**
+     * This method returns the lookahead of the partition: the shortest delay
+     * of the cut links.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The lookahead, in nanoseconds, or 0 if no link is cut.
+     * @since 2.0
+     */
+    public long getLookahead() {
+        return this.lookahead;
+    }
+
+    /**
+     * This method returns how many ticks regions simulate between two
+     * horizons.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The length of a window, in ticks.
+     * @since 2.0
+     */
+    public int getWindowLength() {
+        return this.windowLength;
+    }
+
+    /**
+     * This method returns how many times the regions have synchronized.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of horizons.
+     * @since 2.0
+     */
+    public long getNumberOfHorizons() {
+        return this.numberOfHorizons;
+    }
+
+    /**
+     * This method returns how many packets have crossed cut links.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of messages exchanged between regions.
+     * @since 2.0
+     */
+    public long getNumberOfMessages() {
+        long numberOfMessages = 0;
+        int i;
+        for (i = 0; i < this.channels.size(); i++) {
+            numberOfMessages += this.channels.get(i).getNumberOfMessages();
+        }
+        return numberOfMessages;
+    }
+
+    /**
+     * This method partitions the nodes into regions. Links are visited from the
+     * shortest to the longest and the nodes at their ends are put in the same
+     * region, first without letting a region grow beyond its fair share of
+     * nodes and then without limit, until only the specified number of regions
+     * are left. Nodes that are not connected at all are spread over the
+     * smallest regions. Finally, the lookahead and the length of the windows
+     * are computed from the links that remain cut, and each cut link is given
+     * to the region of its first end.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param numberOfRegions The maximum number of regions.
+     * @param tick The length of a tick, in nanoseconds.
+     * @since 2.0
+     */
+    private void partition(int numberOfRegions, int tick) {
+        int numberOfNodes = this.nodes.size();
+        if (numberOfNodes == 0) {
+            return;
+        }
+        if (numberOfRegions > numberOfNodes) {
+            numberOfRegions = numberOfNodes;
+        }
+        HashMap<TNode, Integer> nodeIndexes = new HashMap<TNode, Integer>();
+        int[] parents = new int[numberOfNodes];
+        int[] sizes = new int[numberOfNodes];
+        int i;
+        for (i = 0; i < numberOfNodes; i++) {
+            nodeIndexes.put(this.nodes.get(i), Integer.valueOf(i));
+            parents[i] = i;
+            sizes[i] = 1;
+        }
+        ArrayList<TLink> sortedLinks = new ArrayList<TLink>(this.links);
+        Collections.sort(sortedLinks, new Comparator<TLink>() {
+            @Override
+            public int compare(TLink link1, TLink link2) {
+                if (link1.getDelay() != link2.getDelay()) {
+                    return (link1.getDelay() < link2.getDelay()) ? -1 : 1;
+                }
+                return link1.compareTo(link2);
+            }
+        });
+        int numberOfComponents = numberOfNodes;
+        int regionCapacity = (numberOfNodes + numberOfRegions - 1) / numberOfRegions;
+        int pass;
+        for (pass = 0; pass < 2; pass++) {
+            Iterator<TLink> iterator = sortedLinks.iterator();
+            while ((numberOfComponents > numberOfRegions) && iterator.hasNext()) {
+                TLink link = iterator.next();
+                Integer end1 = nodeIndexes.get(link.getNodeAtEnd1());
+                Integer end2 = nodeIndexes.get(link.getNodeAtEnd2());
+                if ((end1 == null) || (end2 == null)) {
+                    continue;
+                }
+                int root1 = this.findRoot(parents, end1.intValue());
+                int root2 = this.findRoot(parents, end2.intValue());
+                if (root1 == root2) {
+                    continue;
+                }
+                if ((pass == 0) && (sizes[root1] + sizes[root2] > regionCapacity)) {
+                    continue;
+                }
+                if (sizes[root1] < sizes[root2]) {
+                    parents[root1] = root2;
+                    sizes[root2] += sizes[root1];
+                } else {
+                    parents[root2] = root1;
+                    sizes[root1] += sizes[root2];
+                }
+                numberOfComponents--;
+            }
+        }
+        // Components are assigned to regions from the biggest to the
+        // smallest, each one to the region with fewer nodes so far.
+        ArrayList<Integer> roots = new ArrayList<Integer>();
+        for (i = 0; i < numberOfNodes; i++) {
+            if (this.findRoot(parents, i) == i) {
+                roots.add(Integer.valueOf(i));
+            }
+        }
+        final int[] componentSizes = sizes;
+        Collections.sort(roots, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer root1, Integer root2) {
+                int size1 = componentSizes[root1.intValue()];
+                int size2 = componentSizes[root2.intValue()];
+                if (size1 != size2) {
+                    return (size1 > size2) ? -1 : 1;
+                }
+                return root1.compareTo(root2);
+            }
+        });
+        int[] regionSizes = new int[Math.min(numberOfRegions, roots.size())];
+        int[] regionOfRoot = new int[numberOfNodes];
+        for (i = 0; i < regionSizes.length; i++) {
+            this.regions.add(new TSimulationRegion(this.timer, i));
+        }
+        for (i = 0; i < roots.size(); i++) {
+            int root = roots.get(i).intValue();
+            int smallestRegion = 0;
+            int j;
+            for (j = 1; j < regionSizes.length; j++) {
+                if (regionSizes[j] < regionSizes[smallestRegion]) {
+                    smallestRegion = j;
+                }
+            }
+            regionOfRoot[root] = smallestRegion;
+            regionSizes[smallestRegion] += sizes[root];
+        }
+        int[] regionOfNode = new int[numberOfNodes];
+        for (i = 0; i < numberOfNodes; i++) {
+            regionOfNode[i] = regionOfRoot[this.findRoot(parents, i)];
+            this.regions.get(regionOfNode[i]).addNode(this.nodes.get(i));
+        }
+        long lookaheadInTicks = 0;
+        for (i = 0; i < this.links.size(); i++) {
+            TLink link = this.links.get(i);
+            Integer end1 = nodeIndexes.get(link.getNodeAtEnd1());
+            Integer end2 = nodeIndexes.get(link.getNodeAtEnd2());
+            if ((end1 == null) || (end2 == null)) {
+                continue;
+            }
+            int region1 = regionOfNode[end1.intValue()];
+            int region2 = regionOfNode[end2.intValue()];
+            this.regions.get(region1).addLink(link);
+            if (region1 != region2) {
+                TCutLinkChannel channel = new TCutLinkChannel(link);
+                this.channels.add(channel);
+                this.regions.get(region1).addIncomingChannel(channel, TLink.END_NODE_1);
+                this.regions.get(region2).addIncomingChannel(channel, TLink.END_NODE_2);
+                long delay = Math.max(1, link.getDelay());
+                if ((this.lookahead == 0) || (delay < this.lookahead)) {
+                    this.lookahead = delay;
+                }
+            }
+        }
+        if ((this.lookahead > 0) && (tick > 0)) {
+            // A packet sent during a tick is delivered, at the earliest, by
+            // the link work of the tick that ends the lookahead. The channel
+            // has to be handed to the region of the destination before that
+            // tick, so that the packet is delivered among the rest of links,
+            // so the window stops on the tick before.
+            lookaheadInTicks = (this.lookahead + tick - 1) / tick;
+            this.windowLength = (int) Math.max(1, Math.min(lookaheadInTicks - 1, TConservativeParallelEngine.MAX_WINDOW_LENGTH));
+        }
+    }
+
+    /**
+     * This method finds the representative node of the component a node
+     * belongs to, compressing the path on the way.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param parents The parent of each node.
+     * @param nodeIndex The index of the node.
+     * @return The index of the representative node.
+     * @since 2.0
+     */
+    private int findRoot(int[] parents, int nodeIndex) {
+        int root = nodeIndex;
+        while (parents[root] != root) {
+            root = parents[root];
+        }
+        while (parents[nodeIndex] != root) {
+            int next = parents[nodeIndex];
+            parents[nodeIndex] = root;
+            nodeIndex = next;
+        }
+        return root;
+    }
+
+    /**
+     * Longest window, in ticks, even if no link is cut, so that the progress
+     * of the simulation is still reported from time to time.
+     */
+    public static final int MAX_WINDOW_LENGTH = 1024;
+
+    private TTimer timer;
+    private ArrayList<TNode> nodes;
+    private ArrayList<TLink> links;
+    private ArrayList<TSimulationRegion> regions;
+    private ArrayList<TCutLinkChannel> channels;
+    private ExecutorService executorService;
+    private long lookahead;
+    private int windowLength;
+    private long numberOfHorizons;
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.TreeSet;
+import simMPLS.protocols.TAbstractPDU;
+import simMPLS.scenario.TLink;
+import simMPLS.scenario.TLinkBufferEntry;
+import simMPLS.scenario.TNode;
+import simMPLS.scenario.TSimulationEvent;
+
+/**
+ * This class implements the channel that replaces a link whose ends are in
+ * different simulation regions when the conservative parallel engine is used.
+ * Packets sent through the link are stored as messages stamped with the
+ * instant they will reach the other end. Messages are handed to the region of
+ * the destination node only at the synchronization horizons. From then on,
+ * that region advances them tick by tick, exactly as the link would do, and
+ * delivers them to the destination port through the link. The link itself is
+ * still simulated by one of the regions, so it keeps its state, and the
+ * packets of the channel count as packets in transit through it.
+ *
+ * The link delay is never shorter than the lookahead the horizons are
+ * computed with, so a message is never handed over after the instant it has
+ * to be delivered.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TCutLinkChannel {
+
+    /**
+     * This method is the constructor of the class. It creates a new channel
+     * for the specified link.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param link The link whose ends are in different regions.
+     * @since 2.0
+     */
+    public TCutLinkChannel(TLink link) {
+        this.link = link;
+        this.outgoingEntries = new ArrayList<ArrayList<TLinkBufferEntry>>(2);
+        this.outgoingArrivals = new ArrayList<ArrayList<Long>>(2);
+        this.pendingEntries = new ArrayList<ArrayList<TLinkBufferEntry>>(2);
+        this.lastAdvances = new long[2];
+        int i;
+        for (i = 0; i < 2; i++) {
+            this.outgoingEntries.add(new ArrayList<TLinkBufferEntry>());
+            this.outgoingArrivals.add(new ArrayList<Long>());
+            this.pendingEntries.add(new ArrayList<TLinkBufferEntry>());
+            this.lastAdvances[i] = -1;
+        }
+        this.numberOfMessages = 0;
+    }
+
+    /**
+     * This method returns the link this channel replaces.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The link.
+     * @since 2.0
+     */
+    public TLink getLink() {
+        return this.link;
+    }
+
+    /**
+     * This method sends a packet through the channel. It is called, instead of
+     * putting the packet in the buffer of the link, by the node at the other
+     * end of the destination, while it is processing a tick. The message is
+     * stamped with the instant the packet reaches the destination, which is
+     * the start of that tick plus the link delay. But a node may send a packet
+     * while a link is delivering another one to it; if the link would have
+     * already done its work of the tick by then, the packet starts travelling
+     * on the next tick, so it is stamped with the end of the tick plus the
+     * link delay.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param packet The packet.
+     * @param targetEnd TLink.END_NODE_1 or TLink.END_NODE_2.
+     * @since 2.0
+     */
+    public synchronized void send(TAbstractPDU packet, int targetEnd) {
+        TNode sourceNode = this.link.getNodeAtEnd1();
+        if (targetEnd == TLink.END_NODE_1) {
+            sourceNode = this.link.getNodeAtEnd2();
+        }
+        long arrival = sourceNode.getAvailableTime() - sourceNode.getTickDuration() + this.link.getDelay();
+        // The region of the source node advances the opposite direction at
+        // the place of the link.
+        if (this.lastAdvances[1 - this.getDirection(targetEnd)] == sourceNode.getAvailableTime()) {
+            arrival += sourceNode.getTickDuration();
+        }
+        int direction = this.getDirection(targetEnd);
+        this.outgoingEntries.get(direction).add(new TLinkBufferEntry(packet, this.link.getDelay(), targetEnd));
+        this.outgoingArrivals.get(direction).add(Long.valueOf(arrival));
+        this.numberOfMessages++;
+    }
+
+    /**
+     * This method hands the messages sent since the previous horizon to the
+     * regions of their destination nodes. It is called by the engine at a
+     * horizon, when no region is running. Messages that have to be delivered
+     * at the horizon are delivered at once.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param horizon The instant, in nanoseconds, of the horizon.
+     * @since 2.0
+     */
+    public synchronized void exchange(long horizon) {
+        int direction;
+        int i;
+        for (direction = 0; direction < 2; direction++) {
+            ArrayList<TLinkBufferEntry> entries = this.outgoingEntries.get(direction);
+            ArrayList<Long> arrivals = this.outgoingArrivals.get(direction);
+            for (i = 0; i < entries.size(); i++) {
+                TLinkBufferEntry entry = entries.get(i);
+                entry.ponerTiempoEspera(arrivals.get(i).longValue() - horizon);
+                this.pendingEntries.get(direction).add(entry);
+            }
+            entries.clear();
+            arrivals.clear();
+            this.deliverArrivedPackets(direction);
+        }
+    }
+
+    /**
+     * This method advances the messages travelling to the specified end of
+     * the link by the length of a tick and delivers those that arrive. It is
+     * called by the region of the destination node after the links of the
+     * region have done the work of the tick. The link shows them travelling,
+     * as it does with the packets of its own buffer.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param targetEnd TLink.END_NODE_1 or TLink.END_NODE_2.
+     * @param instant The end of the tick, in nanoseconds.
+     * @param stepLength The length of the tick, in nanoseconds.
+     * @since 2.0
+     */
+    public synchronized void advance(int targetEnd, long instant, long stepLength) {
+        int direction = this.getDirection(targetEnd);
+        this.lastAdvances[direction] = instant;
+        ArrayList<TLinkBufferEntry> entries = this.pendingEntries.get(direction);
+        if (entries.isEmpty()) {
+            return;
+        }
+        boolean packetOnFlyWanted = this.link.isSimulationEventWanted(TSimulationEvent.PACKET_ON_FLY);
+        int i;
+        for (i = 0; i < entries.size(); i++) {
+            entries.get(i).substractStepLength(stepLength);
+            if (packetOnFlyWanted) {
+                this.link.generatePacketOnFlyEvent(entries.get(i));
+            }
+        }
+        this.deliverArrivedPackets(direction);
+    }
+
+    /**
+     * This method moves to the channel the packets the link was carrying
+     * when the channel is put in place, so that they keep travelling.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public synchronized void takePacketsFromLink() {
+        ArrayList<TLinkBufferEntry> entries = new ArrayList<TLinkBufferEntry>();
+        this.link.takePacketsInTransit(entries);
+        int i;
+        for (i = 0; i < entries.size(); i++) {
+            TLinkBufferEntry entry = entries.get(i);
+            this.pendingEntries.get(this.getDirection(entry.getTargetEnd())).add(entry);
+        }
+    }
+
+    /**
+     * This method gives back to the link the packets that are still
+     * travelling through the channel. It is called when the channel is
+     * removed, for example when the simulation is paused at a checkpoint, and
+     * then it is done at a horizon, so no message is waiting to be exchanged.
+     * It is called too when the link breaks, so that the link discards every
+     * packet it carries.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public synchronized void returnPacketsToLink() {
+        int direction;
+        int i;
+        for (direction = 0; direction < 2; direction++) {
+            for (i = 0; i < this.pendingEntries.get(direction).size(); i++) {
+                this.link.putPacketInTransit(this.pendingEntries.get(direction).get(i));
+            }
+            for (i = 0; i < this.outgoingEntries.get(direction).size(); i++) {
+                this.link.putPacketInTransit(this.outgoingEntries.get(direction).get(i));
+            }
+            this.pendingEntries.get(direction).clear();
+            this.outgoingEntries.get(direction).clear();
+            this.outgoingArrivals.get(direction).clear();
+        }
+    }
+
+    /**
+     * This method returns how many packets are travelling through the
+     * channel, whether they have been handed to the region of their
+     * destination or not.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of packets in transit.
+     * @since 2.0
+     */
+    public synchronized int getNumberOfPacketsInTransit() {
+        int numberOfPacketsInTransit = 0;
+        int direction;
+        for (direction = 0; direction < 2; direction++) {
+            numberOfPacketsInTransit += this.pendingEntries.get(direction).size() + this.outgoingEntries.get(direction).size();
+        }
+        return numberOfPacketsInTransit;
+    }
+
+    /**
+     * This method returns how many messages have been sent through the
+     * channel.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of messages.
+     * @since 2.0
+     */
+    public synchronized long getNumberOfMessages() {
+        return this.numberOfMessages;
+    }
+
+    /**
+     * This method delivers the packets travelling in the specified direction
+     * that have reached their destination. Packets that arrive at the same
+     * time are delivered in the same order the link would deliver them.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param direction 0 for packets travelling to end 1, 1 for packets
+     * travelling to end 2.
+     * @since 2.0
+     */
+    private void deliverArrivedPackets(int direction) {
+        TreeSet<TLinkBufferEntry> arrivedEntries = null;
+        Iterator<TLinkBufferEntry> iterator = this.pendingEntries.get(direction).iterator();
+        while (iterator.hasNext()) {
+            TLinkBufferEntry entry = iterator.next();
+            if (entry.getRemainingTransitDelay() <= 0) {
+                if (arrivedEntries == null) {
+                    arrivedEntries = new TreeSet<TLinkBufferEntry>();
+                }
+                arrivedEntries.add(entry);
+                iterator.remove();
+            }
+        }
+        if (arrivedEntries == null) {
+            return;
+        }
+        iterator = arrivedEntries.iterator();
+        while (iterator.hasNext()) {
+            this.link.deliverPacketFromChannel(iterator.next());
+        }
+    }
+
+    /**
+     * This method translates the end of the link a packet travels to into the
+     * index of the corresponding direction.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param targetEnd TLink.END_NODE_1 or TLink.END_NODE_2.
+     * @return 0 for end 1, 1 for end 2.
+     * @since 2.0
+     */
+    private int getDirection(int targetEnd) {
+        if (targetEnd == TLink.END_NODE_1) {
+            return 0;
+        }
+        return 1;
+    }
+
+    private TLink link;
+    private ArrayList<ArrayList<TLinkBufferEntry>> outgoingEntries;
+    private ArrayList<ArrayList<Long>> outgoingArrivals;
+    private ArrayList<ArrayList<TLinkBufferEntry>> pendingEntries;
+    private long[] lastAdvances;
+    private long numberOfMessages;
+}
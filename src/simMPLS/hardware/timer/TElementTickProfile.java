@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import simMPLS.scenario.TTopologyElement;
+
+/**
+ * This class implements the tick profile of a topology element: the wall
+ * time of each tick, the packets and octets the element switches on each
+ * tick, and the time spent in each phase of its work. A topology element
+ * only works in one thread at a time, so the profile is updated without
+ * locks. Values read from another thread while the simulation is running,
+ * as the live view does, may be a few ticks behind.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TElementTickProfile {
+
+    /**
+     * This method is the constructor of the class. It creates a new empty
+     * profile for the specified topology element.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param topologyElement The topology element being profiled.
+     * @since 2.0
+     */
+    public TElementTickProfile(TTopologyElement topologyElement) {
+        this.topologyElement = topologyElement;
+        this.tickTimeHistogram = new TTickHistogram();
+        this.packetsHistogram = new TTickHistogram();
+        this.octetsHistogram = new TTickHistogram();
+        this.phaseTimes = new long[TElementTickProfile.NUMBER_OF_PHASES];
+        this.packetsInTick = 0;
+        this.octetsInTick = 0;
+    }
+
+    /**
+     * This method starts a new tick of the topology element.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void startTick() {
+        this.packetsInTick = 0;
+        this.octetsInTick = 0;
+    }
+
+    /**
+     * This method finishes the current tick of the topology element and adds
+     * its values to the histograms.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param tickTime The wall time of the tick, in nanoseconds.
+     * @since 2.0
+     */
+    public void endTick(long tickTime) {
+        this.tickTimeHistogram.add(tickTime);
+        this.packetsHistogram.add(this.packetsInTick);
+        this.octetsHistogram.add(this.octetsInTick);
+    }
+
+    /**
+     * This method records a packet switched by the topology element during
+     * the current tick.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param octets The size of the packet, in octets.
+     * @since 2.0
+     */
+    public void addPacket(int octets) {
+        this.packetsInTick++;
+        this.octetsInTick += octets;
+    }
+
+    /**
+     * This method adds time to one of the phases of the work of the topology
+     * element.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param phase One of the phases defined in this class.
+     * @param time The time spent in the phase, in nanoseconds.
+     * @since 2.0
+     */
+    public void addPhaseTime(int phase, long time) {
+        this.phaseTimes[phase] += time;
+    }
+
+    /**
+     * This method returns the topology element being profiled.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The topology element.
+     * @since 2.0
+     */
+    public TTopologyElement getTopologyElement() {
+        return this.topologyElement;
+    }
+
+    /**
+     * This method returns the histogram of the wall time of the ticks.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The histogram, in nanoseconds.
+     * @since 2.0
+     */
+    public TTickHistogram getTickTimeHistogram() {
+        return this.tickTimeHistogram;
+    }
+
+    /**
+     * This method returns the histogram of the packets switched per tick.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The histogram, in packets.
+     * @since 2.0
+     */
+    public TTickHistogram getPacketsHistogram() {
+        return this.packetsHistogram;
+    }
+
+    /**
+     * This method returns the histogram of the octets switched per tick.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The histogram, in octets.
+     * @since 2.0
+     */
+    public TTickHistogram getOctetsHistogram() {
+        return this.octetsHistogram;
+    }
+
+    /**
+     * This method returns the time spent in one of the phases of the work of
+     * the topology element.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param phase One of the phases defined in this class.
+     * @return The time spent in the phase, in nanoseconds.
+     * @since 2.0
+     */
+    public long getPhaseTime(int phase) {
+        return this.phaseTimes[phase];
+    }
+
+    /**
+     * This method returns the name of one of the phases defined in this
+     * class.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param phase One of the phases defined in this class.
+     * @return The name of the phase.
+     * @since 2.0
+     */
+    public static String getPhaseName(int phase) {
+        switch (phase) {
+            case TElementTickProfile.CONNECTIVITY_PHASE:
+                return "connectivity";
+            case TElementTickProfile.SWITCHING_PHASE:
+                return "switching";
+            case TElementTickProfile.STATS_PHASE:
+                return "stats";
+            default:
+                return "unknown";
+        }
+    }
+
+    /**
+     * This method empties the profile.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void reset() {
+        this.tickTimeHistogram.reset();
+        this.packetsHistogram.reset();
+        this.octetsHistogram.reset();
+        int i;
+        for (i = 0; i < TElementTickProfile.NUMBER_OF_PHASES; i++) {
+            this.phaseTimes[i] = 0;
+        }
+        this.packetsInTick = 0;
+        this.octetsInTick = 0;
+    }
+
+    /**
+     * Phase in which a node checks the links to its neighbours
+     * (checkConnectivityStatus).
+     */
+    public static final int CONNECTIVITY_PHASE = 0;
+    /**
+     * Phase in which a node switches, routes, generates or receives packets.
+     */
+    public static final int SWITCHING_PHASE = 1;
+    /**
+     * Phase in which a node consolidates its statistics.
+     */
+    public static final int STATS_PHASE = 2;
+    public static final int NUMBER_OF_PHASES = 3;
+
+    private TTopologyElement topologyElement;
+    private TTickHistogram tickTimeHistogram;
+    private TTickHistogram packetsHistogram;
+    private TTickHistogram octetsHistogram;
+    private long[] phaseTimes;
+    private long packetsInTick;
+    private long octetsInTick;
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import java.io.Serializable;
+import simMPLS.scenario.TTopologyElement;
+
+/**
+ * This class implements an entry of the future event list used by the
+ * event-driven scheduling engine of the timer. It states that a given topology
+ * element has to receive a timer event at a given simulation instant.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TFutureEvent implements Comparable<TFutureEvent>, Serializable {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance of
+     * TFutureEvent.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param topologyElement The topology element that has to be woken up.
+     * @param instant The simulation instant, in nanoseconds, at which the
+     * topology element has to receive a timer event.
+     * @param sequence A sequence number that disambiguates events scheduled at
+     * the same instant, keeping the insertion order.
+     * @since 2.0
+     */
+    public TFutureEvent(TTopologyElement topologyElement, long instant, long sequence) {
+        this.topologyElement = topologyElement;
+        this.instant = instant;
+        this.sequence = sequence;
+    }
+
+    /**
+     * This method returns the topology element that has to be woken up by this
+     * future event.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The topology element to be woken up.
+     * @since 2.0
+     */
+    public TTopologyElement getTopologyElement() {
+        return this.topologyElement;
+    }
+
+    /**
+     * This method returns the simulation instant at which this future event
+     * has to be dispatched.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The simulation instant, in nanoseconds.
+     * @since 2.0
+     */
+    public long getInstant() {
+        return this.instant;
+    }
+
+    /**
+     * This method compares this future event with another one, ordering them
+     * by instant first and by sequence number afterwards.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param futureEventAux The future event to be compared with the
+     * current one.
+     * @return -1, 0 or 1 depending on whether the current future event is
+     * lower, equal or greater than the one passed as an argument.
+     * @since 2.0
+     */
+    @Override
+    public int compareTo(TFutureEvent futureEventAux) {
+        if (this.instant < futureEventAux.getInstant()) {
+            return -1;
+        }
+        if (this.instant > futureEventAux.getInstant()) {
+            return 1;
+        }
+        if (this.sequence < futureEventAux.sequence) {
+            return -1;
+        }
+        if (this.sequence > futureEventAux.sequence) {
+            return 1;
+        }
+        return 0;
+    }
+
+    private static final long serialVersionUID = 1L;
+    private TTopologyElement topologyElement;
+    private long instant;
+    private long sequence;
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.TreeSet;
+import simMPLS.scenario.TTopologyElement;
+import simMPLS.utils.TLock;
+
+/**
+ * This class implements the future event list used by the event-driven
+ * scheduling engine of the timer. It keeps, ordered by time, the instants at
+ * which topology elements have asked to be woken up. A topology element has,
+ * at most, a pending future event: the earliest one it has asked for, as it
+ * asks again each time it is woken up. So the size of the list depends on the
+ * number of topology elements and not on the traffic. Topology elements
+ * schedule events concurrently from their own threads, so every operation is
+ * protected by a monitor.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TFutureEventList implements Serializable {
+
+    /**
+     * This method is the constructor of the class. It creates a new empty
+     * future event list.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public TFutureEventList() {
+        this.futureEvents = new TreeSet<TFutureEvent>();
+        this.pendingFutureEvents = new HashMap<TTopologyElement, TFutureEvent>();
+        this.monitor = new TLock("TFutureEventList.monitor");
+        this.sequence = 0;
+    }
+
+    /**
+     * This method schedules a new future event so that the specified topology
+     * element receives a timer event at the specified instant. If the
+     * topology element already has a pending future event at the same
+     * instant or before, nothing is done, because it will be woken up then
+     * and it will ask again for whatever it needs.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param topologyElement The topology element to be woken up.
+     * @param instant The simulation instant, in nanoseconds, at which the
+     * topology element has to be woken up.
+     * @since 2.0
+     */
+    public void schedule(TTopologyElement topologyElement, long instant) {
+        this.monitor.lock();
+        TFutureEvent pendingFutureEvent = this.pendingFutureEvents.get(topologyElement);
+        if ((pendingFutureEvent == null) || (instant < pendingFutureEvent.getInstant())) {
+            if (pendingFutureEvent != null) {
+                this.futureEvents.remove(pendingFutureEvent);
+            }
+            pendingFutureEvent = new TFutureEvent(topologyElement, instant, this.sequence);
+            this.sequence++;
+            this.futureEvents.add(pendingFutureEvent);
+            this.pendingFutureEvents.put(topologyElement, pendingFutureEvent);
+        }
+        this.monitor.unlock();
+    }
+
+    /**
+     * This method returns the instant of the earliest future event scheduled.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The instant, in nanoseconds, of the earliest future event or
+     * NO_FUTURE_EVENTS if the list is empty.
+     * @since 2.0
+     */
+    public long getNextInstant() {
+        long nextInstant = TFutureEventList.NO_FUTURE_EVENTS;
+        this.monitor.lock();
+        if (!this.futureEvents.isEmpty()) {
+            nextInstant = this.futureEvents.first().getInstant();
+        }
+        this.monitor.unlock();
+        return nextInstant;
+    }
+
+    /**
+     * This method removes from the list every future event scheduled at or
+     * before the specified instant and puts the topology elements involved
+     * into the corresponding collections.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param instant The simulation instant, in nanoseconds, up to which
+     * future events have to be collected.
+     * @param nodes Collection where topology elements that are nodes will be
+     * added, or NULL if the future events of nodes have to stay in the list.
+     * @param links Collection where topology elements that are links will be
+     * added.
+     * @since 2.0
+     */
+    public void pollUntil(long instant, Collection<TTopologyElement> nodes, Collection<TTopologyElement> links) {
+        this.monitor.lock();
+        Iterator<TFutureEvent> futureEventsIterator = this.futureEvents.iterator();
+        TFutureEvent futureEventAux;
+        while (futureEventsIterator.hasNext()) {
+            futureEventAux = futureEventsIterator.next();
+            if (futureEventAux.getInstant() > instant) {
+                break;
+            }
+            if (futureEventAux.getTopologyElement().getElementType() == TTopologyElement.LINK) {
+                links.add(futureEventAux.getTopologyElement());
+            } else if (nodes != null) {
+                nodes.add(futureEventAux.getTopologyElement());
+            } else {
+                continue;
+            }
+            futureEventsIterator.remove();
+            this.pendingFutureEvents.remove(futureEventAux.getTopologyElement());
+        }
+        this.monitor.unlock();
+    }
+
+    /**
+     * This method removes every future event from the list.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void reset() {
+        this.monitor.lock();
+        this.futureEvents.clear();
+        this.pendingFutureEvents.clear();
+        this.sequence = 0;
+        this.monitor.unlock();
+    }
+
+    private static final long serialVersionUID = 1L;
+    public static final long NO_FUTURE_EVENTS = -1;
+
+    private TreeSet<TFutureEvent> futureEvents;
+    private HashMap<TTopologyElement, TFutureEvent> pendingFutureEvents;
+    private TLock monitor;
+    private long sequence;
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import java.util.ArrayList;
+import simMPLS.scenario.TLink;
+import simMPLS.scenario.TNode;
+import simMPLS.utils.EIDGeneratorOverflow;
+import simMPLS.utils.TLongIDGenerator;
+
+/**
+ * This class implements a region of the topology simulated by the
+ * conservative parallel engine. A region owns a set of nodes, the links whose
+ * both ends are in the region, the cut links whose first end is in the region
+ * and the directions of the cut links that lead to its nodes. It simulates a
+ * window of ticks on its own, in a single thread, doing on each tick the work
+ * of its nodes, then the work of its links and then advancing the packets
+ * that travel to it through cut links. While it does so, the timer tells the
+ * topology elements of the region the instant of the tick the region is
+ * simulating.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TSimulationRegion implements Runnable {
+
+    /**
+     * This method is the constructor of the class. It creates a new empty
+     * region.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param timer The timer the region belongs to.
+     * @param regionID The identifier of the region.
+     * @since 2.0
+     */
+    public TSimulationRegion(TTimer timer, int regionID) {
+        this.timer = timer;
+        this.regionID = regionID;
+        this.nodes = new ArrayList<TNode>();
+        this.links = new ArrayList<TLink>();
+        this.incomingChannels = new ArrayList<TCutLinkChannel>();
+        this.incomingEnds = new ArrayList<Integer>();
+        this.incomingPositions = new ArrayList<Integer>();
+        this.timerEventIDGenerator = new TLongIDGenerator();
+        this.timerEvent = new TTimerEvent(timer, 0, 0, 0);
+        this.lowerLimits = null;
+        this.upperLimits = null;
+        this.numberOfTicks = 0;
+        this.currentInstant = 0;
+        this.busyTime = 0;
+    }
+
+    /**
+     * This method returns the identifier of the region.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The identifier of the region.
+     * @since 2.0
+     */
+    public int getRegionID() {
+        return this.regionID;
+    }
+
+    /**
+     * This method adds a node to the region.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param node The node.
+     * @since 2.0
+     */
+    public void addNode(TNode node) {
+        this.nodes.add(node);
+    }
+
+    /**
+     * This method adds a link whose both ends are in the region, or a cut
+     * link the region is in charge of.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param link The link.
+     * @since 2.0
+     */
+    public void addLink(TLink link) {
+        this.links.add(link);
+    }
+
+    /**
+     * This method makes the region responsible of the packets that travel
+     * through a cut link to the specified end, which is a node of the region.
+     * Links have to be added in the order the timer sends them timer events,
+     * and the channel after the links that come before the cut link, so that
+     * the channel delivers its packets when the link would do it.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param channel The channel of the cut link.
+     * @param targetEnd TLink.END_NODE_1 or TLink.END_NODE_2.
+     * @since 2.0
+     */
+    public void addIncomingChannel(TCutLinkChannel channel, int targetEnd) {
+        this.incomingChannels.add(channel);
+        this.incomingEnds.add(Integer.valueOf(targetEnd));
+        this.incomingPositions.add(Integer.valueOf(this.links.size()));
+    }
+
+    /**
+     * This method returns the number of nodes of the region.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of nodes.
+     * @since 2.0
+     */
+    public int getNumberOfNodes() {
+        return this.nodes.size();
+    }
+
+    /**
+     * This method returns the number of links the region simulates, cut links
+     * included.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of links.
+     * @since 2.0
+     */
+    public int getNumberOfLinks() {
+        return this.links.size();
+    }
+
+    /**
+     * This method returns the end of the tick the region is simulating.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The instant, in nanoseconds.
+     * @since 2.0
+     */
+    public long getCurrentInstant() {
+        return this.currentInstant;
+    }
+
+    /**
+     * This method returns the wall-clock time the region has spent simulating
+     * its windows.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The time, in nanoseconds.
+     * @since 2.0
+     */
+    public long getBusyTime() {
+        return this.busyTime;
+    }
+
+    /**
+     * This method sets the ticks the region has to simulate the next time it
+     * runs.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param lowerLimits The start of each tick, in nanoseconds.
+     * @param upperLimits The end of each tick, in nanoseconds.
+     * @param numberOfTicks The number of ticks of the window.
+     * @since 2.0
+     */
+    public void setWindow(long[] lowerLimits, long[] upperLimits, int numberOfTicks) {
+        this.lowerLimits = lowerLimits;
+        this.upperLimits = upperLimits;
+        this.numberOfTicks = numberOfTicks;
+    }
+
+    /**
+     * This method simulates the current window of ticks. The nodes and links
+     * of the region must work inline, so that their work is done in the
+     * thread of the region. The same timer event, with a single identifier
+     * per tick, is sent to all of them and reused on the next tick. Packets
+     * travelling through cut links are advanced among the links, at the place
+     * of the cut link, so that nodes receive packets in the same order as
+     * with the rest of engines.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    @Override
+    public void run() {
+        long startTime = System.nanoTime();
+        int tick;
+        int i;
+        int channel;
+        long stepLength;
+        this.timer.setRegionOfCurrentThread(this);
+        for (tick = 0; tick < this.numberOfTicks; tick++) {
+            this.currentInstant = this.upperLimits[tick];
+            stepLength = this.upperLimits[tick] - this.lowerLimits[tick];
+            channel = 0;
+            try {
+                this.timerEvent.setInterval(this.timerEventIDGenerator.getNextID(), this.lowerLimits[tick], this.upperLimits[tick]);
+                for (i = 0; i < this.nodes.size(); i++) {
+                    this.nodes.get(i).receiveTimerEvent(this.timerEvent);
+                }
+                for (i = 0; i < this.links.size(); i++) {
+                    channel = this.advanceIncomingChannels(channel, i, stepLength);
+                    this.links.get(i).receiveTimerEvent(this.timerEvent);
+                }
+            } catch (EIDGeneratorOverflow e) {
+                e.printStackTrace();
+            }
+            this.advanceIncomingChannels(channel, this.links.size(), stepLength);
+        }
+        this.timer.setRegionOfCurrentThread(null);
+        this.busyTime += System.nanoTime() - startTime;
+    }
+
+    /**
+     * This method advances, by the length of a tick, the packets of the
+     * incoming channels placed before the specified link.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param firstChannel The index of the first channel not advanced yet
+     * during this tick.
+     * @param position The index of the link.
+     * @param stepLength The length of the tick, in nanoseconds.
+     * @return The index of the first channel not advanced yet.
+     * @since 2.0
+     */
+    private int advanceIncomingChannels(int firstChannel, int position, long stepLength) {
+        int channel = firstChannel;
+        while ((channel < this.incomingChannels.size()) && (this.incomingPositions.get(channel).intValue() <= position)) {
+            this.incomingChannels.get(channel).advance(this.incomingEnds.get(channel).intValue(), this.currentInstant, stepLength);
+            channel++;
+        }
+        return channel;
+    }
+
+    private TTimer timer;
+    private int regionID;
+    private ArrayList<TNode> nodes;
+    private ArrayList<TLink> links;
+    private ArrayList<TCutLinkChannel> incomingChannels;
+    private ArrayList<Integer> incomingEnds;
+    private ArrayList<Integer> incomingPositions;
+    private TLongIDGenerator timerEventIDGenerator;
+    private TTimerEvent timerEvent;
+    private long[] lowerLimits;
+    private long[] upperLimits;
+    private int numberOfTicks;
+    private long currentInstant;
+    private long busyTime;
+}
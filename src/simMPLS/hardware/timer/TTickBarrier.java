@@ -0,0 +1,326 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import simMPLS.scenario.TTopologyElement;
+
+/**
+ * This class implements the barrier that synchronizes the timer with the
+ * topology elements on each tick. The timer registers each topology element
+ * it sends a timer event to, and each one of them signals the barrier when it
+ * finishes its work. The barrier is a counter of the topology elements that
+ * have not finished yet, so it has no limit on the number of topology
+ * elements. The timer is woken up only once, when the last topology element
+ * finishes. The barrier also measures how long the timer waits on each tick
+ * and which topology element arrives the last (the straggler).
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TTickBarrier {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TTickBarrier.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public TTickBarrier() {
+        this.pendingElements = new AtomicInteger(0);
+        this.waitingThread = null;
+        this.stragglerCounts = new HashMap<TTopologyElement, Long>();
+        this.lastArrivedElement = null;
+        this.tickStart = 0;
+        this.numberOfTicks = 0;
+        this.totalWaitTime = 0;
+        this.maxWaitTime = 0;
+        this.phaseWaitTime = 0;
+        this.lastStraggler = null;
+        this.lastStragglerDelay = 0;
+    }
+
+    /**
+     * This method is called by the timer when it starts dispatching the timer
+     * events of a new tick.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public synchronized void startTick() {
+        this.tickStart = System.nanoTime();
+        this.lastArrivedElement = null;
+        this.lastArrivalTime = this.tickStart;
+    }
+
+    /**
+     * This method is called by the timer before sending a timer event to a
+     * topology element, so that the barrier waits for it.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void register() {
+        this.pendingElements.incrementAndGet();
+    }
+
+    /**
+     * This method is called by a topology element when it has finished the
+     * work corresponding to the timer event it received.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param topologyElement The topology element that has finished.
+     * @since 2.0
+     */
+    public void arrive(TTopologyElement topologyElement) {
+        synchronized (this) {
+            this.lastArrivedElement = topologyElement;
+            this.lastArrivalTime = System.nanoTime();
+        }
+        if (this.pendingElements.decrementAndGet() == 0) {
+            Thread waitingThreadAux = this.waitingThread;
+            if (waitingThreadAux != null) {
+                LockSupport.unpark(waitingThreadAux);
+            }
+        }
+    }
+
+    /**
+     * This method is called by the timer after dispatching the timer events
+     * of the nodes of a tick and before dispatching those of the links. It
+     * blocks the timer until every node registered so far has finished its
+     * work. The time spent waiting is added to the wait time of the tick.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void awaitPhase() {
+        long waitStart = System.nanoTime();
+        this.awaitPendingElements();
+        long waitTime = System.nanoTime() - waitStart;
+        synchronized (this) {
+            this.phaseWaitTime += waitTime;
+        }
+    }
+
+    /**
+     * This method is called by the timer after dispatching the timer events
+     * of a tick. It blocks the timer until every topology element registered
+     * in this tick has finished its work.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void awaitAllElements() {
+        long waitStart = System.nanoTime();
+        this.awaitPendingElements();
+        long waitTime = System.nanoTime() - waitStart;
+        synchronized (this) {
+            waitTime += this.phaseWaitTime;
+            this.phaseWaitTime = 0;
+            this.numberOfTicks++;
+            this.totalWaitTime += waitTime;
+            if (waitTime > this.maxWaitTime) {
+                this.maxWaitTime = waitTime;
+            }
+            this.lastStraggler = this.lastArrivedElement;
+            this.lastStragglerDelay = this.lastArrivalTime - this.tickStart;
+            if (this.lastStraggler != null) {
+                Long stragglerCount = this.stragglerCounts.get(this.lastStraggler);
+                if (stragglerCount == null) {
+                    this.stragglerCounts.put(this.lastStraggler, Long.valueOf(1));
+                } else {
+                    this.stragglerCounts.put(this.lastStraggler, Long.valueOf(stragglerCount.longValue() + 1));
+                }
+            }
+        }
+    }
+
+    /**
+     * This method blocks the calling thread, the one of the timer, until
+     * every topology element registered so far has finished its work. A
+     * topology element may finish before the timer registers the next one,
+     * so the timer can be woken up before the end; it checks the counter
+     * again each time.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    private void awaitPendingElements() {
+        this.waitingThread = Thread.currentThread();
+        while (this.pendingElements.get() > 0) {
+            LockSupport.park(this);
+        }
+        this.waitingThread = null;
+    }
+
+    /**
+     * This method records several ticks that have been synchronized at once,
+     * by an engine that does not use the barrier on every tick.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param numberOfTicks The number of ticks.
+     * @param waitTime The time the timer has been blocked until all of them
+     * were done, in nanoseconds.
+     * @since 2.0
+     */
+    public synchronized void addTicks(long numberOfTicks, long waitTime) {
+        this.numberOfTicks += numberOfTicks;
+        this.totalWaitTime += waitTime;
+        if (waitTime > this.maxWaitTime) {
+            this.maxWaitTime = waitTime;
+        }
+    }
+
+    /**
+     * This method returns the number of ticks the barrier has synchronized
+     * since the last reset of the statistics.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of ticks.
+     * @since 2.0
+     */
+    public synchronized long getNumberOfTicks() {
+        return this.numberOfTicks;
+    }
+
+    /**
+     * This method returns the total wall-clock time the timer has been
+     * blocked waiting for topology elements.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The total wait time, in nanoseconds.
+     * @since 2.0
+     */
+    public synchronized long getTotalWaitTime() {
+        return this.totalWaitTime;
+    }
+
+    /**
+     * This method returns the average wall-clock time the timer has been
+     * blocked waiting for topology elements on each tick.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The average wait time, in nanoseconds.
+     * @since 2.0
+     */
+    public synchronized long getAverageWaitTime() {
+        if (this.numberOfTicks == 0) {
+            return 0;
+        }
+        return (this.totalWaitTime / this.numberOfTicks);
+    }
+
+    /**
+     * This method returns the maximum wall-clock time the timer has been
+     * blocked waiting for topology elements on a single tick.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The maximum wait time, in nanoseconds.
+     * @since 2.0
+     */
+    public synchronized long getMaxWaitTime() {
+        return this.maxWaitTime;
+    }
+
+    /**
+     * This method returns the topology element that finished the last on the
+     * most recent tick.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The straggler of the last tick, or NULL if no topology element
+     * was involved.
+     * @since 2.0
+     */
+    public synchronized TTopologyElement getLastStraggler() {
+        return this.lastStraggler;
+    }
+
+    /**
+     * This method returns how long, since the beginning of the most recent
+     * tick, the straggler of that tick took to finish.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The delay of the last straggler, in nanoseconds.
+     * @since 2.0
+     */
+    public synchronized long getLastStragglerDelay() {
+        return this.lastStragglerDelay;
+    }
+
+    /**
+     * This method returns how many ticks the specified topology element has
+     * been the last one to finish.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param topologyElement The topology element.
+     * @return The number of ticks the topology element has been the
+     * straggler.
+     * @since 2.0
+     */
+    public synchronized long getStragglerCount(TTopologyElement topologyElement) {
+        Long stragglerCount = this.stragglerCounts.get(topologyElement);
+        if (stragglerCount == null) {
+            return 0;
+        }
+        return stragglerCount.longValue();
+    }
+
+    /**
+     * This method returns, for each topology element that has been the
+     * straggler at least once, how many ticks it has been the last one to
+     * finish.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return A copy of the straggler counters, indexed by topology element.
+     * @since 2.0
+     */
+    public synchronized HashMap<TTopologyElement, Long> getStragglerCounts() {
+        return new HashMap<TTopologyElement, Long>(this.stragglerCounts);
+    }
+
+    /**
+     * This method resets the statistics of the barrier.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public synchronized void resetStatistics() {
+        this.stragglerCounts.clear();
+        this.numberOfTicks = 0;
+        this.totalWaitTime = 0;
+        this.maxWaitTime = 0;
+        this.phaseWaitTime = 0;
+        this.lastStraggler = null;
+        this.lastStragglerDelay = 0;
+    }
+
+    private AtomicInteger pendingElements;
+    private volatile Thread waitingThread;
+    private HashMap<TTopologyElement, Long> stragglerCounts;
+    private TTopologyElement lastArrivedElement;
+    private long lastArrivalTime;
+    private long tickStart;
+    private long numberOfTicks;
+    private long totalWaitTime;
+    private long maxWaitTime;
+    private long phaseWaitTime;
+    private TTopologyElement lastStraggler;
+    private long lastStragglerDelay;
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+/**
+ * This class implements a histogram of non-negative values with a bucket
+ * for each power of two. Adding a value only increments a few primitive
+ * fields and never allocates memory, so it can be used once per tick and
+ * topology element. Percentiles are approximated by the upper bound of the
+ * bucket they fall into. This class is not synchronized: each histogram has
+ * to be updated by a single thread at a time.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TTickHistogram {
+
+    /**
+     * This method is the constructor of the class. It creates a new empty
+     * histogram.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public TTickHistogram() {
+        this.buckets = new long[TTickHistogram.NUMBER_OF_BUCKETS];
+        this.count = 0;
+        this.sum = 0;
+        this.max = 0;
+    }
+
+    /**
+     * This method adds a value to the histogram. Bucket 0 holds the value 0
+     * and bucket b holds the values from 2^(b-1) to 2^b - 1.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param value The value to be added. Negative values are added as 0.
+     * @since 2.0
+     */
+    public void add(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        this.buckets[Long.SIZE - Long.numberOfLeadingZeros(value)]++;
+        this.count++;
+        this.sum += value;
+        if (value > this.max) {
+            this.max = value;
+        }
+    }
+
+    /**
+     * This method returns the approximate value below which the specified
+     * percentage of the values fall.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param percentile The percentage, from 0 to 100.
+     * @return The upper bound of the bucket that contains the percentile,
+     * never greater than the maximum value added. 0 if the histogram is
+     * empty.
+     * @since 2.0
+     */
+    public long getPercentile(double percentile) {
+        if (this.count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil((percentile / 100.0) * this.count);
+        if (rank < 1) {
+            rank = 1;
+        }
+        long accumulated = 0;
+        int i;
+        for (i = 0; i < TTickHistogram.NUMBER_OF_BUCKETS; i++) {
+            accumulated += this.buckets[i];
+            if (accumulated >= rank) {
+                if (i == 0) {
+                    return 0;
+                }
+                if (i == Long.SIZE) {
+                    return this.max;
+                }
+                return Math.min(this.max, (1L << i) - 1);
+            }
+        }
+        return this.max;
+    }
+
+    /**
+     * This method returns the number of values added to the histogram.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of values.
+     * @since 2.0
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * This method returns the sum of the values added to the histogram.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The sum of the values.
+     * @since 2.0
+     */
+    public long getSum() {
+        return this.sum;
+    }
+
+    /**
+     * This method returns the greatest value added to the histogram.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The maximum value, or 0 if the histogram is empty.
+     * @since 2.0
+     */
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * This method returns the mean of the values added to the histogram.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The mean value, or 0 if the histogram is empty.
+     * @since 2.0
+     */
+    public long getMean() {
+        if (this.count == 0) {
+            return 0;
+        }
+        return (this.sum / this.count);
+    }
+
+    /**
+     * This method empties the histogram.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void reset() {
+        int i;
+        for (i = 0; i < TTickHistogram.NUMBER_OF_BUCKETS; i++) {
+            this.buckets[i] = 0;
+        }
+        this.count = 0;
+        this.sum = 0;
+        this.max = 0;
+    }
+
+    private static final int NUMBER_OF_BUCKETS = Long.SIZE + 1;
+
+    private long[] buckets;
+    private long count;
+    private long sum;
+    private long max;
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import simMPLS.scenario.TLink;
+import simMPLS.scenario.TNode;
+import simMPLS.scenario.TTopologyElement;
+
+/**
+ * This class implements the tick profiler of a timer. It keeps a
+ * TElementTickProfile for each topology element subscribed to the timer and
+ * writes the report that identifies the elements that make ticks slow. The
+ * number of times each element has been the last one to finish a tick is
+ * taken from the tick barrier of the timer.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TTickProfiler {
+
+    /**
+     * This method is the constructor of the class. It creates a new tick
+     * profiler without any topology element.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param tickBarrier The tick barrier of the timer being profiled.
+     * @since 2.0
+     */
+    public TTickProfiler(TTickBarrier tickBarrier) {
+        this.tickBarrier = tickBarrier;
+        this.profiles = new ArrayList<TElementTickProfile>();
+    }
+
+    /**
+     * This method starts profiling the specified topology element. If it is
+     * already being profiled, nothing is done.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param topologyElement The topology element to be profiled.
+     * @since 2.0
+     */
+    public synchronized void attach(TTopologyElement topologyElement) {
+        if (topologyElement.getTickProfile() != null) {
+            return;
+        }
+        TElementTickProfile profile = new TElementTickProfile(topologyElement);
+        this.profiles.add(profile);
+        topologyElement.setTickProfile(profile);
+    }
+
+    /**
+     * This method stops profiling every topology element. The profiles
+     * gathered so far are kept, so the report can still be written.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public synchronized void detachAll() {
+        int i;
+        for (i = 0; i < this.profiles.size(); i++) {
+            this.profiles.get(i).getTopologyElement().setTickProfile(null);
+        }
+    }
+
+    /**
+     * This method empties the profile of every topology element.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public synchronized void reset() {
+        int i;
+        for (i = 0; i < this.profiles.size(); i++) {
+            this.profiles.get(i).reset();
+        }
+    }
+
+    /**
+     * This method returns the profiles of the topology elements, sorted from
+     * the longest to the shortest total tick time.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param maxNumberOfElements The maximum number of profiles to return.
+     * @return The profiles of the slowest topology elements.
+     * @since 2.0
+     */
+    public synchronized ArrayList<TElementTickProfile> getSlowestElements(int maxNumberOfElements) {
+        ArrayList<TElementTickProfile> slowestElements = new ArrayList<TElementTickProfile>(this.profiles);
+        Collections.sort(slowestElements, new Comparator<TElementTickProfile>() {
+            @Override
+            public int compare(TElementTickProfile o1, TElementTickProfile o2) {
+                long tickTime1 = o1.getTickTimeHistogram().getSum();
+                long tickTime2 = o2.getTickTimeHistogram().getSum();
+                if (tickTime1 > tickTime2) {
+                    return -1;
+                }
+                if (tickTime1 < tickTime2) {
+                    return 1;
+                }
+                return TTickProfiler.getElementName(o1.getTopologyElement()).compareTo(TTickProfiler.getElementName(o2.getTopologyElement()));
+            }
+        });
+        while (slowestElements.size() > maxNumberOfElements) {
+            slowestElements.remove(slowestElements.size() - 1);
+        }
+        return slowestElements;
+    }
+
+    /**
+     * This method returns the total time all the topology elements have spent
+     * in one of the phases of their work.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param phase One of the phases defined in TElementTickProfile.
+     * @return The total time, in nanoseconds.
+     * @since 2.0
+     */
+    public synchronized long getTotalPhaseTime(int phase) {
+        long totalPhaseTime = 0;
+        int i;
+        for (i = 0; i < this.profiles.size(); i++) {
+            totalPhaseTime += this.profiles.get(i).getPhaseTime(phase);
+        }
+        return totalPhaseTime;
+    }
+
+    /**
+     * This method returns a short text with the slowest topology elements, to
+     * be shown while the simulation is running.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param maxNumberOfElements The maximum number of topology elements to
+     * show.
+     * @return The text, one line per topology element.
+     * @since 2.0
+     */
+    public String getLiveView(int maxNumberOfElements) {
+        ArrayList<TElementTickProfile> slowestElements = this.getSlowestElements(maxNumberOfElements);
+        StringBuilder liveView = new StringBuilder();
+        TElementTickProfile profile;
+        int i;
+        for (i = 0; i < slowestElements.size(); i++) {
+            profile = slowestElements.get(i);
+            liveView.append(TTickProfiler.getElementName(profile.getTopologyElement()));
+            liveView.append(" ticks=").append(profile.getTickTimeHistogram().getCount());
+            liveView.append(" mean.ns=").append(profile.getTickTimeHistogram().getMean());
+            liveView.append(" p99.ns=").append(profile.getTickTimeHistogram().getPercentile(99));
+            liveView.append(" stragglerTicks=").append(this.tickBarrier.getStragglerCount(profile.getTopologyElement()));
+            liveView.append(System.lineSeparator());
+        }
+        return liveView.toString();
+    }
+
+    /**
+     * This method writes the tick profile report: the time spent in each
+     * phase by all the topology elements and, for each topology element from
+     * the slowest to the fastest, the distribution of its tick time, of the
+     * packets and octets it switches per tick and of its phase times.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param output The stream the report is written to.
+     * @since 2.0
+     */
+    public void writeReport(PrintStream output) {
+        ArrayList<TElementTickProfile> slowestElements = this.getSlowestElements(Integer.MAX_VALUE);
+        int phase;
+        for (phase = 0; phase < TElementTickProfile.NUMBER_OF_PHASES; phase++) {
+            output.println("phase." + TElementTickProfile.getPhaseName(phase) + ".ns=" + this.getTotalPhaseTime(phase));
+        }
+        TElementTickProfile profile;
+        TTickHistogram histogram;
+        String prefix;
+        int i;
+        for (i = 0; i < slowestElements.size(); i++) {
+            profile = slowestElements.get(i);
+            prefix = "element." + TTickProfiler.getElementName(profile.getTopologyElement()) + ".";
+            histogram = profile.getTickTimeHistogram();
+            output.println(prefix + "ticks=" + histogram.getCount());
+            output.println(prefix + "tickTime.total.ns=" + histogram.getSum());
+            output.println(prefix + "tickTime.mean.ns=" + histogram.getMean());
+            output.println(prefix + "tickTime.p50.ns=" + histogram.getPercentile(50));
+            output.println(prefix + "tickTime.p99.ns=" + histogram.getPercentile(99));
+            output.println(prefix + "tickTime.max.ns=" + histogram.getMax());
+            histogram = profile.getPacketsHistogram();
+            output.println(prefix + "packets.total=" + histogram.getSum());
+            output.println(prefix + "packets.p99=" + histogram.getPercentile(99));
+            output.println(prefix + "packets.max=" + histogram.getMax());
+            histogram = profile.getOctetsHistogram();
+            output.println(prefix + "octets.total=" + histogram.getSum());
+            output.println(prefix + "octets.p99=" + histogram.getPercentile(99));
+            output.println(prefix + "octets.max=" + histogram.getMax());
+            for (phase = 0; phase < TElementTickProfile.NUMBER_OF_PHASES; phase++) {
+                output.println(prefix + "phase." + TElementTickProfile.getPhaseName(phase) + ".ns=" + profile.getPhaseTime(phase));
+            }
+            output.println(prefix + "stragglerTicks=" + this.tickBarrier.getStragglerCount(profile.getTopologyElement()));
+        }
+    }
+
+    /**
+     * This method returns the name used in the reports for a topology
+     * element: its name followed by its identifier, as names do not need to
+     * be unique.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param topologyElement The topology element.
+     * @return The name of the topology element.
+     * @since 2.0
+     */
+    private static String getElementName(TTopologyElement topologyElement) {
+        if (topologyElement instanceof TNode) {
+            TNode node = (TNode) topologyElement;
+            return node.getName().replace(' ', '_') + "#" + node.getID();
+        }
+        TLink link = (TLink) topologyElement;
+        return link.getName().replace(' ', '_') + "#" + link.getID();
+    }
+
+    private TTickBarrier tickBarrier;
+    private ArrayList<TElementTickProfile> profiles;
+}
@@ -15,8 +15,14 @@
  */
 package simMPLS.hardware.timer;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
 import simMPLS.scenario.TExternalLink;
 import simMPLS.scenario.TInternalLink;
 import simMPLS.scenario.TActiveLERNode;
@@ -40,7 +46,7 @@ import simMPLS.utils.TLongIDGenerator;
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public class TTimer implements Runnable {
+public class TTimer implements Runnable, Serializable {
 
     /**
      * This method is the constuctor of the class. It will create a new instance
@@ -52,8 +58,8 @@ public class TTimer implements Runnable {
      */
     public TTimer() {
         this.thread = null;
-        this.timerEventListenerNodes = new TreeSet();
-        this.timerEventListenerLInks = new TreeSet();
+        this.timerEventListenerNodes = new TreeSet<TTopologyElement>();
+        this.timerEventListenerLInks = new TreeSet<TTopologyElement>();
         this.progressEventListener = null;
         this.longIdentifierGenerator = new TLongIDGenerator();
         this.currentTimestamp = new TTimestamp(0, 0);
@@ -66,6 +72,22 @@ public class TTimer implements Runnable {
         this.running = false;
         this.isFinished = true;
         this.paused = false;
+        this.schedulingEngine = TTimer.TICK_DRIVEN_ENGINE;
+        this.futureEventList = new TFutureEventList();
+        this.futureEventListSeeded = false;
+        this.nextActivityInstant = new AtomicLong(TTimer.NO_NEXT_ACTIVITY);
+        this.numberOfSkippedTicks = 0;
+        this.numberOfTimerEvents = 0;
+        this.timerEventExecutor = new TTimerEventExecutor(TTimerEventExecutor.FIXED_THREAD_POOL);
+        this.tickBarrier = new TTickBarrier();
+        this.numberOfRegions = Runtime.getRuntime().availableProcessors();
+        this.conservativeParallelEngine = null;
+        this.regionOfCurrentThread = new ThreadLocal<TSimulationRegion>();
+        this.timerEvent = new TTimerEvent(this, 0, 0, 0);
+        this.timerEventListenerNodesArray = null;
+        this.timerEventListenerLinksArray = null;
+        this.lastProgressPercentage = -1;
+        this.tickProfiler = null;
     }
 
     /**
@@ -82,6 +104,17 @@ public class TTimer implements Runnable {
         this.longIdentifierGenerator.reset();
         this.isFinished = true;
         this.paused = false;
+        this.futureEventList.reset();
+        this.futureEventListSeeded = false;
+        this.nextActivityInstant.set(TTimer.NO_NEXT_ACTIVITY);
+        this.numberOfSkippedTicks = 0;
+        this.numberOfTimerEvents = 0;
+        this.timerEventExecutor.resetStatistics();
+        this.tickBarrier.resetStatistics();
+        if (this.tickProfiler != null) {
+            this.tickProfiler.reset();
+        }
+        this.lastProgressPercentage = -1;
         generateProgressEvent();
     }
 
@@ -99,6 +132,17 @@ public class TTimer implements Runnable {
         this.finishTimestamp.setNanosecond(finishTimestamp.getNanosecond());
     }
 
+    /**
+     * This method returns the end of the simulation.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The instant the simulation finishes at, in nanoseconds.
+     * @since 2.0
+     */
+    public long getFinishInstant() {
+        return this.finishTimestamp.getTotalAsNanoseconds();
+    }
+
     /**
      * This method establishes the granularity of the simulation, that is, it
      * tells the timmer how often it has to generate a timer event to let the
@@ -113,6 +157,228 @@ public class TTimer implements Runnable {
         this.tick = tick;
     }
 
+    /**
+     * This method returns the granularity of the simulation, that is, the
+     * period between a timer event and the next one when the tick-driven
+     * engine is used, and the minimum time advance when the event-driven
+     * engine is used.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The tick of the timer, in nanoseconds.
+     * @since 2.0
+     */
+    public int getTick() {
+        return this.tick;
+    }
+
+    /**
+     * This method selects the scheduling engine the timer will use to drive
+     * the simulation. The tick-driven engine sends a timer event to every
+     * topology element each tick. The event-driven engine jumps directly to
+     * the next instant at which a topology element has scheduled some work and
+     * only wakes up the topology elements involved. The conservative parallel
+     * engine advances tick by tick too, but splits the topology into regions
+     * that are simulated by different threads and only synchronize once per
+     * lookahead. The adaptive step engine sends every timer event to every
+     * topology element, as the tick-driven one, but stretches the step over
+     * the ticks in which no topology element expects any activity. It should
+     * be set before starting the simulation.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param schedulingEngine TICK_DRIVEN_ENGINE, EVENT_DRIVEN_ENGINE,
+     * CONSERVATIVE_PARALLEL_ENGINE or ADAPTIVE_STEP_ENGINE.
+     * @since 2.0
+     */
+    public void setSchedulingEngine(int schedulingEngine) {
+        if ((schedulingEngine == TTimer.TICK_DRIVEN_ENGINE) || (schedulingEngine == TTimer.EVENT_DRIVEN_ENGINE) || (schedulingEngine == TTimer.CONSERVATIVE_PARALLEL_ENGINE) || (schedulingEngine == TTimer.ADAPTIVE_STEP_ENGINE)) {
+            this.schedulingEngine = schedulingEngine;
+        }
+    }
+
+    /**
+     * This method returns the scheduling engine the timer uses to drive the
+     * simulation.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return TICK_DRIVEN_ENGINE, EVENT_DRIVEN_ENGINE,
+     * CONSERVATIVE_PARALLEL_ENGINE or ADAPTIVE_STEP_ENGINE.
+     * @since 2.0
+     */
+    public int getSchedulingEngine() {
+        return this.schedulingEngine;
+    }
+
+    /**
+     * This method returns how many ticks the adaptive step engine has not
+     * dispatched because they were inside a stretched step.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of ticks skipped.
+     * @since 2.0
+     */
+    public long getNumberOfSkippedTicks() {
+        return this.numberOfSkippedTicks;
+    }
+
+    /**
+     * This method returns how many timer events have been sent to topology
+     * elements. The tick-driven engine sends one to each topology element on
+     * every tick, whereas the event-driven engine only wakes up the topology
+     * elements that have something to do.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of timer events sent.
+     * @since 2.0
+     */
+    public long getNumberOfTimerEvents() {
+        return this.numberOfTimerEvents;
+    }
+
+    /**
+     * This method sets how many regions, at most, the topology is split into
+     * by the conservative parallel engine. Each region is simulated by its own
+     * thread.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param numberOfRegions The maximum number of regions. By default, the
+     * number of available processors.
+     * @since 2.0
+     */
+    public void setNumberOfRegions(int numberOfRegions) {
+        if (numberOfRegions > 0) {
+            this.numberOfRegions = numberOfRegions;
+        }
+    }
+
+    /**
+     * This method returns how many regions, at most, the topology is split
+     * into by the conservative parallel engine.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The maximum number of regions.
+     * @since 2.0
+     */
+    public int getNumberOfRegions() {
+        return this.numberOfRegions;
+    }
+
+    /**
+     * This method returns the conservative parallel engine used by the last
+     * simulation, so that its partition and statistics can be inspected.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The engine, or NULL if the conservative parallel engine has not
+     * been used.
+     * @since 2.0
+     */
+    public TConservativeParallelEngine getConservativeParallelEngine() {
+        return this.conservativeParallelEngine;
+    }
+
+    /**
+     * This method selects how topology elements run their work after
+     * receiving a timer event: on a new thread per element and tick, on a
+     * fixed pool of worker threads reused across ticks, or on virtual threads
+     * when the running JVM supports them. It should be set before starting
+     * the simulation.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param executorType TTimerEventExecutor.THREAD_PER_ELEMENT,
+     * TTimerEventExecutor.FIXED_THREAD_POOL or
+     * TTimerEventExecutor.VIRTUAL_THREADS.
+     * @since 2.0
+     */
+    public void setTimerEventExecutor(int executorType) {
+        this.timerEventExecutor.shutdown();
+        this.timerEventExecutor = new TTimerEventExecutor(executorType);
+    }
+
+    /**
+     * This method returns the executor that runs the work of topology
+     * elements. It also provides the dispatch overhead statistics of the
+     * timer.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The executor used by the topology elements subscribed to this
+     * timer.
+     * @since 2.0
+     */
+    public TTimerEventExecutor getTimerEventExecutor() {
+        return this.timerEventExecutor;
+    }
+
+    /**
+     * This method returns the simulation instant the timer is currently
+     * dispatching. When the conservative parallel engine is running, each
+     * region goes through the ticks of a window on its own, so the instant
+     * returned to the thread of a region is the end of the tick that region
+     * is simulating.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The current simulation instant, in nanoseconds.
+     * @since 2.0
+     */
+    public long getCurrentInstant() {
+        TSimulationRegion region = this.regionOfCurrentThread.get();
+        if (region != null) {
+            return region.getCurrentInstant();
+        }
+        return this.currentTimestamp.getTotalAsNanoseconds();
+    }
+
+    /**
+     * This method sets the region simulated by the calling thread, so that
+     * getCurrentInstant() returns the instant of that region.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param region The region, or NULL when the thread stops simulating it.
+     * @since 2.0
+     */
+    void setRegionOfCurrentThread(TSimulationRegion region) {
+        if (region == null) {
+            this.regionOfCurrentThread.remove();
+        } else {
+            this.regionOfCurrentThread.set(region);
+        }
+    }
+
+    /**
+     * This method schedules a timer event for the specified topology element
+     * at the specified instant. The event-driven engine stores it in the
+     * future event list. The adaptive step engine only keeps the earliest
+     * instant requested during the current step, as a hint of the next
+     * activity of the topology. The rest of engines send a timer event to
+     * every topology element each tick anyway, so the request is ignored. The
+     * instant is rounded up to the next multiple of the tick, so that topology
+     * elements woken up at close instants are dispatched together, as they
+     * would be by the tick-driven engine.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param timerEventListener The topology element that wants to receive a
+     * timer event.
+     * @param instant The simulation instant, in nanoseconds, at which the
+     * timer event has to be received.
+     * @since 2.0
+     */
+    public void scheduleTimerEvent(TTopologyElement timerEventListener, long instant) {
+        if (this.schedulingEngine == TTimer.EVENT_DRIVEN_ENGINE) {
+            long roundedInstant = instant;
+            if ((this.tick > 0) && (roundedInstant % this.tick != 0)) {
+                roundedInstant = ((roundedInstant / this.tick) + 1) * this.tick;
+            }
+            this.futureEventList.schedule(timerEventListener, roundedInstant);
+        } else if (this.schedulingEngine == TTimer.ADAPTIVE_STEP_ENGINE) {
+            long roundedInstant = instant;
+            if ((this.tick > 0) && (roundedInstant % this.tick != 0)) {
+                roundedInstant = ((roundedInstant / this.tick) + 1) * this.tick;
+            }
+            long nextActivityInstantAux = this.nextActivityInstant.get();
+            while ((roundedInstant < nextActivityInstantAux) && (!this.nextActivityInstant.compareAndSet(nextActivityInstantAux, roundedInstant))) {
+                nextActivityInstantAux = this.nextActivityInstant.get();
+            }
+        }
+    }
+
     /**
      * This method let a topology element (nodes and/or links) to subscribe the
      * timer to receive timer events.
@@ -122,10 +388,16 @@ public class TTimer implements Runnable {
      * @since 2.0
      */
     public void addTimerEventListener(TTopologyElement timerEventListener) {
+        timerEventListener.setTimer(this);
         if (timerEventListener.getElementType() == TTopologyElement.LINK) {
             this.timerEventListenerLInks.add(timerEventListener);
+            this.timerEventListenerLinksArray = null;
         } else {
             this.timerEventListenerNodes.add(timerEventListener);
+            this.timerEventListenerNodesArray = null;
+        }
+        if (this.tickProfiler != null) {
+            this.tickProfiler.attach(timerEventListener);
         }
     }
 
@@ -149,6 +421,7 @@ public class TTimer implements Runnable {
                     iterator.remove();
                 }
             }
+            this.timerEventListenerLinksArray = null;
         } else {
             Iterator iterator = this.timerEventListenerNodes.iterator();
             TNode nodeAux;
@@ -159,6 +432,7 @@ public class TTimer implements Runnable {
                     iterator.remove();
                 }
             }
+            this.timerEventListenerNodesArray = null;
         }
     }
 
@@ -186,6 +460,8 @@ public class TTimer implements Runnable {
                 nodesIterator.remove();
             }
         }
+        this.timerEventListenerNodesArray = null;
+        this.timerEventListenerLinksArray = null;
     }
 
     /**
@@ -221,77 +497,181 @@ public class TTimer implements Runnable {
     }
 
     /**
-     * This method generates a new timer event an sends it to all topology
-     * elements that are subscribed to receive timer events.
+     * This method sends a timer event to all topology elements that are
+     * subscribed to receive timer events. The same timer event, with a single
+     * identifier per tick, is sent to all of them and reused on the next
+     * tick, so dispatching a tick does not allocate memory.
      *
      * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
      * @since 2.0
      */
     private void generateTimerEvent() {
-        Iterator linksIterator = this.timerEventListenerLInks.iterator();
-        Iterator nodesIterator = this.timerEventListenerNodes.iterator();
+        TTopologyElement[] nodes = getTimerEventListenerNodes();
+        TTopologyElement[] links = getTimerEventListenerLinks();
+        long startOfSimulationInterval = this.previousTimestamp.getTotalAsNanoseconds();
+        long endOfSimulationInterval = this.currentTimestamp.getTotalAsNanoseconds();
+        long startOfForwardingInterval = startOfSimulationInterval;
+        long timerEventID;
+        int i;
+        if (endOfSimulationInterval - startOfSimulationInterval > this.tick) {
+            // A stretched step. Forwarding nodes do not accumulate more than
+            // a tick of idle time, as they would do with the tick-driven
+            // engine.
+            startOfForwardingInterval = endOfSimulationInterval - this.tick;
+        }
+        try {
+            timerEventID = this.longIdentifierGenerator.getNextID();
+        } catch (EIDGeneratorOverflow e) {
+            e.printStackTrace();
+            return;
+        }
+        for (i = 0; i < nodes.length; i++) {
+            if (((TNode) nodes[i]).getNodeType() == TNode.SENDER) {
+                this.timerEvent.setInterval(timerEventID, startOfSimulationInterval, endOfSimulationInterval);
+            } else {
+                this.timerEvent.setInterval(timerEventID, startOfForwardingInterval, endOfSimulationInterval);
+            }
+            this.tickBarrier.register();
+            nodes[i].receiveTimerEvent(this.timerEvent);
+        }
+        this.numberOfTimerEvents += nodes.length + links.length;
+        // Links do not start until every node has finished, so the packets a
+        // node sends during a tick are always carried in that same tick and
+        // no link or node sees the other half of the topology half-updated.
+        // This keeps the simulation independent of thread scheduling.
+        this.tickBarrier.awaitPhase();
+        this.timerEvent.setInterval(timerEventID, startOfSimulationInterval, endOfSimulationInterval);
+        for (i = 0; i < links.length; i++) {
+            this.tickBarrier.register();
+            links[i].receiveTimerEvent(this.timerEvent);
+        }
+    }
+
+    /**
+     * This method sends a timer event to each one of the specified topology
+     * elements. It is used by the event-driven engine. Each topology element
+     * receives an interval that starts at the last instant it was woken up,
+     * so the time it has been sleeping is taken into account. Forwarding
+     * nodes do not accumulate more than a tick of idle time, as they would do
+     * with the tick-driven engine. As in the tick-driven engine, the same
+     * timer event is reused for all of them. The links that nodes put packets
+     * on are woken up after the nodes, in the same instant, so they carry
+     * those packets in the same tick the tick-driven engine would do.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param nodes The nodes that have to receive a timer event.
+     * @param links The links that have to receive a timer event.
+     * @since 2.0
+     */
+    private void generateTimerEvent(Collection<TTopologyElement> nodes, Collection<TTopologyElement> links) {
+        Iterator<TTopologyElement> nodesIterator = nodes.iterator();
+        Iterator<TTopologyElement> linksIterator;
         TNode nodeAux;
         TLink linkAux;
-        TTimestamp startOfSimulationInterval = new TTimestamp(this.previousTimestamp.getMillisecond(), this.previousTimestamp.getNanosecond());
-        TTimestamp endOfSimulationInterval = new TTimestamp(this.currentTimestamp.getMillisecond(), this.currentTimestamp.getNanosecond());
+        long currentSimulatedTime = this.currentTimestamp.getTotalAsNanoseconds();
+        long startOfLastTick = ((currentSimulatedTime - 1) / this.tick) * this.tick;
+        long startOfSimulationInterval;
+        long timerEventID;
+        try {
+            timerEventID = this.longIdentifierGenerator.getNextID();
+        } catch (EIDGeneratorOverflow e) {
+            e.printStackTrace();
+            return;
+        }
         while (nodesIterator.hasNext()) {
             nodeAux = (TNode) nodesIterator.next();
-            switch (nodeAux.getNodeType()) {
-                case TNode.SENDER: {
-                    nodeAux = (TSenderNode) nodeAux;
-                    break;
-                }
-                case TNode.LER: {
-                    nodeAux = (TLERNode) nodeAux;
-                    break;
-                }
-                case TNode.LERA: {
-                    nodeAux = (TActiveLERNode) nodeAux;
-                    break;
-                }
-                case TNode.LSR: {
-                    nodeAux = (TLSRNode) nodeAux;
-                    break;
-                }
-                case TNode.LSRA: {
-                    nodeAux = (TActiveLSRNode) nodeAux;
-                    break;
-                }
-                case TNode.RECEIVER: {
-                    nodeAux = (TReceiverNode) nodeAux;
-                    break;
-                }
-            }
-            try {
-                TTimerEvent timerEvent = new TTimerEvent(this, this.longIdentifierGenerator.getNextID(), startOfSimulationInterval, endOfSimulationInterval);
-                nodeAux.receiveTimerEvent(timerEvent);
-            } catch (EIDGeneratorOverflow e) {
-                e.printStackTrace();
+            startOfSimulationInterval = getStartOfSimulationInterval(nodeAux, currentSimulatedTime);
+            if ((nodeAux.getNodeType() != TNode.SENDER) && (startOfSimulationInterval < startOfLastTick)) {
+                startOfSimulationInterval = startOfLastTick;
             }
+            this.timerEvent.setInterval(timerEventID, startOfSimulationInterval, currentSimulatedTime);
+            this.tickBarrier.register();
+            nodeAux.receiveTimerEvent(this.timerEvent);
         }
+        this.numberOfTimerEvents += nodes.size();
+        // Links do not start until every node has finished, so the packets a
+        // node sends during a tick are always carried in that same tick and
+        // no link or node sees the other half of the topology half-updated.
+        // This keeps the simulation independent of thread scheduling.
+        this.tickBarrier.awaitPhase();
+        this.futureEventList.pollUntil(currentSimulatedTime, null, links);
+        this.numberOfTimerEvents += links.size();
+        linksIterator = links.iterator();
         while (linksIterator.hasNext()) {
             linkAux = (TLink) linksIterator.next();
-            switch (linkAux.getLinkType()) {
-                case TLink.EXTERNAL: {
-                    linkAux = (TExternalLink) linkAux;
-                    break;
-                }
-                case TLink.INTERNAL: {
-                    linkAux = (TInternalLink) linkAux;
-                    break;
-                }
-            }
-            try {
-                linkAux.receiveTimerEvent(new TTimerEvent(this, this.longIdentifierGenerator.getNextID(), startOfSimulationInterval, endOfSimulationInterval));
-            } catch (EIDGeneratorOverflow e) {
-                e.printStackTrace();
-            }
+            startOfSimulationInterval = getStartOfSimulationInterval(linkAux, currentSimulatedTime);
+            this.timerEvent.setInterval(timerEventID, startOfSimulationInterval, currentSimulatedTime);
+            this.tickBarrier.register();
+            linkAux.receiveTimerEvent(this.timerEvent);
+        }
+    }
+
+    /**
+     * This method returns the nodes subscribed to receive timer events, in
+     * the same order as they are stored. The array is only built again after
+     * a node subscribes or unsubscribes, so that it can be iterated each tick
+     * without allocating an iterator.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The nodes subscribed to receive timer events.
+     * @since 2.0
+     */
+    private TTopologyElement[] getTimerEventListenerNodes() {
+        if (this.timerEventListenerNodesArray == null) {
+            this.timerEventListenerNodesArray = this.timerEventListenerNodes.toArray(new TTopologyElement[0]);
         }
+        return this.timerEventListenerNodesArray;
+    }
+
+    /**
+     * This method returns the links subscribed to receive timer events, in
+     * the same order as they are stored. The array is only built again after
+     * a link subscribes or unsubscribes, so that it can be iterated each tick
+     * without allocating an iterator.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The links subscribed to receive timer events.
+     * @since 2.0
+     */
+    private TTopologyElement[] getTimerEventListenerLinks() {
+        if (this.timerEventListenerLinksArray == null) {
+            this.timerEventListenerLinksArray = this.timerEventListenerLInks.toArray(new TTopologyElement[0]);
+        }
+        return this.timerEventListenerLinksArray;
+    }
+
+    /**
+     * This method computes the start of the simulation interval for a
+     * topology element that is going to be woken up by the event-driven
+     * engine. The resulting interval is never empty and its length fits into
+     * the step duration of a timer event.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param timerEventListener The topology element to be woken up.
+     * @param currentSimulatedTime The instant, in nanoseconds, being
+     * dispatched.
+     * @return The start of the simulation interval, in nanoseconds.
+     * @since 2.0
+     */
+    private long getStartOfSimulationInterval(TTopologyElement timerEventListener, long currentSimulatedTime) {
+        long startOfSimulationInterval = timerEventListener.getAvailableTime();
+        if ((startOfSimulationInterval >= currentSimulatedTime) || (startOfSimulationInterval < 0)) {
+            startOfSimulationInterval = currentSimulatedTime - this.tick;
+        }
+        if (currentSimulatedTime - startOfSimulationInterval > Integer.MAX_VALUE) {
+            startOfSimulationInterval = currentSimulatedTime - Integer.MAX_VALUE;
+        }
+        if (startOfSimulationInterval < 0) {
+            startOfSimulationInterval = 0;
+        }
+        return startOfSimulationInterval;
     }
 
     /**
      * This method generates a new progress event an sends it to the only one
-     * listener that are subscribed to receive it.
+     * listener that are subscribed to receive it. The event is only generated
+     * when the progress percentage changes, so that long simulations do not
+     * create a progress event on each tick.
      *
      * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
      * @since 2.0
@@ -303,6 +683,10 @@ public class TTimer implements Runnable {
         if (simulationDuration != 0) {
             computedProgress = (int) Math.round((currentTime * 100) / simulationDuration);
         }
+        if (computedProgress == this.lastProgressPercentage) {
+            return;
+        }
+        this.lastProgressPercentage = computedProgress;
         try {
             if (this.progressEventListener != null) {
                 this.progressEventListener.receiveProgressEvent(new TProgressEvent(this, this.longIdentifierGenerator.getNextID(), computedProgress));
@@ -312,6 +696,28 @@ public class TTimer implements Runnable {
         }
     }
 
+    /**
+     * This method stops the timer for good, when the scenario it belongs to
+     * is closed or replaced. The simulation is finished, if it is running,
+     * and the worker threads of the executor are stopped, so they do not
+     * outlive the scenario. The timer cannot be used after calling it.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void dispose() {
+        Thread threadAux = this.thread;
+        this.isFinished = true;
+        if ((threadAux != null) && (threadAux != Thread.currentThread())) {
+            try {
+                threadAux.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        this.timerEventExecutor.shutdown();
+    }
+
     /**
      * This method restart the timer operation after it was previously paused.
      *
@@ -401,12 +807,24 @@ public class TTimer implements Runnable {
      * @since 2.0
      */
     public void run() {
+        if (this.schedulingEngine == TTimer.EVENT_DRIVEN_ENGINE) {
+            runEventDriven();
+            return;
+        }
+        if (this.schedulingEngine == TTimer.CONSERVATIVE_PARALLEL_ENGINE) {
+            runConservativeParallel();
+            return;
+        }
         this.running = true;
         long currentSimulatedTime;
         long previousSimulatedTime;
+        long nextSimulatedTime;
         long simulationDuration;
+        long dispatchStart;
+        long dispatchAllocationStart;
         boolean simulationFinished = false;
         this.isFinished = false;
+        this.nextActivityInstant.set(TTimer.NO_NEXT_ACTIVITY);
         this.currentTimestamp.increaseNanoseconds(this.tick);
         currentSimulatedTime = this.currentTimestamp.getTotalAsNanoseconds();
         simulationDuration = this.finishTimestamp.getTotalAsNanoseconds();
@@ -415,13 +833,159 @@ public class TTimer implements Runnable {
         }
         while ((this.currentTimestamp.compareTo(this.finishTimestamp) != TTimestamp.ARGUMENT_IS_LOWER) && (!this.isFinished)) {
             // Let's simulate
+            dispatchAllocationStart = TTimerEventExecutor.getAllocatedBytesOfCurrentThread();
             generateProgressEvent();
+            dispatchStart = System.nanoTime();
+            if (this.currentTimestamp.getTotalAsNanoseconds() - this.previousTimestamp.getTotalAsNanoseconds() > this.tick) {
+                consolidateStatisticsOfSkippedTicks(null);
+            }
+            this.tickBarrier.startTick();
             generateTimerEvent();
+            this.timerEventExecutor.addDispatchOverhead(System.nanoTime() - dispatchStart);
+            if (dispatchAllocationStart >= 0) {
+                this.timerEventExecutor.addDispatchAllocation(TTimerEventExecutor.getAllocatedBytesOfCurrentThread() - dispatchAllocationStart);
+            }
+            // The timer does not move on until every topology element has
+            // finished, so all of them see the instant being dispatched and
+            // the next activity hints they leave refer to it.
+            waitUntilTimerEventListenersFinishTheirWork();
             // ------------------
             this.previousTimestamp.setMillisecond(this.currentTimestamp.getMillisecond());
             this.previousTimestamp.setNanosecond(this.currentTimestamp.getNanosecond());
             currentSimulatedTime = this.currentTimestamp.getTotalAsNanoseconds();
             simulationDuration = this.finishTimestamp.getTotalAsNanoseconds();
+            nextSimulatedTime = getNextSimulatedTime(currentSimulatedTime);
+            if (nextSimulatedTime > simulationDuration) {
+                if (!simulationFinished) {
+                    currentTimestamp.setMillisecond(this.finishTimestamp.getMillisecond());
+                    currentTimestamp.setNanosecond(this.finishTimestamp.getNanosecond());
+                    simulationFinished = true;
+                } else {
+                    this.currentTimestamp.increaseNanoseconds(this.tick);
+                }
+            } else {
+                this.currentTimestamp.increaseNanoseconds((int) (nextSimulatedTime - currentSimulatedTime));
+            }
+            currentSimulatedTime = this.currentTimestamp.getTotalAsNanoseconds();
+            previousSimulatedTime = this.previousTimestamp.getTotalAsNanoseconds();
+            if (previousSimulatedTime == currentSimulatedTime) {
+                this.isFinished = true;
+            }
+        }
+        this.running = false;
+    }
+
+    /**
+     * This method samples the statistics of every node at each one of the
+     * ticks skipped since the previous step, before the nodes receive the
+     * timer event of the current one. The statistics of a node are sampled
+     * every tick and nothing changes during the skipped ticks, so they get
+     * the same samples they would get with the tick-driven engine. The
+     * event-driven engine does not wake every node up on each step, so the
+     * nodes that are not woken up are sampled at the current instant too.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param dueNodes The nodes that are going to be woken up, or NULL if all
+     * of them are.
+     * @since 2.0
+     */
+    private void consolidateStatisticsOfSkippedTicks(Collection<TTopologyElement> dueNodes) {
+        long skippedInstant;
+        long currentSimulatedTime = this.currentTimestamp.getTotalAsNanoseconds();
+        Iterator<TTopologyElement> nodesIterator = this.timerEventListenerNodes.iterator();
+        TNode nodeAux;
+        while (nodesIterator.hasNext()) {
+            nodeAux = (TNode) nodesIterator.next();
+            if (nodeAux.getStats() != null) {
+                skippedInstant = this.previousTimestamp.getTotalAsNanoseconds() + this.tick;
+                while (skippedInstant < currentSimulatedTime) {
+                    nodeAux.getStats().consolidateData(skippedInstant);
+                    skippedInstant += this.tick;
+                }
+                if ((dueNodes != null) && (!dueNodes.contains(nodeAux))) {
+                    nodeAux.getStats().consolidateData(currentSimulatedTime);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method computes the end of the next step of the tick-driven and
+     * adaptive step engines. The tick-driven engine always advances a tick.
+     * The adaptive step engine advances up to the earliest instant at which
+     * a topology element expects some activity: a link that delivers a
+     * packet, a sender that emits the next one, a node that still has packets
+     * to switch or is waiting for TLDP or GPSRP responses. When there is
+     * activity in the next tick the step shrinks back to a tick.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param currentSimulatedTime The instant, in nanoseconds, that has just
+     * been dispatched.
+     * @return The end of the next step, in nanoseconds.
+     * @since 2.0
+     */
+    private long getNextSimulatedTime(long currentSimulatedTime) {
+        long nextSimulatedTime = currentSimulatedTime + this.tick;
+        if (this.schedulingEngine == TTimer.ADAPTIVE_STEP_ENGINE) {
+            long nextActivityInstantAux = this.nextActivityInstant.getAndSet(TTimer.NO_NEXT_ACTIVITY);
+            long simulationDuration = this.finishTimestamp.getTotalAsNanoseconds();
+            if (nextActivityInstantAux > simulationDuration) {
+                // Nothing else is going to happen. The last step still has
+                // to be a whole number of ticks, as those of the tick-driven
+                // engine.
+                nextActivityInstantAux = simulationDuration - ((simulationDuration - currentSimulatedTime) % this.tick);
+            }
+            if (nextActivityInstantAux - currentSimulatedTime > TTimer.MAX_STEP) {
+                nextActivityInstantAux = currentSimulatedTime + ((TTimer.MAX_STEP / this.tick) * this.tick);
+            }
+            if (nextActivityInstantAux > nextSimulatedTime) {
+                this.numberOfSkippedTicks += ((nextActivityInstantAux - currentSimulatedTime) / this.tick) - 1;
+                nextSimulatedTime = nextActivityInstantAux;
+            }
+        }
+        return nextSimulatedTime;
+    }
+
+    /**
+     * This method implements the conservative parallel engine. Ticks advance
+     * exactly as in the tick-driven engine, but instead of being dispatched
+     * one by one they are gathered in windows as long as the lookahead of the
+     * partition. Each window is simulated by all the regions at the same time
+     * and the timer only waits for them at the end of the window. The
+     * timestamp of the timer is already at the end of the window by then, so
+     * topology elements get the instant of their own tick from their region.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    private void runConservativeParallel() {
+        this.running = true;
+        this.conservativeParallelEngine = new TConservativeParallelEngine(this, this.getTimerEventListenerNodes(), this.getTimerEventListenerLinks(), this.numberOfRegions, this.tick);
+        this.conservativeParallelEngine.start();
+        int windowLength = this.conservativeParallelEngine.getWindowLength();
+        long[] lowerLimits = new long[windowLength];
+        long[] upperLimits = new long[windowLength];
+        int numberOfTicks = 0;
+        long windowStart;
+        long currentSimulatedTime;
+        long previousSimulatedTime;
+        long simulationDuration;
+        boolean simulationFinished = false;
+        this.isFinished = false;
+        this.currentTimestamp.increaseNanoseconds(this.tick);
+        currentSimulatedTime = this.currentTimestamp.getTotalAsNanoseconds();
+        simulationDuration = this.finishTimestamp.getTotalAsNanoseconds();
+        if (currentSimulatedTime == simulationDuration) {
+            simulationFinished = true;
+        }
+        while ((this.currentTimestamp.compareTo(this.finishTimestamp) != TTimestamp.ARGUMENT_IS_LOWER) && (!this.isFinished)) {
+            lowerLimits[numberOfTicks] = this.previousTimestamp.getTotalAsNanoseconds();
+            upperLimits[numberOfTicks] = this.currentTimestamp.getTotalAsNanoseconds();
+            numberOfTicks++;
+            this.previousTimestamp.setMillisecond(this.currentTimestamp.getMillisecond());
+            this.previousTimestamp.setNanosecond(this.currentTimestamp.getNanosecond());
+            currentSimulatedTime = this.currentTimestamp.getTotalAsNanoseconds();
+            simulationDuration = this.finishTimestamp.getTotalAsNanoseconds();
             if (currentSimulatedTime + this.tick > simulationDuration) {
                 if (!simulationFinished) {
                     currentTimestamp.setMillisecond(this.finishTimestamp.getMillisecond());
@@ -438,34 +1002,188 @@ public class TTimer implements Runnable {
             if (previousSimulatedTime == currentSimulatedTime) {
                 this.isFinished = true;
             }
+            if ((numberOfTicks == windowLength) || this.isFinished || (this.currentTimestamp.compareTo(this.finishTimestamp) == TTimestamp.ARGUMENT_IS_LOWER)) {
+                generateProgressEvent();
+                windowStart = System.nanoTime();
+                this.conservativeParallelEngine.runWindow(lowerLimits, upperLimits, numberOfTicks);
+                this.tickBarrier.addTicks(numberOfTicks, System.nanoTime() - windowStart);
+                numberOfTicks = 0;
+            }
+        }
+        this.conservativeParallelEngine.stop();
+        this.running = false;
+    }
+
+    /**
+     * This method implements the event-driven engine. Instead of advancing
+     * the simulation tick by tick, it jumps to the earliest instant stored in
+     * the future event list and only sends timer events to the topology
+     * elements that scheduled work for that instant. When the list is empty or
+     * the next event is beyond the end of the simulation, every topology
+     * element receives a last timer event at the end of the simulation so that
+     * all of them consolidate their state.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    private void runEventDriven() {
+        this.running = true;
+        this.isFinished = false;
+        TreeSet<TTopologyElement> dueNodes = new TreeSet<TTopologyElement>();
+        TreeSet<TTopologyElement> dueLinks = new TreeSet<TTopologyElement>();
+        long previousSimulatedTime;
+        long nextSimulatedTime;
+        long simulationDuration;
+        long dispatchStart;
+        long dispatchAllocationStart;
+        boolean lastDispatch;
+        if (!this.futureEventListSeeded) {
+            seedFutureEventList();
+        }
+        while (!this.isFinished) {
+            previousSimulatedTime = this.previousTimestamp.getTotalAsNanoseconds();
+            simulationDuration = this.finishTimestamp.getTotalAsNanoseconds();
+            if (previousSimulatedTime >= simulationDuration) {
+                this.isFinished = true;
+                break;
+            }
+            nextSimulatedTime = this.futureEventList.getNextInstant();
+            if ((nextSimulatedTime != TFutureEventList.NO_FUTURE_EVENTS) && (nextSimulatedTime <= previousSimulatedTime)) {
+                nextSimulatedTime = previousSimulatedTime + this.tick;
+            }
+            lastDispatch = false;
+            if ((nextSimulatedTime == TFutureEventList.NO_FUTURE_EVENTS) || (nextSimulatedTime >= simulationDuration)) {
+                nextSimulatedTime = simulationDuration;
+                lastDispatch = true;
+            }
+            this.currentTimestamp.setMillisecond(nextSimulatedTime / 1000000);
+            this.currentTimestamp.setNanosecond((int) (nextSimulatedTime % 1000000));
+            // Let's simulate
+            dispatchAllocationStart = TTimerEventExecutor.getAllocatedBytesOfCurrentThread();
+            generateProgressEvent();
+            dueNodes.clear();
+            dueLinks.clear();
+            this.futureEventList.pollUntil(nextSimulatedTime, dueNodes, dueLinks);
+            if (lastDispatch) {
+                dueNodes.addAll(this.timerEventListenerNodes);
+                dueLinks.addAll(this.timerEventListenerLInks);
+            } else {
+                dueNodes.retainAll(this.timerEventListenerNodes);
+                dueLinks.retainAll(this.timerEventListenerLInks);
+            }
+            dispatchStart = System.nanoTime();
+            consolidateStatisticsOfSkippedTicks(dueNodes);
+            this.tickBarrier.startTick();
+            generateTimerEvent(dueNodes, dueLinks);
+            this.timerEventExecutor.addDispatchOverhead(System.nanoTime() - dispatchStart);
+            if (dispatchAllocationStart >= 0) {
+                this.timerEventExecutor.addDispatchAllocation(TTimerEventExecutor.getAllocatedBytesOfCurrentThread() - dispatchAllocationStart);
+            }
+            // ------------------
             waitUntilTimerEventListenersFinishTheirWork();
+            this.previousTimestamp.setTimestamp(this.currentTimestamp);
+            if (lastDispatch) {
+                this.isFinished = true;
+            }
         }
         this.running = false;
     }
 
     /**
-     * This method wait until all element that received a timer event have
-     * consumed them. This is the way to synchronize al topology elements
-     * between timer events. This method is a synchronized one.
+     * This method fills the future event list at the beginning of a
+     * simulation run by the event-driven engine, so that every topology
+     * element receives a first timer event after the first tick.
      *
      * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
      * @since 2.0
      */
-    private synchronized void waitUntilTimerEventListenersFinishTheirWork() {
-        Iterator nodesIterator = this.timerEventListenerNodes.iterator();
-        Iterator linksIterator = this.timerEventListenerLInks.iterator();
-        TNode nodeAux;
-        TLink linkAux;
+    private void seedFutureEventList() {
+        long firstSimulatedTime = this.previousTimestamp.getTotalAsNanoseconds() + this.tick;
+        Iterator<TTopologyElement> nodesIterator = this.timerEventListenerNodes.iterator();
+        Iterator<TTopologyElement> linksIterator = this.timerEventListenerLInks.iterator();
+        TTopologyElement timerEventListenerAux;
+        this.futureEventList.reset();
         while (nodesIterator.hasNext()) {
-            nodeAux = (TNode) nodesIterator.next();
-            nodeAux.waitForCompletion();
+            timerEventListenerAux = nodesIterator.next();
+            timerEventListenerAux.setTimeInstant(this.previousTimestamp.getTotalAsNanoseconds());
+            this.futureEventList.schedule(timerEventListenerAux, firstSimulatedTime);
         }
         while (linksIterator.hasNext()) {
-            linkAux = (TLink) linksIterator.next();
-            linkAux.waitForCompletion();
+            timerEventListenerAux = linksIterator.next();
+            timerEventListenerAux.setTimeInstant(this.previousTimestamp.getTotalAsNanoseconds());
+            this.futureEventList.schedule(timerEventListenerAux, firstSimulatedTime);
+        }
+        this.futureEventListSeeded = true;
+    }
+
+    /**
+     * This method wait until all element that received a timer event have
+     * consumed them. This is the way to synchronize al topology elements
+     * between timer events. Instead of waiting for each topology element in
+     * turn, the timer blocks on the tick barrier and is woken up once, when
+     * the last topology element finishes.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    private void waitUntilTimerEventListenersFinishTheirWork() {
+        this.tickBarrier.awaitAllElements();
+    }
+
+    /**
+     * This method returns the barrier that synchronizes the timer with the
+     * topology elements on each tick. It also provides the barrier wait time
+     * statistics and the stragglers of the simulation.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The tick barrier of this timer.
+     * @since 2.0
+     */
+    public TTickBarrier getTickBarrier() {
+        return this.tickBarrier;
+    }
+
+    /**
+     * This method enables or disables the tick profiling of the topology
+     * elements subscribed to this timer. While it is enabled, each topology
+     * element records the wall time of its ticks, the packets it switches and
+     * the time spent in each phase of its work. When it is disabled, the
+     * profiles gathered so far are discarded.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param enabled TRUE, to profile the ticks. FALSE, to stop profiling.
+     * @since 2.0
+     */
+    public synchronized void setTickProfilingEnabled(boolean enabled) {
+        if (enabled) {
+            if (this.tickProfiler == null) {
+                this.tickProfiler = new TTickProfiler(this.tickBarrier);
+            }
+            Iterator<TTopologyElement> iterator = this.timerEventListenerNodes.iterator();
+            while (iterator.hasNext()) {
+                this.tickProfiler.attach(iterator.next());
+            }
+            iterator = this.timerEventListenerLInks.iterator();
+            while (iterator.hasNext()) {
+                this.tickProfiler.attach(iterator.next());
+            }
+        } else if (this.tickProfiler != null) {
+            this.tickProfiler.detachAll();
+            this.tickProfiler = null;
         }
     }
 
+    /**
+     * This method returns the tick profiler of this timer.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The tick profiler, or NULL if tick profiling is disabled.
+     * @since 2.0
+     */
+    public TTickProfiler getTickProfiler() {
+        return this.tickProfiler;
+    }
+
     /**
      * This method is used by any simulator object to wait for the timer finish
      * before doing a new operation. This method is a synchronized one.
@@ -495,19 +1213,94 @@ public class TTimer implements Runnable {
         return this.running;
     }
 
-    private TreeSet timerEventListenerNodes;
-    private TreeSet timerEventListenerLInks;
-    private TProgressEventListener progressEventListener;
+    /**
+     * This method saves the timer to a checkpoint. The thread, the executor
+     * and the tick barrier belong to the running process and are not saved;
+     * only the type of executor is, so that an equivalent one can be created
+     * when the checkpoint is restored.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param output The stream the timer is written to.
+     * @throws IOException If the timer cannot be written.
+     * @since 2.0
+     */
+    private void writeObject(ObjectOutputStream output) throws IOException {
+        output.defaultWriteObject();
+        output.writeInt(this.timerEventExecutor.getExecutorType());
+    }
+
+    /**
+     * This method restores the timer from a checkpoint. A new executor and a
+     * new tick barrier are created and the timer is assigned again to the
+     * topology elements subscribed to it.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param input The stream the timer is read from.
+     * @throws IOException If the timer cannot be read.
+     * @throws ClassNotFoundException If a saved class does not exist.
+     * @since 2.0
+     */
+    private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+        input.defaultReadObject();
+        this.timerEventExecutor = new TTimerEventExecutor(input.readInt());
+        this.tickBarrier = new TTickBarrier();
+        this.thread = null;
+        this.progressEventListener = null;
+        this.conservativeParallelEngine = null;
+        this.regionOfCurrentThread = new ThreadLocal<TSimulationRegion>();
+        this.running = false;
+        this.timerEvent = new TTimerEvent(this, 0, 0, 0);
+        this.timerEventListenerNodesArray = null;
+        this.timerEventListenerLinksArray = null;
+        this.lastProgressPercentage = -1;
+        this.tickProfiler = null;
+        Iterator<TTopologyElement> iterator = this.timerEventListenerNodes.iterator();
+        while (iterator.hasNext()) {
+            iterator.next().setTimer(this);
+        }
+        iterator = this.timerEventListenerLInks.iterator();
+        while (iterator.hasNext()) {
+            iterator.next().setTimer(this);
+        }
+    }
+
+    private static final long serialVersionUID = 1L;
+    public static final int TICK_DRIVEN_ENGINE = 0;
+    public static final int EVENT_DRIVEN_ENGINE = 1;
+    public static final int CONSERVATIVE_PARALLEL_ENGINE = 2;
+    public static final int ADAPTIVE_STEP_ENGINE = 3;
+    private static final long NO_NEXT_ACTIVITY = Long.MAX_VALUE;
+    private static final long MAX_STEP = Integer.MAX_VALUE;
+
+    private TreeSet<TTopologyElement> timerEventListenerNodes;
+    private TreeSet<TTopologyElement> timerEventListenerLInks;
+    private transient TProgressEventListener progressEventListener;
     private TLongIDGenerator longIdentifierGenerator;
     private int tick;
-    private Thread thread;
+    private transient Thread thread;
     private TTimestamp currentTimestamp;
     private TTimestamp previousTimestamp;
     private TTimestamp finishTimestamp;
     private boolean running;
-    private boolean isFinished;
+    private volatile boolean isFinished;
     private boolean paused;
     private TTimestamp currentTimestampAux;
     private TTimestamp previousTimestampAux;
     private TTimestamp finishTimestampAux;
+    private int schedulingEngine;
+    private TFutureEventList futureEventList;
+    private boolean futureEventListSeeded;
+    private AtomicLong nextActivityInstant;
+    private long numberOfSkippedTicks;
+    private long numberOfTimerEvents;
+    private transient TTimerEventExecutor timerEventExecutor;
+    private transient TTickBarrier tickBarrier;
+    private int numberOfRegions;
+    private transient TConservativeParallelEngine conservativeParallelEngine;
+    private transient ThreadLocal<TSimulationRegion> regionOfCurrentThread;
+    private transient TTimerEvent timerEvent;
+    private transient TTopologyElement[] timerEventListenerNodesArray;
+    private transient TTopologyElement[] timerEventListenerLinksArray;
+    private transient int lastProgressPercentage;
+    private transient volatile TTickProfiler tickProfiler;
 }
@@ -19,7 +19,11 @@ import simMPLS.utils.TOpenSimMPLSEvent;
 
 /**
  * This class implements a timer event that will be used to govern and
- * synchronize all elements that compose the simulation.
+ * synchronize all elements that compose the simulation. Topology elements
+ * receive timer events synchronously and copy the values they need, so the
+ * timer reuses the same event for every topology element and tick instead of
+ * creating a new one each time. A topology element must not keep a reference
+ * to a timer event after receiveTimerEvent() returns.
  *
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
@@ -39,9 +43,45 @@ public class TTimerEvent extends TOpenSimMPLSEvent {
      * @since 2.0
      */
     public TTimerEvent(Object eventGenerator, long eventID, TTimestamp lowerEndOfInterval, TTimestamp upperEndOfInterval) {
-        super(eventGenerator, eventID, upperEndOfInterval.getTotalAsNanoseconds());
-        this.lowerEndOfInterval = lowerEndOfInterval;
-        this.upperEndOfInterval = upperEndOfInterval;
+        this(eventGenerator, eventID, lowerEndOfInterval.getTotalAsNanoseconds(), upperEndOfInterval.getTotalAsNanoseconds());
+    }
+
+    /**
+     * This method is the constructor of the class. It creates a new instance of
+     * TTimerEvent from the limits of the interval, in nanoseconds.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param eventID The unique event identifier.
+     * @param eventGenerator The object that generates the event.
+     * @param lowerLimit The start of the period of time (simulation step)
+     * carried out by this event, in nanoseconds.
+     * @param upperLimit The end of the period of time (simulation step)
+     * carried out by this event, in nanoseconds.
+     * @since 2.0
+     */
+    public TTimerEvent(Object eventGenerator, long eventID, long lowerLimit, long upperLimit) {
+        super(eventGenerator, eventID, upperLimit);
+        this.lowerLimit = lowerLimit;
+        this.upperLimit = upperLimit;
+    }
+
+    /**
+     * This method changes the identifier and the interval carried out by this
+     * event, so that it can be sent again to a topology element.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param eventID The new unique event identifier.
+     * @param lowerLimit The start of the period of time (simulation step)
+     * carried out by this event, in nanoseconds.
+     * @param upperLimit The end of the period of time (simulation step)
+     * carried out by this event, in nanoseconds.
+     * @since 2.0
+     */
+    public void setInterval(long eventID, long lowerLimit, long upperLimit) {
+        this.ponerIdentificador(eventID);
+        this.ponerInstante(upperLimit);
+        this.lowerLimit = lowerLimit;
+        this.upperLimit = upperLimit;
     }
 
     /**
@@ -54,7 +94,7 @@ public class TTimerEvent extends TOpenSimMPLSEvent {
      * @since 2.0
      */
     public int getStepDuration() {
-        return (int) ((this.upperEndOfInterval.getTotalAsNanoseconds()) - (this.lowerEndOfInterval.getTotalAsNanoseconds()));
+        return (int) (this.upperLimit - this.lowerLimit);
     }
 
     /**
@@ -66,7 +106,20 @@ public class TTimerEvent extends TOpenSimMPLSEvent {
      * @since 2.0
      */
     public long getUpperLimit() {
-        return (long) (this.upperEndOfInterval.getTotalAsNanoseconds());
+        return this.upperLimit;
+    }
+
+    /**
+     * This method get the start of the interval according to the values
+     * included in the event, in nanoseconds.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The start of the interval according to the values included in
+     * the event, in nanoseconds.
+     * @since 2.0
+     */
+    public long getLowerLimit() {
+        return this.lowerLimit;
     }
 
     /**
@@ -82,6 +135,6 @@ public class TTimerEvent extends TOpenSimMPLSEvent {
         return TOpenSimMPLSEvent.TIMER;
     }
 
-    private final TTimestamp lowerEndOfInterval;
-    private final TTimestamp upperEndOfInterval;
+    private long lowerLimit;
+    private long upperLimit;
 }
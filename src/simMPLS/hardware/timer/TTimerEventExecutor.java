@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.timer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This class implements the executor that runs the work of topology elements
+ * after they receive a timer event. Instead of creating a new thread for each
+ * topology element on each tick, it reuses a set of worker threads across the
+ * whole simulation. It also keeps track of the time the timer spends
+ * dispatching timer events on each tick and of the memory it allocates while
+ * doing it.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TTimerEventExecutor {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TTimerEventExecutor of the specified type.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param executorType THREAD_PER_ELEMENT, FIXED_THREAD_POOL or
+     * VIRTUAL_THREADS. If virtual threads are not supported by the running
+     * JVM, a fixed thread pool is used instead.
+     * @since 2.0
+     */
+    public TTimerEventExecutor(int executorType) {
+        this.executorType = TTimerEventExecutor.THREAD_PER_ELEMENT;
+        this.executorService = null;
+        if (executorType == TTimerEventExecutor.VIRTUAL_THREADS) {
+            try {
+                // Virtual threads are looked up at runtime so that the
+                // simulator still builds and runs on Java 8.
+                this.executorService = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                this.executorType = TTimerEventExecutor.VIRTUAL_THREADS;
+            } catch (Exception e) {
+                executorType = TTimerEventExecutor.FIXED_THREAD_POOL;
+            }
+        }
+        if (executorType == TTimerEventExecutor.FIXED_THREAD_POOL) {
+            this.executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread workerThread = new Thread(runnable);
+                    workerThread.setDaemon(true);
+                    return workerThread;
+                }
+            });
+            this.executorType = TTimerEventExecutor.FIXED_THREAD_POOL;
+        }
+        this.numberOfDispatches = 0;
+        this.totalDispatchOverhead = 0;
+        this.maxDispatchOverhead = 0;
+        this.numberOfMeasuredDispatches = 0;
+        this.totalDispatchAllocation = 0;
+    }
+
+    /**
+     * This method returns the type of this executor.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return THREAD_PER_ELEMENT, FIXED_THREAD_POOL or VIRTUAL_THREADS.
+     * @since 2.0
+     */
+    public int getExecutorType() {
+        return this.executorType;
+    }
+
+    /**
+     * This method checks whether this executor reuses worker threads or, on
+     * the contrary, topology elements have to create their own thread on each
+     * tick.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return TRUE, if topology elements should submit their work to this
+     * executor. Otherwise, returns FALSE.
+     * @since 2.0
+     */
+    public boolean isPooled() {
+        return (this.executorService != null);
+    }
+
+    /**
+     * This method submits the work of a topology element to be run by one of
+     * the worker threads.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param work The work to be run.
+     * @return A future that allows waiting until the work is done, or NULL if
+     * this executor is not a pooled one.
+     * @since 2.0
+     */
+    public Future<?> submit(Runnable work) {
+        if (this.executorService != null) {
+            return this.executorService.submit(work);
+        }
+        return null;
+    }
+
+    /**
+     * This method stops the worker threads of this executor. Work already
+     * submitted is completed, but no more work is accepted.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void shutdown() {
+        if (this.executorService != null) {
+            this.executorService.shutdown();
+        }
+    }
+
+    /**
+     * This method records the time the timer has spent dispatching the timer
+     * events of a given tick.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param dispatchOverhead Nanoseconds of wall-clock time spent
+     * dispatching timer events.
+     * @since 2.0
+     */
+    public synchronized void addDispatchOverhead(long dispatchOverhead) {
+        this.numberOfDispatches++;
+        this.totalDispatchOverhead += dispatchOverhead;
+        if (dispatchOverhead > this.maxDispatchOverhead) {
+            this.maxDispatchOverhead = dispatchOverhead;
+        }
+    }
+
+    /**
+     * This method records the memory the timer has allocated while
+     * dispatching the timer events of a given tick.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param dispatchAllocation Bytes allocated by the thread of the timer,
+     * as returned by the difference of two calls to
+     * getAllocatedBytesOfCurrentThread().
+     * @since 2.0
+     */
+    public synchronized void addDispatchAllocation(long dispatchAllocation) {
+        this.numberOfMeasuredDispatches++;
+        this.totalDispatchAllocation += dispatchAllocation;
+    }
+
+    /**
+     * This method returns the average memory allocated by the timer while
+     * dispatching the timer events of a tick.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The average dispatch allocation, in bytes, or -1 if the JVM can
+     * not measure it.
+     * @since 2.0
+     */
+    public synchronized long getAverageDispatchAllocation() {
+        if (this.numberOfMeasuredDispatches == 0) {
+            return -1;
+        }
+        return (this.totalDispatchAllocation / this.numberOfMeasuredDispatches);
+    }
+
+    /**
+     * This method returns how many bytes the current thread has allocated
+     * since it started. It only works on JVMs that can measure the memory
+     * allocated by each thread.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The bytes allocated by the current thread, or -1 if the JVM can
+     * not measure it.
+     * @since 2.0
+     */
+    public static long getAllocatedBytesOfCurrentThread() {
+        if (TTimerEventExecutor.THREAD_MX_BEAN != null) {
+            return TTimerEventExecutor.THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * This method returns the bean used to measure the memory allocated by
+     * each thread, if the running JVM supports it.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The bean, or NULL if the JVM can not measure the memory
+     * allocated by each thread.
+     * @since 2.0
+     */
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        try {
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean extendedThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+                if (extendedThreadMXBean.isThreadAllocatedMemorySupported()) {
+                    extendedThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+                    return extendedThreadMXBean;
+                }
+            }
+        } catch (Throwable t) {
+            // The JVM does not provide the extended bean. Allocations are
+            // not measured.
+        }
+        return null;
+    }
+
+    /**
+     * This method returns the number of ticks dispatched since the last reset
+     * of the statistics.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of ticks dispatched.
+     * @since 2.0
+     */
+    public synchronized long getNumberOfDispatches() {
+        return this.numberOfDispatches;
+    }
+
+    /**
+     * This method returns the average wall-clock time spent dispatching timer
+     * events on each tick.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The average dispatch overhead, in nanoseconds.
+     * @since 2.0
+     */
+    public synchronized long getAverageDispatchOverhead() {
+        if (this.numberOfDispatches == 0) {
+            return 0;
+        }
+        return (this.totalDispatchOverhead / this.numberOfDispatches);
+    }
+
+    /**
+     * This method returns the maximum wall-clock time spent dispatching timer
+     * events on a single tick.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The maximum dispatch overhead, in nanoseconds.
+     * @since 2.0
+     */
+    public synchronized long getMaxDispatchOverhead() {
+        return this.maxDispatchOverhead;
+    }
+
+    /**
+     * This method returns the total wall-clock time spent dispatching timer
+     * events since the last reset of the statistics.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The total dispatch overhead, in nanoseconds.
+     * @since 2.0
+     */
+    public synchronized long getTotalDispatchOverhead() {
+        return this.totalDispatchOverhead;
+    }
+
+    /**
+     * This method resets the dispatch overhead statistics.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public synchronized void resetStatistics() {
+        this.numberOfDispatches = 0;
+        this.totalDispatchOverhead = 0;
+        this.maxDispatchOverhead = 0;
+        this.numberOfMeasuredDispatches = 0;
+        this.totalDispatchAllocation = 0;
+    }
+
+    public static final int THREAD_PER_ELEMENT = 0;
+    public static final int FIXED_THREAD_POOL = 1;
+    public static final int VIRTUAL_THREADS = 2;
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = TTimerEventExecutor.getThreadMXBean();
+
+    private int executorType;
+    private ExecutorService executorService;
+    private long numberOfDispatches;
+    private long totalDispatchOverhead;
+    private long maxDispatchOverhead;
+    private long numberOfMeasuredDispatches;
+    private long totalDispatchAllocation;
+}
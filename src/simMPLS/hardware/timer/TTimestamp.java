@@ -15,13 +15,14 @@
  */
 package simMPLS.hardware.timer;
 
+import java.io.Serializable;
 /**
  * This class implements a timestamp.
  *
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public class TTimestamp implements Comparable {
+public class TTimestamp implements Comparable, Serializable {
 
     /**
      * This method is the constructor of the class. Is creates a new instance of
@@ -163,6 +164,7 @@ public class TTimestamp implements Comparable {
     public long getTotalAsNanoseconds() {
         return (long) ((this.getMillisecond() * 1000000) + this.getNanosecond());
     }
+    private static final long serialVersionUID = 1L;
     public static final int ARGUMENT_IS_GREATER = -1;
     public static final int BOTH_ARE_EQUAL = 0;
     public static final int ARGUMENT_IS_LOWER = 1;
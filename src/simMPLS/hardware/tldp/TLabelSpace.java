@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.hardware.tldp;
+
+import java.io.Serializable;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * This class implements a 20-bits label space. It keeps track of how many
+ * switching entries are using each label, in a bitset with a hint to the
+ * lowest label that could be free, so that a free label is found without
+ * checking every label in use. It is not thread safe; the switching matrix
+ * that owns it is in charge of that.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TLabelSpace implements Serializable {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TLabelSpace with every label free.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public TLabelSpace() {
+        this.usedLabels = new BitSet();
+        this.labelUsages = new HashMap<Integer, int[]>();
+        this.lowestFreeLabelHint = TSwitchingMatrixEntry.FIRST_UNRESERVED_LABEL;
+        this.numberOfUsedLabels = 0;
+    }
+
+    /**
+     * This method records that a new switching entry is using the specified
+     * label.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param label The label.
+     * @since 2.0
+     */
+    public void markAsUsed(int label) {
+        Integer labelAux = Integer.valueOf(label);
+        int[] usages = this.labelUsages.get(labelAux);
+        if (usages == null) {
+            usages = new int[1];
+            this.labelUsages.put(labelAux, usages);
+            this.numberOfUsedLabels++;
+            if ((label >= 0) && (label <= TSwitchingMatrixEntry.LABEL_SPACE)) {
+                this.usedLabels.set(label);
+            }
+        }
+        usages[0]++;
+    }
+
+    /**
+     * This method records that a switching entry is no longer using the
+     * specified label. When no switching entry uses it, the label becomes free
+     * again.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param label The label.
+     * @since 2.0
+     */
+    public void release(int label) {
+        Integer labelAux = Integer.valueOf(label);
+        int[] usages = this.labelUsages.get(labelAux);
+        if (usages != null) {
+            usages[0]--;
+            if (usages[0] <= 0) {
+                this.labelUsages.remove(labelAux);
+                this.numberOfUsedLabels--;
+                if ((label >= 0) && (label <= TSwitchingMatrixEntry.LABEL_SPACE)) {
+                    this.usedLabels.clear(label);
+                    if (label < this.lowestFreeLabelHint) {
+                        this.lowestFreeLabelHint = label;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * This method checks whether any switching entry is using the specified
+     * label.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param label The label.
+     * @return TRUE, if the label is being used. Otherwise, returns FALSE.
+     * @since 2.0
+     */
+    public boolean isUsed(int label) {
+        if ((label >= 0) && (label <= TSwitchingMatrixEntry.LABEL_SPACE)) {
+            return this.usedLabels.get(label);
+        }
+        return this.labelUsages.containsKey(Integer.valueOf(label));
+    }
+
+    /**
+     * This method returns the lowest label, starting from
+     * TSwitchingMatrixEntry.FIRST_UNRESERVED_LABEL, that is not used by any
+     * switching entry. The label is not marked as used.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The lowest free label or TSwitchingMatrixEntry.LABEL_UNAVAILABLE
+     * if the whole label space is being used.
+     * @since 2.0
+     */
+    public int getLowestFreeLabel() {
+        if (this.lowestFreeLabelHint < TSwitchingMatrixEntry.FIRST_UNRESERVED_LABEL) {
+            this.lowestFreeLabelHint = TSwitchingMatrixEntry.FIRST_UNRESERVED_LABEL;
+        }
+        int label = this.usedLabels.nextClearBit(this.lowestFreeLabelHint);
+        // Every label below the one found is being used, so next searches can
+        // start from it.
+        this.lowestFreeLabelHint = label;
+        if (label > TSwitchingMatrixEntry.LABEL_SPACE) {
+            return TSwitchingMatrixEntry.LABEL_UNAVAILABLE;
+        }
+        return label;
+    }
+
+    /**
+     * This method returns how many different labels are being used.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of labels in use.
+     * @since 2.0
+     */
+    public int getNumberOfUsedLabels() {
+        return this.numberOfUsedLabels;
+    }
+
+    /**
+     * This method frees every label, as when created by the constructor.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void reset() {
+        this.usedLabels.clear();
+        this.labelUsages.clear();
+        this.lowestFreeLabelHint = TSwitchingMatrixEntry.FIRST_UNRESERVED_LABEL;
+        this.numberOfUsedLabels = 0;
+    }
+
+    private static final long serialVersionUID = 1L;
+    private BitSet usedLabels;
+    private HashMap<Integer, int[]> labelUsages;
+    private int lowestFreeLabelHint;
+    private int numberOfUsedLabels;
+}
@@ -15,18 +15,26 @@
  */
 package simMPLS.hardware.tldp;
 
+import java.io.Serializable;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
-import simMPLS.utils.TMonitor;
+import simMPLS.utils.TLock;
 
 /**
  * This class implements a switching matrix to be used within each node of the
- * topology.
+ * topology. Besides the entries themselves, kept in the order they were added,
+ * the switching matrix keeps hash indexes by (incoming port, label or FEC,
+ * entry type), by local TLDP session ID and by (upstream TLDP session ID,
+ * incoming port), so that looking up an entry does not depend on the number of
+ * entries. Labels in use are tracked in a label space, so that a new label is
+ * found without checking every entry.
  *
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public class TSwitchingMatrix {
+public class TSwitchingMatrix implements Serializable {
 
     /**
      * This method is the constructor of the class. It creates a new instance of
@@ -36,8 +44,63 @@ public class TSwitchingMatrix {
      * @since 2.0
      */
     public TSwitchingMatrix() {
-        this.switchingMatrix = new LinkedList();
-        this.monitor = new TMonitor();
+        this.switchingMatrix = new LinkedHashSet<TSwitchingMatrixEntry>();
+        this.monitor = new TLock("TSwitchingMatrix.monitor");
+        this.indexMonitor = new TLock("TSwitchingMatrix.indexMonitor");
+        this.entriesByKey = new HashMap<Long, LinkedList<TSwitchingMatrixEntry>>();
+        this.entriesByLocalTLDPSessionID = new HashMap<Integer, LinkedList<TSwitchingMatrixEntry>>();
+        this.entriesByUpstreamTLDPSessionID = new HashMap<Long, LinkedList<TSwitchingMatrixEntry>>();
+        this.nextInsertionOrder = 0;
+        this.labelSpace = new TLabelSpace();
+        this.perPortLabelSpaces = new HashMap<Integer, TLabelSpace>();
+        this.perPortLabelSpace = false;
+    }
+
+    /**
+     * This method sets whether labels are allocated from a single label space
+     * shared by every incoming port or from a separate label space for each
+     * incoming port. Switching entries are always looked up by incoming port
+     * and label, so both options are valid. The label spaces of the incoming
+     * ports are only kept while the option is on; when it is switched on,
+     * they are built from the label entries already in the switching matrix.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param perPortLabelSpace TRUE, to use a label space for each incoming
+     * port. FALSE, to use a single label space.
+     * @since 2.0
+     */
+    public void setPerPortLabelSpace(boolean perPortLabelSpace) {
+        this.monitor.lock();
+        this.indexMonitor.lock();
+        if (perPortLabelSpace != this.perPortLabelSpace) {
+            this.perPortLabelSpaces.clear();
+            if (perPortLabelSpace) {
+                Iterator<TSwitchingMatrixEntry> it = this.switchingMatrix.iterator();
+                TSwitchingMatrixEntry switchingMatrixEntry;
+                while (it.hasNext()) {
+                    switchingMatrixEntry = it.next();
+                    if (switchingMatrixEntry.getEntryType() == TSwitchingMatrixEntry.LABEL_ENTRY) {
+                        this.getPortLabelSpace(switchingMatrixEntry.getIncomingPortID()).markAsUsed(switchingMatrixEntry.getLabelOrFEC());
+                    }
+                }
+            }
+            this.perPortLabelSpace = perPortLabelSpace;
+        }
+        this.indexMonitor.unlock();
+        this.monitor.unlock();
+    }
+
+    /**
+     * This method checks whether labels are allocated from a separate label
+     * space for each incoming port.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return TRUE, if there is a label space for each incoming port.
+     * Otherwise, returns FALSE.
+     * @since 2.0
+     */
+    public boolean isPerPortLabelSpace() {
+        return this.perPortLabelSpace;
     }
 
     /**
@@ -48,7 +111,7 @@ public class TSwitchingMatrix {
      * @return The monitor of the class.
      * @since 2.0
      */
-    public TMonitor getMonitor() {
+    public TLock getMonitor() {
         return this.monitor;
     }
 
@@ -62,8 +125,12 @@ public class TSwitchingMatrix {
      */
     public void addEntry(TSwitchingMatrixEntry switchingMatrixEntry) {
         this.monitor.lock();
-        this.switchingMatrix.addLast(switchingMatrixEntry);
-        this.monitor.unLock();
+        if (this.switchingMatrix.add(switchingMatrixEntry)) {
+            switchingMatrixEntry.setSwitchingMatrix(this, this.nextInsertionOrder);
+            this.nextInsertionOrder++;
+            this.addToIndexes(switchingMatrixEntry);
+        }
+        this.monitor.unlock();
     }
 
     /**
@@ -82,21 +149,9 @@ public class TSwitchingMatrix {
      */
     public TSwitchingMatrixEntry getEntry(int incomingPortID, int labelOrFEC, int entryType) {
         this.monitor.lock();
-        Iterator iterator = this.switchingMatrix.iterator();
-        TSwitchingMatrixEntry switchingMatrixEntryAux;
-        while (iterator.hasNext()) {
-            switchingMatrixEntryAux = (TSwitchingMatrixEntry) iterator.next();
-            if (switchingMatrixEntryAux.getLabelOrFEC() == labelOrFEC) {
-                if (switchingMatrixEntryAux.getIncomingPortID() == incomingPortID) {
-                    if (switchingMatrixEntryAux.getEntryType() == entryType) {
-                        this.monitor.unLock();
-                        return switchingMatrixEntryAux;
-                    }
-                }
-            }
-        }
-        this.monitor.unLock();
-        return null;
+        TSwitchingMatrixEntry switchingMatrixEntryAux = this.findEntry(incomingPortID, labelOrFEC, entryType);
+        this.monitor.unlock();
+        return switchingMatrixEntryAux;
     }
 
     /**
@@ -112,17 +167,15 @@ public class TSwitchingMatrix {
      */
     public TSwitchingMatrixEntry getEntry(int localTLDPSessionID) {
         this.monitor.lock();
-        Iterator iterator = this.switchingMatrix.iterator();
-        TSwitchingMatrixEntry switchingMatrixEntryAux;
-        while (iterator.hasNext()) {
-            switchingMatrixEntryAux = (TSwitchingMatrixEntry) iterator.next();
-            if (switchingMatrixEntryAux.getLocalTLDPSessionID() == localTLDPSessionID) {
-                this.monitor.unLock();
-                return switchingMatrixEntryAux;
-            }
+        TSwitchingMatrixEntry switchingMatrixEntryAux = null;
+        this.indexMonitor.lock();
+        LinkedList<TSwitchingMatrixEntry> entries = this.entriesByLocalTLDPSessionID.get(Integer.valueOf(localTLDPSessionID));
+        if (entries != null) {
+            switchingMatrixEntryAux = entries.getFirst();
         }
-        this.monitor.unLock();
-        return null;
+        this.indexMonitor.unlock();
+        this.monitor.unlock();
+        return switchingMatrixEntryAux;
     }
 
     /**
@@ -140,19 +193,15 @@ public class TSwitchingMatrix {
      */
     public TSwitchingMatrixEntry getEntry(int upstreamTLDPSessionID, int incomingPortID) {
         this.monitor.lock();
-        Iterator iterator = this.switchingMatrix.iterator();
-        TSwitchingMatrixEntry switchingMatrixEntryAux;
-        while (iterator.hasNext()) {
-            switchingMatrixEntryAux = (TSwitchingMatrixEntry) iterator.next();
-            if (switchingMatrixEntryAux.getUpstreamTLDPSessionID() == upstreamTLDPSessionID) {
-                if (switchingMatrixEntryAux.getIncomingPortID() == incomingPortID) {
-                    this.monitor.unLock();
-                    return switchingMatrixEntryAux;
-                }
-            }
+        TSwitchingMatrixEntry switchingMatrixEntryAux = null;
+        this.indexMonitor.lock();
+        LinkedList<TSwitchingMatrixEntry> entries = this.entriesByUpstreamTLDPSessionID.get(Long.valueOf(this.getUpstreamTLDPSessionKey(upstreamTLDPSessionID, incomingPortID)));
+        if (entries != null) {
+            switchingMatrixEntryAux = entries.getFirst();
         }
-        this.monitor.unLock();
-        return null;
+        this.indexMonitor.unlock();
+        this.monitor.unlock();
+        return switchingMatrixEntryAux;
     }
 
     /**
@@ -171,21 +220,9 @@ public class TSwitchingMatrix {
      */
     public boolean existsEntry(int incomingPortID, int labelOrFEC, int entryType) {
         this.monitor.lock();
-        Iterator iterator = this.switchingMatrix.iterator();
-        TSwitchingMatrixEntry switchingMatrixEntryAux;
-        while (iterator.hasNext()) {
-            switchingMatrixEntryAux = (TSwitchingMatrixEntry) iterator.next();
-            if (switchingMatrixEntryAux.getLabelOrFEC() == labelOrFEC) {
-                if (switchingMatrixEntryAux.getIncomingPortID() == incomingPortID) {
-                    if (switchingMatrixEntryAux.getEntryType() == entryType) {
-                        this.monitor.unLock();
-                        return true;
-                    }
-                }
-            }
-        }
-        this.monitor.unLock();
-        return false;
+        TSwitchingMatrixEntry switchingMatrixEntryAux = this.findEntry(incomingPortID, labelOrFEC, entryType);
+        this.monitor.unlock();
+        return (switchingMatrixEntryAux != null);
     }
 
     /**
@@ -203,19 +240,25 @@ public class TSwitchingMatrix {
      */
     public void removeEntry(int incomingPortID, int labelOrFEC, int entryType) {
         this.monitor.lock();
-        Iterator iterator = this.switchingMatrix.iterator();
-        TSwitchingMatrixEntry switchingMatrixEntryAux;
-        while (iterator.hasNext()) {
-            switchingMatrixEntryAux = (TSwitchingMatrixEntry) iterator.next();
-            if (switchingMatrixEntryAux.getLabelOrFEC() == labelOrFEC) {
-                if (switchingMatrixEntryAux.getIncomingPortID() == incomingPortID) {
-                    if (switchingMatrixEntryAux.getEntryType() == entryType) {
-                        iterator.remove();
-                    }
+        this.indexMonitor.lock();
+        LinkedList<TSwitchingMatrixEntry> entries = this.entriesByKey.get(this.getKey(incomingPortID, labelOrFEC, entryType));
+        LinkedList<TSwitchingMatrixEntry> entriesToRemove = new LinkedList<TSwitchingMatrixEntry>();
+        if (entries != null) {
+            Iterator<TSwitchingMatrixEntry> iterator = entries.iterator();
+            TSwitchingMatrixEntry switchingMatrixEntryAux;
+            while (iterator.hasNext()) {
+                switchingMatrixEntryAux = iterator.next();
+                if (this.matches(switchingMatrixEntryAux, incomingPortID, labelOrFEC, entryType)) {
+                    entriesToRemove.add(switchingMatrixEntryAux);
                 }
             }
         }
-        this.monitor.unLock();
+        this.indexMonitor.unlock();
+        Iterator<TSwitchingMatrixEntry> iterator = entriesToRemove.iterator();
+        while (iterator.hasNext()) {
+            this.detachEntry(iterator.next());
+        }
+        this.monitor.unlock();
     }
 
     /**
@@ -231,17 +274,25 @@ public class TSwitchingMatrix {
      */
     public void removeEntry(int localTLDPSessionID, int incomingPortID) {
         this.monitor.lock();
-        Iterator iterator = this.switchingMatrix.iterator();
-        TSwitchingMatrixEntry switchingMatrixEntryAux;
-        while (iterator.hasNext()) {
-            switchingMatrixEntryAux = (TSwitchingMatrixEntry) iterator.next();
-            if (switchingMatrixEntryAux.getLocalTLDPSessionID() == localTLDPSessionID) {
+        this.indexMonitor.lock();
+        LinkedList<TSwitchingMatrixEntry> entries = this.entriesByLocalTLDPSessionID.get(Integer.valueOf(localTLDPSessionID));
+        LinkedList<TSwitchingMatrixEntry> entriesToRemove = new LinkedList<TSwitchingMatrixEntry>();
+        if (entries != null) {
+            Iterator<TSwitchingMatrixEntry> iterator = entries.iterator();
+            TSwitchingMatrixEntry switchingMatrixEntryAux;
+            while (iterator.hasNext()) {
+                switchingMatrixEntryAux = iterator.next();
                 if (switchingMatrixEntryAux.getIncomingPortID() == incomingPortID) {
-                    iterator.remove();
+                    entriesToRemove.add(switchingMatrixEntryAux);
                 }
             }
         }
-        this.monitor.unLock();
+        this.indexMonitor.unlock();
+        Iterator<TSwitchingMatrixEntry> iterator = entriesToRemove.iterator();
+        while (iterator.hasNext()) {
+            this.detachEntry(iterator.next());
+        }
+        this.monitor.unlock();
     }
 
     /**
@@ -265,20 +316,11 @@ public class TSwitchingMatrix {
      */
     public int getLabelStackOperation(int incomingPortID, int labelOrFEC, int entryType) {
         this.monitor.lock();
-        Iterator iterator = this.switchingMatrix.iterator();
-        TSwitchingMatrixEntry switchingMatrixEntryAux;
-        while (iterator.hasNext()) {
-            switchingMatrixEntryAux = (TSwitchingMatrixEntry) iterator.next();
-            if (switchingMatrixEntryAux.getLabelOrFEC() == labelOrFEC) {
-                if (switchingMatrixEntryAux.getIncomingPortID() == incomingPortID) {
-                    if (switchingMatrixEntryAux.getEntryType() == entryType) {
-                        this.monitor.unLock();
-                        return switchingMatrixEntryAux.getLabelStackOperation();
-                    }
-                }
-            }
+        TSwitchingMatrixEntry switchingMatrixEntryAux = this.findEntry(incomingPortID, labelOrFEC, entryType);
+        this.monitor.unlock();
+        if (switchingMatrixEntryAux != null) {
+            return switchingMatrixEntryAux.getLabelStackOperation();
         }
-        this.monitor.unLock();
         return TSwitchingMatrixEntry.UNDEFINED;
     }
 
@@ -301,20 +343,11 @@ public class TSwitchingMatrix {
      */
     public int getOutgoingLabel(int incomingPortID, int labelOrFEC, int entryType) {
         this.monitor.lock();
-        Iterator iterator = this.switchingMatrix.iterator();
-        TSwitchingMatrixEntry switchingMatrixEntryAux;
-        while (iterator.hasNext()) {
-            switchingMatrixEntryAux = (TSwitchingMatrixEntry) iterator.next();
-            if (switchingMatrixEntryAux.getLabelOrFEC() == labelOrFEC) {
-                if (switchingMatrixEntryAux.getIncomingPortID() == incomingPortID) {
-                    if (switchingMatrixEntryAux.getEntryType() == entryType) {
-                        this.monitor.unLock();
-                        return switchingMatrixEntryAux.getOutgoingLabel();
-                    }
-                }
-            }
+        TSwitchingMatrixEntry switchingMatrixEntryAux = this.findEntry(incomingPortID, labelOrFEC, entryType);
+        this.monitor.unlock();
+        if (switchingMatrixEntryAux != null) {
+            return switchingMatrixEntryAux.getOutgoingLabel();
         }
-        this.monitor.unLock();
         return TSwitchingMatrixEntry.UNDEFINED;
     }
 
@@ -337,20 +370,11 @@ public class TSwitchingMatrix {
      */
     public int getOutgoingPortID(int incomingPortID, int labelOrFEC, int entryType) {
         this.monitor.lock();
-        Iterator iterator = this.switchingMatrix.iterator();
-        TSwitchingMatrixEntry switchingMatrixEntryAux = null;
-        while (iterator.hasNext()) {
-            switchingMatrixEntryAux = (TSwitchingMatrixEntry) iterator.next();
-            if (switchingMatrixEntryAux.getLabelOrFEC() == labelOrFEC) {
-                if (switchingMatrixEntryAux.getIncomingPortID() == incomingPortID) {
-                    if (switchingMatrixEntryAux.getEntryType() == entryType) {
-                        this.monitor.unLock();
-                        return switchingMatrixEntryAux.getOutgoingPortID();
-                    }
-                }
-            }
+        TSwitchingMatrixEntry switchingMatrixEntryAux = this.findEntry(incomingPortID, labelOrFEC, entryType);
+        this.monitor.unlock();
+        if (switchingMatrixEntryAux != null) {
+            return switchingMatrixEntryAux.getOutgoingPortID();
         }
-        this.monitor.unLock();
         return TSwitchingMatrixEntry.UNDEFINED;
     }
 
@@ -366,19 +390,11 @@ public class TSwitchingMatrix {
      */
     public boolean labelIsAlreadyUsed(int label) {
         this.monitor.lock();
-        Iterator iterator = this.switchingMatrix.iterator();
-        TSwitchingMatrixEntry switchingMatrixEntryAux;
-        while (iterator.hasNext()) {
-            switchingMatrixEntryAux = (TSwitchingMatrixEntry) iterator.next();
-            if (switchingMatrixEntryAux.getLabelOrFEC() == label) {
-                if (switchingMatrixEntryAux.getEntryType() == TSwitchingMatrixEntry.LABEL_ENTRY) {
-                    this.monitor.unLock();
-                    return true;
-                }
-            }
-        }
-        this.monitor.unLock();
-        return false;
+        this.indexMonitor.lock();
+        boolean labelIsUsed = this.labelSpace.isUsed(label);
+        this.indexMonitor.unlock();
+        this.monitor.unlock();
+        return labelIsUsed;
     }
 
     /**
@@ -393,15 +409,35 @@ public class TSwitchingMatrix {
      * @since 2.0
      */
     public int getNewLabel() {
-        int labelAux = TSwitchingMatrixEntry.FIRST_UNRESERVED_LABEL;
-        while (labelAux <= TSwitchingMatrixEntry.LABEL_SPACE) {
-            if (!labelIsAlreadyUsed(labelAux)) {
-                return labelAux;
-            } else {
-                labelAux++;
-            }
+        this.indexMonitor.lock();
+        int label = this.labelSpace.getLowestFreeLabel();
+        this.indexMonitor.unlock();
+        return label;
+    }
+
+    /**
+     * This method generates and returns a new 20-bits label to be used by a
+     * switching entry whose incoming port is the specified one. If the
+     * switching matrix uses a single label space, this is the same as
+     * getNewLabel().
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param incomingPortID The incoming port of the switching entry the
+     * label is for.
+     * @return a new 20-bits label that is not used by any other switching
+     * entry in the label space of the incoming port, if possible. If the label
+     * space is completely used and is not possible to return a new label, this
+     * returns TSwitchingMatrixEntry.LABEL_UNAVAILABLE.
+     * @since 2.0
+     */
+    public int getNewLabel(int incomingPortID) {
+        if (!this.perPortLabelSpace) {
+            return this.getNewLabel();
         }
-        return TSwitchingMatrixEntry.LABEL_UNAVAILABLE;
+        this.indexMonitor.lock();
+        int label = this.getPortLabelSpace(incomingPortID).getLowestFreeLabel();
+        this.indexMonitor.unlock();
+        return label;
     }
 
     /**
@@ -413,7 +449,31 @@ public class TSwitchingMatrix {
      * @since 2.0
      */
     public Iterator getEntriesIterator() {
-        return this.switchingMatrix.iterator();
+        final Iterator<TSwitchingMatrixEntry> iterator = this.switchingMatrix.iterator();
+        // Entries removed through the iterator have to be removed from the
+        // indexes too. The caller already holds the monitor of the switching
+        // matrix, so it is not locked again here.
+        return new Iterator<TSwitchingMatrixEntry>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public TSwitchingMatrixEntry next() {
+                this.currentEntry = iterator.next();
+                return this.currentEntry;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                TSwitchingMatrix.this.removeFromIndexes(this.currentEntry);
+                this.currentEntry.setSwitchingMatrix(null, 0);
+            }
+
+            private TSwitchingMatrixEntry currentEntry = null;
+        };
     }
 
     /**
@@ -429,6 +489,36 @@ public class TSwitchingMatrix {
         return this.switchingMatrix.size();
     }
 
+    /**
+     * This method checks whether any switching entry in the switching matrix
+     * is still waiting for a TLDP response, that is, whether it has requested
+     * a label or is removing one, for the active or the backup LSP.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return TRUE, if any switching entry is waiting for a TLDP response.
+     * Otherwise, returns FALSE.
+     * @since 2.0
+     */
+    public boolean isWaitingForTLDPResponses() {
+        this.monitor.lock();
+        Iterator<TSwitchingMatrixEntry> iterator = this.switchingMatrix.iterator();
+        TSwitchingMatrixEntry switchingMatrixEntryAux;
+        while (iterator.hasNext()) {
+            switchingMatrixEntryAux = iterator.next();
+            if (switchingMatrixEntryAux != null) {
+                if ((switchingMatrixEntryAux.getOutgoingLabel() == TSwitchingMatrixEntry.LABEL_REQUESTED)
+                        || (switchingMatrixEntryAux.getOutgoingLabel() == TSwitchingMatrixEntry.REMOVING_LABEL)
+                        || (switchingMatrixEntryAux.getBackupOutgoingLabel() == TSwitchingMatrixEntry.LABEL_REQUESTED)
+                        || (switchingMatrixEntryAux.getBackupOutgoingLabel() == TSwitchingMatrixEntry.REMOVING_LABEL)) {
+                    this.monitor.unlock();
+                    return true;
+                }
+            }
+        }
+        this.monitor.unlock();
+        return false;
+    }
+
     /**
      * This method clear all switching entries in stored in the switching
      * matrix, as when created by the constructor.
@@ -440,12 +530,233 @@ public class TSwitchingMatrix {
         this.monitor.lock();
         Iterator it = this.switchingMatrix.iterator();
         while (it.hasNext()) {
-            it.next();
+            ((TSwitchingMatrixEntry) it.next()).setSwitchingMatrix(null, 0);
             it.remove();
         }
-        this.monitor.unLock();
+        this.indexMonitor.lock();
+        this.entriesByKey.clear();
+        this.entriesByLocalTLDPSessionID.clear();
+        this.entriesByUpstreamTLDPSessionID.clear();
+        this.labelSpace.reset();
+        this.perPortLabelSpaces.clear();
+        this.indexMonitor.unlock();
+        this.nextInsertionOrder = 0;
+        this.monitor.unlock();
+    }
+
+    /**
+     * This method adds a switching entry to the indexes of the switching
+     * matrix. It is called when the entry is added and, by the entry itself,
+     * after any of the fields used as keys changes.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param switchingMatrixEntry The switching entry to be indexed.
+     * @since 2.0
+     */
+    void addToIndexes(TSwitchingMatrixEntry switchingMatrixEntry) {
+        this.indexMonitor.lock();
+        this.addToIndex(this.entriesByKey, this.getKey(switchingMatrixEntry.getIncomingPortID(), switchingMatrixEntry.getLabelOrFEC(), switchingMatrixEntry.getEntryType()), switchingMatrixEntry);
+        this.addToIndex(this.entriesByLocalTLDPSessionID, Integer.valueOf(switchingMatrixEntry.getLocalTLDPSessionID()), switchingMatrixEntry);
+        this.addToIndex(this.entriesByUpstreamTLDPSessionID, Long.valueOf(this.getUpstreamTLDPSessionKey(switchingMatrixEntry.getUpstreamTLDPSessionID(), switchingMatrixEntry.getIncomingPortID())), switchingMatrixEntry);
+        if (switchingMatrixEntry.getEntryType() == TSwitchingMatrixEntry.LABEL_ENTRY) {
+            this.labelSpace.markAsUsed(switchingMatrixEntry.getLabelOrFEC());
+            if (this.perPortLabelSpace) {
+                this.getPortLabelSpace(switchingMatrixEntry.getIncomingPortID()).markAsUsed(switchingMatrixEntry.getLabelOrFEC());
+            }
+        }
+        this.indexMonitor.unlock();
+    }
+
+    /**
+     * This method removes a switching entry from the indexes of the switching
+     * matrix. It is called when the entry is removed and, by the entry itself,
+     * before any of the fields used as keys changes.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param switchingMatrixEntry The switching entry to be removed from the
+     * indexes.
+     * @since 2.0
+     */
+    void removeFromIndexes(TSwitchingMatrixEntry switchingMatrixEntry) {
+        this.indexMonitor.lock();
+        this.removeFromIndex(this.entriesByKey, this.getKey(switchingMatrixEntry.getIncomingPortID(), switchingMatrixEntry.getLabelOrFEC(), switchingMatrixEntry.getEntryType()), switchingMatrixEntry);
+        this.removeFromIndex(this.entriesByLocalTLDPSessionID, Integer.valueOf(switchingMatrixEntry.getLocalTLDPSessionID()), switchingMatrixEntry);
+        this.removeFromIndex(this.entriesByUpstreamTLDPSessionID, Long.valueOf(this.getUpstreamTLDPSessionKey(switchingMatrixEntry.getUpstreamTLDPSessionID(), switchingMatrixEntry.getIncomingPortID())), switchingMatrixEntry);
+        if (switchingMatrixEntry.getEntryType() == TSwitchingMatrixEntry.LABEL_ENTRY) {
+            this.labelSpace.release(switchingMatrixEntry.getLabelOrFEC());
+            if (this.perPortLabelSpace) {
+                this.getPortLabelSpace(switchingMatrixEntry.getIncomingPortID()).release(switchingMatrixEntry.getLabelOrFEC());
+            }
+        }
+        this.indexMonitor.unlock();
+    }
+
+    /**
+     * This method returns the label space of the specified incoming port,
+     * creating it if needed.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param incomingPortID The incoming port.
+     * @return The label space of the incoming port.
+     * @since 2.0
+     */
+    private TLabelSpace getPortLabelSpace(int incomingPortID) {
+        Integer incomingPortIDAux = Integer.valueOf(incomingPortID);
+        TLabelSpace portLabelSpace = this.perPortLabelSpaces.get(incomingPortIDAux);
+        if (portLabelSpace == null) {
+            portLabelSpace = new TLabelSpace();
+            this.perPortLabelSpaces.put(incomingPortIDAux, portLabelSpace);
+        }
+        return portLabelSpace;
+    }
+
+    /**
+     * This method looks up, using the primary index, the first switching
+     * entry added to the switching matrix that matches the values specified
+     * as arguments.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param incomingPortID The incoming port of field of the wanted switching
+     * entry.
+     * @param labelOrFEC The labelOrFEC field of the wanted switching entry.
+     * @param entryType The entry type (ILM or FTN) field of the wanted
+     * switching entry.
+     * @return The switching entry corresponding to the values specified as
+     * arguments (if exist) or NULL on the contrary.
+     * @since 2.0
+     */
+    private TSwitchingMatrixEntry findEntry(int incomingPortID, int labelOrFEC, int entryType) {
+        TSwitchingMatrixEntry switchingMatrixEntryAux = null;
+        this.indexMonitor.lock();
+        LinkedList<TSwitchingMatrixEntry> entries = this.entriesByKey.get(this.getKey(incomingPortID, labelOrFEC, entryType));
+        if (entries != null) {
+            Iterator<TSwitchingMatrixEntry> iterator = entries.iterator();
+            while ((switchingMatrixEntryAux == null) && iterator.hasNext()) {
+                switchingMatrixEntryAux = iterator.next();
+                if (!this.matches(switchingMatrixEntryAux, incomingPortID, labelOrFEC, entryType)) {
+                    switchingMatrixEntryAux = null;
+                }
+            }
+        }
+        this.indexMonitor.unlock();
+        return switchingMatrixEntryAux;
+    }
+
+    /**
+     * This method removes a switching entry from the switching matrix and
+     * from its indexes.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param switchingMatrixEntry The switching entry to be removed.
+     * @since 2.0
+     */
+    private void detachEntry(TSwitchingMatrixEntry switchingMatrixEntry) {
+        this.switchingMatrix.remove(switchingMatrixEntry);
+        this.removeFromIndexes(switchingMatrixEntry);
+        switchingMatrixEntry.setSwitchingMatrix(null, 0);
+    }
+
+    /**
+     * This method adds a switching entry to the bucket of an index that
+     * corresponds to the specified key. Entries sharing a key are kept in the
+     * order they were added to the switching matrix, so that lookups return
+     * the same entry a sequential search would.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param index The index.
+     * @param key The key of the switching entry in that index.
+     * @param switchingMatrixEntry The switching entry.
+     * @since 2.0
+     */
+    private <K> void addToIndex(HashMap<K, LinkedList<TSwitchingMatrixEntry>> index, K key, TSwitchingMatrixEntry switchingMatrixEntry) {
+        LinkedList<TSwitchingMatrixEntry> entries = index.get(key);
+        if (entries == null) {
+            entries = new LinkedList<TSwitchingMatrixEntry>();
+            index.put(key, entries);
+        }
+        int position = entries.size();
+        while ((position > 0) && (entries.get(position - 1).getInsertionOrder() > switchingMatrixEntry.getInsertionOrder())) {
+            position--;
+        }
+        entries.add(position, switchingMatrixEntry);
+    }
+
+    /**
+     * This method removes a switching entry from the bucket of an index that
+     * corresponds to the specified key.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param index The index.
+     * @param key The key of the switching entry in that index.
+     * @param switchingMatrixEntry The switching entry.
+     * @since 2.0
+     */
+    private <K> void removeFromIndex(HashMap<K, LinkedList<TSwitchingMatrixEntry>> index, K key, TSwitchingMatrixEntry switchingMatrixEntry) {
+        LinkedList<TSwitchingMatrixEntry> entries = index.get(key);
+        if (entries != null) {
+            entries.remove(switchingMatrixEntry);
+            if (entries.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * This method builds the key of the primary index. Ports and entry types
+     * are small values, so the key is unique in practice; anyway, entries
+     * found through the key are checked field by field.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param incomingPortID The incoming port.
+     * @param labelOrFEC The label or FEC.
+     * @param entryType The entry type (ILM or FTN).
+     * @return The key of the primary index.
+     * @since 2.0
+     */
+    private Long getKey(int incomingPortID, int labelOrFEC, int entryType) {
+        return Long.valueOf((((long) labelOrFEC) << 32) | ((incomingPortID & 0xFFFFL) << 16) | (entryType & 0xFFFFL));
+    }
+
+    /**
+     * This method checks whether a switching entry matches the values
+     * specified as arguments.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param switchingMatrixEntry The switching entry.
+     * @param incomingPortID The incoming port.
+     * @param labelOrFEC The label or FEC.
+     * @param entryType The entry type (ILM or FTN).
+     * @return TRUE, if the switching entry matches all the values. Otherwise,
+     * returns FALSE.
+     * @since 2.0
+     */
+    private boolean matches(TSwitchingMatrixEntry switchingMatrixEntry, int incomingPortID, int labelOrFEC, int entryType) {
+        return ((switchingMatrixEntry.getLabelOrFEC() == labelOrFEC) && (switchingMatrixEntry.getIncomingPortID() == incomingPortID) && (switchingMatrixEntry.getEntryType() == entryType));
+    }
+
+    /**
+     * This method builds the key of the index by upstream TLDP session ID and
+     * incoming port.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param upstreamTLDPSessionID The upstream TLDP session ID.
+     * @param incomingPortID The incoming port.
+     * @return The key of the index.
+     * @since 2.0
+     */
+    private long getUpstreamTLDPSessionKey(int upstreamTLDPSessionID, int incomingPortID) {
+        return (((long) upstreamTLDPSessionID) << 32) | (incomingPortID & 0xFFFFFFFFL);
     }
 
-    private LinkedList switchingMatrix;
-    private TMonitor monitor;
+    private static final long serialVersionUID = 1L;
+    private LinkedHashSet<TSwitchingMatrixEntry> switchingMatrix;
+    private TLock monitor;
+    private TLock indexMonitor;
+    private HashMap<Long, LinkedList<TSwitchingMatrixEntry>> entriesByKey;
+    private HashMap<Integer, LinkedList<TSwitchingMatrixEntry>> entriesByLocalTLDPSessionID;
+    private HashMap<Long, LinkedList<TSwitchingMatrixEntry>> entriesByUpstreamTLDPSessionID;
+    private long nextInsertionOrder;
+    private TLabelSpace labelSpace;
+    private HashMap<Integer, TLabelSpace> perPortLabelSpaces;
+    private boolean perPortLabelSpace;
 }
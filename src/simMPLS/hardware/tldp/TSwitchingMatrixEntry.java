@@ -15,6 +15,7 @@
  */
 package simMPLS.hardware.tldp;
 
+import java.io.Serializable;
 /**
  * This class implements a switching matrix entry needed to manage traffic
  * forwarding.
@@ -22,7 +23,7 @@ package simMPLS.hardware.tldp;
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public class TSwitchingMatrixEntry {
+public class TSwitchingMatrixEntry implements Serializable {
 
     /**
      * This is the constructor of the class. It creates a newe instance of
@@ -46,6 +47,37 @@ public class TSwitchingMatrixEntry {
         this.timeout = TSwitchingMatrixEntry.TIMEOUT;
         this.labelRequestAttempts = TSwitchingMatrixEntry.LABEL_REQUEST_ATTEMPTS;
         this.isRequestForBackupLSP = false;
+        this.switchingMatrix = null;
+        this.insertionOrder = 0;
+    }
+
+    /**
+     * This method sets the switching matrix this entry has been added to, so
+     * that the entry can keep the indexes of that switching matrix up to date
+     * when any of the fields used as keys changes.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param switchingMatrix The switching matrix this entry belongs to, or
+     * NULL if it has been removed from it.
+     * @param insertionOrder The position of this entry in the order the
+     * entries were added to the switching matrix.
+     * @since 2.0
+     */
+    void setSwitchingMatrix(TSwitchingMatrix switchingMatrix, long insertionOrder) {
+        this.switchingMatrix = switchingMatrix;
+        this.insertionOrder = insertionOrder;
+    }
+
+    /**
+     * This method gets the position of this entry in the order the entries
+     * were added to its switching matrix.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The insertion order of this entry.
+     * @since 2.0
+     */
+    long getInsertionOrder() {
+        return this.insertionOrder;
     }
 
     /**
@@ -255,7 +287,14 @@ public class TSwitchingMatrixEntry {
      * @since 2.0
      */
     public void setIncomingPortID(int incomingPortID) {
+        TSwitchingMatrix owner = this.switchingMatrix;
+        if (owner != null) {
+            owner.removeFromIndexes(this);
+        }
         this.incomingPortID = incomingPortID;
+        if (owner != null) {
+            owner.addToIndexes(this);
+        }
     }
 
     /**
@@ -277,7 +316,14 @@ public class TSwitchingMatrixEntry {
      * @since 2.0
      */
     public void setLabelOrFEC(int labelOrFEC) {
+        TSwitchingMatrix owner = this.switchingMatrix;
+        if (owner != null) {
+            owner.removeFromIndexes(this);
+        }
         this.labelOrFEC = labelOrFEC;
+        if (owner != null) {
+            owner.addToIndexes(this);
+        }
     }
 
     /**
@@ -432,7 +478,14 @@ public class TSwitchingMatrixEntry {
      * @since 2.0
      */
     public void setEntryType(int entryType) {
+        TSwitchingMatrix owner = this.switchingMatrix;
+        if (owner != null) {
+            owner.removeFromIndexes(this);
+        }
         this.entryType = entryType;
+        if (owner != null) {
+            owner.addToIndexes(this);
+        }
     }
 
     /**
@@ -482,7 +535,14 @@ public class TSwitchingMatrixEntry {
      * @since 2.0
      */
     public void setLocalTLDPSessionID(int localTLDPSessionID) {
+        TSwitchingMatrix owner = this.switchingMatrix;
+        if (owner != null) {
+            owner.removeFromIndexes(this);
+        }
         this.localTLDPSessionID = localTLDPSessionID;
+        if (owner != null) {
+            owner.addToIndexes(this);
+        }
     }
 
     /**
@@ -507,7 +567,14 @@ public class TSwitchingMatrixEntry {
      * @since 2.0
      */
     public void setUpstreamTLDPSessionID(int upstreamTLDPSessionID) {
+        TSwitchingMatrix owner = this.switchingMatrix;
+        if (owner != null) {
+            owner.removeFromIndexes(this);
+        }
         this.upstreamTLDPSessionID = upstreamTLDPSessionID;
+        if (owner != null) {
+            owner.addToIndexes(this);
+        }
     }
 
     /**
@@ -559,6 +626,7 @@ public class TSwitchingMatrixEntry {
         return true;
     }
 
+    private static final long serialVersionUID = 1L;
     // Entry types
     public static final int FEC_ENTRY = 0;
     public static final int LABEL_ENTRY = 1;
@@ -600,4 +668,6 @@ public class TSwitchingMatrixEntry {
     private boolean isRequestForBackupLSP;
     private int timeout;
     private int labelRequestAttempts;
+    private TSwitchingMatrix switchingMatrix;
+    private long insertionOrder;
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.io.checkpoint;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.ObjectInputStream;
+import java.util.zip.GZIPInputStream;
+import simMPLS.hardware.simulationcollector.TSimulationEventCounter;
+import simMPLS.scenario.TScenario;
+
+/**
+ * This class implements a loader that reads a checkpoint file written by
+ * TCheckpointSaver and rebuilds the paused scenario. Each load creates a new
+ * scenario, so the same checkpoint can be loaded several times to run
+ * different what-if variants from the same instant.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TCheckpointLoader {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TCheckpointLoader.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public TCheckpointLoader() {
+        this.scenario = null;
+        this.eventCounter = null;
+        this.instant = 0;
+    }
+
+    /**
+     * This method reads the specified checkpoint file.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param inputFile The checkpoint file.
+     * @return TRUE, if the checkpoint has been loaded. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public boolean load(File inputFile) {
+        this.scenario = null;
+        this.eventCounter = null;
+        this.instant = 0;
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(inputFile), TCheckpointLoader.BUFFER_SIZE));
+            if (input.readInt() != TCheckpointSaver.MAGIC_NUMBER) {
+                input.close();
+                return false;
+            }
+            if (input.readInt() != TCheckpointSaver.FORMAT_VERSION) {
+                input.close();
+                return false;
+            }
+            this.instant = input.readLong();
+            int highestSubtype = input.readInt();
+            if (highestSubtype >= 0) {
+                this.eventCounter = new TSimulationEventCounter();
+                long numberOfEvents = 0;
+                int i;
+                for (i = 0; i <= highestSubtype; i++) {
+                    long numberOfEventsOfSubtype = input.readLong();
+                    this.eventCounter.addEvents(i, numberOfEventsOfSubtype);
+                    numberOfEvents += numberOfEventsOfSubtype;
+                }
+                this.eventCounter.addEvents(-1, input.readLong() - numberOfEvents);
+            }
+            ObjectInputStream objectInput = new ObjectInputStream(new GZIPInputStream(input, TCheckpointLoader.BUFFER_SIZE));
+            this.scenario = (TScenario) objectInput.readObject();
+            objectInput.close();
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (Exception e2) {
+                    e2.printStackTrace();
+                }
+            }
+        }
+        this.scenario = null;
+        this.eventCounter = null;
+        return false;
+    }
+
+    /**
+     * This method returns the scenario of the last checkpoint loaded, paused
+     * at the instant of the checkpoint.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The scenario, or NULL if no checkpoint has been loaded.
+     * @since 2.0
+     */
+    public TScenario getScenario() {
+        return this.scenario;
+    }
+
+    /**
+     * This method returns the simulation events counted until the instant of
+     * the last checkpoint loaded.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The event counter, or NULL if the checkpoint has no counts.
+     * @since 2.0
+     */
+    public TSimulationEventCounter getEventCounter() {
+        return this.eventCounter;
+    }
+
+    /**
+     * This method returns the simulated instant of the last checkpoint
+     * loaded.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The instant, in nanoseconds.
+     * @since 2.0
+     */
+    public long getInstant() {
+        return this.instant;
+    }
+
+    private static final int BUFFER_SIZE = 65536;
+
+    private TScenario scenario;
+    private TSimulationEventCounter eventCounter;
+    private long instant;
+}
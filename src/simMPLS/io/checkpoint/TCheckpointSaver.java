@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.io.checkpoint;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.zip.GZIPOutputStream;
+import simMPLS.hardware.simulationcollector.TSimulationEventCounter;
+import simMPLS.scenario.TScenario;
+
+/**
+ * This class implements a saver that writes the whole state of a paused
+ * simulation to a checkpoint file: the topology with the buffers of ports
+ * and links, switching matrices, DMGP, GPSRP requests, statistics, ID
+ * generators and random streams of every element, and the timer. The file
+ * starts with a short uncompressed header followed by the serialized
+ * scenario, compressed with GZIP. TCheckpointLoader reads it back so that the
+ * simulation can go on from the same instant.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TCheckpointSaver {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TCheckpointSaver.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param scenario The scenario to be saved. Its timer must not be running.
+     * @since 2.0
+     */
+    public TCheckpointSaver(TScenario scenario) {
+        this.scenario = scenario;
+        this.eventCounter = null;
+    }
+
+    /**
+     * This method sets the simulation event counter whose counts are saved
+     * with the checkpoint, so that a resumed run reports the events of the
+     * whole simulation.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param eventCounter The event counter, or NULL to save no counts.
+     * @since 2.0
+     */
+    public void setEventCounter(TSimulationEventCounter eventCounter) {
+        this.eventCounter = eventCounter;
+    }
+
+    /**
+     * This method writes the checkpoint to the specified file.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param outputFile The checkpoint file.
+     * @return TRUE, if the checkpoint has been written. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public boolean save(File outputFile) {
+        if (this.scenario.getTopology().obtenerReloj().isRunning()) {
+            return false;
+        }
+        DataOutputStream output = null;
+        try {
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outputFile), TCheckpointSaver.BUFFER_SIZE));
+            output.writeInt(TCheckpointSaver.MAGIC_NUMBER);
+            output.writeInt(TCheckpointSaver.FORMAT_VERSION);
+            output.writeLong(this.scenario.getTopology().obtenerReloj().getCurrentInstant());
+            if (this.eventCounter == null) {
+                output.writeInt(-1);
+            } else {
+                output.writeInt(this.eventCounter.getHighestSubtype());
+                int i;
+                for (i = 0; i <= this.eventCounter.getHighestSubtype(); i++) {
+                    output.writeLong(this.eventCounter.getNumberOfEvents(i));
+                }
+                output.writeLong(this.eventCounter.getTotalNumberOfEvents());
+            }
+            output.flush();
+            GZIPOutputStream compressedOutput = new GZIPOutputStream(output, TCheckpointSaver.BUFFER_SIZE);
+            ObjectOutputStream objectOutput = new ObjectOutputStream(compressedOutput);
+            objectOutput.writeObject(this.scenario);
+            objectOutput.flush();
+            compressedOutput.finish();
+            output.close();
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (output != null) {
+                try {
+                    output.close();
+                } catch (Exception e2) {
+                    e2.printStackTrace();
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * First bytes of every checkpoint file ("OSMC").
+     */
+    public static final int MAGIC_NUMBER = 0x4F534D43;
+    /**
+     * Version of the format of the checkpoint files written by this class.
+     */
+    public static final int FORMAT_VERSION = 2;
+    /**
+     * Extension used for checkpoint files.
+     */
+    public static final String FILE_EXTENSION = ".osmc";
+    private static final int BUFFER_SIZE = 65536;
+
+    private TScenario scenario;
+    private TSimulationEventCounter eventCounter;
+}
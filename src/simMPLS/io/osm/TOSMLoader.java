@@ -24,6 +24,7 @@ import java.util.zip.CRC32;
 import simMPLS.scenario.TInternalLink;
 import simMPLS.scenario.TExternalLink;
 import simMPLS.scenario.TScenario;
+import simMPLS.scenario.TSimulation;
 import simMPLS.scenario.TLERNode;
 import simMPLS.scenario.TSenderNode;
 import simMPLS.scenario.TReceiverNode;
@@ -90,9 +91,7 @@ public class TOSMLoader {
                             } else if (position == TOSMLoader.TOPOLOGY) {
                                 loadTopology(stringAux);
                             } else if (position == TOSMLoader.SIMULATION) {
-                                if (stringAux.startsWith("@!Simulacion")) {
-                                    this.position = TOSMLoader.NONE;
-                                }
+                                loadSimulation(stringAux);
                             } else if (position == TOSMLoader.ANALISYS) {
                                 if (stringAux.startsWith("@!Analisis")) {
                                     this.position = TOSMLoader.NONE;
@@ -202,6 +201,16 @@ public class TOSMLoader {
         }
     }
 
+    private void loadSimulation(String simulationString) {
+        if (simulationString.startsWith("@!Simulacion")) {
+            this.position = TOSMLoader.NONE;
+        } else if (simulationString.startsWith("#Semilla#")) {
+            if (!this.scenario.getSimulation().unmarshallSeed(simulationString)) {
+                this.scenario.getSimulation().setSeed(TSimulation.SEMILLA_POR_DEFECTO);
+            }
+        }
+    }
+
     /**
      * This method gets the scenario that has been loaded from file.
      *
@@ -137,6 +137,19 @@ public class TOSMSaver {
             this.output.println();
             this.output.println("@!Topologia");
             this.scenarioCRC.update("@!Topologia".getBytes());
+            this.output.println();
+            this.output.println(java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("TAlmacenadorOSM.asteriscos"));
+            this.output.println(java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("TAlmacenadorOSM.DefinicionDeLaSimulacionDelEscenario"));
+            this.output.println(java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("TAlmacenadorOSM.asteriscos"));
+            this.output.println();
+            this.output.println("@?Simulacion");
+            this.output.println();
+            this.scenarioCRC.update("@?Simulacion".getBytes());
+            this.output.println(this.scenario.getSimulation().marshallSeed());
+            this.scenarioCRC.update(this.scenario.getSimulation().marshallSeed().getBytes());
+            this.output.println();
+            this.output.println("@!Simulacion");
+            this.scenarioCRC.update("@!Simulacion".getBytes());
             if (createCRC) {
                 String auxCRCHash = Long.toString(this.scenarioCRC.getValue());
                 this.output.println();
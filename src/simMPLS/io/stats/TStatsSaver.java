@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.io.stats;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import org.jfree.data.AbstractDataset;
+import org.jfree.data.CategoryDataset;
+import org.jfree.data.XYDataset;
+import simMPLS.scenario.TNode;
+import simMPLS.scenario.TStats;
+
+/**
+ * This class implements a saver that writes the statistics of a node to disk
+ * as CSV files, one for each dataset, so that they can be analyzed without
+ * the graphical user interface of the simulator. XY datasets are written as
+ * series,x,y rows and category datasets as row,column,value rows.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TStatsSaver {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TStatsSaver.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param outputDirectory The directory where the CSV files will be
+     * written. It is created if it does not exist.
+     * @since 2.0
+     */
+    public TStatsSaver(File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+        this.numberOfSavedFiles = 0;
+    }
+
+    /**
+     * This method writes every dataset of the statistics of the specified
+     * node to a CSV file named after the node identifier, the node name and
+     * the dataset number.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param node The node whose statistics are going to be saved.
+     * @return TRUE, if the statistics have been saved or the node has no
+     * statistics. FALSE, if an error happened.
+     * @since 2.0
+     */
+    public boolean save(TNode node) {
+        TStats stats = node.getStats();
+        if (stats == null) {
+            return true;
+        }
+        if (!this.outputDirectory.exists()) {
+            if (!this.outputDirectory.mkdirs()) {
+                return false;
+            }
+        }
+        int i;
+        for (i = 1; i <= stats.numberOfAvailableDatasets(); i++) {
+            String fileName = node.getID() + "_" + this.getSafeName(node.getName()) + "_dataset" + i + ".csv";
+            if (!this.save(this.getDataset(stats, i), this.getTitleOfDataset(stats, i), new File(this.outputDirectory, fileName))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This method returns how many CSV files this saver has written.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of CSV files written.
+     * @since 2.0
+     */
+    public int getNumberOfSavedFiles() {
+        return this.numberOfSavedFiles;
+    }
+
+    /**
+     * This method writes a dataset to the specified CSV file.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param dataset The dataset.
+     * @param title The title of the dataset, written as a comment in the first
+     * line.
+     * @param outputFile The CSV file.
+     * @return TRUE, if the dataset has been saved. Otherwise, returns FALSE.
+     * @since 2.0
+     */
+    private boolean save(AbstractDataset dataset, String title, File outputFile) {
+        if (dataset == null) {
+            return true;
+        }
+        PrintStream output = null;
+        try {
+            output = new PrintStream(new FileOutputStream(outputFile));
+            output.println("# " + title);
+            int i;
+            int j;
+            if (dataset instanceof XYDataset) {
+                XYDataset xyDataset = (XYDataset) dataset;
+                output.println("series,x,y");
+                for (i = 0; i < xyDataset.getSeriesCount(); i++) {
+                    for (j = 0; j < xyDataset.getItemCount(i); j++) {
+                        output.println(this.getCSVField(xyDataset.getSeriesName(i)) + "," + xyDataset.getXValue(i, j) + "," + xyDataset.getYValue(i, j));
+                    }
+                }
+            } else if (dataset instanceof CategoryDataset) {
+                CategoryDataset categoryDataset = (CategoryDataset) dataset;
+                output.println("row,column,value");
+                for (i = 0; i < categoryDataset.getRowCount(); i++) {
+                    for (j = 0; j < categoryDataset.getColumnCount(); j++) {
+                        output.println(this.getCSVField(String.valueOf(categoryDataset.getRowKey(i))) + "," + this.getCSVField(String.valueOf(categoryDataset.getColumnKey(j))) + "," + categoryDataset.getValue(i, j));
+                    }
+                }
+            }
+            output.close();
+            this.numberOfSavedFiles++;
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (output != null) {
+                output.close();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method returns the dataset of the statistics that corresponds to
+     * the specified number.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param stats The statistics.
+     * @param datasetNumber The number of the dataset, from 1 to 6.
+     * @return The dataset.
+     * @since 2.0
+     */
+    private AbstractDataset getDataset(TStats stats, int datasetNumber) {
+        switch (datasetNumber) {
+            case 1:
+                return stats.getDataset1();
+            case 2:
+                return stats.getDataset2();
+            case 3:
+                return stats.getDataset3();
+            case 4:
+                return stats.getDataset4();
+            case 5:
+                return stats.getDataset5();
+            case 6:
+                return stats.getDataset6();
+        }
+        return null;
+    }
+
+    /**
+     * This method returns the title of the dataset of the statistics that
+     * corresponds to the specified number.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param stats The statistics.
+     * @param datasetNumber The number of the dataset, from 1 to 6.
+     * @return The title of the dataset.
+     * @since 2.0
+     */
+    private String getTitleOfDataset(TStats stats, int datasetNumber) {
+        switch (datasetNumber) {
+            case 1:
+                return stats.getTitleOfDataset1();
+            case 2:
+                return stats.getTitleOfDataset2();
+            case 3:
+                return stats.getTitleOfDataset3();
+            case 4:
+                return stats.getTitleOfDataset4();
+            case 5:
+                return stats.getTitleOfDataset5();
+            case 6:
+                return stats.getTitleOfDataset6();
+        }
+        return "";
+    }
+
+    /**
+     * This method quotes a value so that it can be written as a CSV field.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param value The value.
+     * @return The value, quoted if needed.
+     * @since 2.0
+     */
+    private String getCSVField(String value) {
+        if ((value.indexOf(',') >= 0) || (value.indexOf('"') >= 0)) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    /**
+     * This method replaces any character that should not be part of a file
+     * name.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param name The name.
+     * @return The name, with only letters, digits, dashes and underscores.
+     * @since 2.0
+     */
+    private String getSafeName(String name) {
+        return name.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    private File outputDirectory;
+    private int numberOfSavedFiles;
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.io.trace;
+
+/**
+ * This class implements a time index of a binary simulation trace, so the
+ * first record of any instant can be found without reading the trace from
+ * the beginning. Records are written in the order they are captured, so the
+ * instants of a trace grow but may go back a little while several topology
+ * elements work on the same tick. The index keeps an entry every STRIDE
+ * records, at the first record of an instant greater than any seen before.
+ * The entries are sorted by instant, so a seek is a binary search followed
+ * by reading, at most, a few thousand records.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TTraceIndex {
+
+    /**
+     * This method is the constructor of the class. It creates a new empty
+     * index.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public TTraceIndex() {
+        this.instants = new long[TTraceIndex.INITIAL_CAPACITY];
+        this.records = new long[TTraceIndex.INITIAL_CAPACITY];
+        this.numberOfEntries = 0;
+        this.firstInstant = -1;
+        this.lastInstant = -1;
+    }
+
+    /**
+     * This method builds the index of a trace, reading it once from the
+     * beginning to the end.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param traceReader The reader of the trace. It must be open.
+     * @return TRUE, if the whole trace has been indexed. Otherwise, if a
+     * record cannot be read or the writer dropped some simulation event,
+     * returns FALSE.
+     * @since 2.0
+     */
+    public boolean build(TTraceReader traceReader) {
+        this.numberOfEntries = 0;
+        this.firstInstant = -1;
+        this.lastInstant = -1;
+        if (traceReader.getNumberOfDroppedEvents() > 0) {
+            return false;
+        }
+        TTraceRecord record = new TTraceRecord();
+        long lastIndexedRecord = -TTraceIndex.STRIDE;
+        long i;
+        for (i = 0; i < traceReader.getNumberOfRecords(); i++) {
+            if (!traceReader.read(i, record)) {
+                return false;
+            }
+            if (record.getInstant() > this.lastInstant) {
+                if ((i - lastIndexedRecord) >= TTraceIndex.STRIDE) {
+                    this.addEntry(record.getInstant(), i);
+                    lastIndexedRecord = i;
+                }
+                this.lastInstant = record.getInstant();
+            }
+            if ((this.firstInstant < 0) || (record.getInstant() < this.firstInstant)) {
+                this.firstInstant = record.getInstant();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This method returns the position of the first record whose instant is
+     * equal to or greater than the specified one.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param traceReader The reader of the indexed trace. It must be open.
+     * @param instant The instant, in nanoseconds.
+     * @return The position of the record, or the number of records of the
+     * trace if every record is older than the instant.
+     * @since 2.0
+     */
+    public long seek(TTraceReader traceReader, long instant) {
+        if (this.numberOfEntries == 0) {
+            return traceReader.getNumberOfRecords();
+        }
+        // Last entry whose instant is lower than the specified one.
+        int low = 0;
+        int high = this.numberOfEntries - 1;
+        int entry = -1;
+        int middle;
+        while (low <= high) {
+            middle = (low + high) >>> 1;
+            if (this.instants[middle] < instant) {
+                entry = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        if (entry < 0) {
+            return this.records[0];
+        }
+        TTraceRecord record = new TTraceRecord();
+        long maxInstant = -1;
+        long i;
+        for (i = this.records[entry]; i < traceReader.getNumberOfRecords(); i++) {
+            if (!traceReader.read(i, record)) {
+                break;
+            }
+            if (record.getInstant() > maxInstant) {
+                maxInstant = record.getInstant();
+                if (maxInstant >= instant) {
+                    return i;
+                }
+            }
+        }
+        return traceReader.getNumberOfRecords();
+    }
+
+    /**
+     * This method returns the lowest instant of the indexed trace.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The instant, in nanoseconds, or -1 if the trace is empty.
+     * @since 2.0
+     */
+    public long getFirstInstant() {
+        return this.firstInstant;
+    }
+
+    /**
+     * This method returns the highest instant of the indexed trace.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The instant, in nanoseconds, or -1 if the trace is empty.
+     * @since 2.0
+     */
+    public long getLastInstant() {
+        return this.lastInstant;
+    }
+
+    /**
+     * This method returns the number of entries of the index.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of entries.
+     * @since 2.0
+     */
+    public int getNumberOfEntries() {
+        return this.numberOfEntries;
+    }
+
+    /**
+     * This method adds an entry at the end of the index.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param instant The instant of the record.
+     * @param record The position of the record.
+     * @since 2.0
+     */
+    private void addEntry(long instant, long record) {
+        if (this.numberOfEntries == this.instants.length) {
+            long[] instantsAux = new long[this.instants.length * 2];
+            long[] recordsAux = new long[this.records.length * 2];
+            System.arraycopy(this.instants, 0, instantsAux, 0, this.numberOfEntries);
+            System.arraycopy(this.records, 0, recordsAux, 0, this.numberOfEntries);
+            this.instants = instantsAux;
+            this.records = recordsAux;
+        }
+        this.instants[this.numberOfEntries] = instant;
+        this.records[this.numberOfEntries] = record;
+        this.numberOfEntries++;
+    }
+
+    /**
+     * Minimum number of records between two entries of the index.
+     */
+    public static final int STRIDE = 1024;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] instants;
+    private long[] records;
+    private int numberOfEntries;
+    private long firstInstant;
+    private long lastInstant;
+}
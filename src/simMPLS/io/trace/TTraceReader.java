@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.io.trace;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class implements a reader of the binary simulation traces written by
+ * TTraceWriter. As every record has the same size, any record can be read
+ * directly by its position. Records are read from the file in blocks, so
+ * reading a trace from the beginning to the end, or around a given
+ * position, only needs a few large reads. The number of records is computed
+ * from the size of the file, so traces that were not closed properly can be
+ * read too.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TTraceReader {
+
+    /**
+     * This method is the constructor of the class. It creates a new trace
+     * reader. Nothing is read until open() is called.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param inputFile The trace file.
+     * @since 2.0
+     */
+    public TTraceReader(File inputFile) {
+        this.inputFile = inputFile;
+        this.channel = null;
+        this.block = ByteBuffer.allocateDirect(TTraceReader.RECORDS_PER_BLOCK * TTraceRecord.RECORD_SIZE);
+        this.firstRecordOfBlock = -1;
+        this.numberOfRecordsOfBlock = 0;
+        this.numberOfRecords = 0;
+        this.numberOfDroppedEvents = 0;
+        this.errorMessage = null;
+    }
+
+    /**
+     * This method opens the trace file and checks its header.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return TRUE, if the file is a trace this class can read. Otherwise,
+     * returns FALSE and getErrorMessage() tells why.
+     * @since 2.0
+     */
+    public boolean open() {
+        try {
+            this.channel = FileChannel.open(this.inputFile.toPath(), StandardOpenOption.READ);
+            ByteBuffer header = ByteBuffer.allocate(TTraceWriter.HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (this.channel.read(header, header.position()) < 0) {
+                    this.errorMessage = this.inputFile.getPath() + " is too short to be a trace";
+                    this.close();
+                    return false;
+                }
+            }
+            header.flip();
+            if (header.getInt() != TTraceWriter.MAGIC_NUMBER) {
+                this.errorMessage = this.inputFile.getPath() + " is not a trace";
+                this.close();
+                return false;
+            }
+            int formatVersion = header.getInt();
+            int recordSize = header.getInt();
+            if ((formatVersion != TTraceWriter.FORMAT_VERSION) || (recordSize != TTraceRecord.RECORD_SIZE)) {
+                this.errorMessage = this.inputFile.getPath() + " has an unsupported trace format version " + formatVersion;
+                this.close();
+                return false;
+            }
+            header.getInt();
+            header.getLong();
+            this.numberOfDroppedEvents = header.getLong();
+            this.numberOfRecords = (this.channel.size() - TTraceWriter.HEADER_SIZE) / TTraceRecord.RECORD_SIZE;
+            this.firstRecordOfBlock = -1;
+            this.numberOfRecordsOfBlock = 0;
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace();
+            this.errorMessage = "Unable to read " + this.inputFile.getPath() + ": " + e.toString();
+            this.close();
+        }
+        return false;
+    }
+
+    /**
+     * This method reads a record of the trace.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param index The position of the record, from 0 to
+     * getNumberOfRecords() - 1.
+     * @param record The record where the data is read to.
+     * @return TRUE, if the record has been read. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public boolean read(long index, TTraceRecord record) {
+        if ((this.channel == null) || (index < 0) || (index >= this.numberOfRecords)) {
+            return false;
+        }
+        if ((index < this.firstRecordOfBlock) || (index >= (this.firstRecordOfBlock + this.numberOfRecordsOfBlock))) {
+            if (!this.readBlock(index)) {
+                return false;
+            }
+        }
+        this.block.position((int) ((index - this.firstRecordOfBlock) * TTraceRecord.RECORD_SIZE));
+        record.read(this.block);
+        return true;
+    }
+
+    /**
+     * This method returns the number of records of the trace.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of records.
+     * @since 2.0
+     */
+    public long getNumberOfRecords() {
+        return this.numberOfRecords;
+    }
+
+    /**
+     * This method returns the number of simulation events the writer dropped
+     * because it had failed or was being closed. If it is not 0, the trace is
+     * not complete.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of dropped simulation events.
+     * @since 2.0
+     */
+    public long getNumberOfDroppedEvents() {
+        return this.numberOfDroppedEvents;
+    }
+
+    /**
+     * This method returns the trace file.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The trace file.
+     * @since 2.0
+     */
+    public File getInputFile() {
+        return this.inputFile;
+    }
+
+    /**
+     * This method returns why the last operation failed.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The error message, or NULL if there has been no error.
+     * @since 2.0
+     */
+    public String getErrorMessage() {
+        return this.errorMessage;
+    }
+
+    /**
+     * This method closes the trace file.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void close() {
+        if (this.channel != null) {
+            try {
+                this.channel.close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        this.channel = null;
+        this.firstRecordOfBlock = -1;
+        this.numberOfRecordsOfBlock = 0;
+    }
+
+    /**
+     * This method reads from the file the block of records that starts at the
+     * specified record.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param firstRecord The position of the first record of the block.
+     * @return TRUE, if the block has been read. Otherwise, FALSE.
+     * @since 2.0
+     */
+    private boolean readBlock(long firstRecord) {
+        long numberOfRecordsAux = Math.min(TTraceReader.RECORDS_PER_BLOCK, this.numberOfRecords - firstRecord);
+        this.block.clear();
+        this.block.limit((int) (numberOfRecordsAux * TTraceRecord.RECORD_SIZE));
+        long position = TTraceWriter.HEADER_SIZE + (firstRecord * TTraceRecord.RECORD_SIZE);
+        int readOctets;
+        try {
+            while (this.block.hasRemaining()) {
+                readOctets = this.channel.read(this.block, position + this.block.position());
+                if (readOctets < 0) {
+                    this.firstRecordOfBlock = -1;
+                    this.numberOfRecordsOfBlock = 0;
+                    return false;
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            this.errorMessage = "Unable to read " + this.inputFile.getPath() + ": " + e.toString();
+            this.firstRecordOfBlock = -1;
+            this.numberOfRecordsOfBlock = 0;
+            return false;
+        }
+        this.firstRecordOfBlock = firstRecord;
+        this.numberOfRecordsOfBlock = (int) numberOfRecordsAux;
+        return true;
+    }
+
+    private static final int RECORDS_PER_BLOCK = 4096;
+
+    private File inputFile;
+    private FileChannel channel;
+    private ByteBuffer block;
+    private long firstRecordOfBlock;
+    private int numberOfRecordsOfBlock;
+    private long numberOfRecords;
+    private long numberOfDroppedEvents;
+    private String errorMessage;
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.io.trace;
+
+import java.nio.ByteBuffer;
+import simMPLS.scenario.TLink;
+import simMPLS.scenario.TNode;
+import simMPLS.scenario.TSEBrokenLink;
+import simMPLS.scenario.TSELSPEstablished;
+import simMPLS.scenario.TSELSPRemoved;
+import simMPLS.scenario.TSELabelAssigned;
+import simMPLS.scenario.TSELabelDenied;
+import simMPLS.scenario.TSELabelReceived;
+import simMPLS.scenario.TSELabelRemoved;
+import simMPLS.scenario.TSELabelRequested;
+import simMPLS.scenario.TSELinkRecovered;
+import simMPLS.scenario.TSENodeCongested;
+import simMPLS.scenario.TSEPacketDiscarded;
+import simMPLS.scenario.TSEPacketGenerated;
+import simMPLS.scenario.TSEPacketOnFly;
+import simMPLS.scenario.TSEPacketReceived;
+import simMPLS.scenario.TSEPacketRouted;
+import simMPLS.scenario.TSEPacketSent;
+import simMPLS.scenario.TSEPacketSwitched;
+import simMPLS.scenario.TSimulationEvent;
+import simMPLS.scenario.TTopology;
+import simMPLS.scenario.TTopologyElement;
+
+/**
+ * This class implements a record of a binary simulation trace. Every record
+ * takes RECORD_SIZE octets: the type and subtype of the simulation event, the
+ * kind and identifier of the topology element that generated it, its instant
+ * and identifier, and a payload of a packet type, a size and a value whose
+ * meaning depends on the subtype (a transit or congestion percentage). A
+ * record is mutable, so a single instance can be reused to write or read a
+ * whole trace without allocating memory.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TTraceRecord {
+
+    /**
+     * This method is the constructor of the class. It creates a new empty
+     * record.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public TTraceRecord() {
+        this.clear();
+    }
+
+    /**
+     * This method fills the record with the data of a simulation event.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param simulationEvent The simulation event.
+     * @since 2.0
+     */
+    public void fill(TSimulationEvent simulationEvent) {
+        this.clear();
+        this.type = simulationEvent.getType();
+        this.subtype = simulationEvent.getSubtype();
+        this.instant = simulationEvent.obtenerInstante();
+        this.eventID = simulationEvent.obtenerIdentificador();
+        TTopologyElement source = simulationEvent.obtenerFuente();
+        this.elementType = source.getElementType();
+        if (this.elementType == TTopologyElement.NODO) {
+            this.elementID = ((TNode) source).getID();
+        } else {
+            this.elementID = ((TLink) source).getID();
+        }
+        switch (this.subtype) {
+            case TSimulationEvent.PACKET_GENERATED: {
+                this.packetType = ((TSEPacketGenerated) simulationEvent).obtenerTipoPaquete();
+                this.size = ((TSEPacketGenerated) simulationEvent).obtenerTamanio();
+                break;
+            }
+            case TSimulationEvent.PACKET_RECEIVED: {
+                this.packetType = ((TSEPacketReceived) simulationEvent).obtenerTipoPaquete();
+                this.size = ((TSEPacketReceived) simulationEvent).obtenerTamanio();
+                break;
+            }
+            case TSimulationEvent.PACKET_SENT: {
+                this.packetType = ((TSEPacketSent) simulationEvent).obtenerTipoPaquete();
+                break;
+            }
+            case TSimulationEvent.PACKET_SWITCHED: {
+                this.packetType = ((TSEPacketSwitched) simulationEvent).obtenerTipoPaquete();
+                break;
+            }
+            case TSimulationEvent.PACKET_DISCARDED: {
+                this.packetType = ((TSEPacketDiscarded) simulationEvent).obtenerTipoPaquete();
+                break;
+            }
+            case TSimulationEvent.PACKET_ROUTED: {
+                this.packetType = ((TSEPacketRouted) simulationEvent).obtenerTipoPaquete();
+                break;
+            }
+            case TSimulationEvent.PACKET_ON_FLY: {
+                this.packetType = ((TSEPacketOnFly) simulationEvent).obtenerTipoPaquete();
+                this.value = ((TSEPacketOnFly) simulationEvent).obtenerPorcentajeTransito();
+                break;
+            }
+            case TSimulationEvent.NODE_CONGESTED: {
+                this.value = ((TSENodeCongested) simulationEvent).obtenerPorcentajeCongestion();
+                break;
+            }
+        }
+    }
+
+    /**
+     * This method creates again the simulation event this record was filled
+     * with. The topology element that generated it is looked up by its
+     * identifier in the specified topology, that has to be the one of the
+     * traced scenario.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param topology The topology of the traced scenario.
+     * @return The simulation event, or NULL if the topology element does not
+     * exist or the subtype is unknown.
+     * @since 2.0
+     */
+    public TSimulationEvent toSimulationEvent(TTopology topology) {
+        Object source;
+        if (this.elementType == TTopologyElement.NODO) {
+            source = topology.obtenerNodo(this.elementID);
+        } else {
+            source = topology.obtenerEnlace(this.elementID);
+        }
+        if (source == null) {
+            return null;
+        }
+        switch (this.subtype) {
+            case TSimulationEvent.PACKET_GENERATED:
+                return new TSEPacketGenerated(source, this.eventID, this.instant, this.packetType, this.size);
+            case TSimulationEvent.PACKET_SENT:
+                return new TSEPacketSent(source, this.eventID, this.instant, this.packetType);
+            case TSimulationEvent.PACKET_RECEIVED:
+                return new TSEPacketReceived(source, this.eventID, this.instant, this.packetType, this.size);
+            case TSimulationEvent.PACKET_SWITCHED:
+                return new TSEPacketSwitched(source, this.eventID, this.instant, this.packetType);
+            case TSimulationEvent.PACKET_DISCARDED:
+                return new TSEPacketDiscarded(source, this.eventID, this.instant, this.packetType);
+            case TSimulationEvent.PACKET_ON_FLY:
+                return new TSEPacketOnFly(source, this.eventID, this.instant, this.packetType, this.value);
+            case TSimulationEvent.PACKET_ROUTED:
+                return new TSEPacketRouted(source, this.eventID, this.instant, this.packetType);
+            case TSimulationEvent.LINK_BROKEN:
+                return new TSEBrokenLink(source, this.eventID, this.instant);
+            case TSimulationEvent.LINK_RECOVERED:
+                return new TSELinkRecovered(source, this.eventID, this.instant);
+            case TSimulationEvent.NODE_CONGESTED:
+                return new TSENodeCongested(source, this.eventID, this.instant, this.value);
+            case TSimulationEvent.LABEL_REQUESTED:
+                return new TSELabelRequested(source, this.eventID, this.instant);
+            case TSimulationEvent.LABEL_RECEIVED:
+                return new TSELabelReceived(source, this.eventID, this.instant);
+            case TSimulationEvent.LABEL_ASSIGNED:
+                return new TSELabelAssigned(source, this.eventID, this.instant);
+            case TSimulationEvent.LABEL_DENIED:
+                return new TSELabelDenied(source, this.eventID, this.instant);
+            case TSimulationEvent.LABEL_REMOVED:
+                return new TSELabelRemoved(source, this.eventID, this.instant);
+            case TSimulationEvent.LSP_ESTABLISHED:
+                return new TSELSPEstablished(source, this.eventID, this.instant);
+            case TSimulationEvent.LSP_REMOVED:
+                return new TSELSPRemoved(source, this.eventID, this.instant);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * This method writes the record at the current position of a buffer and
+     * advances the position RECORD_SIZE octets.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param buffer The buffer. It must have room for the record.
+     * @since 2.0
+     */
+    public void write(ByteBuffer buffer) {
+        buffer.put((byte) this.type);
+        buffer.put((byte) this.subtype);
+        buffer.put((byte) this.elementType);
+        buffer.put((byte) 0);
+        buffer.putInt(this.elementID);
+        buffer.putLong(this.instant);
+        buffer.putLong(this.eventID);
+        buffer.putInt(this.packetType);
+        buffer.putInt(this.size);
+        buffer.putLong(this.value);
+    }
+
+    /**
+     * This method reads the record from the current position of a buffer and
+     * advances the position RECORD_SIZE octets.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param buffer The buffer. It must hold a whole record.
+     * @since 2.0
+     */
+    public void read(ByteBuffer buffer) {
+        this.type = buffer.get();
+        this.subtype = buffer.get();
+        this.elementType = buffer.get();
+        buffer.get();
+        this.elementID = buffer.getInt();
+        this.instant = buffer.getLong();
+        this.eventID = buffer.getLong();
+        this.packetType = buffer.getInt();
+        this.size = buffer.getInt();
+        this.value = buffer.getLong();
+    }
+
+    /**
+     * This method returns the type of the simulation event.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The type, as defined in TOpenSimMPLSEvent.
+     * @since 2.0
+     */
+    public int getType() {
+        return this.type;
+    }
+
+    /**
+     * This method returns the subtype of the simulation event.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The subtype, as defined in TSimulationEvent.
+     * @since 2.0
+     */
+    public int getSubtype() {
+        return this.subtype;
+    }
+
+    /**
+     * This method returns the kind of topology element that generated the
+     * simulation event.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return TTopologyElement.NODO or TTopologyElement.LINK.
+     * @since 2.0
+     */
+    public int getElementType() {
+        return this.elementType;
+    }
+
+    /**
+     * This method returns the identifier of the topology element that
+     * generated the simulation event.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The identifier of the node or link.
+     * @since 2.0
+     */
+    public int getElementID() {
+        return this.elementID;
+    }
+
+    /**
+     * This method returns the instant of the simulation event.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The instant, in nanoseconds.
+     * @since 2.0
+     */
+    public long getInstant() {
+        return this.instant;
+    }
+
+    /**
+     * This method returns the identifier of the simulation event.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The identifier.
+     * @since 2.0
+     */
+    public long getEventID() {
+        return this.eventID;
+    }
+
+    /**
+     * This method sets every field of the record to zero.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    private void clear() {
+        this.type = 0;
+        this.subtype = 0;
+        this.elementType = 0;
+        this.elementID = 0;
+        this.instant = 0;
+        this.eventID = 0;
+        this.packetType = 0;
+        this.size = 0;
+        this.value = 0;
+    }
+
+    /**
+     * Number of octets of every record.
+     */
+    public static final int RECORD_SIZE = 40;
+
+    private int type;
+    private int subtype;
+    private int elementType;
+    private int elementID;
+    private long instant;
+    private long eventID;
+    private int packetType;
+    private int size;
+    private long value;
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.io.trace;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import simMPLS.scenario.TSimulationEvent;
+import simMPLS.scenario.TTopology;
+
+/**
+ * This class implements a converter from binary simulation traces to the
+ * text traces the simulation panel used to write: one line per simulation
+ * event with its instant followed by its description. The names of the
+ * topology elements are not stored in the binary trace, so the converter
+ * needs the topology of the traced scenario.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TTraceTextConverter {
+
+    /**
+     * This method is the constructor of the class. It creates a new converter
+     * for the traces of the specified topology.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param topology The topology of the traced scenario.
+     * @since 2.0
+     */
+    public TTraceTextConverter(TTopology topology) {
+        this.topology = topology;
+        this.numberOfLines = 0;
+        this.errorMessage = null;
+    }
+
+    /**
+     * This method writes the text form of a binary trace.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param traceFile The binary trace.
+     * @param textFile The text file. It is overwritten if it exists.
+     * @return TRUE, if the whole trace has been converted. Otherwise, returns
+     * FALSE and getErrorMessage() tells why. Traces with dropped simulation
+     * events are not converted.
+     * @since 2.0
+     */
+    public boolean convert(File traceFile, File textFile) {
+        this.numberOfLines = 0;
+        this.errorMessage = null;
+        TTraceReader traceReader = new TTraceReader(traceFile);
+        if (!traceReader.open()) {
+            this.errorMessage = traceReader.getErrorMessage();
+            return false;
+        }
+        if (traceReader.getNumberOfDroppedEvents() > 0) {
+            this.errorMessage = traceFile.getPath() + " is not complete: " + traceReader.getNumberOfDroppedEvents() + " simulation events were dropped";
+            traceReader.close();
+            return false;
+        }
+        PrintStream output = null;
+        try {
+            output = new PrintStream(new BufferedOutputStream(new FileOutputStream(textFile), TTraceTextConverter.BUFFER_SIZE), false);
+            TTraceRecord record = new TTraceRecord();
+            long i;
+            for (i = 0; i < traceReader.getNumberOfRecords(); i++) {
+                if (!traceReader.read(i, record)) {
+                    this.errorMessage = "Unable to read record " + i + " of " + traceFile.getPath();
+                    break;
+                }
+                output.println(this.toText(record));
+                this.numberOfLines++;
+            }
+            output.close();
+            if (output.checkError()) {
+                this.errorMessage = "Unable to write " + textFile.getPath();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            this.errorMessage = "Unable to write " + textFile.getPath() + ": " + e.toString();
+            if (output != null) {
+                output.close();
+            }
+        }
+        traceReader.close();
+        return (this.errorMessage == null);
+    }
+
+    /**
+     * This method returns the number of lines written by the last
+     * conversion.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of lines.
+     * @since 2.0
+     */
+    public long getNumberOfLines() {
+        return this.numberOfLines;
+    }
+
+    /**
+     * This method returns why the last conversion failed.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The error message, or NULL if there has been no error.
+     * @since 2.0
+     */
+    public String getErrorMessage() {
+        return this.errorMessage;
+    }
+
+    /**
+     * This method returns the line of the text trace for a record, as the
+     * simulation panel wrote it.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param record The record.
+     * @return The line.
+     * @since 2.0
+     */
+    private String toText(TTraceRecord record) {
+        TSimulationEvent simulationEvent = record.toSimulationEvent(this.topology);
+        if (simulationEvent == null) {
+            return record.getInstant() + ": [#" + record.getElementID() + "] subtype " + record.getSubtype();
+        }
+        return simulationEvent.obtenerInstante() + ": " + simulationEvent.toString();
+    }
+
+    private static final int BUFFER_SIZE = 65536;
+
+    private TTopology topology;
+    private long numberOfLines;
+    private String errorMessage;
+}
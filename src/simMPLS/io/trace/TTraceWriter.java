@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.io.trace;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import simMPLS.hardware.simulationcollector.ISimulationEventListener;
+import simMPLS.hardware.simulationcollector.TSimulationCollector;
+import simMPLS.hardware.simulationcollector.TSimulationEventSubscription;
+import simMPLS.scenario.TSimulationEvent;
+
+/**
+ * This class implements a writer of binary simulation traces. It subscribes
+ * to a simulation collector with the BLOCK policy of
+ * TSimulationEventSubscription: the threads of the simulation only put each
+ * simulation event in the ring of the subscription, and its thread hands
+ * them to this writer, that turns them into fixed-size TTraceRecord and
+ * writes them in large blocks through a FileChannel. Tracing does not slow
+ * down the simulation while the disk keeps up; otherwise the simulation waits
+ * for the writer, so no event is lost. Events are only dropped, and counted,
+ * if the writer has failed or is closed while the simulation is running, and
+ * then close() returns FALSE.
+ *
+ * The file starts with a header of HEADER_SIZE octets: the magic number, the
+ * format version, the record size, the number of records and the number of
+ * dropped events. The records follow, one after another, in the order they
+ * were captured. TTraceReader reads them back.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TTraceWriter implements ISimulationEventListener {
+
+    /**
+     * This method is the constructor of the class. It creates a new trace
+     * writer. Nothing is written until open() is called.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param outputFile The trace file. It is overwritten if it exists.
+     * @since 2.0
+     */
+    public TTraceWriter(File outputFile) {
+        this.outputFile = outputFile;
+        this.buffer = ByteBuffer.allocateDirect(TTraceWriter.RECORDS_PER_BLOCK * TTraceRecord.RECORD_SIZE);
+        this.record = new TTraceRecord();
+        this.channel = null;
+        this.simulationCollector = null;
+        this.subscription = null;
+        this.numberOfRecords = 0;
+        this.numberOfDroppedEvents = 0;
+        this.failed = false;
+    }
+
+    /**
+     * This method creates the trace file and subscribes the writer to the
+     * specified simulation collector. Only the subtypes the simulation panel
+     * displays are traced.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param simulationCollector The simulation collector whose simulation
+     * events will be written to the trace.
+     * @return TRUE, if the trace file has been created. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public boolean open(TSimulationCollector simulationCollector) {
+        try {
+            this.channel = FileChannel.open(this.outputFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            this.writeHeader();
+        } catch (Exception e) {
+            e.printStackTrace();
+            this.channel = null;
+            return false;
+        }
+        this.simulationCollector = simulationCollector;
+        this.subscription = this.simulationCollector.addSubscriber(this, TSimulationEventSubscription.BLOCK, TTraceWriter.RING_CAPACITY, TSimulationCollector.SIMULATION_PANEL_SUBTYPES);
+        return true;
+    }
+
+    /**
+     * This method turns a simulation event into a record and puts it in the
+     * buffer, writing the buffer to the file when it is full. It is only
+     * called by the thread of the subscription of the writer.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param simulationEvent The simulation event.
+     * @since 2.0
+     */
+    @Override
+    public void captureSimulationEvents(TSimulationEvent simulationEvent) {
+        if (this.failed) {
+            this.numberOfDroppedEvents++;
+            return;
+        }
+        this.record.fill(simulationEvent);
+        if (this.buffer.remaining() < TTraceRecord.RECORD_SIZE) {
+            this.writeBlock();
+        }
+        this.record.write(this.buffer);
+        this.numberOfRecords++;
+    }
+
+    /**
+     * This method waits until every simulation event captured so far has
+     * been written, unsubscribes the writer, completes the header of the
+     * trace and closes the file.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return TRUE, if the whole trace has been written. Otherwise, if the
+     * file could not be written or some simulation event was dropped,
+     * returns FALSE.
+     * @since 2.0
+     */
+    public boolean close() {
+        if (this.channel == null) {
+            return false;
+        }
+        this.subscription.flush();
+        this.simulationCollector.removeSubscriber(this.subscription);
+        this.numberOfDroppedEvents += this.subscription.getNumberOfDroppedEvents();
+        this.subscription = null;
+        this.simulationCollector = null;
+        this.writeBlock();
+        try {
+            this.writeHeader();
+            this.channel.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+            this.failed = true;
+        }
+        this.channel = null;
+        return (!this.failed) && (this.numberOfDroppedEvents == 0);
+    }
+
+    /**
+     * This method returns the trace file.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The trace file.
+     * @since 2.0
+     */
+    public File getOutputFile() {
+        return this.outputFile;
+    }
+
+    /**
+     * This method returns the number of records written so far.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of records.
+     * @since 2.0
+     */
+    public long getNumberOfRecords() {
+        return this.numberOfRecords;
+    }
+
+    /**
+     * This method returns the number of simulation events that have been
+     * dropped because the writer had failed or was closed while the
+     * simulation was running.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of dropped simulation events.
+     * @since 2.0
+     */
+    public long getNumberOfDroppedEvents() {
+        return this.numberOfDroppedEvents;
+    }
+
+    /**
+     * This method writes to the file the records waiting in the buffer.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    private void writeBlock() {
+        if (this.buffer.position() == 0) {
+            return;
+        }
+        this.buffer.flip();
+        try {
+            while (this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+        } catch (Exception e) {
+            if (!this.failed) {
+                e.printStackTrace();
+            }
+            this.failed = true;
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * This method writes the header at the beginning of the file and leaves
+     * the file position at its end.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @throws Exception If the header cannot be written.
+     * @since 2.0
+     */
+    private void writeHeader() throws Exception {
+        ByteBuffer header = ByteBuffer.allocate(TTraceWriter.HEADER_SIZE);
+        header.putInt(TTraceWriter.MAGIC_NUMBER);
+        header.putInt(TTraceWriter.FORMAT_VERSION);
+        header.putInt(TTraceRecord.RECORD_SIZE);
+        header.putInt(0);
+        header.putLong(this.numberOfRecords);
+        header.putLong(this.numberOfDroppedEvents);
+        header.flip();
+        long position = this.channel.position();
+        this.channel.position(0);
+        while (header.hasRemaining()) {
+            this.channel.write(header);
+        }
+        if (position > TTraceWriter.HEADER_SIZE) {
+            this.channel.position(position);
+        }
+    }
+
+    /**
+     * First bytes of every trace file ("OSMT").
+     */
+    public static final int MAGIC_NUMBER = 0x4F534D54;
+    /**
+     * Version of the format of the trace files written by this class.
+     */
+    public static final int FORMAT_VERSION = 1;
+    /**
+     * Number of octets of the header. The first record starts right after it.
+     */
+    public static final int HEADER_SIZE = 32;
+    /**
+     * Extension used for trace files.
+     */
+    public static final String FILE_EXTENSION = ".osmt";
+    private static final int RING_CAPACITY = 65536;
+    private static final int RECORDS_PER_BLOCK = 4096;
+
+    private File outputFile;
+    private ByteBuffer buffer;
+    private TTraceRecord record;
+    private FileChannel channel;
+    private TSimulationCollector simulationCollector;
+    private TSimulationEventSubscription subscription;
+    private volatile long numberOfRecords;
+    private volatile long numberOfDroppedEvents;
+    private volatile boolean failed;
+}
@@ -0,0 +1,786 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.main;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.Iterator;
+import simMPLS.hardware.simulationcollector.TSimulationEventCounter;
+import simMPLS.hardware.simulationcollector.TSimulationEventInterestRegistry;
+import simMPLS.hardware.timer.TConservativeParallelEngine;
+import simMPLS.hardware.timer.TTickProfiler;
+import simMPLS.hardware.timer.TTimer;
+import simMPLS.hardware.timer.TTimestamp;
+import simMPLS.hardware.tldp.TSwitchingMatrix;
+import simMPLS.io.checkpoint.TCheckpointLoader;
+import simMPLS.io.checkpoint.TCheckpointSaver;
+import simMPLS.io.osm.TOSMLoader;
+import simMPLS.io.stats.TStatsSaver;
+import simMPLS.io.trace.TTraceWriter;
+import simMPLS.scenario.TActiveLERNode;
+import simMPLS.scenario.TActiveLSRNode;
+import simMPLS.scenario.TLERNode;
+import simMPLS.scenario.TLSRNode;
+import simMPLS.scenario.TLink;
+import simMPLS.scenario.TNode;
+import simMPLS.scenario.TScenario;
+import simMPLS.scenario.TTopology;
+import simMPLS.utils.TLockProfiler;
+import simMPLS.utils.TLockSiteStats;
+
+/**
+ * This class implements a runner that simulates a scenario without the
+ * graphical user interface. The timer runs at full speed, because there is no
+ * simulation panel throttling it, and simulation events are only counted.
+ * When the simulation finishes, the statistics of every node are written as
+ * CSV files and a summary of the run is written to summary.txt in the output
+ * directory. A run can save a checkpoint on the way and a checkpoint can be
+ * resumed instead of starting from the beginning.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TBatchRunner {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TBatchRunner that will use the timer settings of the scenario.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param outputDirectory The directory where the results will be
+     * written.
+     * @since 2.0
+     */
+    public TBatchRunner(File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+        this.schedulingEngine = TBatchRunner.SCENARIO_DEFAULT;
+        this.executorType = TBatchRunner.SCENARIO_DEFAULT;
+        this.numberOfRegions = TBatchRunner.SCENARIO_DEFAULT;
+        this.duration = TBatchRunner.SCENARIO_DEFAULT;
+        this.step = TBatchRunner.SCENARIO_DEFAULT;
+        this.seedOverridden = false;
+        this.seed = 0;
+        this.generateAllStats = false;
+        this.perPortLabelSpace = false;
+        this.tickProfiling = false;
+        this.countEvents = true;
+        this.traceFile = null;
+        this.traceWriter = null;
+        this.checkpointInstant = 0;
+        this.checkpointFile = null;
+        this.checkpointSaveTime = 0;
+        this.resumedCheckpointFile = null;
+        this.resumedCheckpointInstant = 0;
+        this.checkpointLoadTime = 0;
+        this.eventCounter = new TSimulationEventCounter();
+        this.wallTime = 0;
+        this.numberOfTicks = 0;
+        this.numberOfStatsFiles = 0;
+        this.errorMessage = null;
+    }
+
+    /**
+     * This method sets the scheduling engine of the timer.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param schedulingEngine TTimer.TICK_DRIVEN_ENGINE,
+     * TTimer.EVENT_DRIVEN_ENGINE, TTimer.CONSERVATIVE_PARALLEL_ENGINE,
+     * TTimer.ADAPTIVE_STEP_ENGINE or SCENARIO_DEFAULT.
+     * @since 2.0
+     */
+    public void setSchedulingEngine(int schedulingEngine) {
+        this.schedulingEngine = schedulingEngine;
+    }
+
+    /**
+     * This method sets the maximum number of regions the topology is split
+     * into when the conservative parallel engine is used.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param numberOfRegions The maximum number of regions, or
+     * SCENARIO_DEFAULT to use one region per available processor.
+     * @since 2.0
+     */
+    public void setNumberOfRegions(int numberOfRegions) {
+        this.numberOfRegions = numberOfRegions;
+    }
+
+    /**
+     * This method sets the type of executor used to run the work of topology
+     * elements.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param executorType One of the types defined in TTimerEventExecutor, or
+     * SCENARIO_DEFAULT.
+     * @since 2.0
+     */
+    public void setTimerEventExecutor(int executorType) {
+        this.executorType = executorType;
+    }
+
+    /**
+     * This method overrides the duration of the simulation stored in the
+     * scenario.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param duration The duration of the simulation, in nanoseconds, or
+     * SCENARIO_DEFAULT.
+     * @since 2.0
+     */
+    public void setDuration(long duration) {
+        this.duration = duration;
+    }
+
+    /**
+     * This method overrides the simulation step stored in the scenario.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param step The simulation step, in nanoseconds, or SCENARIO_DEFAULT.
+     * @since 2.0
+     */
+    public void setStep(long step) {
+        this.step = step;
+    }
+
+    /**
+     * This method overrides the master seed stored in the scenario, from which
+     * every random stream of the simulation is derived.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param seed The master seed.
+     * @since 2.0
+     */
+    public void setSeed(long seed) {
+        this.seedOverridden = true;
+        this.seed = seed;
+    }
+
+    /**
+     * This method sets whether every node generates statistics or only those
+     * configured to do it in the scenario.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param generateAllStats TRUE, to generate statistics for every node.
+     * Otherwise, FALSE.
+     * @since 2.0
+     */
+    public void setGenerateAllStats(boolean generateAllStats) {
+        this.generateAllStats = generateAllStats;
+    }
+
+    /**
+     * This method sets whether the switching matrices of the LER and LSR
+     * allocate labels from a separate label space for each incoming port
+     * instead of from a single label space.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param perPortLabelSpace TRUE, to use a label space for each incoming
+     * port. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public void setPerPortLabelSpace(boolean perPortLabelSpace) {
+        this.perPortLabelSpace = perPortLabelSpace;
+    }
+
+    /**
+     * This method sets whether the ticks of every topology element are
+     * profiled. If they are, the slowest topology elements are printed every
+     * few seconds while the simulation runs and the whole profile is written
+     * to TICK_PROFILE_FILE_NAME at the end.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param tickProfiling TRUE, to profile the ticks. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public void setTickProfiling(boolean tickProfiling) {
+        this.tickProfiling = tickProfiling;
+    }
+
+    /**
+     * This method sets whether simulation events are counted. If they are
+     * not, topology elements do not even create them and the summary only
+     * contains the statistics.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param countEvents TRUE, to count simulation events. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public void setCountEvents(boolean countEvents) {
+        this.countEvents = countEvents;
+    }
+
+    /**
+     * This method makes the next runs record the simulation events in a
+     * binary trace, that can be converted to text or replayed later.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param traceFile The trace file, or NULL to record no trace.
+     * @since 2.0
+     */
+    public void setTraceFile(File traceFile) {
+        this.traceFile = traceFile;
+    }
+
+    /**
+     * This method makes the next run pause the simulation at the specified
+     * instant, save a checkpoint and go on until the end. The instant is
+     * rounded down to a whole number of simulation steps, so that the ticks
+     * of a run resumed from the checkpoint are the same as those of a run
+     * that was never paused.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param checkpointInstant The instant, in nanoseconds.
+     * @param checkpointFile The file the checkpoint is written to, or NULL
+     * to save no checkpoint.
+     * @since 2.0
+     */
+    public void setCheckpoint(long checkpointInstant, File checkpointFile) {
+        this.checkpointInstant = checkpointInstant;
+        this.checkpointFile = checkpointFile;
+    }
+
+    /**
+     * This method loads the specified scenario file and simulates it.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param scenarioFile The .osm file.
+     * @return TRUE, if the scenario has been simulated and the results have
+     * been written. Otherwise, returns FALSE and getErrorMessage() tells why.
+     * @since 2.0
+     */
+    public boolean run(File scenarioFile) {
+        TOSMLoader osmLoader = new TOSMLoader();
+        if (!osmLoader.cargar(scenarioFile)) {
+            this.errorMessage = "Unable to load scenario " + scenarioFile.getPath();
+            return false;
+        }
+        return this.run(osmLoader.getScenario());
+    }
+
+    /**
+     * This method loads the specified checkpoint and simulates from the
+     * instant it was saved until the end of the simulation. The scheduling
+     * engine, the executor, the duration and the step can be overridden, so
+     * that several what-if variants can be run from the same checkpoint; the
+     * seed cannot, because the random streams are part of the checkpoint.
+     * Event counts include the events before the checkpoint.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param checkpointFile The checkpoint file.
+     * @return TRUE, if the scenario has been simulated and the results have
+     * been written. Otherwise, returns FALSE and getErrorMessage() tells why.
+     * @since 2.0
+     */
+    public boolean resume(File checkpointFile) {
+        TCheckpointLoader checkpointLoader = new TCheckpointLoader();
+        long loadStart = System.nanoTime();
+        if (!checkpointLoader.load(checkpointFile)) {
+            this.errorMessage = "Unable to load checkpoint " + checkpointFile.getPath();
+            return false;
+        }
+        this.checkpointLoadTime = System.nanoTime() - loadStart;
+        this.resumedCheckpointFile = checkpointFile;
+        this.resumedCheckpointInstant = checkpointLoader.getInstant();
+        TScenario scenario = checkpointLoader.getScenario();
+        TTimer timer = scenario.getTopology().obtenerReloj();
+        this.eventCounter = checkpointLoader.getEventCounter();
+        if (this.eventCounter == null) {
+            this.eventCounter = new TSimulationEventCounter();
+        }
+        if (!this.prepare(scenario)) {
+            return false;
+        }
+        long durationAux = this.duration;
+        if (durationAux == TBatchRunner.SCENARIO_DEFAULT) {
+            durationAux = timer.getFinishInstant();
+        }
+        long stepAux = this.step;
+        if (stepAux == TBatchRunner.SCENARIO_DEFAULT) {
+            stepAux = timer.getTick();
+        }
+        scenario.ponerDuracionSimulacion(new TTimestamp(durationAux / 1000000, (int) (durationAux % 1000000)));
+        scenario.ponerPasoSimulacion((int) stepAux);
+        long startTime = System.nanoTime();
+        scenario.reanudarSimulacion();
+        this.waitForCompletion(timer);
+        this.wallTime = System.nanoTime() - startTime;
+        this.numberOfTicks = timer.getTickBarrier().getNumberOfTicks();
+        return this.saveResults(scenario, durationAux, stepAux);
+    }
+
+    /**
+     * This method simulates the specified scenario until the end of the
+     * simulation and writes the results.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param scenario The scenario.
+     * @return TRUE, if the scenario has been simulated and the results have
+     * been written. Otherwise, returns FALSE and getErrorMessage() tells why.
+     * @since 2.0
+     */
+    public boolean run(TScenario scenario) {
+        TTimer timer = scenario.getTopology().obtenerReloj();
+        this.eventCounter = new TSimulationEventCounter();
+        this.resumedCheckpointFile = null;
+        if (!this.prepare(scenario)) {
+            return false;
+        }
+        long durationAux = this.duration;
+        if (durationAux == TBatchRunner.SCENARIO_DEFAULT) {
+            durationAux = scenario.getSimulation().obtenerDuracion();
+        }
+        long stepAux = this.step;
+        if (stepAux == TBatchRunner.SCENARIO_DEFAULT) {
+            stepAux = scenario.getSimulation().obtenerPaso();
+        }
+        long checkpointInstantAux = 0;
+        if (this.checkpointFile != null) {
+            checkpointInstantAux = (this.checkpointInstant / stepAux) * stepAux;
+            if ((checkpointInstantAux <= 0) || (checkpointInstantAux >= durationAux)) {
+                this.errorMessage = "The checkpoint has to be between the first step and the end of the simulation";
+                return false;
+            }
+        }
+        if (this.seedOverridden) {
+            scenario.getSimulation().setSeed(this.seed);
+        }
+        scenario.reset();
+        if (checkpointInstantAux > 0) {
+            scenario.ponerDuracionSimulacion(new TTimestamp(checkpointInstantAux / 1000000, (int) (checkpointInstantAux % 1000000)));
+        } else {
+            scenario.ponerDuracionSimulacion(new TTimestamp(durationAux / 1000000, (int) (durationAux % 1000000)));
+        }
+        scenario.ponerPasoSimulacion((int) stepAux);
+        timer.getTickBarrier().resetStatistics();
+        timer.getTimerEventExecutor().resetStatistics();
+        this.checkpointSaveTime = 0;
+        long startTime = System.nanoTime();
+        scenario.generarSimulacion();
+        this.waitForCompletion(timer);
+        if (checkpointInstantAux > 0) {
+            scenario.ponerDuracionSimulacion(new TTimestamp(durationAux / 1000000, (int) (durationAux % 1000000)));
+            long saveStart = System.nanoTime();
+            TCheckpointSaver checkpointSaver = new TCheckpointSaver(scenario);
+            checkpointSaver.setEventCounter(this.eventCounter);
+            if (!checkpointSaver.save(this.checkpointFile)) {
+                this.errorMessage = "Unable to write checkpoint " + this.checkpointFile.getPath();
+                return false;
+            }
+            this.checkpointSaveTime = System.nanoTime() - saveStart;
+            scenario.reanudarSimulacion();
+            this.waitForCompletion(timer);
+        }
+        this.wallTime = System.nanoTime() - startTime - this.checkpointSaveTime;
+        this.numberOfTicks = timer.getTickBarrier().getNumberOfTicks();
+        return this.saveResults(scenario, durationAux, stepAux);
+    }
+
+    /**
+     * This method subscribes the event counter to every topology element of
+     * the scenario and applies the timer settings of the runner.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param scenario The scenario.
+     * @return TRUE, if the scenario is ready to be simulated. Otherwise,
+     * returns FALSE and getErrorMessage() tells why.
+     * @since 2.0
+     */
+    private boolean prepare(TScenario scenario) {
+        TTopology topology = scenario.getTopology();
+        TTimer timer = topology.obtenerReloj();
+        TNode node;
+        TLink link;
+        TSwitchingMatrix switchingMatrix;
+        Iterator<?> iterator;
+        if (this.countEvents) {
+            this.eventCounter.setCountedSubtypes(TSimulationEventInterestRegistry.ALL_SUBTYPES);
+        } else {
+            this.eventCounter.setCountedSubtypes(TSimulationEventInterestRegistry.NO_SUBTYPES);
+        }
+        if (this.traceFile != null) {
+            this.traceWriter = new TTraceWriter(this.traceFile);
+            if (!this.traceWriter.open(this.eventCounter)) {
+                this.errorMessage = "Unable to create trace " + this.traceFile.getPath();
+                this.traceWriter = null;
+                return false;
+            }
+        }
+        try {
+            iterator = topology.getNodesIterator();
+            while (iterator.hasNext()) {
+                node = (TNode) iterator.next();
+                node.removeListenerSimulacion();
+                node.addListenerSimulacion(this.eventCounter);
+                if (this.generateAllStats) {
+                    node.setGenerateStats(true);
+                }
+                switchingMatrix = this.getSwitchingMatrix(node);
+                if (switchingMatrix != null) {
+                    switchingMatrix.setPerPortLabelSpace(this.perPortLabelSpace);
+                }
+            }
+            iterator = topology.getLinksIterator();
+            while (iterator.hasNext()) {
+                link = (TLink) iterator.next();
+                link.removeListenerSimulacion();
+                link.addListenerSimulacion(this.eventCounter);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            this.errorMessage = "Unable to subscribe to simulation events: " + e.toString();
+            return false;
+        }
+        if (this.schedulingEngine != TBatchRunner.SCENARIO_DEFAULT) {
+            timer.setSchedulingEngine(this.schedulingEngine);
+        }
+        if (this.executorType != TBatchRunner.SCENARIO_DEFAULT) {
+            timer.setTimerEventExecutor(this.executorType);
+        }
+        if (this.numberOfRegions != TBatchRunner.SCENARIO_DEFAULT) {
+            timer.setNumberOfRegions(this.numberOfRegions);
+        }
+        timer.setTickProfilingEnabled(this.tickProfiling);
+        return true;
+    }
+
+    /**
+     * This method returns the switching matrix of a node, if it has one.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param node The node.
+     * @return The switching matrix of the node, or NULL if the node is not a
+     * LER or a LSR.
+     * @since 2.0
+     */
+    private TSwitchingMatrix getSwitchingMatrix(TNode node) {
+        if (node.getNodeType() == TNode.LER) {
+            return ((TLERNode) node).obtenerMatrizConmutacion();
+        }
+        if (node.getNodeType() == TNode.LERA) {
+            return ((TActiveLERNode) node).getSwitchingMatrix();
+        }
+        if (node.getNodeType() == TNode.LSR) {
+            return ((TLSRNode) node).obtenerMatrizConmutacion();
+        }
+        if (node.getNodeType() == TNode.LSRA) {
+            return ((TActiveLSRNode) node).getSwitchingMatrix();
+        }
+        return null;
+    }
+
+    /**
+     * This method waits for the timer to finish the simulation. If the ticks
+     * are being profiled, the slowest topology elements are printed every
+     * LIVE_VIEW_INTERVAL milliseconds meanwhile.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param timer The timer of the scenario.
+     * @since 2.0
+     */
+    private void waitForCompletion(final TTimer timer) {
+        final TTickProfiler tickProfiler = timer.getTickProfiler();
+        if (tickProfiler == null) {
+            timer.waitForCompletion();
+            return;
+        }
+        Thread liveView = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        Thread.sleep(TBatchRunner.LIVE_VIEW_INTERVAL);
+                        System.out.print("Slowest elements at " + timer.getCurrentInstant() + " ns:" + System.lineSeparator() + tickProfiler.getLiveView(TBatchRunner.LIVE_VIEW_ELEMENTS));
+                    }
+                } catch (InterruptedException e) {
+                    // The simulation has finished.
+                }
+            }
+        });
+        liveView.setDaemon(true);
+        liveView.start();
+        timer.waitForCompletion();
+        liveView.interrupt();
+    }
+
+    /**
+     * This method writes the statistics of the nodes and the summary of the
+     * last run.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param scenario The simulated scenario.
+     * @param simulationDuration The duration of the simulation, in
+     * nanoseconds.
+     * @param simulationStep The simulation step, in nanoseconds.
+     * @return TRUE, if the results have been written. Otherwise, returns
+     * FALSE and getErrorMessage() tells why.
+     * @since 2.0
+     */
+    private boolean saveResults(TScenario scenario, long simulationDuration, long simulationStep) {
+        TNode node;
+        Iterator<?> iterator;
+        this.eventCounter.flush();
+        if (this.traceWriter != null) {
+            if (!this.traceWriter.close()) {
+                this.errorMessage = "Unable to write trace " + this.traceFile.getPath();
+                if (this.traceWriter.getNumberOfDroppedEvents() > 0) {
+                    this.errorMessage += ": " + this.traceWriter.getNumberOfDroppedEvents() + " simulation events were dropped";
+                }
+                return false;
+            }
+        }
+        TStatsSaver statsSaver = new TStatsSaver(this.outputDirectory);
+        iterator = scenario.getTopology().getNodesIterator();
+        while (iterator.hasNext()) {
+            node = (TNode) iterator.next();
+            if (node.isGeneratingStats()) {
+                if (!statsSaver.save(node)) {
+                    this.errorMessage = "Unable to write the statistics of node " + node.getName();
+                    return false;
+                }
+            }
+        }
+        this.numberOfStatsFiles = statsSaver.getNumberOfSavedFiles();
+        if (!this.saveSummary(scenario, simulationDuration, simulationStep)) {
+            this.errorMessage = "Unable to write " + new File(this.outputDirectory, TBatchRunner.SUMMARY_FILE_NAME).getPath();
+            return false;
+        }
+        if (!this.saveTickProfile(scenario)) {
+            this.errorMessage = "Unable to write " + new File(this.outputDirectory, TBatchRunner.TICK_PROFILE_FILE_NAME).getPath();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * This method writes the tick profile of the last run, if the ticks have
+     * been profiled.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param scenario The simulated scenario.
+     * @return TRUE, if the tick profile has been written or the ticks have not
+     * been profiled. Otherwise, returns FALSE.
+     * @since 2.0
+     */
+    private boolean saveTickProfile(TScenario scenario) {
+        TTickProfiler tickProfiler = scenario.getTopology().obtenerReloj().getTickProfiler();
+        if (tickProfiler == null) {
+            return true;
+        }
+        PrintStream output = null;
+        try {
+            output = new PrintStream(new FileOutputStream(new File(this.outputDirectory, TBatchRunner.TICK_PROFILE_FILE_NAME)));
+            tickProfiler.writeReport(output);
+            output.close();
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (output != null) {
+                output.close();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method returns the simulation events captured during the last
+     * run, counted by subtype.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The simulation event counter.
+     * @since 2.0
+     */
+    public TSimulationEventCounter getEventCounter() {
+        return this.eventCounter;
+    }
+
+    /**
+     * This method returns the wall-clock time the last run took to simulate
+     * the scenario, without loading it or writing the results.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The wall-clock time, in nanoseconds.
+     * @since 2.0
+     */
+    public long getWallTime() {
+        return this.wallTime;
+    }
+
+    /**
+     * This method returns how many ticks the timer dispatched in the last
+     * run.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of ticks.
+     * @since 2.0
+     */
+    public long getNumberOfTicks() {
+        return this.numberOfTicks;
+    }
+
+    /**
+     * This method returns the reason why the last run failed.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The error message, or NULL if the last run did not fail.
+     * @since 2.0
+     */
+    public String getErrorMessage() {
+        return this.errorMessage;
+    }
+
+    /**
+     * This method writes the summary of the last run to summary.txt in the
+     * output directory, as key=value lines.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param scenario The simulated scenario.
+     * @param simulationDuration The duration of the simulation, in
+     * nanoseconds.
+     * @param simulationStep The simulation step, in nanoseconds.
+     * @return TRUE, if the summary has been written. Otherwise, returns FALSE.
+     * @since 2.0
+     */
+    private boolean saveSummary(TScenario scenario, long simulationDuration, long simulationStep) {
+        if (!this.outputDirectory.exists()) {
+            if (!this.outputDirectory.mkdirs()) {
+                return false;
+            }
+        }
+        TTimer timer = scenario.getTopology().obtenerReloj();
+        PrintStream output = null;
+        try {
+            output = new PrintStream(new FileOutputStream(new File(this.outputDirectory, TBatchRunner.SUMMARY_FILE_NAME)));
+            if (scenario.obtenerFichero() != null) {
+                output.println("scenario.file=" + scenario.obtenerFichero().getPath());
+            }
+            output.println("scenario.title=" + scenario.obtenerTitulo());
+            int numberOfLinks = 0;
+            Iterator<?> iterator = scenario.getTopology().getLinksIterator();
+            while (iterator.hasNext()) {
+                iterator.next();
+                numberOfLinks++;
+            }
+            output.println("scenario.nodes=" + scenario.getTopology().obtenerNumeroDeNodos());
+            output.println("scenario.links=" + numberOfLinks);
+            output.println("simulation.duration.ns=" + simulationDuration);
+            output.println("simulation.step.ns=" + simulationStep);
+            output.println("simulation.seed=" + scenario.getSimulation().getSeed());
+            output.println("timer.schedulingEngine=" + timer.getSchedulingEngine());
+            output.println("timer.executorType=" + timer.getTimerEventExecutor().getExecutorType());
+            output.println("timer.ticks=" + this.numberOfTicks);
+            output.println("timer.averageBarrierWait.ns=" + timer.getTickBarrier().getAverageWaitTime());
+            output.println("timer.maxBarrierWait.ns=" + timer.getTickBarrier().getMaxWaitTime());
+            output.println("timer.averageDispatchOverhead.ns=" + timer.getTimerEventExecutor().getAverageDispatchOverhead());
+            output.println("timer.averageDispatchAllocation.bytes=" + timer.getTimerEventExecutor().getAverageDispatchAllocation());
+            if (timer.getSchedulingEngine() != TTimer.CONSERVATIVE_PARALLEL_ENGINE) {
+                output.println("timer.timerEvents=" + timer.getNumberOfTimerEvents());
+            }
+            if (timer.getSchedulingEngine() == TTimer.ADAPTIVE_STEP_ENGINE) {
+                output.println("timer.skippedTicks=" + timer.getNumberOfSkippedTicks());
+            }
+            TConservativeParallelEngine parallelEngine = timer.getConservativeParallelEngine();
+            if ((timer.getSchedulingEngine() == TTimer.CONSERVATIVE_PARALLEL_ENGINE) && (parallelEngine != null)) {
+                output.println("parallel.regions=" + parallelEngine.getNumberOfRegions());
+                output.println("parallel.cutLinks=" + parallelEngine.getNumberOfCutLinks());
+                output.println("parallel.lookahead.ns=" + parallelEngine.getLookahead());
+                output.println("parallel.windowLength=" + parallelEngine.getWindowLength());
+                output.println("parallel.horizons=" + parallelEngine.getNumberOfHorizons());
+                output.println("parallel.messages=" + parallelEngine.getNumberOfMessages());
+            }
+            if ((this.checkpointFile != null) && (this.resumedCheckpointFile == null)) {
+                output.println("checkpoint.file=" + this.checkpointFile.getPath());
+                output.println("checkpoint.instant.ns=" + ((this.checkpointInstant / simulationStep) * simulationStep));
+                output.println("checkpoint.bytes=" + this.checkpointFile.length());
+                output.println("checkpoint.saveTime.ms=" + (this.checkpointSaveTime / 1000000));
+            }
+            if (this.resumedCheckpointFile != null) {
+                output.println("checkpoint.resumedFrom=" + this.resumedCheckpointFile.getPath());
+                output.println("checkpoint.resumedAt.ns=" + this.resumedCheckpointInstant);
+                output.println("checkpoint.loadTime.ms=" + (this.checkpointLoadTime / 1000000));
+            }
+            output.println("run.wallTime.ms=" + (this.wallTime / 1000000));
+            output.println("events.counted=" + this.countEvents);
+            output.println("events.total=" + this.eventCounter.getTotalNumberOfEvents());
+            int i;
+            for (i = 0; i <= this.eventCounter.getHighestSubtype(); i++) {
+                if (this.eventCounter.getNumberOfEvents(i) > 0) {
+                    output.println("events.subtype." + i + "=" + this.eventCounter.getNumberOfEvents(i));
+                }
+            }
+            output.println("stats.files=" + this.numberOfStatsFiles);
+            if (this.traceWriter != null) {
+                output.println("trace.file=" + this.traceWriter.getOutputFile().getPath());
+                output.println("trace.records=" + this.traceWriter.getNumberOfRecords());
+                output.println("trace.droppedEvents=" + this.traceWriter.getNumberOfDroppedEvents());
+                output.println("trace.bytes=" + this.traceWriter.getOutputFile().length());
+            }
+            if (TLockProfiler.isEnabled()) {
+                Iterator<TLockSiteStats> siteStatsIterator = TLockProfiler.getSiteStats().iterator();
+                TLockSiteStats siteStats;
+                while (siteStatsIterator.hasNext()) {
+                    siteStats = siteStatsIterator.next();
+                    output.println("lock." + siteStats.getSiteName() + ".acquisitions=" + siteStats.getNumberOfAcquisitions());
+                    output.println("lock." + siteStats.getSiteName() + ".contended=" + siteStats.getNumberOfContendedAcquisitions());
+                    output.println("lock." + siteStats.getSiteName() + ".totalWait.ns=" + siteStats.getTotalWaitTime());
+                    output.println("lock." + siteStats.getSiteName() + ".maxWait.ns=" + siteStats.getMaxWaitTime());
+                    output.println("lock." + siteStats.getSiteName() + ".totalHold.ns=" + siteStats.getTotalHoldTime());
+                    output.println("lock." + siteStats.getSiteName() + ".maxHold.ns=" + siteStats.getMaxHoldTime());
+                }
+            }
+            output.close();
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (output != null) {
+                output.close();
+            }
+        }
+        return false;
+    }
+
+    public static final int SCENARIO_DEFAULT = -1;
+    public static final String SUMMARY_FILE_NAME = "summary.txt";
+    public static final String TICK_PROFILE_FILE_NAME = "tickprofile.txt";
+    private static final long LIVE_VIEW_INTERVAL = 2000;
+    private static final int LIVE_VIEW_ELEMENTS = 5;
+
+    private File outputDirectory;
+    private int schedulingEngine;
+    private int executorType;
+    private int numberOfRegions;
+    private long duration;
+    private long step;
+    private boolean seedOverridden;
+    private long seed;
+    private boolean generateAllStats;
+    private boolean perPortLabelSpace;
+    private boolean tickProfiling;
+    private boolean countEvents;
+    private File traceFile;
+    private TTraceWriter traceWriter;
+    private long checkpointInstant;
+    private File checkpointFile;
+    private long checkpointSaveTime;
+    private File resumedCheckpointFile;
+    private long resumedCheckpointInstant;
+    private long checkpointLoadTime;
+    private TSimulationEventCounter eventCounter;
+    private long wallTime;
+    private long numberOfTicks;
+    private int numberOfStatsFiles;
+    private String errorMessage;
+}
@@ -0,0 +1,428 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.main;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import simMPLS.io.osm.TOSMLoader;
+import simMPLS.scenario.TScenario;
+import simMPLS.scenario.TSimulationEvent;
+
+/**
+ * This class implements a parameter sweep. It simulates a base scenario once
+ * for each combination of the values of a set of parameters (the variants),
+ * running several variants at the same time on a bounded pool of threads.
+ * Each variant is a copy of the base scenario obtained by loading its .osm
+ * file again, so it has its own topology, timer and identifier generators and
+ * shares nothing with the other variants. The results of every variant are
+ * written to its own directory and collected into a single results table.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TParameterSweep {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TParameterSweep without parameters, that uses as many threads as
+     * available processors.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param baseScenarioFile The .osm file of the base scenario.
+     * @param outputDirectory The directory where the results will be
+     * written.
+     * @since 2.0
+     */
+    public TParameterSweep(File baseScenarioFile, File outputDirectory) {
+        this.baseScenarioFile = baseScenarioFile;
+        this.outputDirectory = outputDirectory;
+        this.parameters = new ArrayList<TSweepParameter>();
+        this.numberOfThreads = Runtime.getRuntime().availableProcessors();
+        this.schedulingEngine = TBatchRunner.SCENARIO_DEFAULT;
+        this.executorType = TBatchRunner.SCENARIO_DEFAULT;
+        this.duration = TBatchRunner.SCENARIO_DEFAULT;
+        this.step = TBatchRunner.SCENARIO_DEFAULT;
+        this.generateAllStats = false;
+        this.perPortLabelSpace = false;
+        this.seedOverridden = false;
+        this.seed = 0;
+        this.results = new TSweepResult[0];
+        this.errorMessage = null;
+    }
+
+    /**
+     * This method adds a new parameter to the sweep. The number of variants
+     * is multiplied by the number of values of the parameter.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param parameter The parameter.
+     * @since 2.0
+     */
+    public void addParameter(TSweepParameter parameter) {
+        this.parameters.add(parameter);
+    }
+
+    /**
+     * This method sets how many variants can be simulated at the same time.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param numberOfThreads The number of threads of the pool.
+     * @since 2.0
+     */
+    public void setNumberOfThreads(int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            this.numberOfThreads = 1;
+        } else {
+            this.numberOfThreads = numberOfThreads;
+        }
+    }
+
+    /**
+     * This method sets the scheduling engine of the timer of every variant.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param schedulingEngine TTimer.TICK_DRIVEN_ENGINE,
+     * TTimer.EVENT_DRIVEN_ENGINE, TTimer.ADAPTIVE_STEP_ENGINE or
+     * TBatchRunner.SCENARIO_DEFAULT.
+     * @since 2.0
+     */
+    public void setSchedulingEngine(int schedulingEngine) {
+        this.schedulingEngine = schedulingEngine;
+    }
+
+    /**
+     * This method sets the type of executor used by the timer of every
+     * variant.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param executorType One of the types defined in TTimerEventExecutor, or
+     * TBatchRunner.SCENARIO_DEFAULT.
+     * @since 2.0
+     */
+    public void setTimerEventExecutor(int executorType) {
+        this.executorType = executorType;
+    }
+
+    /**
+     * This method sets the duration of the simulation of every variant.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param duration The duration, in nanoseconds, or
+     * TBatchRunner.SCENARIO_DEFAULT.
+     * @since 2.0
+     */
+    public void setDuration(long duration) {
+        this.duration = duration;
+    }
+
+    /**
+     * This method sets the simulation step of every variant.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param step The step, in nanoseconds, or TBatchRunner.SCENARIO_DEFAULT.
+     * @since 2.0
+     */
+    public void setStep(long step) {
+        this.step = step;
+    }
+
+    /**
+     * This method overrides the master seed of every variant. Every variant
+     * uses the same seed, so the differences between them are caused only by
+     * the swept parameters.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param seed The master seed.
+     * @since 2.0
+     */
+    public void setSeed(long seed) {
+        this.seedOverridden = true;
+        this.seed = seed;
+    }
+
+    /**
+     * This method sets whether every node of every variant generates
+     * statistics.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param generateAllStats TRUE, if every node has to generate statistics.
+     * FALSE, if only the nodes configured in the scenario do.
+     * @since 2.0
+     */
+    public void setGenerateAllStats(boolean generateAllStats) {
+        this.generateAllStats = generateAllStats;
+    }
+
+    /**
+     * This method sets whether the LER and LSR of every variant allocate
+     * labels from a separate label space for each incoming port.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param perPortLabelSpace TRUE, to use a label space for each incoming
+     * port. FALSE, to use a single label space.
+     * @since 2.0
+     */
+    public void setPerPortLabelSpace(boolean perPortLabelSpace) {
+        this.perPortLabelSpace = perPortLabelSpace;
+    }
+
+    /**
+     * This method returns how many variants the sweep has.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of combinations of the values of the parameters.
+     * @since 2.0
+     */
+    public int getNumberOfVariants() {
+        int numberOfVariants = 1;
+        int i;
+        for (i = 0; i < this.parameters.size(); i++) {
+            numberOfVariants *= this.parameters.get(i).getValues().length;
+        }
+        return numberOfVariants;
+    }
+
+    /**
+     * This method returns the value of each parameter in the specified
+     * variant. The first parameter is the one that changes the slowest.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param variant The number of the variant, starting from 0.
+     * @return The values of the parameters, in the same order they were added.
+     * @since 2.0
+     */
+    public int[] getVariantValues(int variant) {
+        int[] variantValues = new int[this.parameters.size()];
+        int remainder = variant;
+        int i;
+        for (i = this.parameters.size() - 1; i >= 0; i--) {
+            int[] values = this.parameters.get(i).getValues();
+            variantValues[i] = values[remainder % values.length];
+            remainder = remainder / values.length;
+        }
+        return variantValues;
+    }
+
+    /**
+     * This method simulates every variant and writes the results table to
+     * results.csv in the output directory.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return TRUE, if every variant has been simulated and the results table
+     * has been written. Otherwise, returns FALSE and getErrorMessage() tells
+     * why.
+     * @since 2.0
+     */
+    public boolean run() {
+        this.errorMessage = null;
+        if (!new TOSMLoader().cargar(this.baseScenarioFile)) {
+            this.errorMessage = "Unable to load scenario " + this.baseScenarioFile.getPath();
+            return false;
+        }
+        int numberOfVariants = this.getNumberOfVariants();
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(this.numberOfThreads, numberOfVariants), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread workerThread = new Thread(runnable);
+                workerThread.setDaemon(true);
+                return workerThread;
+            }
+        });
+        ArrayList<Future<TSweepResult>> futures = new ArrayList<Future<TSweepResult>>(numberOfVariants);
+        int i;
+        for (i = 0; i < numberOfVariants; i++) {
+            final int variant = i;
+            futures.add(executorService.submit(new Callable<TSweepResult>() {
+                @Override
+                public TSweepResult call() {
+                    return runVariant(variant);
+                }
+            }));
+        }
+        this.results = new TSweepResult[numberOfVariants];
+        boolean allVariantsSucceeded = true;
+        for (i = 0; i < numberOfVariants; i++) {
+            try {
+                this.results[i] = futures.get(i).get();
+            } catch (Exception e) {
+                e.printStackTrace();
+                this.results[i] = new TSweepResult(i, this.getVariantValues(i), e.toString(), null, 0, 0);
+            }
+            if (!this.results[i].isSucceeded()) {
+                allVariantsSucceeded = false;
+                if (this.errorMessage == null) {
+                    this.errorMessage = "Variant " + i + ": " + this.results[i].getErrorMessage();
+                }
+            }
+        }
+        executorService.shutdown();
+        if (!this.saveResults()) {
+            this.errorMessage = "Unable to write " + new File(this.outputDirectory, TParameterSweep.RESULTS_FILE_NAME).getPath();
+            return false;
+        }
+        return allVariantsSucceeded;
+    }
+
+    /**
+     * This method returns the results of the last run, one for each variant.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The results, ordered by variant.
+     * @since 2.0
+     */
+    public TSweepResult[] getResults() {
+        return this.results;
+    }
+
+    /**
+     * This method returns the reason why the last run failed.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The error message, or NULL if the last run did not fail.
+     * @since 2.0
+     */
+    public String getErrorMessage() {
+        return this.errorMessage;
+    }
+
+    /**
+     * This method loads a new copy of the base scenario, sets the values of
+     * the parameters for the specified variant and simulates it. The results
+     * of the variant are written to the directory variantN in the output
+     * directory.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param variant The number of the variant.
+     * @return The result of the variant.
+     * @since 2.0
+     */
+    private TSweepResult runVariant(int variant) {
+        int[] variantValues = this.getVariantValues(variant);
+        TOSMLoader osmLoader = new TOSMLoader();
+        if (!osmLoader.cargar(this.baseScenarioFile)) {
+            return new TSweepResult(variant, variantValues, "Unable to load scenario " + this.baseScenarioFile.getPath(), null, 0, 0);
+        }
+        TScenario scenario = osmLoader.getScenario();
+        int i;
+        for (i = 0; i < this.parameters.size(); i++) {
+            TSweepParameter parameter = this.parameters.get(i);
+            if (parameter.apply(scenario, variantValues[i]) == 0) {
+                return new TSweepResult(variant, variantValues, "Parameter " + parameter.getName() + " does not apply to any element", null, 0, 0);
+            }
+        }
+        TBatchRunner batchRunner = new TBatchRunner(new File(this.outputDirectory, "variant" + variant));
+        batchRunner.setSchedulingEngine(this.schedulingEngine);
+        batchRunner.setTimerEventExecutor(this.executorType);
+        batchRunner.setDuration(this.duration);
+        batchRunner.setStep(this.step);
+        batchRunner.setGenerateAllStats(this.generateAllStats);
+        batchRunner.setPerPortLabelSpace(this.perPortLabelSpace);
+        if (this.seedOverridden) {
+            batchRunner.setSeed(this.seed);
+        }
+        boolean succeeded = batchRunner.run(scenario);
+        // The copy of the scenario is discarded, so the worker threads of its
+        // timer are not needed anymore.
+        scenario.getTopology().obtenerReloj().getTimerEventExecutor().shutdown();
+        String variantErrorMessage = null;
+        if (!succeeded) {
+            variantErrorMessage = batchRunner.getErrorMessage();
+        }
+        return new TSweepResult(variant, variantValues, variantErrorMessage, batchRunner.getEventCounter(), batchRunner.getNumberOfTicks(), batchRunner.getWallTime());
+    }
+
+    /**
+     * This method writes the results table of the last run to results.csv in
+     * the output directory. There is a row for each variant, with the values
+     * of the parameters and the main counters of the simulation.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return TRUE, if the results table has been written. Otherwise, returns
+     * FALSE.
+     * @since 2.0
+     */
+    private boolean saveResults() {
+        if (!this.outputDirectory.exists()) {
+            if (!this.outputDirectory.mkdirs()) {
+                return false;
+            }
+        }
+        PrintStream output = null;
+        try {
+            output = new PrintStream(new FileOutputStream(new File(this.outputDirectory, TParameterSweep.RESULTS_FILE_NAME)));
+            String header = "variant";
+            int i;
+            int j;
+            for (i = 0; i < this.parameters.size(); i++) {
+                header += "," + this.parameters.get(i).getName();
+            }
+            header += ",status,events,packetsGenerated,packetsSent,packetsReceived,packetsDiscarded,ticks,wallTimeMs";
+            output.println(header);
+            for (i = 0; i < this.results.length; i++) {
+                TSweepResult result = this.results[i];
+                String row = "" + result.getVariant();
+                for (j = 0; j < result.getValues().length; j++) {
+                    row += "," + result.getValues()[j];
+                }
+                if (result.isSucceeded()) {
+                    row += ",ok";
+                } else {
+                    row += ",failed";
+                }
+                row += "," + result.getTotalNumberOfEvents();
+                row += "," + result.getNumberOfEvents(TSimulationEvent.PACKET_GENERATED);
+                row += "," + result.getNumberOfEvents(TSimulationEvent.PACKET_SENT);
+                row += "," + result.getNumberOfEvents(TSimulationEvent.PACKET_RECEIVED);
+                row += "," + result.getNumberOfEvents(TSimulationEvent.PACKET_DISCARDED);
+                row += "," + result.getNumberOfTicks();
+                row += "," + (result.getWallTime() / 1000000);
+                output.println(row);
+            }
+            output.close();
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (output != null) {
+                output.close();
+            }
+        }
+        return false;
+    }
+
+    public static final String RESULTS_FILE_NAME = "results.csv";
+
+    private File baseScenarioFile;
+    private File outputDirectory;
+    private ArrayList<TSweepParameter> parameters;
+    private int numberOfThreads;
+    private int schedulingEngine;
+    private int executorType;
+    private long duration;
+    private long step;
+    private boolean generateAllStats;
+    private boolean perPortLabelSpace;
+    private boolean seedOverridden;
+    private long seed;
+    private TSweepResult[] results;
+    private String errorMessage;
+}
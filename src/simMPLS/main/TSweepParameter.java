@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.main;
+
+import java.util.Iterator;
+import simMPLS.scenario.TActiveLERNode;
+import simMPLS.scenario.TActiveLSRNode;
+import simMPLS.scenario.TLERNode;
+import simMPLS.scenario.TLSRNode;
+import simMPLS.scenario.TLink;
+import simMPLS.scenario.TNode;
+import simMPLS.scenario.TScenario;
+import simMPLS.scenario.TSenderNode;
+
+/**
+ * This class implements one of the axes of a parameter sweep: a parameter of
+ * the scenario and the values it has to take. The parameter can be applied to
+ * every topology element it makes sense for or only to the one with a given
+ * name.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TSweepParameter {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TSweepParameter.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param parameterType DMGP_SIZE, BUFFER_SIZE, GOS_LEVEL or LINK_DELAY.
+     * @param elementName Name of the only node or link the parameter is
+     * applied to, or NULL to apply it to every node or link it makes sense
+     * for.
+     * @param values The values the parameter has to take.
+     * @since 2.0
+     */
+    public TSweepParameter(int parameterType, String elementName, int[] values) {
+        this.parameterType = parameterType;
+        this.elementName = elementName;
+        this.values = values;
+    }
+
+    /**
+     * This method returns the type of this parameter.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return DMGP_SIZE, BUFFER_SIZE, GOS_LEVEL or LINK_DELAY.
+     * @since 2.0
+     */
+    public int getParameterType() {
+        return this.parameterType;
+    }
+
+    /**
+     * This method returns the values this parameter has to take.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The values of the parameter.
+     * @since 2.0
+     */
+    public int[] getValues() {
+        return this.values;
+    }
+
+    /**
+     * This method returns a name that identifies this parameter in a results
+     * table.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The name of the parameter, followed by the name of the element
+     * it is applied to, if any.
+     * @since 2.0
+     */
+    public String getName() {
+        String name = "";
+        switch (this.parameterType) {
+            case TSweepParameter.DMGP_SIZE:
+                name = "dmgpSizeKB";
+                break;
+            case TSweepParameter.BUFFER_SIZE:
+                name = "bufferSizeMB";
+                break;
+            case TSweepParameter.GOS_LEVEL:
+                name = "gosLevel";
+                break;
+            case TSweepParameter.LINK_DELAY:
+                name = "linkDelayNs";
+                break;
+        }
+        if (this.elementName != null) {
+            name += "[" + this.elementName + "]";
+        }
+        return name;
+    }
+
+    /**
+     * This method sets the specified value of this parameter in the
+     * topology elements of a scenario.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param scenario The scenario.
+     * @param value The value of the parameter.
+     * @return The number of topology elements that have been modified.
+     * @since 2.0
+     */
+    public int apply(TScenario scenario, int value) {
+        int numberOfModifiedElements = 0;
+        Iterator<?> iterator;
+        if (this.parameterType == TSweepParameter.LINK_DELAY) {
+            TLink link;
+            iterator = scenario.getTopology().getLinksIterator();
+            while (iterator.hasNext()) {
+                link = (TLink) iterator.next();
+                if ((this.elementName == null) || (this.elementName.equals(link.getName()))) {
+                    link.ponerDelay(value);
+                    numberOfModifiedElements++;
+                }
+            }
+            return numberOfModifiedElements;
+        }
+        TNode node;
+        iterator = scenario.getTopology().getNodesIterator();
+        while (iterator.hasNext()) {
+            node = (TNode) iterator.next();
+            if ((this.elementName == null) || (this.elementName.equals(node.getName()))) {
+                if (this.apply(node, value)) {
+                    numberOfModifiedElements++;
+                }
+            }
+        }
+        return numberOfModifiedElements;
+    }
+
+    /**
+     * This method sets the specified value of this parameter in a node, if
+     * the parameter makes sense for it.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param node The node.
+     * @param value The value of the parameter.
+     * @return TRUE, if the node has been modified. Otherwise, returns FALSE.
+     * @since 2.0
+     */
+    private boolean apply(TNode node, int value) {
+        switch (this.parameterType) {
+            case TSweepParameter.DMGP_SIZE:
+                if (node.getNodeType() == TNode.LERA) {
+                    ((TActiveLERNode) node).setDMGPSizeInKB(value);
+                    return true;
+                }
+                if (node.getNodeType() == TNode.LSRA) {
+                    ((TActiveLSRNode) node).setDMGPSizeInKB(value);
+                    return true;
+                }
+                break;
+            case TSweepParameter.BUFFER_SIZE:
+                if (node.getNodeType() == TNode.LER) {
+                    ((TLERNode) node).ponerTamanioBuffer(value);
+                    return true;
+                }
+                if (node.getNodeType() == TNode.LERA) {
+                    ((TActiveLERNode) node).setBufferSizeInMBytes(value);
+                    return true;
+                }
+                if (node.getNodeType() == TNode.LSR) {
+                    ((TLSRNode) node).ponerTamanioBuffer(value);
+                    return true;
+                }
+                if (node.getNodeType() == TNode.LSRA) {
+                    ((TActiveLSRNode) node).setBufferSizeInMBytes(value);
+                    return true;
+                }
+                break;
+            case TSweepParameter.GOS_LEVEL:
+                if (node.getNodeType() == TNode.SENDER) {
+                    ((TSenderNode) node).ponerNivelDeGoS(value);
+                    return true;
+                }
+                break;
+        }
+        return false;
+    }
+
+    public static final int DMGP_SIZE = 0;
+    public static final int BUFFER_SIZE = 1;
+    public static final int GOS_LEVEL = 2;
+    public static final int LINK_DELAY = 3;
+
+    private int parameterType;
+    private String elementName;
+    private int[] values;
+}
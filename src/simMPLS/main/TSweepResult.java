@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.main;
+
+import simMPLS.hardware.simulationcollector.TSimulationEventCounter;
+
+/**
+ * This class implements the result of simulating one of the variants of a
+ * parameter sweep. It is one row of the results table of the sweep.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TSweepResult {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TSweepResult.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param variant The number of the variant.
+     * @param values The value of each parameter of the sweep in this variant.
+     * @param errorMessage Why the variant could not be simulated, or NULL if
+     * it was simulated.
+     * @param eventCounter The simulation events captured while simulating
+     * the variant.
+     * @param numberOfTicks The number of ticks the timer dispatched.
+     * @param wallTime The wall-clock time the simulation took, in
+     * nanoseconds.
+     * @since 2.0
+     */
+    public TSweepResult(int variant, int[] values, String errorMessage, TSimulationEventCounter eventCounter, long numberOfTicks, long wallTime) {
+        this.variant = variant;
+        this.values = values;
+        this.errorMessage = errorMessage;
+        this.eventCounter = eventCounter;
+        this.numberOfTicks = numberOfTicks;
+        this.wallTime = wallTime;
+    }
+
+    /**
+     * This method returns the number of the variant.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of the variant, starting from 0.
+     * @since 2.0
+     */
+    public int getVariant() {
+        return this.variant;
+    }
+
+    /**
+     * This method returns the value of each parameter of the sweep in this
+     * variant, in the same order the parameters were added to the sweep.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The values of the parameters.
+     * @since 2.0
+     */
+    public int[] getValues() {
+        return this.values;
+    }
+
+    /**
+     * This method checks whether the variant has been simulated.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return TRUE, if the variant has been simulated. Otherwise, returns
+     * FALSE.
+     * @since 2.0
+     */
+    public boolean isSucceeded() {
+        return (this.errorMessage == null);
+    }
+
+    /**
+     * This method returns why the variant could not be simulated.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The error message, or NULL if the variant was simulated.
+     * @since 2.0
+     */
+    public String getErrorMessage() {
+        return this.errorMessage;
+    }
+
+    /**
+     * This method returns how many simulation events of the specified subtype
+     * were captured while simulating the variant.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param subtype The subtype of the simulation events, as defined in
+     * TSimulationEvent.
+     * @return The number of simulation events of that subtype.
+     * @since 2.0
+     */
+    public long getNumberOfEvents(int subtype) {
+        if (this.eventCounter == null) {
+            return 0;
+        }
+        return this.eventCounter.getNumberOfEvents(subtype);
+    }
+
+    /**
+     * This method returns how many simulation events were captured while
+     * simulating the variant.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of simulation events.
+     * @since 2.0
+     */
+    public long getTotalNumberOfEvents() {
+        if (this.eventCounter == null) {
+            return 0;
+        }
+        return this.eventCounter.getTotalNumberOfEvents();
+    }
+
+    /**
+     * This method returns how many ticks the timer dispatched.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of ticks.
+     * @since 2.0
+     */
+    public long getNumberOfTicks() {
+        return this.numberOfTicks;
+    }
+
+    /**
+     * This method returns the wall-clock time the simulation of the variant
+     * took.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The wall-clock time, in nanoseconds.
+     * @since 2.0
+     */
+    public long getWallTime() {
+        return this.wallTime;
+    }
+
+    private int variant;
+    private int[] values;
+    private String errorMessage;
+    private TSimulationEventCounter eventCounter;
+    private long numberOfTicks;
+    private long wallTime;
+}
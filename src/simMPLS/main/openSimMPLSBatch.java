@@ -0,0 +1,329 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.main;
+
+import java.io.File;
+import simMPLS.utils.TLockProfiler;
+
+/**
+ * This class runs OpenSimMPLS from the command line, without graphical user
+ * interface. It simulates a scenario stored in an .osm file at full speed and
+ * writes the statistics of the nodes and a summary of the run to an output
+ * directory. No window, Swing component or simulation panel is created, so it
+ * can be used on servers and in continuous integration. With -sweep options,
+ * the scenario is simulated once for each combination of the values of the
+ * swept parameters instead. With -checkpoint, the state of the simulation is
+ * saved at an instant and, with -resume, a saved state is simulated until the
+ * end instead of a scenario.
+ *
+ * Usage: openSimMPLSBatch [options] scenario.osm output-directory
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class openSimMPLSBatch {
+
+    /**
+     * This method shows how to run OpenSimMPLS from the command line.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public static void showUsage() {
+        System.out.println("Usage: openSimMPLSBatch [options] scenario.osm output-directory");
+        System.out.println("       openSimMPLSBatch [options] -resume checkpoint.osmc output-directory");
+        System.out.println("Options:");
+        System.out.println("  -engine tick|event|regions|adaptive");
+        System.out.println("                         Scheduling engine of the timer.");
+        System.out.println("  -regions <n>           Maximum number of regions of the regions engine.");
+        System.out.println("  -executor thread|pool|virtual");
+        System.out.println("                         How the work of topology elements is run.");
+        System.out.println("  -duration <ns>         Overrides the duration of the simulation.");
+        System.out.println("  -step <ns>             Overrides the simulation step.");
+        System.out.println("  -seed <n>              Overrides the master seed of the simulation.");
+        System.out.println("  -allstats              Generates statistics for every node.");
+        System.out.println("  -perportlabels         Allocates labels from a label space for each incoming");
+        System.out.println("                         port of the LER and LSR instead of a single one.");
+        System.out.println("  -sweep <param>[@element]=<v1>,<v2>,...");
+        System.out.println("                         Simulates every value of a parameter: dmgp (KB),");
+        System.out.println("                         buffer (MB), gos or delay (ns). Can be repeated.");
+        System.out.println("  -threads <n>           Variants of a sweep simulated at the same time.");
+        System.out.println("  -checkpoint <ns> <file>");
+        System.out.println("                         Saves the state of the simulation at an instant.");
+        System.out.println("  -resume                Simulates a checkpoint from its instant to the end.");
+        System.out.println("  -lockprofile           Writes the contention of every lock site to the summary.");
+        System.out.println("  -tickprofile           Shows the slowest elements while simulating and writes");
+        System.out.println("                         the profile of every element to tickprofile.txt.");
+        System.out.println("  -trace <file>          Records the simulation events in a binary trace.");
+        System.out.println("  -noevents              Does not create nor count simulation events; only the");
+        System.out.println("                         statistics are generated.");
+    }
+
+    /**
+     * This method starts OpenSimMPLS from the command line. It exits with
+     * status 0 if the scenario has been simulated, 1 if it has not and 2 if
+     * the arguments are not valid.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param args Arguments specified at command line.
+     * @since 2.0
+     */
+    public static void main(String args[]) {
+        System.setProperty("java.awt.headless", "true");
+        File scenarioFile = null;
+        File outputDirectory = null;
+        int schedulingEngine = TBatchRunner.SCENARIO_DEFAULT;
+        int executorType = TBatchRunner.SCENARIO_DEFAULT;
+        int numberOfRegions = TBatchRunner.SCENARIO_DEFAULT;
+        long duration = TBatchRunner.SCENARIO_DEFAULT;
+        long step = TBatchRunner.SCENARIO_DEFAULT;
+        boolean generateAllStats = false;
+        boolean perPortLabelSpace = false;
+        boolean seedOverridden = false;
+        long seed = 0;
+        java.util.ArrayList<TSweepParameter> sweepParameters = new java.util.ArrayList<TSweepParameter>();
+        int numberOfThreads = Runtime.getRuntime().availableProcessors();
+        long checkpointInstant = 0;
+        File checkpointFile = null;
+        boolean resume = false;
+        boolean tickProfiling = false;
+        boolean countEvents = true;
+        File traceFile = null;
+        int i = 0;
+        try {
+            while (i < args.length) {
+                if (args[i].equals("-engine")) {
+                    schedulingEngine = parseSchedulingEngine(args[i + 1]);
+                    i += 2;
+                } else if (args[i].equals("-executor")) {
+                    executorType = parseExecutorType(args[i + 1]);
+                    i += 2;
+                } else if (args[i].equals("-regions")) {
+                    numberOfRegions = Integer.parseInt(args[i + 1]);
+                    i += 2;
+                } else if (args[i].equals("-duration")) {
+                    duration = Long.parseLong(args[i + 1]);
+                    i += 2;
+                } else if (args[i].equals("-step")) {
+                    step = Long.parseLong(args[i + 1]);
+                    i += 2;
+                } else if (args[i].equals("-seed")) {
+                    seed = Long.parseLong(args[i + 1]);
+                    seedOverridden = true;
+                    i += 2;
+                } else if (args[i].equals("-allstats")) {
+                    generateAllStats = true;
+                    i++;
+                } else if (args[i].equals("-perportlabels")) {
+                    perPortLabelSpace = true;
+                    i++;
+                } else if (args[i].equals("-sweep")) {
+                    sweepParameters.add(parseSweepParameter(args[i + 1]));
+                    i += 2;
+                } else if (args[i].equals("-threads")) {
+                    numberOfThreads = Integer.parseInt(args[i + 1]);
+                    i += 2;
+                } else if (args[i].equals("-checkpoint")) {
+                    checkpointInstant = Long.parseLong(args[i + 1]);
+                    checkpointFile = new File(args[i + 2]);
+                    i += 3;
+                } else if (args[i].equals("-resume")) {
+                    resume = true;
+                    i++;
+                } else if (args[i].equals("-lockprofile")) {
+                    TLockProfiler.setEnabled(true);
+                    i++;
+                } else if (args[i].equals("-tickprofile")) {
+                    tickProfiling = true;
+                    i++;
+                } else if (args[i].equals("-trace")) {
+                    traceFile = new File(args[i + 1]);
+                    i += 2;
+                } else if (args[i].equals("-noevents")) {
+                    countEvents = false;
+                    i++;
+                } else if (args[i].startsWith("-")) {
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+                } else if (scenarioFile == null) {
+                    scenarioFile = new File(args[i]);
+                    i++;
+                } else if (outputDirectory == null) {
+                    outputDirectory = new File(args[i]);
+                    i++;
+                } else {
+                    throw new IllegalArgumentException("Unexpected argument " + args[i]);
+                }
+            }
+            if (outputDirectory == null) {
+                throw new IllegalArgumentException("A scenario and an output directory are required");
+            }
+            if (resume && ((checkpointFile != null) || seedOverridden || !sweepParameters.isEmpty())) {
+                throw new IllegalArgumentException("-resume cannot be used with -checkpoint, -seed or -sweep");
+            }
+            if ((checkpointFile != null) && !sweepParameters.isEmpty()) {
+                throw new IllegalArgumentException("-checkpoint cannot be used with -sweep");
+            }
+            if (((!countEvents) || (traceFile != null)) && !sweepParameters.isEmpty()) {
+                throw new IllegalArgumentException("-noevents and -trace cannot be used with -sweep");
+            }
+        } catch (Exception e) {
+            System.out.println(e.getMessage());
+            showUsage();
+            System.exit(2);
+        }
+        if (!sweepParameters.isEmpty()) {
+            TParameterSweep parameterSweep = new TParameterSweep(scenarioFile, outputDirectory);
+            for (i = 0; i < sweepParameters.size(); i++) {
+                parameterSweep.addParameter(sweepParameters.get(i));
+            }
+            parameterSweep.setNumberOfThreads(numberOfThreads);
+            parameterSweep.setSchedulingEngine(schedulingEngine);
+            parameterSweep.setTimerEventExecutor(executorType);
+            parameterSweep.setDuration(duration);
+            parameterSweep.setStep(step);
+            parameterSweep.setGenerateAllStats(generateAllStats);
+            parameterSweep.setPerPortLabelSpace(perPortLabelSpace);
+            if (seedOverridden) {
+                parameterSweep.setSeed(seed);
+            }
+            long startTime = System.nanoTime();
+            boolean succeeded = parameterSweep.run();
+            long wallTime = System.nanoTime() - startTime;
+            if (parameterSweep.getErrorMessage() != null) {
+                System.out.println(parameterSweep.getErrorMessage());
+            }
+            System.out.println(scenarioFile.getPath() + ": " + parameterSweep.getResults().length + " variants, " + (wallTime / 1000000) + " ms. Results written to " + new File(outputDirectory, TParameterSweep.RESULTS_FILE_NAME).getPath());
+            if (!succeeded) {
+                System.exit(1);
+            }
+            System.exit(0);
+        }
+        TBatchRunner batchRunner = new TBatchRunner(outputDirectory);
+        batchRunner.setSchedulingEngine(schedulingEngine);
+        batchRunner.setTimerEventExecutor(executorType);
+        batchRunner.setNumberOfRegions(numberOfRegions);
+        batchRunner.setDuration(duration);
+        batchRunner.setStep(step);
+        batchRunner.setGenerateAllStats(generateAllStats);
+        batchRunner.setPerPortLabelSpace(perPortLabelSpace);
+        batchRunner.setTickProfiling(tickProfiling);
+        batchRunner.setCountEvents(countEvents);
+        batchRunner.setTraceFile(traceFile);
+        if (seedOverridden) {
+            batchRunner.setSeed(seed);
+        }
+        batchRunner.setCheckpoint(checkpointInstant, checkpointFile);
+        boolean succeeded;
+        if (resume) {
+            succeeded = batchRunner.resume(scenarioFile);
+        } else {
+            succeeded = batchRunner.run(scenarioFile);
+        }
+        if (!succeeded) {
+            System.out.println(batchRunner.getErrorMessage());
+            System.exit(1);
+        }
+        System.out.println(scenarioFile.getPath() + ": " + batchRunner.getEventCounter().getTotalNumberOfEvents() + " events, " + batchRunner.getNumberOfTicks() + " ticks, " + (batchRunner.getWallTime() / 1000000) + " ms. Results written to " + outputDirectory.getPath());
+        System.exit(0);
+    }
+
+    /**
+     * This method translates the description of a swept parameter.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param description param[@element]=v1,v2,... where param is dmgp,
+     * buffer, gos or delay.
+     * @return The swept parameter.
+     * @since 2.0
+     */
+    private static TSweepParameter parseSweepParameter(String description) {
+        int equalsPosition = description.indexOf('=');
+        if (equalsPosition < 0) {
+            throw new IllegalArgumentException("Invalid sweep " + description);
+        }
+        String name = description.substring(0, equalsPosition);
+        String elementName = null;
+        int atPosition = name.indexOf('@');
+        if (atPosition >= 0) {
+            elementName = name.substring(atPosition + 1);
+            name = name.substring(0, atPosition);
+        }
+        int parameterType;
+        if (name.equals("dmgp")) {
+            parameterType = TSweepParameter.DMGP_SIZE;
+        } else if (name.equals("buffer")) {
+            parameterType = TSweepParameter.BUFFER_SIZE;
+        } else if (name.equals("gos")) {
+            parameterType = TSweepParameter.GOS_LEVEL;
+        } else if (name.equals("delay")) {
+            parameterType = TSweepParameter.LINK_DELAY;
+        } else {
+            throw new IllegalArgumentException("Unknown sweep parameter " + name);
+        }
+        String[] valueTexts = description.substring(equalsPosition + 1).split(",");
+        int[] values = new int[valueTexts.length];
+        int i;
+        for (i = 0; i < valueTexts.length; i++) {
+            values[i] = Integer.parseInt(valueTexts[i].trim());
+        }
+        return new TSweepParameter(parameterType, elementName, values);
+    }
+
+    /**
+     * This method translates the name of a scheduling engine.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param name tick, event, regions or adaptive.
+     * @return The scheduling engine, as defined in TTimer.
+     * @since 2.0
+     */
+    private static int parseSchedulingEngine(String name) {
+        if (name.equals("tick")) {
+            return simMPLS.hardware.timer.TTimer.TICK_DRIVEN_ENGINE;
+        }
+        if (name.equals("event")) {
+            return simMPLS.hardware.timer.TTimer.EVENT_DRIVEN_ENGINE;
+        }
+        if (name.equals("regions")) {
+            return simMPLS.hardware.timer.TTimer.CONSERVATIVE_PARALLEL_ENGINE;
+        }
+        if (name.equals("adaptive")) {
+            return simMPLS.hardware.timer.TTimer.ADAPTIVE_STEP_ENGINE;
+        }
+        throw new IllegalArgumentException("Unknown scheduling engine " + name);
+    }
+
+    /**
+     * This method translates the name of a timer event executor type.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param name thread, pool or virtual.
+     * @return The executor type, as defined in TTimerEventExecutor.
+     * @since 2.0
+     */
+    private static int parseExecutorType(String name) {
+        if (name.equals("thread")) {
+            return simMPLS.hardware.timer.TTimerEventExecutor.THREAD_PER_ELEMENT;
+        }
+        if (name.equals("pool")) {
+            return simMPLS.hardware.timer.TTimerEventExecutor.FIXED_THREAD_POOL;
+        }
+        if (name.equals("virtual")) {
+            return simMPLS.hardware.timer.TTimerEventExecutor.VIRTUAL_THREADS;
+        }
+        throw new IllegalArgumentException("Unknown executor " + name);
+    }
+}
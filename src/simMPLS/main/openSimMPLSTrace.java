@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.main;
+
+import java.io.File;
+import simMPLS.io.osm.TOSMLoader;
+import simMPLS.io.trace.TTraceTextConverter;
+
+/**
+ * This class converts from the command line a binary simulation trace,
+ * written by the simulator window or by openSimMPLSBatch -trace, to the text
+ * form. The scenario that was simulated is needed to know the names of its
+ * nodes and links.
+ *
+ * Usage: openSimMPLSTrace scenario.osm trace.osmt output.txt
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class openSimMPLSTrace {
+
+    /**
+     * This method shows how to convert a trace from the command line.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public static void showUsage() {
+        System.out.println("Usage: openSimMPLSTrace scenario.osm trace.osmt output.txt");
+    }
+
+    /**
+     * This method converts a binary trace to text. It exits with status 0 if
+     * the trace has been converted, 1 if it has not and 2 if the arguments
+     * are not valid.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param args Arguments specified at command line.
+     * @since 2.0
+     */
+    public static void main(String args[]) {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length != 3) {
+            showUsage();
+            System.exit(2);
+        }
+        File scenarioFile = new File(args[0]);
+        File traceFile = new File(args[1]);
+        File textFile = new File(args[2]);
+        TOSMLoader osmLoader = new TOSMLoader();
+        if (!osmLoader.cargar(scenarioFile)) {
+            System.out.println("Unable to load scenario " + scenarioFile.getPath());
+            System.exit(1);
+        }
+        TTraceTextConverter traceTextConverter = new TTraceTextConverter(osmLoader.getScenario().getTopology());
+        long startTime = System.nanoTime();
+        boolean succeeded = traceTextConverter.convert(traceFile, textFile);
+        long wallTime = System.nanoTime() - startTime;
+        if (!succeeded) {
+            System.out.println(traceTextConverter.getErrorMessage());
+            System.exit(1);
+        }
+        System.out.println(traceFile.getPath() + ": " + traceTextConverter.getNumberOfLines() + " lines, " + (wallTime / 1000000) + " ms. Written to " + textFile.getPath());
+        System.exit(0);
+    }
+}
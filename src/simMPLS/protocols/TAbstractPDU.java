@@ -15,14 +15,17 @@
  */
 package simMPLS.protocols;
 
+import java.io.Serializable;
+
 /**
  * This class implements an abstract PDU containing the minimum set of data that
- * is common for all PDU. Cannot be directly instantiated.
+ * is common for all PDU. Cannot be directly instantiated. PDUs are
+ * serializable, so that they can be saved in simulation checkpoints.
  *
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public abstract class TAbstractPDU implements Comparable {
+public abstract class TAbstractPDU implements Comparable, Serializable {
 
     /**
      * This method is the constructor of the class. It is create a new instance
@@ -145,6 +148,7 @@ public abstract class TAbstractPDU implements Comparable {
      */
     public abstract void setSubtype(int packetSubtype);
 
+    private static final long serialVersionUID = 1L;
     // Packet's types
     public static final int IPV4 = 0;
     public static final int MPLS = 1;
@@ -15,6 +15,8 @@
  */
 package simMPLS.protocols;
 
+import java.io.Serializable;
+
 /**
  * This class implements a GPSRP (Guarantee of Service Store and Retransmit
  * Protocol) packet content (payload of GPSRP packet). As defined in the
@@ -24,7 +26,7 @@ package simMPLS.protocols;
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public class TGPSRPPayload {
+public class TGPSRPPayload implements Serializable {
 
     /**
      * This method is the constructor of the class. It is create a new instance
@@ -132,6 +134,7 @@ public class TGPSRPPayload {
         return this.GPSRPMessageType;
     }
 
+    private static final long serialVersionUID = 1L;
     // Types of GPSRP messages
     public static final int RETRANSMISSION_REQUEST = -1;
     public static final int RETRANSMISION_NOT_POSSIBLE = -2;
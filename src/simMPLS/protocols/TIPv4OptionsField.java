@@ -15,6 +15,8 @@
  */
 package simMPLS.protocols;
 
+import java.io.Serializable;
+
 /**
  * This class implements a specifica format of the options field of the IPv4
  * header that is needed to implement the "Guarantee of Service (GoS) support
@@ -23,7 +25,7 @@ package simMPLS.protocols;
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public class TIPv4OptionsField {
+public class TIPv4OptionsField implements Serializable {
 
     /**
      * This method is the constructor of the class. It creates a new instance of
@@ -216,6 +218,7 @@ public class TIPv4OptionsField {
         return null;
     }
 
+    private static final long serialVersionUID = 1L;
     private static final int MAX_REGISTERED_ACTIVE_NODE_IP_ADDRESSES = 8;
 
     private int requestedGoSLevel;
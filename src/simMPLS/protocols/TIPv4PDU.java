@@ -126,6 +126,7 @@ public class TIPv4PDU extends TAbstractPDU {
         this.subType = subtype;
     }
 
+    private static final long serialVersionUID = 1L;
     private int subType;
     private TTCPPayload TCPPayload;
 }
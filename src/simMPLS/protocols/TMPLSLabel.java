@@ -15,13 +15,15 @@
  */
 package simMPLS.protocols;
 
+import java.io.Serializable;
+
 /**
  * This class implements a MPLS label.
  *
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public class TMPLSLabel implements Comparable {
+public class TMPLSLabel implements Comparable, Serializable {
 
     /**
      * This method is the constructor of the class. It is create a new MPLS
@@ -190,6 +192,7 @@ public class TMPLSLabel implements Comparable {
         }
     }
 
+    private static final long serialVersionUID = 1L;
     private int ttl;
     private int label;
     private int exp;
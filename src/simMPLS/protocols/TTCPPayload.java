@@ -15,6 +15,8 @@
  */
 package simMPLS.protocols;
 
+import java.io.Serializable;
+
 /**
  * This class implements a TCP packet content (payload of TCP packet). It is
  * used to simulate packets of different sizes.
@@ -22,7 +24,7 @@ package simMPLS.protocols;
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public class TTCPPayload {
+public class TTCPPayload implements Serializable {
 
     /**
      * This method is the constructor of the class. It is create a new instance
@@ -68,5 +70,6 @@ public class TTCPPayload {
         this.size += size;
     }
 
+    private static final long serialVersionUID = 1L;
     private int size;
 }
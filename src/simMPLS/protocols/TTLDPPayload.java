@@ -15,6 +15,8 @@
  */
 package simMPLS.protocols;
 
+import java.io.Serializable;
+
 /**
  * This class implements a TLDP (Tiny Label Distribution Protocol) packet
  * content. As defined in the proposal "Guarantee of Servico (GoS) Support over
@@ -23,7 +25,7 @@ package simMPLS.protocols;
  * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
  * @version 2.0
  */
-public class TTLDPPayload {
+public class TTLDPPayload implements Serializable {
 
     /**
      * This method is the constructor of the class. It is create a new instance
@@ -156,6 +158,7 @@ public class TTLDPPayload {
         return this.TLDPIdentifier;
     }
 
+    private static final long serialVersionUID = 1L;
     public static final int LABEL_REQUEST = -33;
     public static final int LABEL_REQUEST_DENIED = -31;
     public static final int LABEL_REQUEST_OK = -30;
@@ -25,6 +25,7 @@ import simMPLS.protocols.TMPLSLabel;
 import simMPLS.protocols.TMPLSPDU;
 import simMPLS.protocols.TTLDPPayload;
 import simMPLS.protocols.TIPv4PDU;
+import simMPLS.hardware.timer.TElementTickProfile;
 import simMPLS.hardware.timer.TTimerEvent;
 import simMPLS.hardware.timer.ITimerEventListener;
 import simMPLS.hardware.ports.TActivePortSet;
@@ -256,6 +257,7 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
      */
     @Override
     public void receiveTimerEvent(TTimerEvent timerEvent) {
+        this.wakeUpFromIdleTicks(timerEvent);
         this.setStepDuration(timerEvent.getStepDuration());
         this.setTimeInstant(timerEvent.getUpperLimit());
         if (this.getPorts().isThereAnyPacketToRoute()) {
@@ -278,15 +280,28 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
     public void run() {
         // Actions to be done during the timer tick.
         try {
-            this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), this.getPorts().getCongestionLevel()));
+            if (this.isSimulationEventWanted(TSimulationEvent.NODE_CONGESTED)) {
+                this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), this.getPorts().getCongestionLevel()));
+            }
         } catch (Exception e) {
             // FIX: this is not a good practice. Avoid.
             e.printStackTrace();
         }
+        long phaseStart = this.startTickPhase();
         this.checkConnectivityStatus();
+        this.endTickPhase(TElementTickProfile.CONNECTIVITY_PHASE, phaseStart);
         this.decreaseCounters();
+        phaseStart = this.startTickPhase();
         this.routePackets();
+        phaseStart = this.endTickPhase(TElementTickProfile.SWITCHING_PHASE, phaseStart);
         this.stats.consolidateData(this.getAvailableTime());
+        this.endTickPhase(TElementTickProfile.STATS_PHASE, phaseStart);
+        this.notifyRoutingWeightChange();
+        // A packet selected but not switched yet is not waiting in any port,
+        // but it has to be switched on the next tick.
+        if ((this.getPorts().isThereAnyPacketToRoute()) || (((TActivePortSet) this.getPorts()).isThereAnySelectedPacket()) || (this.switchingMatrix.isWaitingForTLDPResponses()) || (!this.gpsrpRequests.isEmpty())) {
+            this.scheduleNextTimerEvent();
+        }
     }
 
     /**
@@ -388,7 +403,7 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                 switchingMatrixIterator.remove();
             }
         }
-        this.switchingMatrix.getMonitor().unLock();
+        this.switchingMatrix.getMonitor().unlock();
         this.gpsrpRequests.decreaseTimeout(this.getTickDuration());
         this.gpsrpRequests.updateEntries();
         int numberOfPorts = this.ports.getNumberOfPorts();
@@ -424,7 +439,7 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
             }
             gpsrpRequestEntry.resetTimeout();
         }
-        this.gpsrpRequests.getMonitor().unLock();
+        this.gpsrpRequests.getMonitor().unlock();
     }
 
     /**
@@ -503,7 +518,9 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                 if (outgoingPort != null) {
                     outgoingPort.putPacketOnLink(packet, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                     try {
-                        this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_ROUTED)) {
+                            this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                        }
                     } catch (Exception e) {
                         // FIX: This is not a good practice. Avoid.
                         e.printStackTrace();
@@ -533,7 +550,9 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
             if (outgoingPort != null) {
                 outgoingPort.putPacketOnLink(wantedPacket, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                 try {
-                    this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), wantedPacket.getSubtype()));
+                    if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                        this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), wantedPacket.getSubtype()));
+                    }
                 } catch (Exception e) {
                     // FIX: this is not a good practice. Avoid.
                     e.printStackTrace();
@@ -618,8 +637,12 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                 gpsrpPacket.getGPSRPPayload().setGPSRPMessageType(TGPSRPPayload.RETRANSMISSION_REQUEST);
                 outgoingPort.putPacketOnLink(gpsrpPacket, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                 try {
-                    this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP, gpsrpPacket.getSize()));
-                    this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                    if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                        this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP, gpsrpPacket.getSize()));
+                    }
+                    if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                        this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                    }
                 } catch (Exception e) {
                     //FIX: This is not a good practice. Avoid.
                     e.printStackTrace();
@@ -660,8 +683,12 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
             gpsrpPacket.getGPSRPPayload().setGPSRPMessageType(TGPSRPPayload.RETRANSMISSION_REQUEST);
             outgoingPort.putPacketOnLink(gpsrpPacket, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
             try {
-                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP, gpsrpPacket.getSize()));
-                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                    this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP, gpsrpPacket.getSize()));
+                }
+                if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                    this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                }
             } catch (Exception e) {
                 //FIX: This is not a good practice. Avoid.
                 e.printStackTrace();
@@ -694,8 +721,12 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
             gpsrpPacket.getGPSRPPayload().setGPSRPMessageType(TGPSRPPayload.RETRANSMISION_NOT_POSSIBLE);
             outgoingPort.putPacketOnLink(gpsrpPacket, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
             try {
-                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP, gpsrpPacket.getSize()));
-                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                    this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP, gpsrpPacket.getSize()));
+                }
+                if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                    this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                }
             } catch (Exception e) {
                 //FIX: This is not a good practice. Avoid.
                 e.printStackTrace();
@@ -730,8 +761,12 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
             gpsrpPacket.getGPSRPPayload().setGPSRPMessageType(TGPSRPPayload.RETRANSMISION_OK);
             outgoingPort.putPacketOnLink(gpsrpPacket, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
             try {
-                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP, gpsrpPacket.getSize()));
-                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                    this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP, gpsrpPacket.getSize()));
+                }
+                if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                    this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                }
             } catch (Exception e) {
                 //FIX: This is not a good practice. Avoid.
                 e.printStackTrace();
@@ -773,7 +808,6 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                     switchingMatrixEntry.setOutgoingLabel(TSwitchingMatrixEntry.LABEL_REQUESTED);
                     requestTLDP(switchingMatrixEntry);
                 }
-                this.ports.getPort(incomingPortID).reEnqueuePacket(packet);
             }
         }
         if (switchingMatrixEntry != null) {
@@ -815,7 +849,9 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                     }
                     outgoingPort.putPacketOnLink(mplsPacket, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                     try {
-                        this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_ROUTED)) {
+                            this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                        }
                     } catch (Exception e) {
                         // FIX: Avoid this. This is not a good practice.
                         e.printStackTrace();
@@ -828,7 +864,9 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                     TPort outgoingPort = this.ports.getPort(switchingMatrixEntry.getOutgoingPortID());
                     outgoingPort.putPacketOnLink(packet, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                     try {
-                        this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_ROUTED)) {
+                            this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                        }
                     } catch (Exception e) {
                         // FIX: Avoid this. This is not a good practice.
                         e.printStackTrace();
@@ -965,7 +1003,9 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                     }
                     outgoingPort.putPacketOnLink(packet, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                     try {
-                        this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_ROUTED)) {
+                            this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                        }
                     } catch (Exception e) {
                         // FIX: This is not a good practice. Avoid.
                         e.printStackTrace();
@@ -984,7 +1024,9 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                         outgoingPort.putPacketOnLink(packet, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                     }
                     try {
-                        this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_ROUTED)) {
+                            this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                        }
                     } catch (Exception e) {
                         // FIX: This is not a good practice. Avoid.
                         e.printStackTrace();
@@ -1004,7 +1046,9 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                     }
                     outgoingPort.putPacketOnLink(packet, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                     try {
-                        this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_ROUTED)) {
+                            this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                        }
                     } catch (Exception e) {
                         // FIX: This is not a good practice. Avoid.
                         e.printStackTrace();
@@ -1013,7 +1057,9 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                     TPort outgoingPort = this.ports.getPort(switchingMatrixEntry.getOutgoingPortID());
                     outgoingPort.putPacketOnLink(packet, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                     try {
-                        this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_ROUTED)) {
+                            this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                        }
                     } catch (Exception e) {
                         // FIX: This is not a good practice. Avoid.
                         e.printStackTrace();
@@ -1241,7 +1287,7 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
             } else if (currentLabel == TSwitchingMatrixEntry.LABEL_REQUESTED) {
                 switchingMatrixEntry.setOutgoingLabel(packet.getTLDPPayload().getLabel());
                 if (switchingMatrixEntry.getLabelOrFEC() == TSwitchingMatrixEntry.UNDEFINED) {
-                    switchingMatrixEntry.setLabelOrFEC(this.switchingMatrix.getNewLabel());
+                    switchingMatrixEntry.setLabelOrFEC(this.switchingMatrix.getNewLabel(switchingMatrixEntry.getIncomingPortID()));
                 }
                 TInternalLink internalLink = (TInternalLink) this.ports.getPort(incomingPortID).getLink();
                 if (internalLink != null) {
@@ -1272,7 +1318,7 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
             } else if (currentBackupLabel == TSwitchingMatrixEntry.LABEL_REQUESTED) {
                 switchingMatrixEntry.setBackupOutgoingLabel(packet.getTLDPPayload().getLabel());
                 if (switchingMatrixEntry.getLabelOrFEC() == TSwitchingMatrixEntry.UNDEFINED) {
-                    switchingMatrixEntry.setLabelOrFEC(this.switchingMatrix.getNewLabel());
+                    switchingMatrixEntry.setLabelOrFEC(this.switchingMatrix.getNewLabel(switchingMatrixEntry.getIncomingPortID()));
                 }
                 TInternalLink internalLink = (TInternalLink) this.ports.getPort(incomingPortID).getLink();
                 internalLink.setAsUsedByABackupLSP();
@@ -1539,8 +1585,12 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                         TPort outgoingPortID = this.ports.getLocalPortConnectedToANodeWithIPAddress(targetIPAddress);
                         outgoingPortID.putPacketOnLink(newTLDP, outgoingPortID.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, newTLDP.getSize()));
-                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, newTLDP.getSize()));
+                            }
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            }
                         } catch (Exception e) {
                             //FIX: this is not a good practice. Avoid.
                             e.printStackTrace();
@@ -1585,8 +1635,12 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                         TPort outgoingPortID = this.ports.getLocalPortConnectedToANodeWithIPAddress(targetIPAddress);
                         outgoingPortID.putPacketOnLink(tldpPacket, outgoingPortID.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, tldpPacket.getSize()));
-                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, tldpPacket.getSize()));
+                            }
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            }
                         } catch (Exception e) {
                             // FIX: this is not a good practice. Avoid.
                             e.printStackTrace();
@@ -1640,8 +1694,12 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                     TPort outgoingPortID = this.ports.getPort(portID);
                     outgoingPortID.putPacketOnLink(tldpPacket, outgoingPortID.getLink().getTargetNodeIDOfTrafficSentBy(this));
                     try {
-                        this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, tldpPacket.getSize()));
-                        this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, tldpPacket.getSize()));
+                        }
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                        }
                     } catch (Exception e) {
                         // FIX: this is not a good practice. Avoid.
                         e.printStackTrace();
@@ -1686,8 +1744,12 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                     if (outgoingPortID != null) {
                         outgoingPortID.putPacketOnLink(tldpPacket, outgoingPortID.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, tldpPacket.getSize()));
-                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, tldpPacket.getSize()));
+                            }
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            }
                         } catch (Exception e) {
                             // FIX: this is not a good practice. Avoid.
                             e.printStackTrace();
@@ -1741,8 +1803,12 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                                     if (outgoingPortID != null) {
                                         outgoingPortID.putPacketOnLink(tldpPacket, outgoingPortID.getLink().getTargetNodeIDOfTrafficSentBy(this));
                                         try {
-                                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, tldpPacket.getSize()));
-                                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                                                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, tldpPacket.getSize()));
+                                            }
+                                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                                                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                                            }
                                         } catch (Exception e) {
                                             // FIX: this is ugly. Avoid.
                                             e.printStackTrace();
@@ -1802,8 +1868,12 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                     if (outgoingPortID != null) {
                         outgoingPortID.putPacketOnLink(tldpPacket, outgoingPortID.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, tldpPacket.getSize()));
-                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, tldpPacket.getSize()));
+                            }
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            }
                         } catch (Exception e) {
                             // FIX: this is ugly. Avoid.
                             e.printStackTrace();
@@ -1854,8 +1924,12 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                     if (outgoingPortID != null) {
                         outgoingPortID.putPacketOnLink(tldpPacket, outgoingPortID.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, tldpPacket.getSize()));
-                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, tldpPacket.getSize()));
+                            }
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            }
                         } catch (Exception e) {
                             // FIX: this is ugly. Avoid.
                             e.printStackTrace();
@@ -1932,7 +2006,7 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                 }
             }
         }
-        this.switchingMatrix.getMonitor().unLock();
+        this.switchingMatrix.getMonitor().unlock();
     }
 
     /**
@@ -1988,7 +2062,7 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                 switchingMatrixEntry.setLabelStackOperation(TSwitchingMatrixEntry.SWAP_LABEL);
             }
             if (isExitActiveLER(tailEndIPAddress)) {
-                switchingMatrixEntry.setLabelOrFEC(this.switchingMatrix.getNewLabel());
+                switchingMatrixEntry.setLabelOrFEC(this.switchingMatrix.getNewLabel(switchingMatrixEntry.getIncomingPortID()));
                 switchingMatrixEntry.setOutgoingLabel(TSwitchingMatrixEntry.LABEL_ASSIGNED);
                 switchingMatrixEntry.setBackupOutgoingLabel(TSwitchingMatrixEntry.LABEL_ASSIGNED);
             }
@@ -2052,7 +2126,7 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                 // Not possible
             }
             if (isExitActiveLER(tailEndIPAddress)) {
-                switchingMatrixEntry.setLabelOrFEC(this.switchingMatrix.getNewLabel());
+                switchingMatrixEntry.setLabelOrFEC(this.switchingMatrix.getNewLabel(switchingMatrixEntry.getIncomingPortID()));
                 switchingMatrixEntry.setOutgoingLabel(TSwitchingMatrixEntry.LABEL_ASSIGNED);
                 switchingMatrixEntry.setBackupOutgoingLabel(TSwitchingMatrixEntry.LABEL_ASSIGNED);
             }
@@ -2118,7 +2192,7 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
                 switchingMatrixEntry.setLabelStackOperation(TSwitchingMatrixEntry.SWAP_LABEL);
             }
             if (isExitActiveLER(tailEndIPAddress)) {
-                switchingMatrixEntry.setLabelOrFEC(this.switchingMatrix.getNewLabel());
+                switchingMatrixEntry.setLabelOrFEC(this.switchingMatrix.getNewLabel(switchingMatrixEntry.getIncomingPortID()));
                 switchingMatrixEntry.setOutgoingLabel(TSwitchingMatrixEntry.LABEL_ASSIGNED);
                 switchingMatrixEntry.setBackupOutgoingLabel(TSwitchingMatrixEntry.LABEL_ASSIGNED);
             }
@@ -2172,7 +2246,9 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
         mplsPacket.getLabelStack().pushTop(mplsLabel);
         ipv4Packet = null;
         try {
-            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), mplsPacket.getSubtype(), mplsPacket.getSize()));
+            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), mplsPacket.getSubtype(), mplsPacket.getSize()));
+            }
         } catch (Exception e) {
             // FIX: this is ugly. Avoid.
             e.printStackTrace();
@@ -2212,7 +2288,9 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
             ipv4Packet.setSubtype(TAbstractPDU.IPV4_GOS);
         }
         try {
-            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), ipv4Packet.getSubtype(), ipv4Packet.getSize()));
+            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), ipv4Packet.getSubtype(), ipv4Packet.getSize()));
+            }
         } catch (Exception e) {
             // FIX: this is ugly. Avoid.
             e.printStackTrace();
@@ -2250,7 +2328,9 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
     @Override
     public void discardPacket(TAbstractPDU packet) {
         try {
-            this.generateSimulationEvent(new TSEPacketDiscarded(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_DISCARDED)) {
+                this.generateSimulationEvent(new TSEPacketDiscarded(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+            }
             this.stats.addStatEntry(packet, TStats.DISCARD);
         } catch (Exception e) {
             // FIX: this is ugly. Avoid.
@@ -2535,6 +2615,7 @@ public class TActiveLERNode extends TNode implements ITimerEventListener, Runnab
         this.ports = new TActivePortSet(numPorts, this);
     }
 
+    private static final long serialVersionUID = 1L;
     // FIX: This values are used to check that the active LER node is correctly
     // configured through the UI. It should not be here but in another place.
     public static final int OK = 0;
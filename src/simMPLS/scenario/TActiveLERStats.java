@@ -972,6 +972,7 @@ public class TActiveLERStats extends TStats {
         return null;
     }
 
+    private static final long serialVersionUID = 1L;
     private int incomingIPv4PacketsOfThisTimeInstant;
     private int incomingIPv4GOS1PacketsOfThisTimeInstant;
     private int incomingIPv4GOS2PacketsOfThisTimeInstant;
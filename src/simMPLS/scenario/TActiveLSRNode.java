@@ -24,6 +24,7 @@ import simMPLS.protocols.TAbstractPDU;
 import simMPLS.protocols.TMPLSLabel;
 import simMPLS.protocols.TMPLSPDU;
 import simMPLS.protocols.TTLDPPayload;
+import simMPLS.hardware.timer.TElementTickProfile;
 import simMPLS.hardware.timer.TTimerEvent;
 import simMPLS.hardware.timer.ITimerEventListener;
 import simMPLS.hardware.ports.TActivePortSet;
@@ -253,6 +254,7 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
      */
     @Override
     public void receiveTimerEvent(TTimerEvent timerEvent) {
+        this.wakeUpFromIdleTicks(timerEvent);
         this.setStepDuration(timerEvent.getStepDuration());
         this.setTimeInstant(timerEvent.getUpperLimit());
         if (this.getPorts().isAnyPacketToSwitch()) {
@@ -275,15 +277,28 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
     public void run() {
         // Actions to be done during the timer tick.
         try {
-            this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), this.getPorts().getCongestionLevel()));
+            if (this.isSimulationEventWanted(TSimulationEvent.NODE_CONGESTED)) {
+                this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), this.getPorts().getCongestionLevel()));
+            }
         } catch (Exception e) {
             // FIX: this is not a good practice. Avoid.
             e.printStackTrace();
         }
+        long phaseStart = this.startTickPhase();
         this.checkConnectivityStatus();
+        this.endTickPhase(TElementTickProfile.CONNECTIVITY_PHASE, phaseStart);
         this.decreaseCounters();
+        phaseStart = this.startTickPhase();
         this.switchPackets();
+        phaseStart = this.endTickPhase(TElementTickProfile.SWITCHING_PHASE, phaseStart);
         this.stats.consolidateData(this.getAvailableTime());
+        this.endTickPhase(TElementTickProfile.STATS_PHASE, phaseStart);
+        this.notifyRoutingWeightChange();
+        // A packet selected but not switched yet is not waiting in any port,
+        // but it has to be switched on the next tick.
+        if ((this.getPorts().isAnyPacketToSwitch()) || (((TActivePortSet) this.getPorts()).isThereAnySelectedPacket()) || (this.switchingMatrix.isWaitingForTLDPResponses()) || (!this.gpsrpRequests.isEmpty())) {
+            this.scheduleNextTimerEvent();
+        }
     }
 
     /**
@@ -361,7 +376,7 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
                 switchingMatrixIterator.remove();
             }
         }
-        this.switchingMatrix.getMonitor().unLock();
+        this.switchingMatrix.getMonitor().unlock();
         this.gpsrpRequests.decreaseTimeout(this.getTickDuration());
         this.gpsrpRequests.updateEntries();
         int numberOfPorts = this.ports.getNumberOfPorts();
@@ -397,7 +412,7 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
             }
             gpsrpRequestEntry.resetTimeout();
         }
-        this.gpsrpRequests.getMonitor().unLock();
+        this.gpsrpRequests.getMonitor().unlock();
     }
 
     /**
@@ -474,7 +489,9 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
                 if (outgoingPort != null) {
                     outgoingPort.putPacketOnLink(packet, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                     try {
-                        this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_ROUTED)) {
+                            this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                        }
                     } catch (Exception e) {
                         // FIX: This is not a good practice. Avoid.
                         e.printStackTrace();
@@ -504,7 +521,9 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
             if (outgoingPort != null) {
                 outgoingPort.putPacketOnLink(wantedPacket, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                 try {
-                    this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), wantedPacket.getSubtype()));
+                    if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                        this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), wantedPacket.getSubtype()));
+                    }
                 } catch (Exception e) {
                     // FIX: this is not a good practice. Avoid.
                     e.printStackTrace();
@@ -589,8 +608,12 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
                 gpsrpPacket.getGPSRPPayload().setGPSRPMessageType(TGPSRPPayload.RETRANSMISSION_REQUEST);
                 outgoingPort.putPacketOnLink(gpsrpPacket, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                 try {
-                    this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP, gpsrpPacket.getSize()));
-                    this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                    if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                        this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP, gpsrpPacket.getSize()));
+                    }
+                    if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                        this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                    }
                 } catch (Exception e) {
                     //FIX: This is not a good practice. Avoid.
                     e.printStackTrace();
@@ -631,8 +654,12 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
             gpsrpPacket.getGPSRPPayload().setGPSRPMessageType(TGPSRPPayload.RETRANSMISSION_REQUEST);
             outgoingPort.putPacketOnLink(gpsrpPacket, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
             try {
-                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP, gpsrpPacket.getSize()));
-                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                    this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP, gpsrpPacket.getSize()));
+                }
+                if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                    this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                }
             } catch (Exception e) {
                 //FIX: This is not a good practice. Avoid.
                 e.printStackTrace();
@@ -665,8 +692,12 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
             gpsrpPacket.getGPSRPPayload().setGPSRPMessageType(TGPSRPPayload.RETRANSMISION_NOT_POSSIBLE);
             outgoingPort.putPacketOnLink(gpsrpPacket, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
             try {
-                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP, gpsrpPacket.getSize()));
-                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                    this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP, gpsrpPacket.getSize()));
+                }
+                if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                    this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                }
             } catch (Exception e) {
                 //FIX: This is not a good practice. Avoid.
                 e.printStackTrace();
@@ -701,8 +732,12 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
             gpsrpPacket.getGPSRPPayload().setGPSRPMessageType(TGPSRPPayload.RETRANSMISION_OK);
             outgoingPort.putPacketOnLink(gpsrpPacket, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
             try {
-                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP, gpsrpPacket.getSize()));
-                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                    this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP, gpsrpPacket.getSize()));
+                }
+                if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                    this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                }
             } catch (Exception e) {
                 //FIX: This is not a good practice. Avoid.
                 e.printStackTrace();
@@ -823,7 +858,9 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
                     TPort outgoingPort = this.ports.getPort(switchingMatrixEntry.getOutgoingPortID());
                     outgoingPort.putPacketOnLink(packet, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                     try {
-                        this.generateSimulationEvent(new TSEPacketSwitched(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SWITCHED)) {
+                            this.generateSimulationEvent(new TSEPacketSwitched(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                        }
                     } catch (Exception e) {
                         // FIX: This is not a good practice. Avoid.
                         e.printStackTrace();
@@ -838,7 +875,9 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
                     TPort outgoingPort = this.ports.getPort(switchingMatrixEntry.getOutgoingPortID());
                     outgoingPort.putPacketOnLink(packet, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                     try {
-                        this.generateSimulationEvent(new TSEPacketSwitched(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SWITCHED)) {
+                            this.generateSimulationEvent(new TSEPacketSwitched(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                        }
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
@@ -861,7 +900,9 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
                         switchingMatrixEntry.setEntryIsForBackupLSP(false);
                     }
                     try {
-                        this.generateSimulationEvent(new TSEPacketSwitched(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SWITCHED)) {
+                            this.generateSimulationEvent(new TSEPacketSwitched(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                        }
                     } catch (Exception e) {
                         // FIX: This is not a good practice. Avoid.
                         e.printStackTrace();
@@ -870,7 +911,9 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
                     TPort outgoingPort = this.ports.getPort(switchingMatrixEntry.getOutgoingPortID());
                     outgoingPort.putPacketOnLink(packet, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                     try {
-                        this.generateSimulationEvent(new TSEPacketSwitched(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SWITCHED)) {
+                            this.generateSimulationEvent(new TSEPacketSwitched(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                        }
                     } catch (Exception e) {
                         // FIX: This is not a good practice. Avoid.
                         e.printStackTrace();
@@ -1075,7 +1118,7 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
             } else if (currentLabel == TSwitchingMatrixEntry.LABEL_REQUESTED) {
                 switchingMatrixEntry.setOutgoingLabel(packet.getTLDPPayload().getLabel());
                 if (switchingMatrixEntry.getLabelOrFEC() == TSwitchingMatrixEntry.UNDEFINED) {
-                    switchingMatrixEntry.setLabelOrFEC(this.switchingMatrix.getNewLabel());
+                    switchingMatrixEntry.setLabelOrFEC(this.switchingMatrix.getNewLabel(switchingMatrixEntry.getIncomingPortID()));
                 }
                 TInternalLink internalLink = (TInternalLink) this.ports.getPort(incomingPortID).getLink();
                 if (internalLink != null) {
@@ -1106,7 +1149,7 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
             } else if (currentBackupLabel == TSwitchingMatrixEntry.LABEL_REQUESTED) {
                 switchingMatrixEntry.setBackupOutgoingLabel(packet.getTLDPPayload().getLabel());
                 if (switchingMatrixEntry.getLabelOrFEC() == TSwitchingMatrixEntry.UNDEFINED) {
-                    switchingMatrixEntry.setLabelOrFEC(this.switchingMatrix.getNewLabel());
+                    switchingMatrixEntry.setLabelOrFEC(this.switchingMatrix.getNewLabel(switchingMatrixEntry.getIncomingPortID()));
                 }
                 TInternalLink et = (TInternalLink) this.ports.getPort(incomingPortID).getLink();
                 if (et != null) {
@@ -1346,8 +1389,12 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
                         TPort outgoingPort = this.ports.getLocalPortConnectedToANodeWithIPAddress(targetIPv4Address);
                         outgoingPort.putPacketOnLink(newTLDPPacket, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, newTLDPPacket.getSize()));
-                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, newTLDPPacket.getSize()));
+                            }
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            }
                         } catch (Exception e) {
                             // FIX: this is not a good practice
                             e.printStackTrace();
@@ -1393,8 +1440,12 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
                         TPort outgoingPort = this.ports.getLocalPortConnectedToANodeWithIPAddress(targetIPv4Address);
                         outgoingPort.putPacketOnLink(newTLDPPacket, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, newTLDPPacket.getSize()));
-                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, newTLDPPacket.getSize()));
+                            }
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            }
                         } catch (Exception e) {
                             // FIX: This is not a good practice
                             e.printStackTrace();
@@ -1449,8 +1500,12 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
                     TPort outgoingPort = this.ports.getPort(portID);
                     outgoingPort.putPacketOnLink(newTLDPPacket, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                     try {
-                        this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, newTLDPPacket.getSize()));
-                        this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, newTLDPPacket.getSize()));
+                        }
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                        }
                     } catch (Exception e) {
                         // FIX: This is not a good practice
                         e.printStackTrace();
@@ -1496,8 +1551,12 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
                     outgoingPort.putPacketOnLink(newTLDPPacket, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                     switchingMatrixEntry.setOutgoingPortID(outgoingPort.getPortID());
                     try {
-                        this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, newTLDPPacket.getSize()));
-                        this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, newTLDPPacket.getSize()));
+                        }
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                        }
                     } catch (Exception e) {
                         // FIX: This is not a good practice
                         e.printStackTrace();
@@ -1551,8 +1610,12 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
                                 if (outgoingBackupPort != null) {
                                     outgoingBackupPort.putPacketOnLink(newTLDPPacket, outgoingBackupPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                                     try {
-                                        this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, newTLDPPacket.getSize()));
-                                        this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, newTLDPPacket.getSize()));
+                                        }
+                                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                                        }
                                     } catch (Exception e) {
                                         // FIX: This is not a good practice
                                         e.printStackTrace();
@@ -1612,8 +1675,12 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
                     if (outgoingPort != null) {
                         outgoingPort.putPacketOnLink(newTLDPPacket, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, newTLDPPacket.getSize()));
-                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, newTLDPPacket.getSize()));
+                            }
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            }
                         } catch (Exception e) {
                             // FIX: This is not a good practice
                             e.printStackTrace();
@@ -1664,8 +1731,12 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
                     if (outgoingPort != null) {
                         outgoingPort.putPacketOnLink(newTLDPPacket, outgoingPort.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, newTLDPPacket.getSize()));
-                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, newTLDPPacket.getSize()));
+                            }
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            }
                         } catch (Exception e) {
                             // FIX: This is not a good practice
                             e.printStackTrace();
@@ -1742,7 +1813,7 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
                 }
             }
         }
-        this.switchingMatrix.getMonitor().unLock();
+        this.switchingMatrix.getMonitor().unlock();
     }
 
     /**
@@ -1800,7 +1871,9 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
     @Override
     public void discardPacket(TAbstractPDU packet) {
         try {
-            this.generateSimulationEvent(new TSEPacketDiscarded(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_DISCARDED)) {
+                this.generateSimulationEvent(new TSEPacketDiscarded(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+            }
             this.stats.addStatEntry(packet, TStats.DISCARD);
         } catch (Exception e) {
             // FIX: this is ugly. Avoid.
@@ -2041,6 +2114,7 @@ public class TActiveLSRNode extends TNode implements ITimerEventListener, Runnab
         this.ports = new TActivePortSet(numPorts, this);
     }
 
+    private static final long serialVersionUID = 1L;
     public static final int OK = 0;
     public static final int UNNAMED = 1;
     public static final int NAME_ALREADY_EXISTS = 2;
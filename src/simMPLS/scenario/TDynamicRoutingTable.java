@@ -0,0 +1,751 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.scenario;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import simMPLS.hardware.timer.TTimer;
+import simMPLS.utils.TLock;
+
+/**
+ * This class implements the next-hop table used by the RABAN routing of
+ * active nodes. RABAN weights depend on the state of links and nodes, so they
+ * change while the simulation runs. Instead of computing every path again on
+ * each query, this class keeps a shortest path tree for each origin node that
+ * has been queried and repairs only the part of each tree affected by a weight
+ * change. Links and nodes notify their changes at any moment, but these are
+ * applied in a single batch at most once per simulation instant. Adding or
+ * removing nodes or links makes the whole table to be built again.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TDynamicRoutingTable implements Serializable {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TDynamicRoutingTable for the specified topology.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param topology The topology whose RABAN paths will be computed.
+     * @since 2.0
+     */
+    public TDynamicRoutingTable(TTopology topology) {
+        this.topology = topology;
+        this.monitor = new TLock("TDynamicRoutingTable.monitor");
+        this.changesMonitor = new TLock("TDynamicRoutingTable.changesMonitor");
+        this.changedLinks = new HashSet<TLink>();
+        this.changedNodes = new HashSet<TNode>();
+        this.rebuildRequired = true;
+        this.lastBatchInstant = -1;
+        this.nodeIDs = new int[0];
+        this.nodeIndexes = new HashMap<Integer, Integer>();
+        this.links = new TLink[0];
+        this.linkIndexes = new HashMap<TLink, Integer>();
+        this.linkEnd1 = new int[0];
+        this.linkEnd2 = new int[0];
+        this.linkWeights = new long[0];
+        this.adjacentLinks = new int[0][];
+        this.distances = new long[0][];
+        this.parentLinks = new int[0][];
+        this.firstHops = new int[0][];
+        this.numberOfFullComputations = 0;
+        this.numberOfRepairs = 0;
+    }
+
+    /**
+     * This method notifies the table that the RABAN weight of a link may have
+     * changed. The change is applied on the next batch.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param link The link whose weight may have changed.
+     * @since 2.0
+     */
+    public void notifyLinkChange(TLink link) {
+        this.changesMonitor.lock();
+        this.changedLinks.add(link);
+        this.changesMonitor.unlock();
+    }
+
+    /**
+     * This method notifies the table that the routing weight of a node may
+     * have changed, and so the RABAN weight of every link connected to it. The
+     * change is applied on the next batch.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param node The node whose routing weight may have changed.
+     * @since 2.0
+     */
+    public void notifyNodeChange(TNode node) {
+        this.changesMonitor.lock();
+        this.changedNodes.add(node);
+        this.changesMonitor.unlock();
+    }
+
+    /**
+     * This method discards the whole table, so that it is built again from
+     * the topology on the next query. It has to be called whenever a node or
+     * a link is added or removed, or when the state of a link changes.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void invalidate() {
+        this.changesMonitor.lock();
+        this.rebuildRequired = true;
+        this.changesMonitor.unlock();
+    }
+
+    /**
+     * This method obtains the identifier of the node adjacent to the origin
+     * through which the best RABAN path to the target starts.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param originID Identifier of the origin node.
+     * @param targetID Identifier of the target node.
+     * @return The identifier of the next hop, or TTopology.SIN_CAMINO if
+     * there is no path between both nodes.
+     * @since 2.0
+     */
+    public int getNextHop(int originID, int targetID) {
+        int nextHop = TTopology.SIN_CAMINO;
+        this.monitor.lock();
+        this.update();
+        if (this.nodeIDs.length > 0) {
+            int originIndex = this.getIndexOrFirst(originID);
+            int targetIndex = 0;
+            if (targetID != originID) {
+                targetIndex = this.getIndexOrFirst(targetID);
+            }
+            if (this.distances[originIndex] == null) {
+                this.computeTree(originIndex);
+            }
+            int nextHopIndex = this.firstHops[originIndex][targetIndex];
+            if (nextHopIndex != TTopology.SIN_CAMINO) {
+                nextHop = this.nodeIDs[nextHopIndex];
+            } else if (this.areAdjacent(originID, targetID)) {
+                nextHop = targetID;
+            }
+        }
+        this.monitor.unlock();
+        return nextHop;
+    }
+
+    /**
+     * This method obtains the identifier of the node adjacent to the origin
+     * through which the best RABAN path to the target starts, without using
+     * the link between the origin and the specified node. This path is not
+     * cached, as it is only requested when a backup path is needed.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param originID Identifier of the origin node.
+     * @param targetID Identifier of the target node.
+     * @param nodeToAvoidID Identifier of a node adjacent to the origin. The
+     * link between both nodes will not be used.
+     * @return The identifier of the next hop, or TTopology.SIN_CAMINO if
+     * there is no path between both nodes.
+     * @since 2.0
+     */
+    public int getNextHop(int originID, int targetID, int nodeToAvoidID) {
+        int nextHop = TTopology.SIN_CAMINO;
+        this.monitor.lock();
+        this.update();
+        int numberOfNodes = this.nodeIDs.length;
+        if (numberOfNodes > 0) {
+            int originIndex = this.getIndexOrFirst(originID);
+            int targetIndex = 0;
+            int nodeToAvoidIndex = 0;
+            if (targetID != originID) {
+                targetIndex = this.getIndexOrFirst(targetID);
+            }
+            if ((nodeToAvoidID != originID) && (nodeToAvoidID != targetID)) {
+                nodeToAvoidIndex = this.getIndexOrFirst(nodeToAvoidID);
+            }
+            long[] distance = new long[numberOfNodes];
+            int[] parentLink = new int[numberOfNodes];
+            int[] firstHop = new int[numberOfNodes];
+            for (int i = 0; i < numberOfNodes; i++) {
+                distance[i] = TTopology.PESO_INFINITO;
+                parentLink[i] = TDynamicRoutingTable.NO_LINK;
+                firstHop[i] = TTopology.SIN_CAMINO;
+            }
+            distance[originIndex] = 0;
+            int[] openNodes = new int[numberOfNodes];
+            boolean[] open = new boolean[numberOfNodes];
+            openNodes[0] = originIndex;
+            open[originIndex] = true;
+            this.propagate(originIndex, distance, parentLink, firstHop, openNodes, open, 1, nodeToAvoidIndex);
+            int nextHopIndex = firstHop[targetIndex];
+            if (nextHopIndex != TTopology.SIN_CAMINO) {
+                nextHop = this.nodeIDs[nextHopIndex];
+            } else if (this.areAdjacent(originID, targetID)) {
+                nextHop = targetID;
+            }
+        }
+        this.monitor.unlock();
+        return nextHop;
+    }
+
+    /**
+     * This method returns how many shortest path trees have been computed
+     * from scratch since the table was created.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of full computations.
+     * @since 2.0
+     */
+    public long getNumberOfFullComputations() {
+        return this.numberOfFullComputations;
+    }
+
+    /**
+     * This method returns how many times a shortest path tree has been
+     * partially repaired after a weight change since the table was created.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of repairs.
+     * @since 2.0
+     */
+    public long getNumberOfRepairs() {
+        return this.numberOfRepairs;
+    }
+
+    /**
+     * This method brings the table up to date. If the topology has changed it
+     * is built again. Otherwise, pending weight changes are applied, but only
+     * once per simulation instant, so that every query done during a tick
+     * sees the same weights.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    private void update() {
+        long currentInstant = -1;
+        TTimer timer = this.topology.obtenerReloj();
+        if (timer != null) {
+            currentInstant = timer.getCurrentInstant();
+        }
+        boolean rebuild = false;
+        HashSet<TLink> linksToUpdate = null;
+        HashSet<TNode> nodesToUpdate = null;
+        this.changesMonitor.lock();
+        if (this.rebuildRequired) {
+            rebuild = true;
+            this.rebuildRequired = false;
+            this.changedLinks.clear();
+            this.changedNodes.clear();
+        } else if ((currentInstant != this.lastBatchInstant) && (!this.changedLinks.isEmpty() || !this.changedNodes.isEmpty())) {
+            linksToUpdate = this.changedLinks;
+            nodesToUpdate = this.changedNodes;
+            this.changedLinks = new HashSet<TLink>();
+            this.changedNodes = new HashSet<TNode>();
+        }
+        this.changesMonitor.unlock();
+        if (rebuild) {
+            this.rebuild();
+            this.lastBatchInstant = currentInstant;
+        } else if (linksToUpdate != null) {
+            this.applyChanges(linksToUpdate, nodesToUpdate);
+            this.lastBatchInstant = currentInstant;
+        }
+    }
+
+    /**
+     * This method builds the graph again from the nodes and links of the
+     * topology and discards every shortest path tree.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    private void rebuild() {
+        int numberOfNodes = 0;
+        Iterator<?> iterator = this.topology.getNodesIterator();
+        while (iterator.hasNext()) {
+            iterator.next();
+            numberOfNodes++;
+        }
+        this.nodeIDs = new int[numberOfNodes];
+        this.nodeIndexes = new HashMap<Integer, Integer>();
+        int i = 0;
+        iterator = this.topology.getNodesIterator();
+        while (iterator.hasNext() && (i < numberOfNodes)) {
+            TNode node = (TNode) iterator.next();
+            this.nodeIDs[i] = node.getID();
+            this.nodeIndexes.put(Integer.valueOf(node.getID()), Integer.valueOf(i));
+            i++;
+        }
+        int numberOfLinks = 0;
+        iterator = this.topology.getLinksIterator();
+        while (iterator.hasNext()) {
+            iterator.next();
+            numberOfLinks++;
+        }
+        TLink[] allLinks = new TLink[numberOfLinks];
+        int[] end1 = new int[numberOfLinks];
+        int[] end2 = new int[numberOfLinks];
+        int[] degrees = new int[numberOfNodes];
+        int j = 0;
+        iterator = this.topology.getLinksIterator();
+        while (iterator.hasNext() && (j < numberOfLinks)) {
+            TLink link = (TLink) iterator.next();
+            if ((link.getNodeAtEnd1() == null) || (link.getNodeAtEnd2() == null)) {
+                continue;
+            }
+            int index1 = this.getIndex(link.getNodeAtEnd1().getID());
+            int index2 = this.getIndex(link.getNodeAtEnd2().getID());
+            if ((index1 < 0) || (index2 < 0) || (index1 == index2)) {
+                continue;
+            }
+            allLinks[j] = link;
+            end1[j] = index1;
+            end2[j] = index2;
+            degrees[index1]++;
+            degrees[index2]++;
+            j++;
+        }
+        numberOfLinks = j;
+        this.links = new TLink[numberOfLinks];
+        this.linkEnd1 = new int[numberOfLinks];
+        this.linkEnd2 = new int[numberOfLinks];
+        this.linkWeights = new long[numberOfLinks];
+        this.linkIndexes = new HashMap<TLink, Integer>();
+        this.adjacentLinks = new int[numberOfNodes][];
+        for (i = 0; i < numberOfNodes; i++) {
+            this.adjacentLinks[i] = new int[degrees[i]];
+            degrees[i] = 0;
+        }
+        for (j = 0; j < numberOfLinks; j++) {
+            this.links[j] = allLinks[j];
+            this.linkEnd1[j] = end1[j];
+            this.linkEnd2[j] = end2[j];
+            this.linkWeights[j] = this.getWeight(allLinks[j]);
+            this.linkIndexes.put(allLinks[j], Integer.valueOf(j));
+            this.adjacentLinks[end1[j]][degrees[end1[j]]++] = j;
+            this.adjacentLinks[end2[j]][degrees[end2[j]]++] = j;
+        }
+        this.distances = new long[numberOfNodes][];
+        this.parentLinks = new int[numberOfNodes][];
+        this.firstHops = new int[numberOfNodes][];
+    }
+
+    /**
+     * This method reads again the weight of the links that have notified a
+     * change, and of the links connected to nodes that have notified a change,
+     * and repairs the shortest path trees affected.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param linksToUpdate Links that have notified a change.
+     * @param nodesToUpdate Nodes that have notified a change.
+     * @since 2.0
+     */
+    private void applyChanges(HashSet<TLink> linksToUpdate, HashSet<TNode> nodesToUpdate) {
+        HashSet<Integer> linkIndexesToUpdate = new HashSet<Integer>();
+        Iterator<TLink> linkIterator = linksToUpdate.iterator();
+        while (linkIterator.hasNext()) {
+            Integer linkIndex = this.linkIndexes.get(linkIterator.next());
+            if (linkIndex != null) {
+                linkIndexesToUpdate.add(linkIndex);
+            }
+        }
+        Iterator<TNode> nodeIterator = nodesToUpdate.iterator();
+        while (nodeIterator.hasNext()) {
+            int nodeIndex = this.getIndex(nodeIterator.next().getID());
+            if (nodeIndex >= 0) {
+                for (int i = 0; i < this.adjacentLinks[nodeIndex].length; i++) {
+                    linkIndexesToUpdate.add(Integer.valueOf(this.adjacentLinks[nodeIndex][i]));
+                }
+            }
+        }
+        int numberOfChanges = 0;
+        int[] changedLinkIndexes = new int[linkIndexesToUpdate.size()];
+        long[] oldWeights = new long[linkIndexesToUpdate.size()];
+        Iterator<Integer> linkIndexIterator = linkIndexesToUpdate.iterator();
+        while (linkIndexIterator.hasNext()) {
+            int linkIndex = linkIndexIterator.next().intValue();
+            long newWeight = this.getWeight(this.links[linkIndex]);
+            if (newWeight != this.linkWeights[linkIndex]) {
+                changedLinkIndexes[numberOfChanges] = linkIndex;
+                oldWeights[numberOfChanges] = this.linkWeights[linkIndex];
+                this.linkWeights[linkIndex] = newWeight;
+                numberOfChanges++;
+            }
+        }
+        if (numberOfChanges == 0) {
+            return;
+        }
+        // When most links have changed, repairing the trees one change at a
+        // time costs more than computing again the ones that are queried.
+        if ((numberOfChanges * TDynamicRoutingTable.REPAIR_THRESHOLD) > this.links.length) {
+            for (int i = 0; i < this.nodeIDs.length; i++) {
+                this.discardTree(i);
+            }
+            return;
+        }
+        for (int i = 0; i < this.nodeIDs.length; i++) {
+            if (this.distances[i] != null) {
+                for (int j = 0; j < numberOfChanges; j++) {
+                    if (this.linkWeights[changedLinkIndexes[j]] > oldWeights[j]) {
+                        this.repairAfterIncrease(i, changedLinkIndexes[j]);
+                    } else {
+                        this.repairAfterDecrease(i, changedLinkIndexes[j]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * This method computes from scratch the shortest path tree rooted at the
+     * specified node.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param rootIndex Index of the root node.
+     * @since 2.0
+     */
+    private void computeTree(int rootIndex) {
+        int numberOfNodes = this.nodeIDs.length;
+        this.distances[rootIndex] = new long[numberOfNodes];
+        this.parentLinks[rootIndex] = new int[numberOfNodes];
+        this.firstHops[rootIndex] = new int[numberOfNodes];
+        for (int i = 0; i < numberOfNodes; i++) {
+            this.distances[rootIndex][i] = TTopology.PESO_INFINITO;
+            this.parentLinks[rootIndex][i] = TDynamicRoutingTable.NO_LINK;
+            this.firstHops[rootIndex][i] = TTopology.SIN_CAMINO;
+        }
+        this.distances[rootIndex][rootIndex] = 0;
+        int[] openNodes = new int[numberOfNodes];
+        boolean[] open = new boolean[numberOfNodes];
+        openNodes[0] = rootIndex;
+        open[rootIndex] = true;
+        this.propagate(rootIndex, this.distances[rootIndex], this.parentLinks[rootIndex], this.firstHops[rootIndex], openNodes, open, 1, TDynamicRoutingTable.NO_NODE);
+        this.numberOfFullComputations++;
+    }
+
+    /**
+     * This method discards the shortest path tree rooted at the specified
+     * node. It will be computed again when needed.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param rootIndex Index of the root node.
+     * @since 2.0
+     */
+    private void discardTree(int rootIndex) {
+        this.distances[rootIndex] = null;
+        this.parentLinks[rootIndex] = null;
+        this.firstHops[rootIndex] = null;
+    }
+
+    /**
+     * This method repairs a shortest path tree after the weight of a link has
+     * decreased. Only nodes that get a shorter path through that link are
+     * visited.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param rootIndex Index of the root of the tree.
+     * @param linkIndex Index of the link whose weight has decreased.
+     * @since 2.0
+     */
+    private void repairAfterDecrease(int rootIndex, int linkIndex) {
+        long weight = this.linkWeights[linkIndex];
+        if (weight == TTopology.PESO_INFINITO) {
+            return;
+        }
+        long[] distance = this.distances[rootIndex];
+        int from = this.linkEnd1[linkIndex];
+        int to = this.linkEnd2[linkIndex];
+        if ((distance[to] != TTopology.PESO_INFINITO) && ((distance[from] == TTopology.PESO_INFINITO) || (distance[to] < distance[from]))) {
+            from = this.linkEnd2[linkIndex];
+            to = this.linkEnd1[linkIndex];
+        }
+        if ((distance[from] == TTopology.PESO_INFINITO) || ((distance[from] + weight) >= distance[to])) {
+            return;
+        }
+        distance[to] = distance[from] + weight;
+        this.parentLinks[rootIndex][to] = linkIndex;
+        if (from == rootIndex) {
+            this.firstHops[rootIndex][to] = to;
+        } else {
+            this.firstHops[rootIndex][to] = this.firstHops[rootIndex][from];
+        }
+        int[] openNodes = new int[this.nodeIDs.length];
+        boolean[] open = new boolean[this.nodeIDs.length];
+        openNodes[0] = to;
+        open[to] = true;
+        this.propagate(rootIndex, distance, this.parentLinks[rootIndex], this.firstHops[rootIndex], openNodes, open, 1, TDynamicRoutingTable.NO_NODE);
+        this.numberOfRepairs++;
+    }
+
+    /**
+     * This method repairs a shortest path tree after the weight of a link has
+     * increased. If the link is not part of the tree, nothing changes.
+     * Otherwise, only the nodes below the link in the tree are computed
+     * again, starting from their neighbours outside that subtree.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param rootIndex Index of the root of the tree.
+     * @param linkIndex Index of the link whose weight has increased.
+     * @since 2.0
+     */
+    private void repairAfterIncrease(int rootIndex, int linkIndex) {
+        int numberOfNodes = this.nodeIDs.length;
+        long[] distance = this.distances[rootIndex];
+        int[] parentLink = this.parentLinks[rootIndex];
+        int[] firstHop = this.firstHops[rootIndex];
+        int subtreeRoot = TDynamicRoutingTable.NO_NODE;
+        if (parentLink[this.linkEnd1[linkIndex]] == linkIndex) {
+            subtreeRoot = this.linkEnd1[linkIndex];
+        } else if (parentLink[this.linkEnd2[linkIndex]] == linkIndex) {
+            subtreeRoot = this.linkEnd2[linkIndex];
+        }
+        if (subtreeRoot == TDynamicRoutingTable.NO_NODE) {
+            return;
+        }
+        // Collects the nodes whose path goes through the link.
+        boolean[] affected = new boolean[numberOfNodes];
+        int[] affectedNodes = new int[numberOfNodes];
+        int numberOfAffectedNodes = 0;
+        affected[subtreeRoot] = true;
+        affectedNodes[numberOfAffectedNodes++] = subtreeRoot;
+        for (int i = 0; i < numberOfAffectedNodes; i++) {
+            int node = affectedNodes[i];
+            for (int j = 0; j < this.adjacentLinks[node].length; j++) {
+                int link = this.adjacentLinks[node][j];
+                int child = this.getOtherEnd(link, node);
+                if ((parentLink[child] == link) && !affected[child]) {
+                    affected[child] = true;
+                    affectedNodes[numberOfAffectedNodes++] = child;
+                }
+            }
+        }
+        for (int i = 0; i < numberOfAffectedNodes; i++) {
+            int node = affectedNodes[i];
+            distance[node] = TTopology.PESO_INFINITO;
+            parentLink[node] = TDynamicRoutingTable.NO_LINK;
+            firstHop[node] = TTopology.SIN_CAMINO;
+        }
+        // Each affected node starts from its best neighbour outside the
+        // subtree, whose path has not changed.
+        int[] openNodes = new int[numberOfNodes];
+        boolean[] open = new boolean[numberOfNodes];
+        int numberOfOpenNodes = 0;
+        for (int i = 0; i < numberOfAffectedNodes; i++) {
+            int node = affectedNodes[i];
+            for (int j = 0; j < this.adjacentLinks[node].length; j++) {
+                int link = this.adjacentLinks[node][j];
+                int neighbour = this.getOtherEnd(link, node);
+                if (!affected[neighbour] && (distance[neighbour] != TTopology.PESO_INFINITO) && (this.linkWeights[link] != TTopology.PESO_INFINITO)) {
+                    long newDistance = distance[neighbour] + this.linkWeights[link];
+                    if (newDistance < distance[node]) {
+                        distance[node] = newDistance;
+                        parentLink[node] = link;
+                        if (neighbour == rootIndex) {
+                            firstHop[node] = node;
+                        } else {
+                            firstHop[node] = firstHop[neighbour];
+                        }
+                    }
+                }
+            }
+            if ((distance[node] != TTopology.PESO_INFINITO) && !open[node]) {
+                open[node] = true;
+                openNodes[numberOfOpenNodes++] = node;
+            }
+        }
+        this.propagate(rootIndex, distance, parentLink, firstHop, openNodes, open, numberOfOpenNodes, TDynamicRoutingTable.NO_NODE);
+        this.numberOfRepairs++;
+    }
+
+    /**
+     * This method runs the Dijkstra algorithm from a set of open nodes whose
+     * distance is already known, updating every node that can be reached with
+     * a shorter path.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param rootIndex Index of the root of the tree.
+     * @param distance Distance from the root to each node.
+     * @param parentLink Link through which each node is reached.
+     * @param firstHop First hop from the root towards each node.
+     * @param openNodes Nodes pending to be processed.
+     * @param open For each node, whether it is pending to be processed.
+     * @param numberOfOpenNodes Number of valid entries in openNodes.
+     * @param nodeToAvoidIndex Index of a node adjacent to the root whose link
+     * with the root must not be used, or NO_NODE.
+     * @since 2.0
+     */
+    private void propagate(int rootIndex, long[] distance, int[] parentLink, int[] firstHop, int[] openNodes, boolean[] open, int numberOfOpenNodes, int nodeToAvoidIndex) {
+        while (numberOfOpenNodes > 0) {
+            int best = 0;
+            for (int i = 1; i < numberOfOpenNodes; i++) {
+                if (distance[openNodes[i]] < distance[openNodes[best]]) {
+                    best = i;
+                }
+            }
+            int node = openNodes[best];
+            openNodes[best] = openNodes[--numberOfOpenNodes];
+            open[node] = false;
+            for (int j = 0; j < this.adjacentLinks[node].length; j++) {
+                int link = this.adjacentLinks[node][j];
+                long weight = this.linkWeights[link];
+                if (weight == TTopology.PESO_INFINITO) {
+                    continue;
+                }
+                int neighbour = this.getOtherEnd(link, node);
+                if ((node == rootIndex) && (neighbour == nodeToAvoidIndex)) {
+                    continue;
+                }
+                long newDistance = distance[node] + weight;
+                if (newDistance < distance[neighbour]) {
+                    distance[neighbour] = newDistance;
+                    parentLink[neighbour] = link;
+                    if (node == rootIndex) {
+                        firstHop[neighbour] = neighbour;
+                    } else {
+                        firstHop[neighbour] = firstHop[node];
+                    }
+                    if (!open[neighbour]) {
+                        open[neighbour] = true;
+                        openNodes[numberOfOpenNodes++] = neighbour;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * This method returns the current RABAN weight of a link, or an infinite
+     * weight if it is broken.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param link The link.
+     * @return The weight of the link.
+     * @since 2.0
+     */
+    private long getWeight(TLink link) {
+        if (link.isBroken()) {
+            return TTopology.PESO_INFINITO;
+        }
+        if (link.getLinkType() == TLink.EXTERNAL) {
+            return ((TExternalLink) link).getRABANWeight();
+        }
+        return ((TInternalLink) link).getRABANWeight();
+    }
+
+    /**
+     * This method returns the end of a link that is not the specified one.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param linkIndex Index of the link.
+     * @param nodeIndex Index of one of the ends of the link.
+     * @return Index of the other end of the link.
+     * @since 2.0
+     */
+    private int getOtherEnd(int linkIndex, int nodeIndex) {
+        if (this.linkEnd1[linkIndex] == nodeIndex) {
+            return this.linkEnd2[linkIndex];
+        }
+        return this.linkEnd1[linkIndex];
+    }
+
+    /**
+     * This method checks whether there is a link, broken or not, between two
+     * nodes.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param nodeID1 Identifier of one of the nodes.
+     * @param nodeID2 Identifier of the other node.
+     * @return TRUE, if both nodes are linked. Otherwise, returns FALSE.
+     * @since 2.0
+     */
+    private boolean areAdjacent(int nodeID1, int nodeID2) {
+        int index1 = this.getIndex(nodeID1);
+        int index2 = this.getIndex(nodeID2);
+        if ((index1 < 0) || (index2 < 0)) {
+            return false;
+        }
+        for (int i = 0; i < this.adjacentLinks[index1].length; i++) {
+            if (this.getOtherEnd(this.adjacentLinks[index1][i], index1) == index2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method returns the index of the specified node in the table.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param nodeID The node identifier.
+     * @return The index of the node, or -1 if the node is not in the table.
+     * @since 2.0
+     */
+    private int getIndex(int nodeID) {
+        Integer index = this.nodeIndexes.get(Integer.valueOf(nodeID));
+        if (index == null) {
+            return -1;
+        }
+        return index.intValue();
+    }
+
+    /**
+     * This method returns the index of the specified node in the table or,
+     * as the Floyd based computation does, the first index if the node is not
+     * in the table.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param nodeID The node identifier.
+     * @return The index of the node, or 0 if the node is not in the table.
+     * @since 2.0
+     */
+    private int getIndexOrFirst(int nodeID) {
+        int index = this.getIndex(nodeID);
+        if (index < 0) {
+            return 0;
+        }
+        return index;
+    }
+
+    private static final long serialVersionUID = 1L;
+    /**
+     * Changes are applied one by one while fewer than one in
+     * REPAIR_THRESHOLD links have changed.
+     */
+    private static final int REPAIR_THRESHOLD = 4;
+    private static final int NO_LINK = -1;
+    private static final int NO_NODE = -1;
+
+    private TTopology topology;
+    private TLock monitor;
+    private TLock changesMonitor;
+    private HashSet<TLink> changedLinks;
+    private HashSet<TNode> changedNodes;
+    private boolean rebuildRequired;
+    private long lastBatchInstant;
+    private int[] nodeIDs;
+    private HashMap<Integer, Integer> nodeIndexes;
+    private TLink[] links;
+    private HashMap<TLink, Integer> linkIndexes;
+    private int[] linkEnd1;
+    private int[] linkEnd2;
+    private long[] linkWeights;
+    private int[][] adjacentLinks;
+    private long[][] distances;
+    private int[][] parentLinks;
+    private int[][] firstHops;
+    private long numberOfFullComputations;
+    private long numberOfRepairs;
+}
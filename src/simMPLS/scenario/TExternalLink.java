@@ -93,7 +93,10 @@ public class TExternalLink extends TLink implements ITimerEventListener, Runnabl
         this.linkIsBroken = linkIsBroken;
         if (this.linkIsBroken) {
             try {
-                this.generateSimulationEvent(new TSEBrokenLink(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime()));
+                if (this.isSimulationEventWanted(TSimulationEvent.LINK_BROKEN)) {
+                    this.generateSimulationEvent(new TSEBrokenLink(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime()));
+                }
+                this.takePacketsFromChannel();
                 this.packetsInTransitEntriesLock.lock();
                 TAbstractPDU packet = null;
                 TLinkBufferEntry bufferedPacketEntry = null;
@@ -105,28 +108,36 @@ public class TExternalLink extends TLink implements ITimerEventListener, Runnabl
                         // FIX: do not use harcoded values. Use constants class
                         // instead
                         if (bufferedPacketEntry.getTargetEnd() == 1) {
-                            this.generateSimulationEvent(new TSEPacketDiscarded(this.getNodeAtEnd2(), this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_DISCARDED)) {
+                                this.generateSimulationEvent(new TSEPacketDiscarded(this.getNodeAtEnd2(), this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                            }
                             // FIX: do not use harcoded values. Use constants class
                             // instead
                         } else if (bufferedPacketEntry.getTargetEnd() == 2) {
-                            this.generateSimulationEvent(new TSEPacketDiscarded(this.getNodeAtEnd1(), this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_DISCARDED)) {
+                                this.generateSimulationEvent(new TSEPacketDiscarded(this.getNodeAtEnd1(), this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                            }
                         }
                     }
                     bufferedPacketEntriesIterator.remove();
                 }
-                this.packetsInTransitEntriesLock.unLock();
+                this.packetsInTransitEntriesLock.unlock();
             } catch (EIDGeneratorOverflow e) {
                 // FIX: this is not a good practice
                 e.printStackTrace();
             }
         } else {
             try {
-                this.generateSimulationEvent(new TSELinkRecovered(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime()));
+                if (this.isSimulationEventWanted(TSimulationEvent.LINK_RECOVERED)) {
+                    this.generateSimulationEvent(new TSELinkRecovered(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime()));
+                }
             } catch (EIDGeneratorOverflow e) {
                 // FIX: this is not a good practice
                 e.printStackTrace();
             }
         }
+        this.invalidateRoutingTable();
+        this.scheduleTimerEventsForEndNodes();
     }
 
     /**
@@ -142,35 +153,53 @@ public class TExternalLink extends TLink implements ITimerEventListener, Runnabl
         this.updateTransitDelay();
         this.advancePacketInTransit();
         this.deliverPacketsToDestination();
+        this.scheduleNextPacketArrival();
     }
 
     /**
      * This method pick up all packets in transit through this link and updates
-     * their remaining transit delay to the destination node.
+     * their remaining transit delay to the destination node. The on-fly
+     * events of the packets are only created if somebody wants them.
      *
      * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
      * @since 2.0
      */
     public void updateTransitDelay() {
+        boolean packetOnFlyWanted = this.isSimulationEventWanted(TSimulationEvent.PACKET_ON_FLY);
         this.packetsInTransitEntriesLock.lock();
         Iterator bufferedPacketEntriesIterator = this.buffer.iterator();
         while (bufferedPacketEntriesIterator.hasNext()) {
             TLinkBufferEntry bufferedPacketEntry = (TLinkBufferEntry) bufferedPacketEntriesIterator.next();
             bufferedPacketEntry.substractStepLength(this.stepLength);
-            long transitPercentage = this.getTransitPercentage(bufferedPacketEntry.getTotalTransitDelay(), bufferedPacketEntry.getRemainingTransitDelay());
-            // FIX: do not use harcoded values. Use constants class instead.
-            if (bufferedPacketEntry.getTargetEnd() == 1) {
-                // FIX: do not use harcoded values. Use constants class instead.
-                transitPercentage = 100 - transitPercentage;
-            }
-            try {
-                this.generateSimulationEvent(new TSEPacketOnFly(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), bufferedPacketEntry.getPacket().getSubtype(), transitPercentage));
-            } catch (EIDGeneratorOverflow e) {
-                // FIX: This is not a good practice.
-                e.printStackTrace();
+            if (packetOnFlyWanted) {
+                this.generatePacketOnFlyEvent(bufferedPacketEntry);
             }
         }
-        this.packetsInTransitEntriesLock.unLock();
+        this.packetsInTransitEntriesLock.unlock();
+    }
+
+    /**
+     * This method generates the event that shows a packet travelling through
+     * the link, at the point of its transit it has reached.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param bufferedPacketEntry The buffer entry of the packet.
+     * @since 2.0
+     */
+    @Override
+    public void generatePacketOnFlyEvent(TLinkBufferEntry bufferedPacketEntry) {
+        long transitPercentage = this.getTransitPercentage(bufferedPacketEntry.getTotalTransitDelay(), bufferedPacketEntry.getRemainingTransitDelay());
+        // FIX: do not use harcoded values. Use constants class instead.
+        if (bufferedPacketEntry.getTargetEnd() == 1) {
+            // FIX: do not use harcoded values. Use constants class instead.
+            transitPercentage = 100 - transitPercentage;
+        }
+        try {
+            this.generateSimulationEvent(new TSEPacketOnFly(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), bufferedPacketEntry.getPacket().getSubtype(), transitPercentage));
+        } catch (EIDGeneratorOverflow e) {
+            // FIX: This is not a good practice.
+            e.printStackTrace();
+        }
     }
 
     /**
@@ -190,7 +219,7 @@ public class TExternalLink extends TLink implements ITimerEventListener, Runnabl
             if (bufferedPacketEntry.getRemainingTransitDelay() <= 0) {
                 this.deliveredPacketEntriesLock.lock();
                 this.deliveredPacketsBuffer.add(bufferedPacketEntry);
-                this.deliveredPacketEntriesLock.unLock();
+                this.deliveredPacketEntriesLock.unlock();
             }
         }
         bufferedPacketEntriesIterator = this.buffer.iterator();
@@ -201,7 +230,7 @@ public class TExternalLink extends TLink implements ITimerEventListener, Runnabl
                 bufferedPacketEntriesIterator.remove();
             }
         }
-        this.packetsInTransitEntriesLock.unLock();
+        this.packetsInTransitEntriesLock.unlock();
     }
 
     /**
@@ -216,6 +245,7 @@ public class TExternalLink extends TLink implements ITimerEventListener, Runnabl
         Iterator deliveredPacketEntriesIterator = this.deliveredPacketsBuffer.iterator();
         while (deliveredPacketEntriesIterator.hasNext()) {
             TLinkBufferEntry deliveredBufferedPacketEntry = (TLinkBufferEntry) deliveredPacketEntriesIterator.next();
+            this.addSwitchedPacket(deliveredBufferedPacketEntry.getPacket().getSize());
             if (deliveredBufferedPacketEntry.getTargetEnd() == TLink.END_NODE_1) {
                 TNode nodeAux = this.getNodeAtEnd1();
                 nodeAux.putPacket(deliveredBufferedPacketEntry.getPacket(), this.getPortOfNodeAtEnd1());
@@ -225,7 +255,7 @@ public class TExternalLink extends TLink implements ITimerEventListener, Runnabl
             }
             deliveredPacketEntriesIterator.remove();
         }
-        this.deliveredPacketEntriesLock.unLock();
+        this.deliveredPacketEntriesLock.unlock();
     }
 
     /**
@@ -363,14 +393,14 @@ public class TExternalLink extends TLink implements ITimerEventListener, Runnabl
             bufferedPacketEntriesIterator.next();
             bufferedPacketEntriesIterator.remove();
         }
-        this.packetsInTransitEntriesLock.unLock();
+        this.packetsInTransitEntriesLock.unlock();
         this.deliveredPacketEntriesLock.lock();
         Iterator deliveredPacketEntriesIterator = this.deliveredPacketsBuffer.iterator();
         while (deliveredPacketEntriesIterator.hasNext()) {
             deliveredPacketEntriesIterator.next();
             deliveredPacketEntriesIterator.remove();
         }
-        this.deliveredPacketEntriesLock.unLock();
+        this.deliveredPacketEntriesLock.unlock();
         this.setAsBrokenLink(false);
     }
 
@@ -391,5 +421,6 @@ public class TExternalLink extends TLink implements ITimerEventListener, Runnabl
         return this.getWeight();
     }
 
+    private static final long serialVersionUID = 1L;
     private long stepLength;
 }
@@ -98,7 +98,10 @@ public class TInternalLink extends TLink implements ITimerEventListener, Runnabl
                 // FIX: Use class contants instead of harcoded values
                 this.numberOfLSPs = 0;
                 this.numberOfBackupLSPs = 0;
-                this.generateSimulationEvent(new TSEBrokenLink(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime()));
+                if (this.isSimulationEventWanted(TSimulationEvent.LINK_BROKEN)) {
+                    this.generateSimulationEvent(new TSEBrokenLink(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime()));
+                }
+                this.takePacketsFromChannel();
                 this.packetsInTransitEntriesLock.lock();
                 TAbstractPDU packet = null;
                 TLinkBufferEntry bufferedPacketEntry = null;
@@ -110,28 +113,36 @@ public class TInternalLink extends TLink implements ITimerEventListener, Runnabl
                         // FIX: do not use harcoded values. Use class constants
                         // instead
                         if (bufferedPacketEntry.getTargetEnd() == 1) {
-                            this.generateSimulationEvent(new TSEPacketDiscarded(this.getNodeAtEnd2(), this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_DISCARDED)) {
+                                this.generateSimulationEvent(new TSEPacketDiscarded(this.getNodeAtEnd2(), this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                            }
                             // FIX: do not use harcoded values. Use class
                             // constants instead
                         } else if (bufferedPacketEntry.getTargetEnd() == 2) {
-                            this.generateSimulationEvent(new TSEPacketDiscarded(this.getNodeAtEnd1(), this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_DISCARDED)) {
+                                this.generateSimulationEvent(new TSEPacketDiscarded(this.getNodeAtEnd1(), this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), packet.getSubtype()));
+                            }
                         }
                     }
                     bufferedPacketEntriesIterator.remove();
                 }
-                this.packetsInTransitEntriesLock.unLock();
+                this.packetsInTransitEntriesLock.unlock();
             } catch (EIDGeneratorOverflow e) {
                 // FIX: this is not a good practice
                 e.printStackTrace();
             }
         } else {
             try {
-                this.generateSimulationEvent(new TSELinkRecovered(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime()));
+                if (this.isSimulationEventWanted(TSimulationEvent.LINK_RECOVERED)) {
+                    this.generateSimulationEvent(new TSELinkRecovered(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime()));
+                }
             } catch (EIDGeneratorOverflow e) {
                 // FIX: this is not a good practice
                 e.printStackTrace();
             }
         }
+        this.invalidateRoutingTable();
+        this.scheduleTimerEventsForEndNodes();
     }
 
     /**
@@ -148,6 +159,7 @@ public class TInternalLink extends TLink implements ITimerEventListener, Runnabl
         this.updateTransitDelay();
         this.advancePacketInTransit();
         this.deliverPacketsToDestination();
+        this.scheduleNextPacketArrival();
     }
 
     /**
@@ -171,8 +183,11 @@ public class TInternalLink extends TLink implements ITimerEventListener, Runnabl
      */
     public void setAsUsedByALSP() {
         this.numberOfLSPs++;
+        this.notifyRABANWeightChange();
         try {
-            this.generateSimulationEvent(new TSELSPEstablished(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime()));
+            if (this.isSimulationEventWanted(TSimulationEvent.LSP_ESTABLISHED)) {
+                this.generateSimulationEvent(new TSELSPEstablished(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime()));
+            }
         } catch (Exception e) {
             // FIX: this is not a good practice
             e.printStackTrace();
@@ -190,8 +205,11 @@ public class TInternalLink extends TLink implements ITimerEventListener, Runnabl
         // FIX: use class constants instead of harcoded values
         if (this.numberOfLSPs > 0) {
             this.numberOfLSPs--;
+            this.notifyRABANWeightChange();
             try {
-                this.generateSimulationEvent(new TSELSPRemoved(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime()));
+                if (this.isSimulationEventWanted(TSimulationEvent.LSP_REMOVED)) {
+                    this.generateSimulationEvent(new TSELSPRemoved(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime()));
+                }
             } catch (Exception e) {
                 // FIX: this is not a good practice
                 e.printStackTrace();
@@ -221,6 +239,7 @@ public class TInternalLink extends TLink implements ITimerEventListener, Runnabl
      */
     public void setAsUsedByABackupLSP() {
         this.numberOfBackupLSPs++;
+        this.notifyRABANWeightChange();
     }
 
     /**
@@ -234,42 +253,60 @@ public class TInternalLink extends TLink implements ITimerEventListener, Runnabl
         // FIX: use class constants instead of harcoded values
         if (this.numberOfBackupLSPs > 0) {
             this.numberOfBackupLSPs--;
+            this.notifyRABANWeightChange();
         }
     }
 
     /**
      * This method pick up all packets in transit through this link and updates
-     * their remaining transit delay to the destination node.
+     * their remaining transit delay to the destination node. The on-fly
+     * events of the packets are only created if somebody wants them.
      *
      * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
      * @since 2.0
      */
     public void updateTransitDelay() {
+        boolean packetOnFlyWanted = this.isSimulationEventWanted(TSimulationEvent.PACKET_ON_FLY);
         this.packetsInTransitEntriesLock.lock();
         Iterator bufferedPacketEntriesIterator = this.buffer.iterator();
         while (bufferedPacketEntriesIterator.hasNext()) {
             TLinkBufferEntry bufferedPacketEntry = (TLinkBufferEntry) bufferedPacketEntriesIterator.next();
             bufferedPacketEntry.substractStepLength(this.stepLength);
-            long transitPercentage = this.getTransitPercentage(bufferedPacketEntry.getTotalTransitDelay(), bufferedPacketEntry.getRemainingTransitDelay());
-            // FIX: do not use harcoded values. Use constants class instead.
-            if (bufferedPacketEntry.getTargetEnd() == 1) {
-                // FIX: do not use harcoded values. Use constants class instead.
-                transitPercentage = 100 - transitPercentage;
+            if (packetOnFlyWanted) {
+                this.generatePacketOnFlyEvent(bufferedPacketEntry);
             }
-            try {
-                if (bufferedPacketEntry.getPacket().getType() == TAbstractPDU.TLDP) {
-                    this.generateSimulationEvent(new TSEPacketOnFly(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, transitPercentage));
-                } else if (bufferedPacketEntry.getPacket().getType() == TAbstractPDU.MPLS) {
-                    this.generateSimulationEvent(new TSEPacketOnFly(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), bufferedPacketEntry.getPacket().getSubtype(), transitPercentage));
-                } else if (bufferedPacketEntry.getPacket().getType() == TAbstractPDU.GPSRP) {
-                    this.generateSimulationEvent(new TSEPacketOnFly(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP, transitPercentage));
-                }
-            } catch (EIDGeneratorOverflow e) {
-                // FIX: this is not a good practice
-                e.printStackTrace();
+        }
+        this.packetsInTransitEntriesLock.unlock();
+    }
+
+    /**
+     * This method generates the event that shows a packet travelling through
+     * the link, at the point of its transit it has reached.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param bufferedPacketEntry The buffer entry of the packet.
+     * @since 2.0
+     */
+    @Override
+    public void generatePacketOnFlyEvent(TLinkBufferEntry bufferedPacketEntry) {
+        long transitPercentage = this.getTransitPercentage(bufferedPacketEntry.getTotalTransitDelay(), bufferedPacketEntry.getRemainingTransitDelay());
+        // FIX: do not use harcoded values. Use constants class instead.
+        if (bufferedPacketEntry.getTargetEnd() == 1) {
+            // FIX: do not use harcoded values. Use constants class instead.
+            transitPercentage = 100 - transitPercentage;
+        }
+        try {
+            if (bufferedPacketEntry.getPacket().getType() == TAbstractPDU.TLDP) {
+                this.generateSimulationEvent(new TSEPacketOnFly(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, transitPercentage));
+            } else if (bufferedPacketEntry.getPacket().getType() == TAbstractPDU.MPLS) {
+                this.generateSimulationEvent(new TSEPacketOnFly(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), bufferedPacketEntry.getPacket().getSubtype(), transitPercentage));
+            } else if (bufferedPacketEntry.getPacket().getType() == TAbstractPDU.GPSRP) {
+                this.generateSimulationEvent(new TSEPacketOnFly(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP, transitPercentage));
             }
+        } catch (EIDGeneratorOverflow e) {
+            // FIX: this is not a good practice
+            e.printStackTrace();
         }
-        this.packetsInTransitEntriesLock.unLock();
     }
 
     /**
@@ -281,6 +318,7 @@ public class TInternalLink extends TLink implements ITimerEventListener, Runnabl
      * @since 2.0
      */
     public void advancePacketInTransit() {
+        boolean packetsDelivered = false;
         this.packetsInTransitEntriesLock.lock();
         Iterator bufferedPacketEntriesIterator = this.buffer.iterator();
         while (bufferedPacketEntriesIterator.hasNext()) {
@@ -289,7 +327,7 @@ public class TInternalLink extends TLink implements ITimerEventListener, Runnabl
             if (bufferedPacketEntry.getRemainingTransitDelay() <= 0) {
                 this.deliveredPacketEntriesLock.lock();
                 this.deliveredPacketsBuffer.add(bufferedPacketEntry);
-                this.deliveredPacketEntriesLock.unLock();
+                this.deliveredPacketEntriesLock.unlock();
             }
         }
         bufferedPacketEntriesIterator = this.buffer.iterator();
@@ -298,9 +336,13 @@ public class TInternalLink extends TLink implements ITimerEventListener, Runnabl
             // FIX: Do not use harcoded values. Use constants class instead.
             if (bufferedPacketEntry.getRemainingTransitDelay() <= 0) {
                 bufferedPacketEntriesIterator.remove();
+                packetsDelivered = true;
             }
         }
-        this.packetsInTransitEntriesLock.unLock();
+        this.packetsInTransitEntriesLock.unlock();
+        if (packetsDelivered) {
+            this.notifyRABANWeightChange();
+        }
     }
 
     /**
@@ -315,6 +357,7 @@ public class TInternalLink extends TLink implements ITimerEventListener, Runnabl
         Iterator deliveredPacketEntriesIterator = this.deliveredPacketsBuffer.iterator();
         while (deliveredPacketEntriesIterator.hasNext()) {
             TLinkBufferEntry deliveredBufferedPacketEntry = (TLinkBufferEntry) deliveredPacketEntriesIterator.next();
+            this.addSwitchedPacket(deliveredBufferedPacketEntry.getPacket().getSize());
             if (deliveredBufferedPacketEntry.getTargetEnd() == TLink.END_NODE_1) {
                 TNode nodeAux = this.getNodeAtEnd1();
                 nodeAux.putPacket(deliveredBufferedPacketEntry.getPacket(), this.getPortOfNodeAtEnd1());
@@ -324,7 +367,22 @@ public class TInternalLink extends TLink implements ITimerEventListener, Runnabl
             }
             deliveredPacketEntriesIterator.remove();
         }
-        this.deliveredPacketEntriesLock.unLock();
+        this.deliveredPacketEntriesLock.unlock();
+    }
+
+    /**
+     * This method delivers a packet that has crossed the link through a
+     * channel to the node at its destination end. The RABAN weight of the
+     * link changes, as when a packet of its own buffer is delivered.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param entry The buffer entry of the packet.
+     * @since 2.0
+     */
+    @Override
+    public void deliverPacketFromChannel(TLinkBufferEntry entry) {
+        super.deliverPacketFromChannel(entry);
+        this.notifyRABANWeightChange();
     }
 
     /**
@@ -462,14 +520,14 @@ public class TInternalLink extends TLink implements ITimerEventListener, Runnabl
             bufferedPacketEntriesIterator.next();
             bufferedPacketEntriesIterator.remove();
         }
-        this.packetsInTransitEntriesLock.unLock();
+        this.packetsInTransitEntriesLock.unlock();
         this.deliveredPacketEntriesLock.lock();
         bufferedPacketEntriesIterator = this.deliveredPacketsBuffer.iterator();
         while (bufferedPacketEntriesIterator.hasNext()) {
             bufferedPacketEntriesIterator.next();
             bufferedPacketEntriesIterator.remove();
         }
-        this.deliveredPacketEntriesLock.unLock();
+        this.deliveredPacketEntriesLock.unlock();
         // FIX: Do not use harcoded values. Use class constants instead.
         this.numberOfLSPs = 0;
         this.numberOfBackupLSPs = 0;
@@ -497,12 +555,13 @@ public class TInternalLink extends TLink implements ITimerEventListener, Runnabl
         long routingWeightOfNodeAtEnd2 = (long) ((double) (delayWeight * 0.10)) * this.getNodeAtEnd2().getRoutingWeight();
         long numberOfLSPsWeight = (long) ((double) (delayWeight * 0.05)) * this.numberOfLSPs;
         long numberOfBackupLSPsWeight = (long) ((double) (delayWeight * 0.05)) * this.numberOfBackupLSPs;
-        long packetsInTransitWeight = (long) ((double) (delayWeight * 0.10)) * this.buffer.size();
+        long packetsInTransitWeight = (long) ((double) (delayWeight * 0.10)) * this.getNumberOfPacketsInTransit();
         long subWeight = (long) (routingWeightOfNodeAtEnd1 + routingWeightOfNodeAtEnd2 + numberOfLSPsWeight + numberOfBackupLSPsWeight + packetsInTransitWeight);
         rabanWeight = (long) ((delayWeight * 0.5) + (subWeight * 0.5));
         return rabanWeight;
     }
 
+    private static final long serialVersionUID = 1L;
     private int numberOfLSPs;
     private int numberOfBackupLSPs;
     private long stepLength;
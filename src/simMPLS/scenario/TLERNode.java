@@ -22,6 +22,7 @@ import simMPLS.protocols.TMPLSLabel;
 import simMPLS.protocols.TMPLSPDU;
 import simMPLS.protocols.TTLDPPayload;
 import simMPLS.protocols.TIPv4PDU;
+import simMPLS.hardware.timer.TElementTickProfile;
 import simMPLS.hardware.timer.TTimerEvent;
 import simMPLS.hardware.timer.ITimerEventListener;
 import simMPLS.hardware.ports.TFIFOPort;
@@ -187,6 +188,7 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
      * @since 2.0
      */
     public void receiveTimerEvent(TTimerEvent evt) {
+        this.wakeUpFromIdleTicks(evt);
         this.setStepDuration(evt.getStepDuration());
         this.setTimeInstant(evt.getUpperLimit());
         if (this.getPorts().isThereAnyPacketToRoute()) {
@@ -206,14 +208,25 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
     public void run() {
         // Acciones a llevar a cabo durante el tic.
         try {
-            this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), this.getPorts().getCongestionLevel()));
+            if (this.isSimulationEventWanted(TSimulationEvent.NODE_CONGESTED)) {
+                this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), this.getPorts().getCongestionLevel()));
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
+        long inicioDeFase = this.startTickPhase();
         comprobarElEstadoDeLasComunicaciones();
+        this.endTickPhase(TElementTickProfile.CONNECTIVITY_PHASE, inicioDeFase);
         decrementarContadores();
+        inicioDeFase = this.startTickPhase();
         encaminarPaquetes();
+        inicioDeFase = this.endTickPhase(TElementTickProfile.SWITCHING_PHASE, inicioDeFase);
         estadisticas.consolidateData(this.getAvailableTime());
+        this.endTickPhase(TElementTickProfile.STATS_PHASE, inicioDeFase);
+        this.notifyRoutingWeightChange();
+        if ((this.getPorts().isThereAnyPacketToRoute()) || (this.matrizConmutacion.isWaitingForTLDPResponses())) {
+            this.scheduleNextTimerEvent();
+        }
         // Acciones a llevar a cabo durante el tic.
     }
     
@@ -294,7 +307,7 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                 it.remove();
             }
         }
-        matrizConmutacion.getMonitor().unLock();
+        matrizConmutacion.getMonitor().unlock();
     }
     
     /**
@@ -361,7 +374,9 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                 if (pSalida != null) {
                     pSalida.putPacketOnLink(paquete, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                     try {
-                        this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_ROUTED)) {
+                            this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                        }
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
@@ -394,7 +409,6 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                     emc.setOutgoingLabel(TSwitchingMatrixEntry.LABEL_REQUESTED);
                     solicitarTLDP(emc);
                 }
-                this.ports.getPort(pEntrada).reEnqueuePacket(paquete);
             }
         }
         if (emc != null) {
@@ -419,7 +433,9 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                         TMPLSPDU paqueteMPLS = this.crearPaqueteMPLS(paquete, emc);
                         pSalida.putPacketOnLink(paqueteMPLS, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_ROUTED)) {
+                                this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+                            }
                         } catch (Exception e) {
                             e.printStackTrace();
                         }
@@ -431,7 +447,9 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                         TPort pSalida = ports.getPort(emc.getOutgoingPortID());
                         pSalida.putPacketOnLink(paquete, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_ROUTED)) {
+                                this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+                            }
                         } catch (Exception e) {
                             e.printStackTrace();
                         }
@@ -497,10 +515,6 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                     emc.setOutgoingLabel(TSwitchingMatrixEntry.LABEL_REQUESTED);
                     solicitarTLDP(emc);
                 }
-                if (conEtiqueta1) {
-                    paquete.getLabelStack().pushTop(eMPLS);
-                }
-                this.ports.getPort(pEntrada).reEnqueuePacket(paquete);
             }
         }
         if (emc != null) {
@@ -551,7 +565,9 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                         TPort pSalida = ports.getPort(emc.getOutgoingPortID());
                         pSalida.putPacketOnLink(paquete, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_ROUTED)) {
+                                this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+                            }
                         } catch (Exception e) {
                             e.printStackTrace();
                         }
@@ -572,7 +588,9 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                             pSalida.putPacketOnLink(paquete, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         }
                         try {
-                            this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_ROUTED)) {
+                                this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+                            }
                         } catch (Exception e) {
                             e.printStackTrace();
                         }
@@ -584,7 +602,9 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                         TPort pSalida = ports.getPort(emc.getOutgoingPortID());
                         pSalida.putPacketOnLink(paquete, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_ROUTED)) {
+                                this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+                            }
                         } catch (Exception e) {
                             e.printStackTrace();
                         }
@@ -592,7 +612,9 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                         TPort pSalida = ports.getPort(emc.getOutgoingPortID());
                         pSalida.putPacketOnLink(paquete, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_ROUTED)) {
+                                this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+                            }
                         } catch (Exception e) {
                             e.printStackTrace();
                         }
@@ -714,7 +736,7 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
             } else if (etiquetaActual == TSwitchingMatrixEntry.LABEL_REQUESTED) {
                 emc.setOutgoingLabel(paquete.getTLDPPayload().getLabel());
                 if (emc.getLabelOrFEC() == TSwitchingMatrixEntry.UNDEFINED) {
-                    emc.setLabelOrFEC(matrizConmutacion.getNewLabel());
+                    emc.setLabelOrFEC(matrizConmutacion.getNewLabel(emc.getIncomingPortID()));
                 }
                 TInternalLink et = (TInternalLink) ports.getPort(emc.getOutgoingPortID()).getLink();
                 if (et != null) {
@@ -849,8 +871,12 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                         TPort pSalida = ports.getLocalPortConnectedToANodeWithIPAddress(IPDestino);
                         pSalida.putPacketOnLink(nuevoTLDP, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, nuevoTLDP.getSize()));
-                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, nuevoTLDP.getSize()));
+                            }
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            }
                         } catch (Exception e) {
                             e.printStackTrace();
                         }
@@ -891,8 +917,12 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                         TPort pSalida = ports.getLocalPortConnectedToANodeWithIPAddress(IPDestino);
                         pSalida.putPacketOnLink(nuevoTLDP, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, nuevoTLDP.getSize()));
-                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, nuevoTLDP.getSize()));
+                            }
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            }
                         } catch (Exception e) {
                             e.printStackTrace();
                         }
@@ -938,8 +968,12 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                     TPort pSalida = ports.getPort(puerto);
                     pSalida.putPacketOnLink(nuevoTLDP, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                     try {
-                        this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, nuevoTLDP.getSize()));
-                        this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, nuevoTLDP.getSize()));
+                        }
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                        }
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
@@ -980,8 +1014,12 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                     if (pSalida != null) {
                         pSalida.putPacketOnLink(paqueteTLDP, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, paqueteTLDP.getSize()));
-                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, paqueteTLDP.getSize()));
+                            }
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            }
                         } catch (Exception e) {
                             e.printStackTrace();
                         }
@@ -1029,8 +1067,12 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                     if (pSalida != null) {
                         pSalida.putPacketOnLink(paqueteTLDP, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, paqueteTLDP.getSize()));
-                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, paqueteTLDP.getSize()));
+                            }
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            }
                         } catch (Exception e) {
                             e.printStackTrace();
                         }
@@ -1072,8 +1114,12 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                     if (pSalida != null) {
                         pSalida.putPacketOnLink(paqueteTLDP, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, paqueteTLDP.getSize()));
-                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, paqueteTLDP.getSize()));
+                            }
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            }
                         } catch (Exception e) {
                             e.printStackTrace();
                         }
@@ -1139,7 +1185,7 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                 }
             }
         }
-        this.matrizConmutacion.getMonitor().unLock();
+        this.matrizConmutacion.getMonitor().unlock();
     }
     
     /**
@@ -1192,7 +1238,7 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                 emc.setLabelStackOperation(TSwitchingMatrixEntry.SWAP_LABEL);
             }
             if (soyLERDeSalida(IPDestinoFinal)) {
-                emc.setLabelOrFEC(matrizConmutacion.getNewLabel());
+                emc.setLabelOrFEC(matrizConmutacion.getNewLabel(emc.getIncomingPortID()));
                 emc.setOutgoingLabel(TSwitchingMatrixEntry.LABEL_ASSIGNED);
             }
             try {
@@ -1251,7 +1297,7 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                 // No es posible
             }
             if (soyLERDeSalida(IPDestinoFinal)) {
-                emc.setLabelOrFEC(matrizConmutacion.getNewLabel());
+                emc.setLabelOrFEC(matrizConmutacion.getNewLabel(emc.getIncomingPortID()));
                 emc.setOutgoingLabel(TSwitchingMatrixEntry.LABEL_ASSIGNED);
             }
             try {
@@ -1312,7 +1358,7 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
                 emc.setLabelStackOperation(TSwitchingMatrixEntry.SWAP_LABEL);
             }
             if (soyLERDeSalida(IPDestinoFinal)) {
-                emc.setLabelOrFEC(matrizConmutacion.getNewLabel());
+                emc.setLabelOrFEC(matrizConmutacion.getNewLabel(emc.getIncomingPortID()));
                 emc.setOutgoingLabel(TSwitchingMatrixEntry.LABEL_ASSIGNED);
             }
             try {
@@ -1354,7 +1400,9 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
         paqueteMPLS.getLabelStack().pushTop(empls);
         paqueteIPv4 = null;
         try {
-            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paqueteMPLS.getSubtype(), paqueteMPLS.getSize()));
+            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paqueteMPLS.getSubtype(), paqueteMPLS.getSize()));
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -1387,7 +1435,9 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
             paqueteIPv4.setSubtype(TAbstractPDU.IPV4);
         }
         try {
-            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paqueteIPv4.getSubtype(), paqueteIPv4.getSize()));
+            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paqueteIPv4.getSubtype(), paqueteIPv4.getSize()));
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -1431,7 +1481,9 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
      */
     public void discardPacket(TAbstractPDU paquete) {
         try {
-            this.generateSimulationEvent(new TSEPacketDiscarded(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_DISCARDED)) {
+                this.generateSimulationEvent(new TSEPacketDiscarded(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+            }
             this.estadisticas.addStatEntry(paquete, TStats.DISCARD);
         } catch (Exception e) {
             e.printStackTrace();
@@ -1658,6 +1710,7 @@ public class TLERNode extends TNode implements ITimerEventListener, Runnable {
     public void runGPSRP(TMPLSPDU paquete, int pSalida) {
     }
     
+    private static final long serialVersionUID = 1L;
     /**
      * Esta constante indica que la configuraci�n del nodo LER esta correcta, que no
      * contiene errores.
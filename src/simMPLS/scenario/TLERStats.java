@@ -711,6 +711,7 @@ public class TLERStats extends TStats {
         return null;
     }
     
+    private static final long serialVersionUID = 1L;
     private int tEIPV4;
     private int tEIPV4_GOS1;
     private int tEIPV4_GOS2;
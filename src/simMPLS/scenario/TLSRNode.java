@@ -21,6 +21,7 @@ import simMPLS.protocols.TAbstractPDU;
 import simMPLS.protocols.TMPLSLabel;
 import simMPLS.protocols.TMPLSPDU;
 import simMPLS.protocols.TTLDPPayload;
+import simMPLS.hardware.timer.TElementTickProfile;
 import simMPLS.hardware.timer.TTimerEvent;
 import simMPLS.hardware.timer.ITimerEventListener;
 import simMPLS.hardware.ports.TFIFOPort;
@@ -146,6 +147,15 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
     public void ponerTamanioBuffer(int tb) {
         this.getPorts().setBufferSizeInMB(tb);
     }
+
+    /**
+     * Este metodo permite el acceso a la matriz de conmutacion del LSR.
+     * @return La matriz de conmutacion del LSR.
+     * @since 2.0
+     */
+    public TSwitchingMatrix obtenerMatrizConmutacion() {
+        return matrizConmutacion;
+    }
     
     /**
      * Este m�todo reinicia los atributos del nodo hasta dejarlos como si acabasen de
@@ -177,6 +187,7 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
      * @since 2.0
      */
     public void receiveTimerEvent(TTimerEvent evt) {
+        this.wakeUpFromIdleTicks(evt);
         this.setStepDuration(evt.getStepDuration());
         this.setTimeInstant(evt.getUpperLimit());
         if (this.getPorts().isAnyPacketToSwitch()) {
@@ -195,14 +206,25 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
      */
     public void run() {
         try {
-            this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), this.getPorts().getCongestionLevel()));
+            if (this.isSimulationEventWanted(TSimulationEvent.NODE_CONGESTED)) {
+                this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), this.getPorts().getCongestionLevel()));
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
+        long inicioDeFase = this.startTickPhase();
         comprobarElEstadoDeLasComunicaciones();
+        this.endTickPhase(TElementTickProfile.CONNECTIVITY_PHASE, inicioDeFase);
         decrementarContadores();
+        inicioDeFase = this.startTickPhase();
         conmutarPaquete();
+        inicioDeFase = this.endTickPhase(TElementTickProfile.SWITCHING_PHASE, inicioDeFase);
         estadisticas.consolidateData(this.getAvailableTime());
+        this.endTickPhase(TElementTickProfile.STATS_PHASE, inicioDeFase);
+        this.notifyRoutingWeightChange();
+        if ((this.getPorts().isAnyPacketToSwitch()) || (this.matrizConmutacion.isWaitingForTLDPResponses())) {
+            this.scheduleNextTimerEvent();
+        }
         // Acciones a llevar a cabo durante el tic.
     }
     
@@ -251,7 +273,7 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
                 it.remove();
             }
         }
-        matrizConmutacion.getMonitor().unLock();
+        matrizConmutacion.getMonitor().unlock();
     }
     
     /**
@@ -312,7 +334,9 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
                 if (pSalida != null) {
                     pSalida.putPacketOnLink(paquete, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                     try {
-                        this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_ROUTED)) {
+                            this.generateSimulationEvent(new TSEPacketRouted(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.GPSRP));
+                        }
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
@@ -411,7 +435,9 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
                         TPort pSalida = ports.getPort(emc.getOutgoingPortID());
                         pSalida.putPacketOnLink(paquete, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketSwitched(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SWITCHED)) {
+                                this.generateSimulationEvent(new TSEPacketSwitched(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+                            }
                         } catch (Exception e) {
                             e.printStackTrace();
                         }
@@ -423,7 +449,9 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
                         TPort pSalida = ports.getPort(emc.getOutgoingPortID());
                         pSalida.putPacketOnLink(paquete, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketSwitched(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SWITCHED)) {
+                                this.generateSimulationEvent(new TSEPacketSwitched(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+                            }
                         } catch (Exception e) {
                             e.printStackTrace();
                         }
@@ -441,7 +469,9 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
                             emc.setEntryIsForBackupLSP(false);
                         }
                         try {
-                            this.generateSimulationEvent(new TSEPacketSwitched(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SWITCHED)) {
+                                this.generateSimulationEvent(new TSEPacketSwitched(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+                            }
                         } catch (Exception e) {
                             e.printStackTrace();
                         }
@@ -449,7 +479,9 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
                         TPort pSalida = ports.getPort(emc.getOutgoingPortID());
                         pSalida.putPacketOnLink(paquete, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketSwitched(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SWITCHED)) {
+                                this.generateSimulationEvent(new TSEPacketSwitched(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+                            }
                         } catch (Exception e) {
                             e.printStackTrace();
                         }
@@ -558,7 +590,7 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
             } else if (etiquetaActual == TSwitchingMatrixEntry.LABEL_REQUESTED) {
                 emc.setOutgoingLabel(paquete.getTLDPPayload().getLabel());
                 if (emc.getLabelOrFEC() == TSwitchingMatrixEntry.UNDEFINED) {
-                    emc.setLabelOrFEC(matrizConmutacion.getNewLabel());
+                    emc.setLabelOrFEC(matrizConmutacion.getNewLabel(emc.getIncomingPortID()));
                 }
                 TInternalLink et = (TInternalLink) ports.getPort(pEntrada).getLink();
                 if (et != null) {
@@ -688,8 +720,12 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
                         TPort pSalida = ports.getLocalPortConnectedToANodeWithIPAddress(IPDestino);
                         pSalida.putPacketOnLink(nuevoTLDP, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, nuevoTLDP.getSize()));
-                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, nuevoTLDP.getSize()));
+                            }
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            }
                         } catch (Exception e) {
                             e.printStackTrace();
                         }
@@ -730,8 +766,12 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
                         TPort pSalida = ports.getLocalPortConnectedToANodeWithIPAddress(IPDestino);
                         pSalida.putPacketOnLink(nuevoTLDP, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, nuevoTLDP.getSize()));
-                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, nuevoTLDP.getSize()));
+                            }
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            }
                         } catch (Exception e) {
                             e.printStackTrace();
                         }
@@ -777,8 +817,12 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
                     TPort pSalida = ports.getPort(puerto);
                     pSalida.putPacketOnLink(nuevoTLDP, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                     try {
-                        this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, nuevoTLDP.getSize()));
-                        this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, nuevoTLDP.getSize()));
+                        }
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                        }
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
@@ -818,8 +862,12 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
                 if (pSalida != null) {
                     pSalida.putPacketOnLink(paqueteTLDP, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                     try {
-                        this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, paqueteTLDP.getSize()));
-                        this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, paqueteTLDP.getSize()));
+                        }
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                        }
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
@@ -867,8 +915,12 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
                         if (pSalida != null) {
                             pSalida.putPacketOnLink(paqueteTLDP, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                             try {
-                                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, paqueteTLDP.getSize()));
-                                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                                if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                                    this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, paqueteTLDP.getSize()));
+                                }
+                                if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                                    this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                                }
                             } catch (Exception e) {
                                 e.printStackTrace();
                             }
@@ -911,8 +963,12 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
                     if (pSalida != null) {
                         pSalida.putPacketOnLink(paqueteTLDP, pSalida.getLink().getTargetNodeIDOfTrafficSentBy(this));
                         try {
-                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, paqueteTLDP.getSize()));
-                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                                this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP, paqueteTLDP.getSize()));
+                            }
+                            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                                this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), TAbstractPDU.TLDP));
+                            }
                         } catch (Exception e) {
                             e.printStackTrace();
                         }
@@ -978,7 +1034,7 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
                 }
             }
         }
-        this.matrizConmutacion.getMonitor().unLock();
+        this.matrizConmutacion.getMonitor().unlock();
     }
     
     /**
@@ -1029,7 +1085,9 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
      */
     public void discardPacket(TAbstractPDU paquete) {
         try {
-            this.generateSimulationEvent(new TSEPacketDiscarded(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_DISCARDED)) {
+                this.generateSimulationEvent(new TSEPacketDiscarded(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+            }
             this.estadisticas.addStatEntry(paquete, TStats.DISCARD);
         } catch (Exception e) {
             e.printStackTrace();
@@ -1214,6 +1272,7 @@ public class TLSRNode extends TNode implements ITimerEventListener, Runnable {
     public void runGPSRP(TMPLSPDU paquete, int pSalida) {
     }
     
+    private static final long serialVersionUID = 1L;
     /**
      * Esta constante indica que la configuraci�n del nodo es correcta.
      * @since 2.0
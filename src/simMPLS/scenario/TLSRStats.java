@@ -502,6 +502,7 @@ public class TLSRStats extends TStats {
         return null;
     }
     
+    private static final long serialVersionUID = 1L;
     private int tEMPLS;
     private int tEMPLS_GOS1;
     private int tEMPLS_GOS2;
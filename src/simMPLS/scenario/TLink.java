@@ -16,10 +16,12 @@
 package simMPLS.scenario;
 
 import simMPLS.protocols.TAbstractPDU;
+import simMPLS.hardware.timer.TCutLinkChannel;
+import simMPLS.hardware.timer.TTimer;
 import simMPLS.hardware.timer.TTimerEvent;
 import simMPLS.hardware.timer.ITimerEventListener;
 import simMPLS.hardware.ports.TPortSet;
-import simMPLS.utils.TMonitor;
+import simMPLS.utils.TLock;
 import simMPLS.utils.TLongIDGenerator;
 import java.awt.*;
 import java.util.*;
@@ -53,12 +55,13 @@ public abstract class TLink extends TTopologyElement implements Comparable, ITim
         delay = 1;
         puertoExtremo1 = -1;
         puertoExtremo2 = -1;
-        buffer = Collections.synchronizedSortedSet(new TreeSet());
+        buffer = Collections.synchronizedSortedSet(new TreeSet<TLinkBufferEntry>());
         deliveredPacketsBuffer = new TreeSet();
-        packetsInTransitEntriesLock = new TMonitor();
-        deliveredPacketEntriesLock = new TMonitor();
+        packetsInTransitEntriesLock = new TLock("TLink.packetsInTransitEntriesLock");
+        deliveredPacketEntriesLock = new TLock("TLink.deliveredPacketEntriesLock");
         topology = t;
         linkIsBroken = false;
+        cutLinkChannel = null;
     }
     
     /**
@@ -219,6 +222,7 @@ public abstract class TLink extends TTopologyElement implements Comparable, ITim
         } else {
             delay = d;
         }
+        this.invalidateRoutingTable();
     }
     
     /**
@@ -301,6 +305,10 @@ public abstract class TLink extends TTopologyElement implements Comparable, ITim
      */
     public void ponerExtremo1(TNode e1) {
         extremo1 = e1;
+        if (topology != null) {
+            topology.reindexarEnlace(this);
+        }
+        this.invalidateRoutingTable();
     }
     
     /**
@@ -320,6 +328,10 @@ public abstract class TLink extends TTopologyElement implements Comparable, ITim
      */
     public void ponerExtremo2(TNode e2) {
         extremo2 = e2;
+        if (topology != null) {
+            topology.reindexarEnlace(this);
+        }
+        this.invalidateRoutingTable();
     }
     
     /**
@@ -415,9 +427,210 @@ public abstract class TLink extends TTopologyElement implements Comparable, ITim
      * @since 2.0
      */
     public void carryPacket(TAbstractPDU paquete, int destino) {
+        if (this.cutLinkChannel != null) {
+            this.cutLinkChannel.send(paquete, destino);
+            this.notifyRABANWeightChange();
+            return;
+        }
+        long transitDelay = this.getDelay();
+        TTimer timer = this.getTimer();
+        if ((timer != null) && ((timer.getSchedulingEngine() == TTimer.EVENT_DRIVEN_ENGINE) || (timer.getSchedulingEngine() == TTimer.ADAPTIVE_STEP_ENGINE))) {
+            // The link will substract the whole time elapsed since it was
+            // last woken up, but a packet is only sent in the last tick of
+            // that time, so it is compensated for the rest of it, as if the
+            // link had been woken up every tick.
+            long elapsedTime = timer.getCurrentInstant() - this.getAvailableTime() - timer.getTick();
+            if (elapsedTime > 0) {
+                transitDelay += elapsedTime;
+            }
+            if (timer.getSchedulingEngine() == TTimer.EVENT_DRIVEN_ENGINE) {
+                // The link carries the packet in this same instant, after
+                // the nodes, as it would do with the tick-driven engine.
+                this.scheduleTimerEvent(0);
+            }
+        }
         packetsInTransitEntriesLock.lock();
-        buffer.add(new TLinkBufferEntry(paquete, this.getDelay(), destino));
-        packetsInTransitEntriesLock.unLock();
+        buffer.add(new TLinkBufferEntry(paquete, transitDelay, destino));
+        packetsInTransitEntriesLock.unlock();
+        this.notifyRABANWeightChange();
+    }
+
+    /**
+     * This method makes the link send the packets it carries through the
+     * specified channel instead of keeping them in its own buffer. It is used
+     * by the conservative parallel engine when the ends of the link are in
+     * different regions.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param cutLinkChannel The channel, or NULL to use the buffer of the link
+     * again.
+     * @since 2.0
+     */
+    public void setCutLinkChannel(TCutLinkChannel cutLinkChannel) {
+        this.cutLinkChannel = cutLinkChannel;
+    }
+
+    /**
+     * This method returns the channel the link sends the packets it carries
+     * through, if any.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The channel, or NULL if the packets are kept in the buffer of
+     * the link.
+     * @since 2.0
+     */
+    public TCutLinkChannel getCutLinkChannel() {
+        return this.cutLinkChannel;
+    }
+
+    /**
+     * This method removes from the buffer of the link the packets it is
+     * carrying, so that a channel can carry them instead.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param entries The collection the buffer entries are added to.
+     * @since 2.0
+     */
+    public void takePacketsInTransit(Collection<TLinkBufferEntry> entries) {
+        packetsInTransitEntriesLock.lock();
+        entries.addAll(buffer);
+        buffer.clear();
+        packetsInTransitEntriesLock.unlock();
+    }
+
+    /**
+     * This method puts back in the buffer of the link a packet that was being
+     * carried by a channel, keeping the time it still has to travel.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param entry The buffer entry of the packet.
+     * @since 2.0
+     */
+    public void putPacketInTransit(TLinkBufferEntry entry) {
+        packetsInTransitEntriesLock.lock();
+        buffer.add(entry);
+        packetsInTransitEntriesLock.unlock();
+    }
+
+    /**
+     * This method delivers a packet that has crossed the link through a
+     * channel to the node at its destination end, as the link does with the
+     * packets of its own buffer.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param entry The buffer entry of the packet.
+     * @since 2.0
+     */
+    public void deliverPacketFromChannel(TLinkBufferEntry entry) {
+        this.addSwitchedPacket(entry.getPacket().getSize());
+        if (entry.getTargetEnd() == TLink.END_NODE_1) {
+            this.getNodeAtEnd1().putPacket(entry.getPacket(), this.getPortOfNodeAtEnd1());
+        } else {
+            this.getNodeAtEnd2().putPacket(entry.getPacket(), this.getPortOfNodeAtEnd2());
+        }
+    }
+
+    /**
+     * This method returns how many packets are travelling through the link,
+     * including those carried by its channel, if any.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of packets in transit.
+     * @since 2.0
+     */
+    public int getNumberOfPacketsInTransit() {
+        int numberOfPacketsInTransit = buffer.size();
+        TCutLinkChannel cutLinkChannelAux = this.cutLinkChannel;
+        if (cutLinkChannelAux != null) {
+            numberOfPacketsInTransit += cutLinkChannelAux.getNumberOfPacketsInTransit();
+        }
+        return numberOfPacketsInTransit;
+    }
+
+    /**
+     * This method gives back to the buffer of the link the packets carried by
+     * its channel, if any, so that they are discarded with the rest when the
+     * link breaks.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    protected void takePacketsFromChannel() {
+        TCutLinkChannel cutLinkChannelAux = this.cutLinkChannel;
+        if (cutLinkChannelAux != null) {
+            cutLinkChannelAux.returnPacketsToLink();
+        }
+    }
+
+    /**
+     * This method asks the timer to wake up the link when the next packet in
+     * transit reaches its destination. It only has effect when the timer uses
+     * the event-driven or the adaptive step engine.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    protected void scheduleNextPacketArrival() {
+        long nextArrival = -1;
+        TLinkBufferEntry bufferedPacketEntry = null;
+        packetsInTransitEntriesLock.lock();
+        Iterator<TLinkBufferEntry> bufferedPacketEntriesIterator = buffer.iterator();
+        while (bufferedPacketEntriesIterator.hasNext()) {
+            bufferedPacketEntry = bufferedPacketEntriesIterator.next();
+            if ((nextArrival < 0) || (bufferedPacketEntry.getRemainingTransitDelay() < nextArrival)) {
+                nextArrival = bufferedPacketEntry.getRemainingTransitDelay();
+            }
+        }
+        packetsInTransitEntriesLock.unlock();
+        if (nextArrival >= 0) {
+            this.scheduleTimerEvent(nextArrival);
+        }
+    }
+
+    /**
+     * This method tells the topology the link belongs to that its routing
+     * table is no longer valid, because the weight, the ends or the state of
+     * the link have changed.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    protected void invalidateRoutingTable() {
+        if (topology != null) {
+            topology.invalidateRoutingTable();
+        }
+    }
+
+    /**
+     * This method tells the topology the link belongs to that the RABAN
+     * weight of the link may have changed, because the number of packets in
+     * transit or the number of LSPs using it have changed.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    protected void notifyRABANWeightChange() {
+        if (topology != null) {
+            topology.notifyRABANWeightChange(this);
+        }
+    }
+
+    /**
+     * This method asks the timer to wake up both nodes at the ends of the link
+     * after the next tick, so that they notice a change in the state of the
+     * link. It only has effect when the timer uses the event-driven or the
+     * adaptive step engine.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    protected void scheduleTimerEventsForEndNodes() {
+        if (extremo1 != null) {
+            extremo1.scheduleNextTimerEvent();
+        }
+        if (extremo2 != null) {
+            extremo2.scheduleNextTimerEvent();
+        }
     }
     
     /**
@@ -473,7 +686,7 @@ public abstract class TLink extends TTopologyElement implements Comparable, ITim
      * @return El packetsInTransitEntriesLock del enlace.
      * @since 2.0
      */
-    public TMonitor obtenerCerrojo() {
+    public TLock obtenerCerrojo() {
         return this.packetsInTransitEntriesLock;
     }
     
@@ -535,6 +748,15 @@ public abstract class TLink extends TTopologyElement implements Comparable, ITim
      * @since 2.0
      */
     public abstract long getRABANWeight();
+    /**
+     * This method generates the event that shows a packet travelling through
+     * the link, at the point of its transit it has reached.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param entry The buffer entry of the packet.
+     * @since 2.0
+     */
+    public abstract void generatePacketOnFlyEvent(TLinkBufferEntry entry);
     /**
      * Este m�todo calcula si est� bien configurado el enlace.
      * @return TRUE, si est� bien configurado. FALSE en caso contrario.
@@ -575,6 +797,7 @@ public abstract class TLink extends TTopologyElement implements Comparable, ITim
      */    
     public abstract void reset();
     
+    private static final long serialVersionUID = 1L;
     /**
      * Esta constante identifica a un enlace interno al dominio MPLS.
      * @since 2.0
@@ -610,7 +833,7 @@ public abstract class TLink extends TTopologyElement implements Comparable, ITim
      * el mismo.
      * @since 2.0
      */
-    protected SortedSet buffer;
+    protected SortedSet<TLinkBufferEntry> buffer;
     
     /**
      * Este atributo almacena temporalmente los paquetes que han llegado al destinio.
@@ -622,13 +845,13 @@ public abstract class TLink extends TTopologyElement implements Comparable, ITim
      * Este atributo es el monitor de la clase que permite sincronizaciones.
      * @since 2.0
      */
-    protected TMonitor packetsInTransitEntriesLock;
+    protected TLock packetsInTransitEntriesLock;
     /**
      * Este atributo es el monitor de la clase que permite sincronizaciones en el
      * buffer de paquetes lelgados al destino.
      * @since 2.0
      */    
-    protected TMonitor deliveredPacketEntriesLock;
+    protected TLock deliveredPacketEntriesLock;
     /**
      * Topolog�a a la cual pertenece el enlace.
      * @since 2.0
@@ -639,6 +862,8 @@ public abstract class TLink extends TTopologyElement implements Comparable, ITim
      * @since 2.0
      */    
     protected boolean linkIsBroken;
+
+    private transient TCutLinkChannel cutLinkChannel;
     
     /**
      * Esta constante se usa para indicar que la configuraci�n del enlace es correcta.
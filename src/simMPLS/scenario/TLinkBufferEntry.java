@@ -15,6 +15,7 @@
  */
 package simMPLS.scenario;
 
+import java.io.Serializable;
 import simMPLS.protocols.TAbstractPDU;
 
 /**
@@ -25,7 +26,7 @@ import simMPLS.protocols.TAbstractPDU;
  * href="mailto:ingeniero@ManoloDominguez.com">ingeniero@ManoloDominguez.com</A><br><A href="http://www.ManoloDominguez.com" target="_blank">http://www.ManoloDominguez.com</A>
  * @version 1.0
  */
-public class TLinkBufferEntry implements Comparable {
+public class TLinkBufferEntry implements Comparable, Serializable {
 
     /**
      * Crea una nueva instancia de TEntradaBufferEnlace
@@ -142,6 +143,7 @@ public class TLinkBufferEntry implements Comparable {
         return destino;
     }
     
+    private static final long serialVersionUID = 1L;
     private TAbstractPDU paquete;
     private int destino;
     private long te;
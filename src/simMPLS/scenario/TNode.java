@@ -20,7 +20,7 @@ import simMPLS.protocols.TMPLSPDU;
 import simMPLS.hardware.timer.TTimerEvent;
 import simMPLS.hardware.timer.ITimerEventListener;
 import simMPLS.hardware.ports.TPortSet;
-import simMPLS.utils.TMonitor;
+import simMPLS.utils.TLock;
 import simMPLS.utils.TLongIDGenerator;
 import java.awt.*;
 import org.jfree.chart.*;
@@ -52,7 +52,7 @@ public abstract class TNode extends TTopologyElement implements Comparable, ITim
         mostrarNombre = false;
         IP = d;
         ports = null;
-        cerrojo = new TMonitor();
+        cerrojo = new TLock("TNode.cerrojo");
         topology = t;
         generarEstadisticas = false;
         availableNs = 0;
@@ -259,7 +259,43 @@ public abstract class TNode extends TTopologyElement implements Comparable, ITim
     public synchronized void putPacket(TAbstractPDU paquete, int puerto) {
         cerrojo.lock();
         this.ports.getPort(puerto).addPacket(paquete);
-        cerrojo.unLock();
+        cerrojo.unlock();
+        this.notifyRoutingWeightChange();
+        this.scheduleNextTimerEvent();
+    }
+
+    /**
+     * This method prepares a forwarding node that has been asleep on the tick
+     * before the specified timer event, something that only happens with the
+     * event-driven and adaptive step engines. Those engines only leave a node
+     * asleep when it has nothing to switch, so the node gets the state it
+     * would have after that idle tick with the tick-driven engine: a tick of
+     * available time. It has to be called before the node takes the instant
+     * of the timer event.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param timerEvent The timer event the node is going to work on.
+     * @since 2.0
+     */
+    protected void wakeUpFromIdleTicks(TTimerEvent timerEvent) {
+        if ((this.getTimer() != null) && ((timerEvent.getUpperLimit() - this.getAvailableTime()) > timerEvent.getStepDuration())) {
+            this.handleGPSRPPacket();
+            this.availableNs = this.getTimer().getTick();
+        }
+    }
+
+    /**
+     * This method tells the topology the node belongs to that the routing
+     * weight of the node may have changed, because its congestion level or
+     * the number of entries of its switching matrix have changed.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    protected void notifyRoutingWeightChange() {
+        if (topology != null) {
+            topology.notifyRABANWeightChange(this);
+        }
     }
 
     /**
@@ -404,6 +440,7 @@ public abstract class TNode extends TTopologyElement implements Comparable, ITim
      */    
     public abstract void reset();
     
+    private static final long serialVersionUID = 1L;
     /**
      * Esta constante identifica a un nodo emisor.
      * @since 2.0
@@ -527,7 +564,7 @@ public abstract class TNode extends TTopologyElement implements Comparable, ITim
     /**
      * @since 2.0
      */    
-    private TMonitor cerrojo;
+    private TLock cerrojo;
     /**
      * Este atributo almacena la topology en la que est� incluido el nodo.
      * @since 2.0
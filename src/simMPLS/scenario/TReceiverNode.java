@@ -17,6 +17,7 @@ package simMPLS.scenario;
 
 import simMPLS.protocols.TAbstractPDU;
 import simMPLS.protocols.TMPLSPDU;
+import simMPLS.hardware.timer.TElementTickProfile;
 import simMPLS.hardware.timer.TTimerEvent;
 import simMPLS.hardware.timer.ITimerEventListener;
 import simMPLS.hardware.ports.TFIFOPortSet;
@@ -88,8 +89,11 @@ public class TReceiverNode extends TNode implements ITimerEventListener, Runnabl
      */    
     public void run() {
         // Acciones a llevar a cabo durante el tic.
+        long inicioDeFase = this.startTickPhase();
         recibirDatos();
+        inicioDeFase = this.endTickPhase(TElementTickProfile.SWITCHING_PHASE, inicioDeFase);
         estadisticas.consolidateData(this.getAvailableTime());
+        this.endTickPhase(TElementTickProfile.STATS_PHASE, inicioDeFase);
         // Acciones a llevar a cabo durante el tic.
     }
 
@@ -106,14 +110,17 @@ public class TReceiverNode extends TNode implements ITimerEventListener, Runnabl
         if (p != null) {
             while (p.thereIsAPacketWaiting()) {
                 paquete = p.getPacket();
-                try {
-                    idEvt = this.longIdentifierGenerator.getNextID();
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
                 this.contabilizarPaquete(paquete, true);
-                evt = new TSEPacketReceived(this, idEvt, this.getAvailableTime(), tipo, paquete.getSize());
-                this.simulationEventsListener.captureSimulationEvents(evt);
+                this.addSwitchedPacket(paquete.getSize());
+                if (this.isSimulationEventWanted(TSimulationEvent.PACKET_RECEIVED)) {
+                    try {
+                        idEvt = this.longIdentifierGenerator.getNextID();
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                    evt = new TSEPacketReceived(this, idEvt, this.getAvailableTime(), tipo, paquete.getSize());
+                    this.simulationEventsListener.captureSimulationEvents(evt);
+                }
                 paquete = null;
             }
         }
@@ -322,6 +329,7 @@ public class TReceiverNode extends TNode implements ITimerEventListener, Runnabl
     public void runGPSRP(TMPLSPDU paquete, int pSalida) {
     }
     
+    private static final long serialVersionUID = 1L;
     /**
      * Esta constante identifica que la configuraci�n del nodo es correcta.
      * @since 2.0
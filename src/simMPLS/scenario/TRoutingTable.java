@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.scenario;
+
+import java.util.HashMap;
+
+/**
+ * This class implements an all-pairs next-hop table computed from the
+ * topology. Once built it is never modified, so it can be queried
+ * concurrently without locks. When the topology changes, a new table has to
+ * be computed.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TRoutingTable {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TRoutingTable from the results of a shortest path computation.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param nodeIDs Identifier of the node at each index of the table.
+     * @param nextHopIndexes For each pair of indexes, the index of the next
+     * hop from the first node towards the second one, or
+     * TTopology.SIN_CAMINO if the path has no intermediate node.
+     * @param adjacentNodes For each pair of indexes, whether there is a link,
+     * broken or not, between both nodes.
+     * @since 2.0
+     */
+    public TRoutingTable(int[] nodeIDs, int[][] nextHopIndexes, boolean[][] adjacentNodes) {
+        this.nodeIDs = nodeIDs;
+        this.nextHopIndexes = nextHopIndexes;
+        this.adjacentNodes = adjacentNodes;
+        this.nodeIndexes = new HashMap<Integer, Integer>();
+        for (int i = 0; i < nodeIDs.length; i++) {
+            this.nodeIndexes.put(Integer.valueOf(nodeIDs[i]), Integer.valueOf(i));
+        }
+    }
+
+    /**
+     * This method returns the number of nodes the table was computed for.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of nodes.
+     * @since 2.0
+     */
+    public int getNumberOfNodes() {
+        return this.nodeIDs.length;
+    }
+
+    /**
+     * This method returns the index of the specified node in the table.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param nodeID The node identifier.
+     * @return The index of the node, or -1 if the node is not in the table.
+     * @since 2.0
+     */
+    public int getIndex(int nodeID) {
+        Integer index = this.nodeIndexes.get(Integer.valueOf(nodeID));
+        if (index == null) {
+            return -1;
+        }
+        return index.intValue();
+    }
+
+    /**
+     * This method returns the identifier of the node at the specified index.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param index The index in the table.
+     * @return The node identifier.
+     * @since 2.0
+     */
+    public int getNodeID(int index) {
+        return this.nodeIDs[index];
+    }
+
+    /**
+     * This method returns the index of the next hop from a node towards
+     * another one.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param originIndex Index of the origin node.
+     * @param targetIndex Index of the target node.
+     * @return The index of the next hop, or TTopology.SIN_CAMINO if the path
+     * has no intermediate node.
+     * @since 2.0
+     */
+    public int getNextHopIndex(int originIndex, int targetIndex) {
+        return this.nextHopIndexes[originIndex][targetIndex];
+    }
+
+    /**
+     * This method checks whether there is a link, broken or not, between two
+     * nodes.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param originIndex Index of one of the nodes.
+     * @param targetIndex Index of the other node.
+     * @return TRUE, if both nodes are linked. Otherwise, returns FALSE.
+     * @since 2.0
+     */
+    public boolean areAdjacent(int originIndex, int targetIndex) {
+        return this.adjacentNodes[originIndex][targetIndex];
+    }
+
+    private int[] nodeIDs;
+    private int[][] nextHopIndexes;
+    private boolean[][] adjacentNodes;
+    private HashMap<Integer, Integer> nodeIndexes;
+}
@@ -50,6 +50,15 @@ public class TSEPacketReceived extends TSimulationEvent {
         return tipoP;
     }
 
+    /**
+     * Este metodo obtiene el tamanio del paquete al que se refiere el evento.
+     * @return El tamanio del paquete, en octetos.
+     * @since 2.0
+     */    
+    public int obtenerTamanio() {
+        return tamanio;
+    }
+
     /**
      * Este m�todo obtiene el subtipo del evento, si los hubiese.
      * @return El subtipo del evento.
@@ -26,7 +26,7 @@ import java.io.*;
  * href="mailto:ingeniero@ManoloDominguez.com">ingeniero@ManoloDominguez.com</A><br><A href="http://www.ManoloDominguez.com" target="_blank">http://www.ManoloDominguez.com</A>
  * @version 1.0
  */
-public class TScenario {
+public class TScenario implements Serializable {
 
     /**
      * Crea una nueva instancia de TEscenario
@@ -284,6 +284,18 @@ public class TScenario {
         }
     }
 
+    /**
+     * Este metodo continua la simulacion desde el instante en que se detuvo,
+     * sin reiniciar el reloj ni el estado de la topologia. Se usa para seguir
+     * simulando tras guardar un punto de control o tras restaurarlo.
+     * @since 2.0
+     */
+    public void reanudarSimulacion() {
+        if (!this.simulacionEnFuncionamiento()) {
+            topologia.obtenerReloj().restart();
+        }
+    }
+
     /**
      * Este m�todo permite establecer el tiempo que debe durar la simulaci�n.
      * @param d Marca de tiempo que expresa la duraci�n en tiempo de simulaci�n, de la
@@ -373,6 +385,7 @@ public class TScenario {
     }
     
     
+    private static final long serialVersionUID = 1L;
     private String titulo;
     private String autor;
     private String descripcion;
@@ -19,6 +19,7 @@ import simMPLS.protocols.TAbstractPDU;
 import simMPLS.protocols.TMPLSLabel;
 import simMPLS.protocols.TMPLSPDU;
 import simMPLS.protocols.TIPv4PDU;
+import simMPLS.hardware.timer.TElementTickProfile;
 import simMPLS.hardware.timer.TTimerEvent;
 import simMPLS.hardware.timer.ITimerEventListener;
 import simMPLS.hardware.ports.TFIFOPortSet;
@@ -27,6 +28,7 @@ import simMPLS.hardware.ports.TPortSet;
 import simMPLS.utils.EIDGeneratorOverflow;
 import simMPLS.utils.TLongIDGenerator;
 import simMPLS.utils.TRotaryIDGenerator;
+import simMPLS.utils.TRandomStream;
 import java.awt.*;
 import java.util.*;
 
@@ -57,7 +59,7 @@ public class TSenderNode extends TNode implements ITimerEventListener, Runnable
         encapsularSobreMPLS = false;
         nivelDeGoS = 0;
         LSPDeBackup = false;
-        generadorDeAleatorios = new Random();
+        generadorDeAleatorios = t.obtenerEscenario().getSimulation().createRandomStream(identificador);
         etiquetaDeEmision = (16 + generadorDeAleatorios.nextInt(1000000));
         tamDatosConstante = 0;
         tamDatosVariable = 0;
@@ -244,12 +246,46 @@ public class TSenderNode extends TNode implements ITimerEventListener, Runnable
      * @since 2.0
      */
     public void receiveTimerEvent(TTimerEvent evt) {
+        this.skipIdleTicks(evt);
         this.setStepDuration(evt.getStepDuration());
         this.setTimeInstant(evt.getUpperLimit());
         this.availableNs += evt.getStepDuration();
         this.startOperation();
     }
     
+    /**
+     * This method does what the tick-driven engine would do on the ticks the
+     * sender has been asleep, something that only happens with the
+     * event-driven engine. The sender does not emit on those ticks, but it
+     * creates the packet it would emit on each of them, so it takes their
+     * identifiers too. It has to be called before the sender takes the
+     * instant of the timer event.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param timerEvent The timer event the sender is going to work on.
+     * @since 2.0
+     */
+    private void skipIdleTicks(TTimerEvent timerEvent) {
+        if (this.getTimer() == null) {
+            return;
+        }
+        long tick = this.getTimer().getTick();
+        long skippedInstant = this.getAvailableTime() + tick;
+        int valorGoS = this.obtenerCodificacionEXP();
+        try {
+            while (skippedInstant < timerEvent.getUpperLimit()) {
+                this.gIdent.getNextID();
+                if (valorGoS != TAbstractPDU.EXP_LEVEL0_WITHOUT_BACKUP_LSP) {
+                    this.gIdGoS.getNextID();
+                }
+                this.increaseStepsWithoutEmitting();
+                skippedInstant += tick;
+            }
+        } catch (EIDGeneratorOverflow e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * Este m�todo se llama cuando el hilo independiente del nodo se pone en
      * funcionamiento. Es el n�cleo del nodo.
@@ -257,23 +293,38 @@ public class TSenderNode extends TNode implements ITimerEventListener, Runnable
      */
     public void run() {
         try {
-            this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), 0));
+            if (this.isSimulationEventWanted(TSimulationEvent.NODE_CONGESTED)) {
+                this.generateSimulationEvent(new TSENodeCongested(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), 0));
+            }
         } catch (Exception e) {
             e.printStackTrace(); 
         }
         TAbstractPDU paqueteTmp = crearPaquete();
         boolean emito = false;
+        long inicioDeFase = this.startTickPhase();
         while (obtenerOctetosTransmitibles() > obtenerTamanioSiguientePaquete(paqueteTmp)) {
             emito = true;
             generarTrafico();
         }
+        this.endTickPhase(TElementTickProfile.SWITCHING_PHASE, inicioDeFase);
+        long nsHastaSiguientePaquete = (long) Math.ceil(obtenerNsUsadosTotalOctetos(obtenerTamanioSiguientePaquete(paqueteTmp) + 1) - this.availableNs);
+        if ((this.getTimer() != null) && (nsHastaSiguientePaquete > this.getTimer().getTick())) {
+            // Sleep until enough time has been accumulated to generate the
+            // next packet. Only has effect with the event-driven and adaptive
+            // step engines.
+            this.scheduleTimerEvent(nsHastaSiguientePaquete);
+        } else {
+            this.scheduleNextTimerEvent();
+        }
         paqueteTmp = null;
         if (emito) {
             this.handleGPSRPPacket();
         } else {
             this.increaseStepsWithoutEmitting();
         }
+        inicioDeFase = this.startTickPhase();
         this.estadisticas.consolidateData(this.getAvailableTime());
+        this.endTickPhase(TElementTickProfile.STATS_PHASE, inicioDeFase);
     }
     
     /**
@@ -350,8 +401,12 @@ public class TSenderNode extends TNode implements ITimerEventListener, Runnable
                             TIPv4PDU paqueteIPv4 = (TIPv4PDU) paqueteConTamanio;
                             tipo = paqueteIPv4.getSubtype();
                         }
-                        this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), tipo, paqueteConTamanio.getSize()));
-                        this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), tipo));
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_GENERATED)) {
+                            this.generateSimulationEvent(new TSEPacketGenerated(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), tipo, paqueteConTamanio.getSize()));
+                        }
+                        if (this.isSimulationEventWanted(TSimulationEvent.PACKET_SENT)) {
+                            this.generateSimulationEvent(new TSEPacketSent(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), tipo));
+                        }
                     } catch (Exception e) {
                         e.printStackTrace(); 
                     }
@@ -589,7 +644,9 @@ public class TSenderNode extends TNode implements ITimerEventListener, Runnable
      */    
     public void discardPacket(TAbstractPDU paquete) {
         try {
-            this.generateSimulationEvent(new TSEPacketDiscarded(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+            if (this.isSimulationEventWanted(TSimulationEvent.PACKET_DISCARDED)) {
+                this.generateSimulationEvent(new TSEPacketDiscarded(this, this.longIdentifierGenerator.getNextID(), this.getAvailableTime(), paquete.getSubtype()));
+            }
             this.estadisticas.addStatEntry(paquete, TStats.DISCARD);
         } catch (Exception e) {
             e.printStackTrace(); 
@@ -771,6 +828,10 @@ public class TSenderNode extends TNode implements ITimerEventListener, Runnable
      * @since 2.0
      */    
     public void reset() {
+        // La secuencia aleatoria se vuelve a crear a partir de la semilla de la
+        // simulacion para que cada ejecucion genere exactamente el mismo trafico.
+        generadorDeAleatorios = this.topology.obtenerEscenario().getSimulation().createRandomStream(this.getID());
+        etiquetaDeEmision = (16 + generadorDeAleatorios.nextInt(1000000));
         gIdent.reset();
         gIdGoS.reset();
         this.ports.reset();
@@ -808,6 +869,7 @@ public class TSenderNode extends TNode implements ITimerEventListener, Runnable
     public void runGPSRP(TMPLSPDU paquete, int pSalida) {
     }
     
+    private static final long serialVersionUID = 1L;
     private String IPDestino;
     private int tasaTransferencia;
     private int tipoTrafico;
@@ -815,7 +877,7 @@ public class TSenderNode extends TNode implements ITimerEventListener, Runnable
     private int nivelDeGoS;
     private boolean LSPDeBackup;
     
-    private Random generadorDeAleatorios;
+    private TRandomStream generadorDeAleatorios;
     private int etiquetaDeEmision;
     private TRotaryIDGenerator gIdGoS;
     private int tamDatosConstante;
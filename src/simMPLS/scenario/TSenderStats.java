@@ -468,6 +468,7 @@ public class TSenderStats extends TStats {
         return null;
     }
     
+    private static final long serialVersionUID = 1L;
     private int tSIPV4;
     private int tSIPV4_GOS1;
     private int tSIPV4_GOS2;
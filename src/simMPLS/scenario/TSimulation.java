@@ -15,8 +15,12 @@
  */
 package simMPLS.scenario;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import simMPLS.ui.simulator.JSimulationPanel;
 import simMPLS.hardware.simulationcollector.TSimulationCollector;
+import simMPLS.utils.TRandomStream;
 
 /**
  * Esta clase implementa un objeto que almacena los datos globales de la
@@ -25,7 +29,7 @@ import simMPLS.hardware.simulationcollector.TSimulationCollector;
  * href="mailto:ingeniero@ManoloDominguez.com">ingeniero@ManoloDominguez.com</A><br><A href="http://www.ManoloDominguez.com" target="_blank">http://www.ManoloDominguez.com</A>
  * @version 1.0
  */
-public class TSimulation {
+public class TSimulation implements Serializable {
 
     /**
      * Crea una nueva instancia de TScenario
@@ -37,6 +41,7 @@ public class TSimulation {
         recolector = new TSimulationCollector();
         duracion = 500;
         paso = 1;
+        semilla = TSimulation.SEMILLA_POR_DEFECTO;
     }
 
     /**
@@ -133,9 +138,100 @@ public class TSimulation {
         return recolector;
     }
 
+    /**
+     * Este metodo permite establecer la semilla maestra de la simulacion, de
+     * la que se derivan todas las secuencias de numeros aleatorios que usan
+     * los elementos de la topologia.
+     * @param s Semilla maestra de la simulacion.
+     * @since 2.0
+     */
+    public void setSeed(long s) {
+        this.semilla = s;
+    }
+
+    /**
+     * Este metodo permite obtener la semilla maestra de la simulacion.
+     * @return Semilla maestra de la simulacion.
+     * @since 2.0
+     */
+    public long getSeed() {
+        return this.semilla;
+    }
+
+    /**
+     * Este metodo crea la secuencia de numeros aleatorios de un elemento de la
+     * topologia. La secuencia depende solo de la semilla maestra y del
+     * identificador del elemento, de modo que es la misma en cada ejecucion
+     * independientemente del orden en que se creen las secuencias o de los
+     * hilos que ejecuten los elementos.
+     * @param identificador Identificador del elemento de la topologia.
+     * @return Una secuencia de numeros aleatorios propia del elemento.
+     * @since 2.0
+     */
+    public TRandomStream createRandomStream(int identificador) {
+        long semillaElemento = new TRandomStream(this.semilla ^ (identificador * TSimulation.MEZCLA_IDENTIFICADOR)).nextLong();
+        return new TRandomStream(semillaElemento);
+    }
+
+    /**
+     * Este metodo serializa la semilla maestra de la simulacion, convirtiendola
+     * en un texto que se puede almacenar en disco.
+     * @return Un texto que representa la semilla maestra.
+     * @since 2.0
+     */
+    public String marshallSeed() {
+        String serializada = "#Semilla#";
+        serializada += this.semilla+"#";
+        return serializada;
+    }
+
+    /**
+     * Este metodo deserializa la semilla maestra de la simulacion previamente
+     * serializada.
+     * @param s La semilla maestra serializada.
+     * @return TRUE, si se ha conseguido deserializar correctamente. FALSE en
+     * caso contrario.
+     * @since 2.0
+     */
+    public boolean unmarshallSeed(String s) {
+        String valores[] = s.split("#");
+        if (valores.length != 3) {
+            return false;
+        }
+        try {
+            this.semilla = Long.parseLong(valores[2]);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Este metodo restaura la simulacion desde un punto de control. El
+     * recolector de eventos no se guarda, asi que se crea uno nuevo.
+     * @param entrada Flujo desde el que se lee la simulacion.
+     * @throws IOException Si no se puede leer la simulacion.
+     * @throws ClassNotFoundException Si alguna clase guardada no existe.
+     * @since 2.0
+     */
+    private void readObject(ObjectInputStream entrada) throws IOException, ClassNotFoundException {
+        entrada.defaultReadObject();
+        this.recolector = new TSimulationCollector();
+    }
+
+    private static final long serialVersionUID = 1L;
+    /**
+     * Semilla maestra que usan los escenarios nuevos y los ficheros .osm que
+     * no la incluyen.
+     * @since 2.0
+     */
+    public static final long SEMILLA_POR_DEFECTO = 0;
+    private static final long MEZCLA_IDENTIFICADOR = 0x9E3779B97F4A7C15L;
+
     private long duracion;
     private long paso;
+    private long semilla;
     
     private TScenario escenarioPadre;
-    private TSimulationCollector recolector;
+    private transient TSimulationCollector recolector;
 }
@@ -15,6 +15,7 @@
  */
 package simMPLS.scenario;
 
+import java.io.Serializable;
 import simMPLS.protocols.TAbstractPDU;
 import org.jfree.chart.*;
 import org.jfree.chart.labels.*;
@@ -28,7 +29,7 @@ import org.jfree.data.*;
  * href="mailto:ingeniero@ManoloDominguez.com">ingeniero@ManoloDominguez.com</A><br><A href="http://www.ManoloDominguez.com" target="_blank">http://www.ManoloDominguez.com</A>
  * @version 1.0
  */
-public abstract class TStats {
+public abstract class TStats implements Serializable {
     
     /**
      * Crea una nueva instancia de TEstadisticas
@@ -148,6 +149,7 @@ public abstract class TStats {
      */    
     public abstract void reset();
     
+    private static final long serialVersionUID = 1L;
     /**
      * Este atributo almacenar� si las estad�sticas est�n activada o no.
      * @since 2.0
@@ -15,9 +15,13 @@
  */
 package simMPLS.scenario;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import simMPLS.hardware.ports.TPortSet;
 import simMPLS.hardware.timer.TTimer;
 import simMPLS.utils.TIPGenerator;
-import simMPLS.utils.TMonitor;
+import simMPLS.utils.TLock;
 import simMPLS.utils.TIDGenerator;
 import simMPLS.utils.TLongIDGenerator;
 import java.awt.*;
@@ -29,7 +33,7 @@ import java.util.*;
  * href="mailto:ingeniero@ManoloDominguez.com">ingeniero@ManoloDominguez.com</A><br><A href="http://www.ManoloDominguez.com" target="_blank">http://www.ManoloDominguez.com</A>
  * @version 1.0
  */
-public class TTopology {
+public class TTopology implements Serializable {
 
     /**
      * Crea una nueva instancia de TTopologia
@@ -39,13 +43,25 @@ public class TTopology {
     public TTopology(TScenario e) {
         conjuntoNodos = new TreeSet();
         conjuntoEnlaces = new TreeSet();
+        indiceNodosPorID = new HashMap<Integer, TNode>();
+        indiceNodosPorIP = new HashMap<String, TNode>();
+        indiceEnlacesPorID = new HashMap<Integer, TLink>();
+        indiceAdyacencias = new HashMap<Integer, HashMap<Integer, TLink>>();
+        indiceExtremosEnlaces = new HashMap<TLink, int[]>();
         relojTopologia = new TTimer();
         escenarioPadre = e;
-        IDEvento = new TLongIDGenerator();
+        // Todos los elementos de la topologia toman de este generador los
+        // identificadores de sus eventos desde distintos hilos, por lo que
+        // cada hilo los reserva por bloques para acceder menos al contador
+        // compartido.
+        IDEvento = new TLongIDGenerator(TLongIDGenerator.TAMANIO_DE_BLOQUE_COMPARTIDO);
         generaIdentificador = new TIDGenerator();
         generadorIP = new TIPGenerator();
-        cerrojoFloyd = new TMonitor();
-        cerrojoRABAN = new TMonitor();
+        cerrojoFloyd = new TLock("TTopology.cerrojoFloyd");
+        cerrojoTablaEncaminamiento = new TLock("TTopology.cerrojoTablaEncaminamiento");
+        tablaEncaminamiento = null;
+        versionTablaEncaminamiento = 0;
+        tablaRABAN = new TDynamicRoutingTable(this);
     }
 
     /**
@@ -69,8 +85,7 @@ public class TTopology {
         }
         relojTopologia.reset();
         IDEvento.reset();
-        this.cerrojoFloyd.unLock();
-        this.cerrojoRABAN.unLock();
+        this.cerrojoFloyd.unlock();
     }
     
     /**
@@ -80,6 +95,8 @@ public class TTopology {
      */    
     public void addNode(TNode nodo) {
         conjuntoNodos.add(nodo);
+        this.indexarNodo(nodo);
+        this.invalidateRoutingTable();
         relojTopologia.addTimerEventListener(nodo);
         try {
             nodo.addListenerSimulacion(escenarioPadre.getSimulation().obtenerRecolector());
@@ -98,9 +115,11 @@ public class TTopology {
             if (nodo.getID() == identificador) {
                 nodo.ponerPurgar(true);
                 iterador.remove();
+                this.desindexarNodo(nodo);
                 fin = true;
             }
         }
+        this.invalidateRoutingTable();
         this.relojTopologia.purgeTimerEventListeners();
     }
 
@@ -118,14 +137,7 @@ public class TTopology {
      * @since 2.0
      */    
     public TNode obtenerNodo(int identificador) {
-        TNode nodo = null;
-        Iterator iterador = conjuntoNodos.iterator();
-        while (iterador.hasNext()) {
-            nodo = (TNode) iterador.next();
-            if (nodo.getID() == identificador)
-                return nodo;
-        }
-        return null;
+        return indiceNodosPorID.get(Integer.valueOf(identificador));
     }
 
     /**
@@ -135,14 +147,7 @@ public class TTopology {
      * @since 2.0
      */    
     public TNode getNode(String ip) {
-        TNode nodo = null;
-        Iterator iterador = conjuntoNodos.iterator();
-        while (iterador.hasNext()) {
-            nodo = (TNode) iterador.next();
-            if (nodo.getIPv4Address().equals(ip))
-                return nodo;
-        }
-        return null;
+        return indiceNodosPorIP.get(ip);
     }
 
     /**
@@ -330,6 +335,8 @@ public class TTopology {
      */    
     public void addLink(TLink enlace) {
         conjuntoEnlaces.add(enlace);
+        this.indexarEnlace(enlace);
+        this.invalidateRoutingTable();
         relojTopologia.addTimerEventListener(enlace);
         try {
             enlace.addListenerSimulacion(escenarioPadre.getSimulation().obtenerRecolector());
@@ -352,9 +359,11 @@ public class TTopology {
                 enlace.desconectarDePuertos();
                 enlace.ponerPurgar(true);
                 iterador.remove();
+                this.desindexarEnlace(enlace);
                 fin = true;
             }
         }
+        this.invalidateRoutingTable();
         this.relojTopologia.purgeTimerEventListeners();
     }
 
@@ -375,14 +384,7 @@ public class TTopology {
      * @since 2.0
      */    
     public TLink obtenerEnlace(int identificador) {
-        TLink enlace = null;
-        Iterator iterador = conjuntoEnlaces.iterator();
-        while (iterador.hasNext()) {
-            enlace = (TLink) iterador.next();
-            if (enlace.getID() == identificador)
-                return enlace;
-        }
-        return null;
+        return indiceEnlacesPorID.get(Integer.valueOf(identificador));
     }
 
     /**
@@ -437,6 +439,7 @@ public class TTopology {
                 fin = true;
             }
         }
+        this.invalidateRoutingTable();
     }
 
     /**
@@ -488,9 +491,11 @@ public class TTopology {
                 enlace.desconectarDePuertos();
                 enlace.ponerPurgar(true);
                 iterador.remove();
+                this.desindexarEnlace(enlace);
             }
         }
         eliminarSoloNodo(identificador);
+        this.invalidateRoutingTable();
         this.relojTopologia.purgeTimerEventListeners();
     }
 
@@ -544,6 +549,12 @@ public class TTopology {
             n.ponerPurgar(true);
             it.remove();
         }
+        indiceNodosPorID.clear();
+        indiceNodosPorIP.clear();
+        indiceEnlacesPorID.clear();
+        indiceAdyacencias.clear();
+        indiceExtremosEnlaces.clear();
+        this.invalidateRoutingTable();
         this.relojTopologia.purgeTimerEventListeners();
     }
 
@@ -574,6 +585,15 @@ public class TTopology {
         return relojTopologia;
     }
 
+    /**
+     * Este metodo permite obtener el escenario al que pertenece la topologia.
+     * @return El escenario al que pertenece la topologia.
+     * @since 2.0
+     */
+    public TScenario obtenerEscenario() {
+        return escenarioPadre;
+    }
+
     /**
      * Este m�todo permite obtener el retardo menor de todos los enlaces de la topology.
      * @return El retardo menor de todos los enlaces de la topolog�a.
@@ -609,20 +629,7 @@ public class TTopology {
      * @since 2.0
      */    
     public boolean existeEnlace(int extremo1, int extremo2) {
-        TLink enlace = null;
-        Iterator iterador = conjuntoEnlaces.iterator();
-        TNode izquierdo;
-        TNode derecho;
-        while (iterador.hasNext()) {
-            enlace = (TLink) iterador.next();
-            izquierdo = enlace.getNodeAtEnd1();
-            derecho = enlace.getNodeAtEnd2();
-            if ((derecho.getID() == extremo1) && (izquierdo.getID() == extremo2))
-                return true;
-            if ((derecho.getID() == extremo2) && (izquierdo.getID() == extremo1))
-                return true;
-        }
-        return false;
+        return (obtenerEnlace(extremo1, extremo2) != null);
     }
 
     /**
@@ -634,25 +641,153 @@ public class TTopology {
      * @since 2.0
      */    
     public TLink obtenerEnlace(int extremo1, int extremo2) {
-        TLink enlace = null;
-        Iterator iterador = conjuntoEnlaces.iterator();
-        TNode izquierdo;
-        TNode derecho;
+        HashMap<Integer, TLink> vecinos = indiceAdyacencias.get(Integer.valueOf(extremo1));
+        if (vecinos == null)
+            return null;
+        return vecinos.get(Integer.valueOf(extremo2));
+    }
+
+    /**
+     * This method updates the indexes of the topology after the ends of a
+     * link have changed. Links call it by themselves, so it only has to be
+     * called directly if the ends of a link are changed in any other way.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param enlace The link whose ends have changed.
+     * @since 2.0
+     */
+    public void reindexarEnlace(TLink enlace) {
+        if (indiceEnlacesPorID.get(Integer.valueOf(enlace.getID())) == enlace) {
+            this.desindexarEnlace(enlace);
+            this.indexarEnlace(enlace);
+        }
+    }
+
+    /**
+     * This method adds a node to the indexes by identifier and by IPv4
+     * address.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param nodo The node to be indexed.
+     * @since 2.0
+     */
+    private void indexarNodo(TNode nodo) {
+        indiceNodosPorID.put(Integer.valueOf(nodo.getID()), nodo);
+        if (nodo.getIPv4Address() != null)
+            indiceNodosPorIP.put(nodo.getIPv4Address(), nodo);
+    }
+
+    /**
+     * This method removes a node from the indexes by identifier and by IPv4
+     * address.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param nodo The node to be removed from the indexes.
+     * @since 2.0
+     */
+    private void desindexarNodo(TNode nodo) {
+        if (indiceNodosPorID.get(Integer.valueOf(nodo.getID())) == nodo)
+            indiceNodosPorID.remove(Integer.valueOf(nodo.getID()));
+        if ((nodo.getIPv4Address() != null) && (indiceNodosPorIP.get(nodo.getIPv4Address()) == nodo))
+            indiceNodosPorIP.remove(nodo.getIPv4Address());
+        indiceAdyacencias.remove(Integer.valueOf(nodo.getID()));
+    }
+
+    /**
+     * This method adds a link to the index by identifier and to the
+     * adjacency lists of both nodes at its ends. If there is already a link
+     * between both nodes, the adjacency lists keep the existing one.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param enlace The link to be indexed.
+     * @since 2.0
+     */
+    private void indexarEnlace(TLink enlace) {
+        indiceEnlacesPorID.put(Integer.valueOf(enlace.getID()), enlace);
+        TNode izquierdo = enlace.getNodeAtEnd1();
+        TNode derecho = enlace.getNodeAtEnd2();
+        if ((izquierdo == null) || (derecho == null))
+            return;
+        int extremos[] = {izquierdo.getID(), derecho.getID()};
+        indiceExtremosEnlaces.put(enlace, extremos);
+        this.ponerAdyacencia(extremos[0], extremos[1], enlace);
+        this.ponerAdyacencia(extremos[1], extremos[0], enlace);
+    }
+
+    /**
+     * This method removes a link from the index by identifier and from the
+     * adjacency lists of the nodes it was connecting when it was indexed. If
+     * there is another link between both nodes, it takes its place in the
+     * adjacency lists.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param enlace The link to be removed from the indexes.
+     * @since 2.0
+     */
+    private void desindexarEnlace(TLink enlace) {
+        if (indiceEnlacesPorID.get(Integer.valueOf(enlace.getID())) == enlace)
+            indiceEnlacesPorID.remove(Integer.valueOf(enlace.getID()));
+        int extremos[] = indiceExtremosEnlaces.remove(enlace);
+        if (extremos == null)
+            return;
+        HashMap<Integer, TLink> vecinos = indiceAdyacencias.get(Integer.valueOf(extremos[0]));
+        if ((vecinos == null) || (vecinos.get(Integer.valueOf(extremos[1])) != enlace))
+            return;
+        this.quitarAdyacencia(extremos[0], extremos[1]);
+        this.quitarAdyacencia(extremos[1], extremos[0]);
+        Iterator<Map.Entry<TLink, int[]>> iterador = indiceExtremosEnlaces.entrySet().iterator();
         while (iterador.hasNext()) {
-            enlace = (TLink) iterador.next();
-            izquierdo = enlace.getNodeAtEnd1();
-            derecho = enlace.getNodeAtEnd2();
-            if ((derecho.getID() == extremo1) && (izquierdo.getID() == extremo2))
-                return enlace;
-            if ((derecho.getID() == extremo2) && (izquierdo.getID() == extremo1))
-                return enlace;
+            Map.Entry<TLink, int[]> entrada = iterador.next();
+            int otrosExtremos[] = entrada.getValue();
+            if (((otrosExtremos[0] == extremos[0]) && (otrosExtremos[1] == extremos[1])) || ((otrosExtremos[0] == extremos[1]) && (otrosExtremos[1] == extremos[0]))) {
+                this.ponerAdyacencia(extremos[0], extremos[1], entrada.getKey());
+                this.ponerAdyacencia(extremos[1], extremos[0], entrada.getKey());
+                return;
+            }
+        }
+    }
+
+    /**
+     * This method adds a link to the adjacency list of a node, unless the
+     * node has already a link to the same neighbour.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param nodo Identifier of the node.
+     * @param vecino Identifier of the neighbour.
+     * @param enlace The link between both nodes.
+     * @since 2.0
+     */
+    private void ponerAdyacencia(int nodo, int vecino, TLink enlace) {
+        HashMap<Integer, TLink> vecinos = indiceAdyacencias.get(Integer.valueOf(nodo));
+        if (vecinos == null) {
+            vecinos = new HashMap<Integer, TLink>();
+            indiceAdyacencias.put(Integer.valueOf(nodo), vecinos);
+        }
+        if (!vecinos.containsKey(Integer.valueOf(vecino)))
+            vecinos.put(Integer.valueOf(vecino), enlace);
+    }
+
+    /**
+     * This method removes a neighbour from the adjacency list of a node.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param nodo Identifier of the node.
+     * @param vecino Identifier of the neighbour.
+     * @since 2.0
+     */
+    private void quitarAdyacencia(int nodo, int vecino) {
+        HashMap<Integer, TLink> vecinos = indiceAdyacencias.get(Integer.valueOf(nodo));
+        if (vecinos != null) {
+            vecinos.remove(Integer.valueOf(vecino));
+            if (vecinos.isEmpty())
+                indiceAdyacencias.remove(Integer.valueOf(nodo));
         }
-        return null;
     }
 
     /**
      * Este m�todo permite acceder directamente al generador de identificadores para
- eventos de la topology.
+ eventos de la topology. Los identificadores son unicos, pero solo son
+     * crecientes dentro de cada hilo.
      * @return El generador de identificadores para eventos de la topology.
      * @since 2.0
      */    
@@ -707,12 +842,85 @@ public class TTopology {
      * @return Identificador del nod que es siguiente salto para llegar del origen al destino.
      * @since 2.0
      */    
-    public synchronized int obtenerSalto(int origen, int destino) {
-        cerrojoFloyd.lock();
-        int numNodosActual = this.conjuntoNodos.size();
-        int origen2 = 0;
+    public int obtenerSalto(int origen, int destino) {
+        TRoutingTable tabla = this.obtenerTablaEncaminamiento();
+        if (tabla.getNumberOfNodes() == 0) {
+            return this.SIN_CAMINO;
+        }
+        // Si el origen o el destino no están en la topología se usa el
+        // índice 0, igual que al calcular la tabla.
+        int origen2 = tabla.getIndex(origen);
+        if (origen2 < 0) {
+            origen2 = 0;
+        }
         int destino2 = 0;
-        // Hayamos equivalencias entre �ndices e identificadores de nodo
+        if (destino != origen) {
+            destino2 = tabla.getIndex(destino);
+            if (destino2 < 0) {
+                destino2 = 0;
+            }
+        }
+        int nodoSiguiente = tabla.getNextHopIndex(origen2, destino2);
+        if (nodoSiguiente != this.SIN_CAMINO) {
+            return tabla.getNodeID(nodoSiguiente);
+        }
+        // Comprobamos si no hay camino o es que son adyacentes
+        if ((destino != origen) && (tabla.getIndex(origen) == origen2) && (tabla.getIndex(destino) == destino2)) {
+            if (tabla.areAdjacent(origen2, destino2)) {
+                return destino;
+            }
+            return this.SIN_CAMINO;
+        }
+        if (this.obtenerEnlace(origen, destino) != null) {
+            return destino;
+        }
+        return this.SIN_CAMINO;
+    }
+
+    /**
+     * This method returns the all-pairs next-hop table of the topology. The
+     * table is computed only when the topology has changed since the last
+     * time it was computed, so that repeated next-hop queries do not run the
+     * Floyd algorithm again.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The current next-hop table of the topology.
+     * @since 2.0
+     */
+    private TRoutingTable obtenerTablaEncaminamiento() {
+        TRoutingTable tabla = this.tablaEncaminamiento;
+        if (tabla == null) {
+            cerrojoFloyd.lock();
+            tabla = this.tablaEncaminamiento;
+            if (tabla == null) {
+                cerrojoTablaEncaminamiento.lock();
+                long version = this.versionTablaEncaminamiento;
+                cerrojoTablaEncaminamiento.unlock();
+                tabla = calcularTablaEncaminamiento();
+                // If the topology changed while computing, the table is used
+                // for this query but not cached.
+                cerrojoTablaEncaminamiento.lock();
+                if (version == this.versionTablaEncaminamiento) {
+                    this.tablaEncaminamiento = tabla;
+                }
+                cerrojoTablaEncaminamiento.unlock();
+            }
+            cerrojoFloyd.unlock();
+        }
+        return tabla;
+    }
+
+    /**
+     * This method computes, using the Floyd algorithm and the weight of each
+     * link, the next hop between every pair of nodes of the topology.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return A new next-hop table for the topology.
+     * @since 2.0
+     */
+    private TRoutingTable calcularTablaEncaminamiento() {
+        int numNodosActual = this.conjuntoNodos.size();
+        // Hayamos equivalencias entre índices e identificadores de nodo
         int equivalencia[] = new int[numNodosActual];
         int i=0;
         TNode nt = null;
@@ -720,76 +928,101 @@ public class TTopology {
         while (it.hasNext()) {
             nt = (TNode) it.next();
             equivalencia[i] = nt.getID();
-            if (equivalencia[i] == origen)
-                origen2 = i;
-            else if (equivalencia[i] == destino)
-                destino2 = i;
             i++;
         }
-        // Averiguamos la matriz de adyacencia
+        // Averiguamos la matriz de adyacencia a partir de los vecinos de cada
+        // nodo, que ya es la matriz de costes inicial.
+        HashMap<Integer, Integer> indices = new HashMap<Integer, Integer>();
+        for (i=0; i<numNodosActual; i++) {
+            indices.put(Integer.valueOf(equivalencia[i]), Integer.valueOf(i));
+        }
         TLink en = null;
-        long matrizAdyacencia[][] = new long[numNodosActual][numNodosActual];
+        long matrizCostes[][] = new long[numNodosActual][numNodosActual];
+        boolean adyacentes[][] = new boolean[numNodosActual][numNodosActual];
         int j=0;
         for (i=0; i<numNodosActual; i++) {
-            for (j=0; j<numNodosActual; j++) {
-                en = obtenerEnlace(equivalencia[i], equivalencia[j]);
-                if ((en == null) || ((en != null) && (en.isBroken()))) {
-                    if (i==j) {
-                        matrizAdyacencia[i][j] = 0;
-                    } else {
-                        matrizAdyacencia[i][j] = this.PESO_INFINITO;
-                    }
-                } else {
-                    if (en.getLinkType() == TLink.EXTERNAL) {
-                        TExternalLink ee = (TExternalLink) en;
-                        matrizAdyacencia[i][j] = ee.getWeight();
-                    } else {
-                        TInternalLink ei = (TInternalLink) en;
-                        matrizAdyacencia[i][j] = ei.getWeight();
+            Arrays.fill(matrizCostes[i], this.PESO_INFINITO);
+            matrizCostes[i][i] = 0;
+            HashMap<Integer, TLink> vecinos = indiceAdyacencias.get(Integer.valueOf(equivalencia[i]));
+            if (vecinos != null) {
+                Iterator<Map.Entry<Integer, TLink>> itVecinos = vecinos.entrySet().iterator();
+                while (itVecinos.hasNext()) {
+                    Map.Entry<Integer, TLink> vecino = itVecinos.next();
+                    Integer indice = indices.get(vecino.getKey());
+                    if (indice != null) {
+                        j = indice.intValue();
+                        en = vecino.getValue();
+                        adyacentes[i][j] = true;
+                        if (!en.isBroken()) {
+                            matrizCostes[i][j] = en.getWeight();
+                        } else if (i != j) {
+                            matrizCostes[i][j] = this.PESO_INFINITO;
+                        }
                     }
                 }
             }
         }
-        // Calculamos la matriz de costes y de caminos
-        long matrizCostes[][] = new long[numNodosActual][numNodosActual];
+        // Calculamos la matriz de costes y de caminos. Las filas sin camino
+        // hasta k no pueden mejorar a traves de k, asi que se saltan.
         int matrizCaminos[][] = new int[numNodosActual][numNodosActual];
         int k=0;
         for (i=0; i<numNodosActual; i++) {
-            for (j=0; j<numNodosActual; j++) {
-                matrizCostes[i][j] = matrizAdyacencia[i][j];
-                matrizCaminos[i][j] = numNodosActual;
-            }
+            Arrays.fill(matrizCaminos[i], numNodosActual);
         }
+        long filaK[] = null;
+        long filaI[] = null;
+        long costeIK = 0;
+        long costeKJ = 0;
         for (k=0; k<numNodosActual; k++) {
+            filaK = matrizCostes[k];
             for (i=0; i<numNodosActual; i++) {
-                for (j=0; j<numNodosActual; j++) {
-                    if (!((matrizCostes[i][k] == this.PESO_INFINITO) || (matrizCostes[k][j] == this.PESO_INFINITO))) {
-                        if ((matrizCostes[i][k] + matrizCostes[k][j]) < matrizCostes[i][j]) {
-                            matrizCostes[i][j] = matrizCostes[i][k] + matrizCostes[k][j];
+                costeIK = matrizCostes[i][k];
+                if (costeIK != this.PESO_INFINITO) {
+                    filaI = matrizCostes[i];
+                    for (j=0; j<numNodosActual; j++) {
+                        costeKJ = filaK[j];
+                        if ((costeKJ != this.PESO_INFINITO) && ((costeIK + costeKJ) < filaI[j])) {
+                            filaI[j] = costeIK + costeKJ;
                             matrizCaminos[i][j] = k;
                         }
                     }
                 }
             }
         }
-        // Obtiene el primer nodo del camino, si hay camino.
-        int nodoSiguiente = this.SIN_CAMINO;
-        k = matrizCaminos[origen2][destino2];
-        while (k != numNodosActual) {
-            nodoSiguiente = k;
-            k = matrizCaminos[origen2][k];
-        }
-        // Comprobamos si no hay camino o es que son adyacentes
-        if (nodoSiguiente == this.SIN_CAMINO) {
-            TLink enlt = this.obtenerEnlace(origen, destino);
-            if (enlt != null)
-                nodoSiguiente = destino;
-        } else {
-            nodoSiguiente = equivalencia[nodoSiguiente];
+        matrizCostes = null;
+        // Obtiene el primer nodo de cada camino, si hay camino. Cada fila de
+        // caminos se sustituye por la de saltos para no duplicar la matriz.
+        int saltos[][] = matrizCaminos;
+        int caminosFila[] = new int[numNodosActual];
+        for (i=0; i<numNodosActual; i++) {
+            System.arraycopy(matrizCaminos[i], 0, caminosFila, 0, numNodosActual);
+            for (j=0; j<numNodosActual; j++) {
+                saltos[i][j] = this.SIN_CAMINO;
+                k = caminosFila[j];
+                while (k != numNodosActual) {
+                    saltos[i][j] = k;
+                    k = caminosFila[k];
+                }
+            }
         }
-        cerrojoFloyd.unLock();
-        return nodoSiguiente;
-      }
+        return new TRoutingTable(equivalencia, saltos, adyacentes);
+    }
+
+    /**
+     * This method discards the cached next-hop table of the topology. It has
+     * to be called whenever a node or a link is added or removed, or when
+     * the weight or the state of a link changes.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void invalidateRoutingTable() {
+        cerrojoTablaEncaminamiento.lock();
+        this.versionTablaEncaminamiento++;
+        this.tablaEncaminamiento = null;
+        cerrojoTablaEncaminamiento.unlock();
+        this.tablaRABAN.invalidate();
+    }
 
     /**
      * Dados dos nodos como par�metros, uno de origen y otro de destino, este m�todo
@@ -800,7 +1033,7 @@ public class TTopology {
      * @return IP del nodo que es siguiente salto para llegar del origen al destino.
      * @since 2.0
      */    
-    public synchronized String obtenerIPSalto(String IPorigen, String IPdestino) {
+    public String obtenerIPSalto(String IPorigen, String IPdestino) {
         int origen = this.getNode(IPorigen).getID();
         int destino = this.getNode(IPdestino).getID();
         int siguienteSalto = obtenerSalto(origen, destino);
@@ -818,7 +1051,7 @@ public class TTopology {
      * @return La direcci�n IP del nodo adyacente al origen al que hay que dirigirse. NULL, si no hay camino entre el origen y el destino.
      * @since 2.0
      */    
-    public synchronized String getNextHopRABANIPv4Address(String IPorigen, String IPdestino) {
+    public String getNextHopRABANIPv4Address(String IPorigen, String IPdestino) {
         int origen = this.getNode(IPorigen).getID();
         int destino = this.getNode(IPdestino).getID();
         int siguienteSalto = obtenerSaltoRABAN(origen, destino);
@@ -839,7 +1072,7 @@ public class TTopology {
      * @param IPorigen Direcci�n IP del nodo desde el que se calcula el salto.
      * @param IPdestino Direcci�n IP del nodo al que se quiere llegar.
      */    
-    public synchronized String getNextHopRABANIPv4Address(String IPorigen, String IPdestino, String IPNodoAEvitar) {
+    public String getNextHopRABANIPv4Address(String IPorigen, String IPdestino, String IPNodoAEvitar) {
         int origen = this.getNode(IPorigen).getID();
         int destino = this.getNode(IPdestino).getID();
         int nodoAEvitar = this.getNode(IPNodoAEvitar).getID();
@@ -859,89 +1092,9 @@ public class TTopology {
      * @return Identificador del nod que es siguiente salto para llegar del origen al destino.
      * @since 2.0
      */    
-    public synchronized int obtenerSaltoRABAN(int origen, int destino) {
-        cerrojoRABAN.lock();
-        int numNodosActual = this.conjuntoNodos.size();
-        int origen2 = 0;
-        int destino2 = 0;
-        // Hayamos equivalencias entre �ndices e identificadores de nodo
-        int equivalencia[] = new int[numNodosActual];
-        int i=0;
-        TNode nt = null;
-        Iterator it = this.getNodesIterator();
-        while (it.hasNext()) {
-            nt = (TNode) it.next();
-            equivalencia[i] = nt.getID();
-            if (equivalencia[i] == origen)
-                origen2 = i;
-            else if (equivalencia[i] == destino)
-                destino2 = i;
-            i++;
-        }
-        // Averiguamos la matriz de adyacencia
-        TLink en = null;
-        long matrizAdyacencia[][] = new long[numNodosActual][numNodosActual];
-        int j=0;
-        for (i=0; i<numNodosActual; i++) {
-            for (j=0; j<numNodosActual; j++) {
-                en = obtenerEnlace(equivalencia[i], equivalencia[j]);
-                if ((en == null) || ((en != null) && (en.isBroken()))) {
-                    if (i==j) {
-                        matrizAdyacencia[i][j] = 0;
-                    } else {
-                        matrizAdyacencia[i][j] = this.PESO_INFINITO;
-                    }
-                } else {
-                    if (en.getLinkType() == TLink.EXTERNAL) {
-                        TExternalLink ee = (TExternalLink) en;
-                        matrizAdyacencia[i][j] = ee.getRABANWeight();
-                    } else {
-                        TInternalLink ei = (TInternalLink) en;
-                        matrizAdyacencia[i][j] = ei.getRABANWeight();
-                    }
-                }
-            }
-        }
-        // Calculamos la matriz de costes y de caminos
-        long matrizCostes[][] = new long[numNodosActual][numNodosActual];
-        int matrizCaminos[][] = new int[numNodosActual][numNodosActual];
-        int k=0;
-        for (i=0; i<numNodosActual; i++) {
-            for (j=0; j<numNodosActual; j++) {
-                matrizCostes[i][j] = matrizAdyacencia[i][j];
-                matrizCaminos[i][j] = numNodosActual;
-            }
-        }
-        for (k=0; k<numNodosActual; k++) {
-            for (i=0; i<numNodosActual; i++) {
-                for (j=0; j<numNodosActual; j++) {
-                    if (!((matrizCostes[i][k] == this.PESO_INFINITO) || (matrizCostes[k][j] == this.PESO_INFINITO))) {
-                        if ((matrizCostes[i][k] + matrizCostes[k][j]) < matrizCostes[i][j]) {
-                            matrizCostes[i][j] = matrizCostes[i][k] + matrizCostes[k][j];
-                            matrizCaminos[i][j] = k;
-                        }
-                    }
-                }
-            }
-        }
-        // Obtiene el primer nodo del camino, si hay camino.
-        int nodoSiguiente = this.SIN_CAMINO;
-        k = matrizCaminos[origen2][destino2];
-        while (k != numNodosActual) {
-            nodoSiguiente = k;
-            k = matrizCaminos[origen2][k];
-        }
-        // Comprobamos si no hay camino o es que son adyacentes
-        if (nodoSiguiente == this.SIN_CAMINO) {
-            TLink enlt = this.obtenerEnlace(origen, destino);
-            if (enlt != null)
-                nodoSiguiente = destino;
-        } else {
-            nodoSiguiente = equivalencia[nodoSiguiente];
-        }
-        cerrojoRABAN.unLock();
-        return nodoSiguiente;
-      }
+    public int obtenerSaltoRABAN(int origen, int destino) {
+        return this.tablaRABAN.getNextHop(origen, destino);
+    }
 
     /**
      * Este m�todo calcula el iodentificador del nodo al que hay que dirigirse, cuyo
@@ -955,101 +1108,63 @@ public class TTopology {
      * @param nodoAEvitar Identificador del nodo adyacente a origen. El enlace que une a ambos se desea
      * evitar.
      */    
-    public synchronized int obtenerSaltoRABAN(int origen, int destino, int nodoAEvitar) {
-        cerrojoRABAN.lock();
-        int numNodosActual = this.conjuntoNodos.size();
-        int origen2 = 0;
-        int destino2 = 0;
-        int nodoAEvitar2 = 0;
-        // Hayamos equivalencias entre �ndices e identificadores de nodo
-        int equivalencia[] = new int[numNodosActual];
-        int i=0;
-        TNode nt = null;
-        Iterator it = this.getNodesIterator();
+    public int obtenerSaltoRABAN(int origen, int destino, int nodoAEvitar) {
+        return this.tablaRABAN.getNextHop(origen, destino, nodoAEvitar);
+    }
+
+    /**
+     * This method notifies the topology that the RABAN weight of a link may
+     * have changed, so that RABAN paths are updated on the next tick.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param enlace The link whose RABAN weight may have changed.
+     * @since 2.0
+     */
+    public void notifyRABANWeightChange(TLink enlace) {
+        this.tablaRABAN.notifyLinkChange(enlace);
+    }
+
+    /**
+     * This method notifies the topology that the routing weight of a node may
+     * have changed, so that RABAN paths through the links connected to it are
+     * updated on the next tick.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param nodo The node whose routing weight may have changed.
+     * @since 2.0
+     */
+    public void notifyRABANWeightChange(TNode nodo) {
+        this.tablaRABAN.notifyNodeChange(nodo);
+    }
+
+    /**
+     * Este metodo restaura la topologia desde un punto de control. Los
+     * puertos no guardan el enlace al que estan conectados, para que guardar
+     * la topologia no tenga que recorrerla de enlace en enlace, asi que aqui
+     * se vuelven a conectar. La tabla de encaminamiento se calcula de nuevo
+     * cuando se necesita.
+     * @param entrada Flujo desde el que se lee la topologia.
+     * @throws IOException Si no se puede leer la topologia.
+     * @throws ClassNotFoundException Si alguna clase guardada no existe.
+     * @since 2.0
+     */
+    private void readObject(ObjectInputStream entrada) throws IOException, ClassNotFoundException {
+        entrada.defaultReadObject();
+        Iterator<?> it = this.conjuntoEnlaces.iterator();
         while (it.hasNext()) {
-            nt = (TNode) it.next();
-            equivalencia[i] = nt.getID();
-            if (equivalencia[i] == origen)
-                origen2 = i;
-            else if (equivalencia[i] == destino)
-                destino2 = i;
-            else if (equivalencia[i] == nodoAEvitar)
-                nodoAEvitar2 = i;
-            i++;
-        }
-        // Averiguamos la matriz de adyacencia
-        TLink en = null;
-        long matrizAdyacencia[][] = new long[numNodosActual][numNodosActual];
-        int j=0;
-        for (i=0; i<numNodosActual; i++) {
-            for (j=0; j<numNodosActual; j++) {
-                en = obtenerEnlace(equivalencia[i], equivalencia[j]);
-                if ((en == null) || ((en != null) && (en.isBroken()))) {
-                    if (i==j) {
-                        matrizAdyacencia[i][j] = 0;
-                    } else {
-                        matrizAdyacencia[i][j] = this.PESO_INFINITO;
-                    }
-                } else {
-                    if (en.getLinkType() == TLink.EXTERNAL) {
-                        TExternalLink ee = (TExternalLink) en;
-                        matrizAdyacencia[i][j] = ee.getRABANWeight();
-                    } else {
-                        TInternalLink ei = (TInternalLink) en;
-                        matrizAdyacencia[i][j] = ei.getRABANWeight();
-                    }
-                }
-                // Aqu� se evita calcular un camino que pase por el enlace que
-                // deseamos evitar, el que une origen con nodoAEvitar.
-                if ((i == origen2) && (j == nodoAEvitar2)) {
-                        matrizAdyacencia[i][j] = this.PESO_INFINITO;
-                }
-                if ((i == nodoAEvitar2) && (j == origen2)) {
-                        matrizAdyacencia[i][j] = this.PESO_INFINITO;
-                }
-            }
-        }
-        // Calculamos la matriz de costes y de caminos
-        long matrizCostes[][] = new long[numNodosActual][numNodosActual];
-        int matrizCaminos[][] = new int[numNodosActual][numNodosActual];
-        int k=0;
-        for (i=0; i<numNodosActual; i++) {
-            for (j=0; j<numNodosActual; j++) {
-                matrizCostes[i][j] = matrizAdyacencia[i][j];
-                matrizCaminos[i][j] = numNodosActual;
+            TLink enlace = (TLink) it.next();
+            TPortSet puertos = enlace.getNodeAtEnd1().getPorts();
+            if (puertos != null) {
+                puertos.connectLinkToPort(enlace, enlace.getPortOfNodeAtEnd1());
             }
-        }
-        for (k=0; k<numNodosActual; k++) {
-            for (i=0; i<numNodosActual; i++) {
-                for (j=0; j<numNodosActual; j++) {
-                    if (!((matrizCostes[i][k] == this.PESO_INFINITO) || (matrizCostes[k][j] == this.PESO_INFINITO))) {
-                        if ((matrizCostes[i][k] + matrizCostes[k][j]) < matrizCostes[i][j]) {
-                            matrizCostes[i][j] = matrizCostes[i][k] + matrizCostes[k][j];
-                            matrizCaminos[i][j] = k;
-                        }
-                    }
-                }
+            puertos = enlace.getNodeAtEnd2().getPorts();
+            if (puertos != null) {
+                puertos.connectLinkToPort(enlace, enlace.getPortOfNodeAtEnd2());
             }
         }
-        // Obtiene el primer nodo del camino, si hay camino.
-        int nodoSiguiente = this.SIN_CAMINO;
-        k = matrizCaminos[origen2][destino2];
-        while (k != numNodosActual) {
-            nodoSiguiente = k;
-            k = matrizCaminos[origen2][k];
-        }
-        // Comprobamos si no hay camino o es que son adyacentes
-        if (nodoSiguiente == this.SIN_CAMINO) {
-            TLink enlt = this.obtenerEnlace(origen, destino);
-            if (enlt != null)
-                nodoSiguiente = destino;
-        } else {
-            nodoSiguiente = equivalencia[nodoSiguiente];
-        }
-        cerrojoRABAN.unLock();
-        return nodoSiguiente;
-      }
+    }
 
+    private static final long serialVersionUID = 1L;
     /**
      * Esta constante identifica un peso infinito.
      * @since 2.0
@@ -1068,11 +1183,19 @@ public class TTopology {
 
     private TreeSet conjuntoNodos;
     private TreeSet conjuntoEnlaces;
+    private HashMap<Integer, TNode> indiceNodosPorID;
+    private HashMap<String, TNode> indiceNodosPorIP;
+    private HashMap<Integer, TLink> indiceEnlacesPorID;
+    private HashMap<Integer, HashMap<Integer, TLink>> indiceAdyacencias;
+    private HashMap<TLink, int[]> indiceExtremosEnlaces;
     private TTimer relojTopologia;
     private TScenario escenarioPadre;
     private TLongIDGenerator IDEvento;
     private TIDGenerator generaIdentificador;
     private TIPGenerator generadorIP;
-    private TMonitor cerrojoFloyd;
-    private TMonitor cerrojoRABAN;
+    private TLock cerrojoFloyd;
+    private TLock cerrojoTablaEncaminamiento;
+    private transient volatile TRoutingTable tablaEncaminamiento;
+    private long versionTablaEncaminamiento;
+    private TDynamicRoutingTable tablaRABAN;
 }
@@ -15,6 +15,12 @@
  */
 package simMPLS.scenario;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.concurrent.Future;
+import simMPLS.hardware.timer.TElementTickProfile;
+import simMPLS.hardware.timer.TTimer;
 import simMPLS.hardware.timer.TTimerEvent;
 import simMPLS.hardware.timer.ITimerEventListener;
 import simMPLS.hardware.simulationcollector.TSimulationCollector;
@@ -30,7 +36,7 @@ import org.jfree.data.*;
  * href="mailto:ingeniero@ManoloDominguez.com">ingeniero@ManoloDominguez.com</A><br><A href="http://www.ManoloDominguez.com" target="_blank">http://www.ManoloDominguez.com</A>
  * @version 1.0
  */
-public abstract class TTopologyElement implements ITimerEventListener, Runnable {
+public abstract class TTopologyElement implements ITimerEventListener, Runnable, Serializable {
 
     /**
      * Crea una nueva instancia de TElementoTopologia
@@ -42,6 +48,11 @@ public abstract class TTopologyElement implements ITimerEventListener, Runnable
         tipoElemento = tipo;
         eliminarDelReloj = false;
         hilo = null;
+        timer = null;
+        tarea = null;
+        inlineOperation = false;
+        trabajoDelTic = crearTrabajoDelTic();
+        perfilDelTic = null;
         simulationEventsListener = null;
         this.longIdentifierGenerator = il;
         this.availableNs = 0;
@@ -163,18 +174,46 @@ public abstract class TTopologyElement implements ITimerEventListener, Runnable
 
     /**
      * Este m�todo pone en funcionamiento el hilo independiente que maneja al elemento.
+     * Si el reloj dispone de un ejecutor con hilos reutilizables, el trabajo del
+     * elemento se delega en el en lugar de crear un hilo nuevo en cada tic. Al
+     * terminar, el elemento avisa a la barrera de tic del reloj. Si el elemento
+     * trabaja en linea, el trabajo se hace en el hilo que llama, sin tomar el
+     * cerrojo del elemento.
      * @since 2.0
      */    
-    public synchronized void startOperation() {
-        if (hilo == null) {
-            hilo = new Thread(this);
-            this.hilo.start();
-        } else {
-            if (!hilo.isAlive()) {
-                hilo = new Thread(this);
-                this.hilo.start();
+    public void startOperation() {
+        if (this.inlineOperation) {
+            try {
+                this.ejecutarTic();
+            } catch (Exception e) {
+                e.printStackTrace();
             }
+            return;
         }
+        this.dispatchOperation();
+    }
+
+    /**
+     * Este metodo entrega el trabajo del evento de reloj actual al ejecutor
+     * del reloj, o a un hilo nuevo si el reloj no usa hilos reutilizables.
+     * @since 2.0
+     */
+    private synchronized void dispatchOperation() {
+        if ((this.timer != null) && (this.timer.getTimerEventExecutor().isPooled())) {
+            this.tarea = this.timer.getTimerEventExecutor().submit(this.trabajoDelTic);
+            return;
+        }
+        if ((hilo != null) && (hilo.isAlive())) {
+            // El hilo anterior ya ha avisado a la barrera del tic, pero puede
+            // que aun no haya terminado.
+            try {
+                this.hilo.join();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        hilo = new Thread(this.trabajoDelTic);
+        this.hilo.start();
     }
     
     /**
@@ -184,6 +223,14 @@ public abstract class TTopologyElement implements ITimerEventListener, Runnable
      * @since 2.0
      */    
     public synchronized void waitForCompletion() {
+        if (this.tarea != null) {
+            try {
+                this.tarea.get();
+            } catch (Exception e) {
+                System.out.println(java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("TElementoTopologia.ErrorFinReloj") + e.toString());
+            }
+            this.tarea = null;
+        }
         if (hilo != null) {
             try {
                 this.hilo.join();
@@ -196,6 +243,8 @@ public abstract class TTopologyElement implements ITimerEventListener, Runnable
     /**
      * Este m�todo establece cu�l ser� el recolector de eventos de simulaci�n al que se
      * le deben enviar los eventos que genere este elemento.
+     * Cada elemento tiene un unico recolector; si varios consumidores quieren
+     * recibir los eventos, se suscriben al recolector con addSubscriber().
      * @param rs Recolector de simulaci�n elegido.
      * @throws ESimulationSingleSubscriber Esta excepci�n salta si se intenta establecer un recolector de simulaci�n y ya
      * hay otro establecido.
@@ -230,6 +279,80 @@ public abstract class TTopologyElement implements ITimerEventListener, Runnable
         }
     }
 
+    /**
+     * Este metodo indica si alguien quiere los eventos de simulacion del subtipo
+     * indicado. Hay que llamarlo antes de crear el evento y de pedir su
+     * identificador, de modo que los subtipos que nadie consume no cuesten mas
+     * que la lectura de una mascara de bits.
+     * @param subtipo Subtipo del evento, segun se define en TSimulationEvent.
+     * @return TRUE, si hay que generar el evento. FALSE en caso contrario.
+     * @since 2.0
+     */
+    public boolean isSimulationEventWanted(int subtipo) {
+        TSimulationCollector recolector = this.simulationEventsListener;
+        return ((recolector != null) && recolector.isInterestedIn(subtipo));
+    }
+
+    /**
+     * Este metodo establece el reloj al que esta suscrito el elemento. Lo
+     * llama el propio reloj cuando el elemento se suscribe a sus eventos.
+     * @param timer Reloj que envia los eventos de reloj al elemento.
+     * @since 2.0
+     */
+    public void setTimer(TTimer timer) {
+        this.timer = timer;
+    }
+
+    /**
+     * Este metodo devuelve el reloj al que esta suscrito el elemento.
+     * @return El reloj que envia los eventos de reloj al elemento, o NULL si
+     * no esta suscrito a ninguno.
+     * @since 2.0
+     */
+    public TTimer getTimer() {
+        return this.timer;
+    }
+
+    /**
+     * Este metodo indica si el elemento hace el trabajo de cada evento de reloj
+     * en el hilo que le envia el evento, en lugar de entregarlo al ejecutor
+     * del reloj. Lo usan los motores que ya ejecutan cada elemento en un hilo
+     * conocido. En ese caso no se avisa a la barrera de tic del reloj.
+     * @param inlineOperation TRUE, si el trabajo se hace en el hilo que llama.
+     * FALSE en caso contrario.
+     * @since 2.0
+     */
+    public void setInlineOperation(boolean inlineOperation) {
+        this.inlineOperation = inlineOperation;
+    }
+
+    /**
+     * Este metodo pide al reloj que envie un evento de reloj al elemento
+     * cuando hayan pasado los nanosegundos indicados desde el instante que se
+     * esta simulando. Solo tiene efecto con el motor dirigido por eventos o
+     * con el de paso adaptativo.
+     * @param nanoseconds Nanosegundos, desde el instante actual, tras los que
+     * el elemento debe recibir un evento de reloj.
+     * @since 2.0
+     */
+    public void scheduleTimerEvent(long nanoseconds) {
+        if (this.timer != null) {
+            this.timer.scheduleTimerEvent(this, this.timer.getCurrentInstant() + nanoseconds);
+        }
+    }
+
+    /**
+     * Este metodo pide al reloj que envie un evento de reloj al elemento tras
+     * el siguiente tic. Solo tiene efecto con el motor dirigido por eventos o
+     * con el de paso adaptativo.
+     * @since 2.0
+     */
+    public void scheduleNextTimerEvent() {
+        if (this.timer != null) {
+            scheduleTimerEvent(this.timer.getTick());
+        }
+    }
+
     /**
      * Este m�todo comprueba si el nodo est� "vivo" o no.
      * @return TRUE, si el nodo est� "vivo". FALSE en caso contrario.
@@ -299,6 +422,132 @@ public abstract class TTopologyElement implements ITimerEventListener, Runnable
      */    
     public abstract void reset();
 
+    /**
+     * Este metodo crea el trabajo que hace el elemento en cada tic: ejecutar
+     * run() y avisar a la barrera del reloj cuando termina.
+     * @return El trabajo del tic.
+     * @since 2.0
+     */
+    private Runnable crearTrabajoDelTic() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    TTopologyElement.this.ejecutarTic();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    if (TTopologyElement.this.timer != null) {
+                        TTopologyElement.this.timer.getTickBarrier().arrive(TTopologyElement.this);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Este metodo ejecuta el trabajo del tic. Si el elemento tiene asignado un
+     * perfil de tic, mide ademas el tiempo real que tarda el tic y lo anota en
+     * el perfil junto con los paquetes conmutados durante el mismo.
+     * @since 2.0
+     */
+    private void ejecutarTic() {
+        TElementTickProfile perfil = this.perfilDelTic;
+        if (perfil == null) {
+            this.run();
+            return;
+        }
+        perfil.startTick();
+        long inicio = System.nanoTime();
+        try {
+            this.run();
+        } finally {
+            perfil.endTick(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Este metodo asigna al elemento el perfil en el que se anotan los tiempos
+     * de sus tics. Lo usa el reloj al activar o desactivar la medicion de tics.
+     * @param perfilDelTic Perfil del elemento, o NULL para dejar de medir.
+     * @since 2.0
+     */
+    public void setTickProfile(TElementTickProfile perfilDelTic) {
+        this.perfilDelTic = perfilDelTic;
+    }
+
+    /**
+     * Este metodo devuelve el perfil en el que se anotan los tiempos de los
+     * tics del elemento.
+     * @return El perfil del elemento, o NULL si no se estan midiendo los tics.
+     * @since 2.0
+     */
+    public TElementTickProfile getTickProfile() {
+        return this.perfilDelTic;
+    }
+
+    /**
+     * Este metodo anota en el perfil del tic un paquete conmutado por el
+     * elemento. No hace nada si no se estan midiendo los tics.
+     * @param octetos Tamanio del paquete, en octetos.
+     * @since 2.0
+     */
+    public void addSwitchedPacket(int octetos) {
+        TElementTickProfile perfil = this.perfilDelTic;
+        if (perfil != null) {
+            perfil.addPacket(octetos);
+        }
+    }
+
+    /**
+     * Este metodo marca el comienzo de una fase del trabajo del tic.
+     * @return El instante de comienzo, en nanosegundos, o 0 si no se estan
+     * midiendo los tics.
+     * @since 2.0
+     */
+    protected long startTickPhase() {
+        if (this.perfilDelTic == null) {
+            return 0;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Este metodo marca el final de una fase del trabajo del tic y anota su
+     * duracion en el perfil del elemento.
+     * @param fase Una de las fases definidas en TElementTickProfile.
+     * @param inicio El instante devuelto por startTickPhase().
+     * @return El instante de final, que puede usarse como comienzo de la fase
+     * siguiente, o 0 si no se estan midiendo los tics.
+     * @since 2.0
+     */
+    protected long endTickPhase(int fase, long inicio) {
+        TElementTickProfile perfil = this.perfilDelTic;
+        if ((perfil == null) || (inicio == 0)) {
+            return 0;
+        }
+        long fin = System.nanoTime();
+        perfil.addPhaseTime(fase, fin - inicio);
+        return fin;
+    }
+
+    /**
+     * Este metodo restaura el elemento desde un punto de control. Los hilos,
+     * las tareas y el recolector de eventos no se guardan; el trabajo del tic
+     * se crea de nuevo y el recolector tiene que suscribirse otra vez. El
+     * reloj tampoco se guarda con el elemento: es el propio reloj el que se
+     * lo asigna de nuevo al restaurarse.
+     * @param entrada Flujo desde el que se lee el elemento.
+     * @throws IOException Si no se puede leer el elemento.
+     * @throws ClassNotFoundException Si alguna clase guardada no existe.
+     * @since 2.0
+     */
+    private void readObject(ObjectInputStream entrada) throws IOException, ClassNotFoundException {
+        entrada.defaultReadObject();
+        this.trabajoDelTic = crearTrabajoDelTic();
+    }
+
+    private static final long serialVersionUID = 1L;
     /**
      * Esta constante indica que el elemento es un enlace.
      * @since 2.0
@@ -312,13 +561,18 @@ public abstract class TTopologyElement implements ITimerEventListener, Runnable
 
     private int tipoElemento;
     private boolean eliminarDelReloj;
-    private Thread hilo;
+    private transient Thread hilo;
+    private transient TTimer timer;
+    private transient Future<?> tarea;
+    private transient Runnable trabajoDelTic;
+    private transient volatile TElementTickProfile perfilDelTic;
+    private boolean inlineOperation;
     /**
      * Este atributo es el recolector de eventos de simulaci�n al que se deben mandar
      * los eventos de simulaci�n que el elemento vaya generando.
      * @since 2.0
      */    
-    public TSimulationCollector simulationEventsListener;
+    public transient TSimulationCollector simulationEventsListener;
     /**
      * Este atributo es el generador de identificadores que debe usar el elemento para
      * asignar un identificador unico a cada evento que genere.
@@ -15,6 +15,9 @@
  */
 package simMPLS.ui.simulator;
 
+import simMPLS.hardware.simulationcollector.TSimulationCollector;
+import simMPLS.hardware.simulationcollector.TSimulationEventSubscription;
+import simMPLS.io.trace.TTraceWriter;
 import simMPLS.protocols.TAbstractPDU;
 import java.awt.*;
 import java.awt.Toolkit.*;
@@ -36,8 +39,6 @@ import simMPLS.scenario.TTopology;
 import simMPLS.scenario.TLink;
 import simMPLS.scenario.TNode;
 import simMPLS.ui.utils.TImagesBroker;
-import simMPLS.utils.TOpenSimMPLSEvent;
-import simMPLS.utils.TMonitor;
 
 /**
  * Esta clase implementa un panel que recibir� eventos de simulaci�n y los
@@ -79,8 +80,14 @@ public class JSimulationPanel extends javax.swing.JPanel {
         topologia=null;
         maxX = 10;
         maxY = 10;
-        bufferEventos = new TreeSet();
-        bufferParaSimular = new TreeSet();
+        recolector = null;
+        suscripcionDeEventos = null;
+        bufferEventos = new TreeSet<TSimulationEvent>();
+        bufferCompleto = new TreeSet<TSimulationEvent>();
+        bufferParaSimular = new TreeSet<TSimulationEvent>();
+        instanteEnCurso = -1;
+        instanteCompleto = -1;
+        instanteDelUltimoFotograma = 0;
         ticActual = 0;
         mlsPorTic = 0;
         mostrarLeyenda = false;
@@ -89,10 +96,14 @@ public class JSimulationPanel extends javax.swing.JPanel {
         COLOR_BORDE_DOMINIO = new Color(232, 212, 197);
         COLOR_FONDO_DOMINIO = new Color(239, 222, 209);
         COLOR_LSP = new Color(0, 0, 200);
-        cerrojo = new TMonitor();
-        ficheroTraza = null;;
-        streamFicheroTraza = null;
-        streamTraza = null;
+        temporizadorDeFotogramas = new javax.swing.Timer(MLS_POR_FOTOGRAMA, new java.awt.event.ActionListener() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                mostrarSiguienteFotograma();
+            }
+        });
+        temporizadorDeFotogramas.setCoalesce(true);
+        escritorDeTraza = null;
     }
 
     /**
@@ -100,75 +111,63 @@ public class JSimulationPanel extends javax.swing.JPanel {
      * @since 2.0
      */    
     public void reset() {
-        cerrojo.lock();
-        Iterator it = null;
-        it = bufferEventos.iterator();
-        while (it.hasNext()) {
-            it.next();
-            it.remove();
-        }
-        it = bufferParaSimular.iterator();
-        while (it.hasNext()) {
-            it.next();
-            it.remove();
+        TSimulationEventSubscription suscripcion = this.suscripcionDeEventos;
+        if (suscripcion != null) {
+            suscripcion.reset();
         }
+        bufferEventos.clear();
+        bufferCompleto.clear();
+        bufferParaSimular.clear();
+        instanteEnCurso = -1;
+        instanteCompleto = -1;
         mostrarLeyenda = false;
-        cerrojo.unLock();
         ticActual = 0;
-        ficheroTraza = null;;
-        streamFicheroTraza = null;
-        streamTraza = null;
+        ponerFicheroTraza(null);
     }
     
     /**
-     * Este m�todo env�a un evento al fichero de traza, para que quede registrado.
-     * @param es Evento de simulaci�n que se desea tracear.
+     * Este metodo suscribe el panel al recolector de eventos de la simulacion
+     * y lo desuscribe del anterior, si lo habia. El recolector deja los
+     * eventos que el panel sabe mostrar en el anillo de la suscripcion, del
+     * que el temporizador del panel los recoge; si el anillo esta lleno, se
+     * descarta el evento mas antiguo. La traza que estuviera abierta se
+     * cierra.
+     * @param r Recolector de eventos de la simulacion. NULL para desuscribir
+     * el panel.
      * @since 2.0
      */    
-    public void enviarATraza(TSimulationEvent es) {
-        String texto = "";
-        texto += this.ticActual + ": ";
-        if (this.streamTraza != null) {
-            if (es.getType() == TOpenSimMPLSEvent.SIMULACION) {
-                texto += es.toString();
-                this.streamTraza.println(texto);
-            }
+    public void ponerRecolector(TSimulationCollector r) {
+        ponerFicheroTraza(null);
+        if (this.recolector != null) {
+            this.recolector.removeSubscriber(this.suscripcionDeEventos);
+        }
+        this.recolector = r;
+        this.suscripcionDeEventos = null;
+        if (this.recolector != null) {
+            this.suscripcionDeEventos = this.recolector.addSubscriber(null, TSimulationEventSubscription.DROP_OLDEST, CAPACIDAD_DEL_ANILLO, TSimulationCollector.SIMULATION_PANEL_SUBTYPES);
         }
     }
     
     /**
-     * Este m�todo establece el fichero de traza.
-     * @param ft Fichero de traza.
+     * Este metodo establece el fichero de traza. La traza se escribe en el
+     * formato binario de TTraceWriter, que se suscribe al recolector del
+     * panel y solo frena la simulacion cuando no da abasto a escribir;
+     * TTraceTextConverter la convierte al formato de texto de siempre. Si ya
+     * habia una traza abierta, se cierra.
+     * @param ft Fichero de traza. NULL para dejar de trazar.
      * @since 2.0
      */    
     public void ponerFicheroTraza(File ft) {
-        if (this.ficheroTraza != null) {
-            if (this.streamFicheroTraza != null) {
-                try {
-                    this.streamFicheroTraza.close();
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-            }
-            if (this.streamTraza != null) {
-                this.streamTraza.close();
-            }
+        TTraceWriter escritor = this.escritorDeTraza;
+        this.escritorDeTraza = null;
+        if (escritor != null) {
+            escritor.close();
         }
-        this.ficheroTraza = ft;
-        if (this.ficheroTraza != null) {
-            if (this.ficheroTraza.exists()) {
-                this.ficheroTraza.delete();
-            }
-            try {
-                this.streamFicheroTraza = new FileOutputStream(ficheroTraza);
-            } catch (Exception e) {
-                e.printStackTrace();
+        if ((ft != null) && (this.recolector != null)) {
+            escritor = new TTraceWriter(ft);
+            if (escritor.open(this.recolector)) {
+                this.escritorDeTraza = escritor;
             }
-            this.streamTraza = new PrintStream(streamFicheroTraza, true);
-        } else {
-            this.streamFicheroTraza = null;
-            this.streamTraza = null;
-            this.ficheroTraza = null;
         }
     }
     
@@ -427,53 +426,130 @@ public class JSimulationPanel extends javax.swing.JPanel {
     }
 
     /**
-     * Este m�todo permite establecer cuantos milisegundos de espera va a haber entre
-     * que se muestra un tic en la simulaci�n, y se meustra el siguiente. A efectos
-     * pr�cticos permite ralentizar la simulaci�n en tiempo real.
-     * @param mls N�mero de milisegundos de retardo entre frames de una misma simulaci�n.
+     * Este metodo establece cuantos milisegundos, como minimo, se muestra cada
+     * instante de la simulacion en el panel. Solo afecta a la representacion:
+     * la simulacion avanza a su propio ritmo y el panel va tomando muestras de
+     * ella, de modo que los instantes que llegan mientras se muestra otro no
+     * se dibujan.
+     * @param mls Numero de milisegundos que se muestra cada instante.
      * @since 2.0
      */    
     public void ponerMlsPorTic(int mls) {
         this.mlsPorTic = mls;
     }
+
+    /**
+     * Este metodo devuelve cuantos milisegundos, como minimo, se muestra cada
+     * instante de la simulacion en el panel. Lo usa el reproductor de trazas
+     * para avanzar al ritmo que se ha elegido en la ventana.
+     * @return Numero de milisegundos que se muestra cada instante.
+     * @since 2.0
+     */    
+    public int obtenerMlsPorTic() {
+        return this.mlsPorTic;
+    }
     
     /**
-     * Este m�todo permite a�adir un evento a la lista de eventos que se deben mostrar
-     * en la ventana del simulador.
-     * @param evt El nuevo evento que se debe mostrar en la simulaci�n.
+     * Este metodo anade un evento a los que se deben mostrar en la ventana del
+     * simulador sin pasar por el recolector. Lo usa el reproductor de trazas:
+     * el evento se deja en el anillo de la suscripcion del panel, igual que
+     * los que llegan de la simulacion, y no se dibuja ni se espera.
+     * @param evt El nuevo evento que se debe mostrar en la simulacion.
      * @since 2.0
      */    
     public void addEvent(TSimulationEvent evt) {
-        cerrojo.lock();
-        this.enviarATraza(evt);
-        if (evt.obtenerInstante() <= ticActual) {
-            bufferEventos.add(evt);
-            cerrojo.unLock();
-        } else {
-            ticActual = evt.obtenerInstante();
-            Iterator it = this.bufferParaSimular.iterator();
-            TSimulationEvent evento = null;
-            while (it.hasNext()) {
-                it.next();
-                it.remove();
+        TSimulationEventSubscription suscripcion = this.suscripcionDeEventos;
+        if (suscripcion != null) {
+            suscripcion.publish(evt);
+        }
+    }
+
+    /**
+     * Este metodo devuelve el numero de eventos que se han descartado porque
+     * la simulacion los generaba mas deprisa de lo que el panel los recogia.
+     * @return Numero de eventos descartados desde el ultimo reinicio.
+     * @since 2.0
+     */
+    public long obtenerEventosDescartados() {
+        TSimulationEventSubscription suscripcion = this.suscripcionDeEventos;
+        if (suscripcion == null) {
+            return 0;
+        }
+        return suscripcion.getNumberOfDroppedEvents();
+    }
+
+    /**
+     * Este metodo lo ejecuta el temporizador del panel en el hilo de Swing en
+     * cada fotograma. Recoge los eventos del anillo de la suscripcion, como
+     * mucho tantos como caben en el, y los agrupa por instante;
+     * un instante esta completo cuando llega un evento de un instante
+     * posterior. Si el instante mostrado lleva en pantalla al menos mlsPorTic
+     * milisegundos, se muestra el ultimo instante completo y se repinta el
+     * panel. Los instantes completos que no llegan a mostrarse se descartan.
+     * @since 2.0
+     */
+    private void mostrarSiguienteFotograma() {
+        int eventosRecogidos = 0;
+        TSimulationEventSubscription suscripcion = this.suscripcionDeEventos;
+        TSimulationEvent evento = null;
+        if (suscripcion != null) {
+            evento = suscripcion.poll();
+        }
+        while (evento != null) {
+            eventosRecogidos++;
+            if (evento.obtenerInstante() > this.instanteEnCurso) {
+                if (!this.bufferEventos.isEmpty()) {
+                    TreeSet<TSimulationEvent> bufferAux = this.bufferCompleto;
+                    this.bufferCompleto = this.bufferEventos;
+                    this.bufferEventos = bufferAux;
+                    this.bufferEventos.clear();
+                    this.instanteCompleto = this.instanteEnCurso;
+                }
+                this.instanteEnCurso = evento.obtenerInstante();
             }
-            it = bufferEventos.iterator();
-            evento = null;
-            while (it.hasNext()) {
-                evento = (TSimulationEvent) it.next();
-                bufferParaSimular.add(evento);
-                it.remove();
+            this.bufferEventos.add(evento);
+            if (eventosRecogidos < CAPACIDAD_DEL_ANILLO) {
+                evento = suscripcion.poll();
+            } else {
+                // Los demas eventos se recogen en el siguiente fotograma para
+                // no bloquear el hilo de Swing.
+                evento = null;
             }
-            cerrojo.unLock();
+        }
+        long ahora = System.currentTimeMillis();
+        if ((this.instanteCompleto >= 0) && ((ahora - this.instanteDelUltimoFotograma) >= this.mlsPorTic)) {
+            TreeSet<TSimulationEvent> bufferAux = this.bufferParaSimular;
+            this.bufferParaSimular = this.bufferCompleto;
+            this.bufferCompleto = bufferAux;
+            this.bufferCompleto.clear();
+            this.ticActual = this.instanteCompleto;
+            this.instanteCompleto = -1;
+            this.instanteDelUltimoFotograma = ahora;
             repaint();
-            bufferEventos.add(evt);
-            try {
-                Thread.currentThread().sleep(this.mlsPorTic);
-            } catch (Exception e) {
-                e.printStackTrace(); 
-            }
         }
     }
+
+    /**
+     * Este metodo arranca el temporizador de fotogramas cuando el panel se
+     * anade a una ventana.
+     * @since 2.0
+     */
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        this.temporizadorDeFotogramas.start();
+    }
+
+    /**
+     * Este metodo detiene el temporizador de fotogramas cuando el panel se
+     * quita de su ventana.
+     * @since 2.0
+     */
+    @Override
+    public void removeNotify() {
+        this.temporizadorDeFotogramas.stop();
+        super.removeNotify();
+    }
     
     /**
      * Este m�todo permite dibujar los eventos relacionados con las PDU's que circulan
@@ -482,7 +558,6 @@ public class JSimulationPanel extends javax.swing.JPanel {
      * @param g2D El lienzo donde se mostrar� el evento.
      */    
     public void dibujarEventosPaquete(Graphics2D g2D) {
-        cerrojo.lock();
         try {
             Iterator it = bufferParaSimular.iterator();
             TSimulationEvent evento = null;
@@ -556,7 +631,6 @@ public class JSimulationPanel extends javax.swing.JPanel {
         } catch (Exception e) {
             e.printStackTrace(); 
         }
-        cerrojo.unLock();
     }
 
     
@@ -566,7 +640,6 @@ public class JSimulationPanel extends javax.swing.JPanel {
      * @param g2D El lienzo donde se mostrar� el evento.
      */    
     public void dibujarEventosNodo(Graphics2D g2D) {
-        cerrojo.lock();
         try {
             TSimulationEvent evento = null;
             Iterator it = bufferParaSimular.iterator();
@@ -631,7 +704,6 @@ public class JSimulationPanel extends javax.swing.JPanel {
         } catch (Exception e) {
             e.printStackTrace(); 
         }
-        cerrojo.unLock();
     }
 
     
@@ -642,7 +714,6 @@ public class JSimulationPanel extends javax.swing.JPanel {
      * @param g2D El lienzo donde se mostrar� el evento.
      */    
     public void dibujarEventosEnlace(Graphics2D g2D) {
-        cerrojo.lock();
         try {
             TSimulationEvent evento = null;
             Iterator it = bufferParaSimular.iterator();
@@ -663,7 +734,6 @@ public class JSimulationPanel extends javax.swing.JPanel {
         } catch (Exception e) {
             e.printStackTrace(); 
         }
-        cerrojo.unLock();
     }
     
     
@@ -885,17 +955,23 @@ public class JSimulationPanel extends javax.swing.JPanel {
      */    
     private int maxY;
     
-    private File ficheroTraza;
-    private FileOutputStream streamFicheroTraza;
-    private PrintStream streamTraza;
+    private volatile TTraceWriter escritorDeTraza;
     
-    private TreeSet bufferEventos;
-    private TreeSet bufferParaSimular;
+    private TSimulationCollector recolector;
+    private volatile TSimulationEventSubscription suscripcionDeEventos;
+    private javax.swing.Timer temporizadorDeFotogramas;
+    private TreeSet<TSimulationEvent> bufferEventos;
+    private TreeSet<TSimulationEvent> bufferCompleto;
+    private TreeSet<TSimulationEvent> bufferParaSimular;
+    private long instanteEnCurso;
+    private long instanteCompleto;
+    private long instanteDelUltimoFotograma;
     private long ticActual;
-    private TMonitor cerrojo;
     private int mlsPorTic;
     private boolean mostrarLeyenda;
     
+    private static final int CAPACIDAD_DEL_ANILLO = 8192;
+    private static final int MLS_POR_FOTOGRAMA = 40;
     private static Color COLOR_LEYENDA;
     private static Color COLOR_NOMBRE_ENLACE;
     private static Color COLOR_BORDE_DOMINIO;
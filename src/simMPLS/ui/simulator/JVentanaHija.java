@@ -28,6 +28,7 @@ import org.jfree.data.*;
 import simMPLS.hardware.timer.EProgressEventGeneratorOnlyAllowASingleListener;
 import simMPLS.hardware.timer.TTimestamp;
 import simMPLS.io.osm.TOSMSaver;
+import simMPLS.io.trace.TTraceWriter;
 import simMPLS.scenario.TExternalLink;
 import simMPLS.scenario.TInternalLink;
 import simMPLS.scenario.TActiveLERNode;
@@ -158,6 +159,24 @@ public class JVentanaHija extends javax.swing.JInternalFrame {
         grafico4 = null;
         grafico5 = null;
         grafico6 = null;
+        reproductorDeTraza = null;
+        botonReproducirTraza = new javax.swing.JButton();
+        botonReproducirTraza.setText(java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("JVentanaHija.Replay_trace"));
+        botonReproducirTraza.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                clicEnReproducirTraza(evt);
+            }
+        });
+        panelBotonesSimulacion.add(botonReproducirTraza);
+        botonIrAlInstante = new javax.swing.JButton();
+        botonIrAlInstante.setText(java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("JVentanaHija.Go_to_instant"));
+        botonIrAlInstante.setEnabled(false);
+        botonIrAlInstante.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                clicEnIrAlInstante(evt);
+            }
+        });
+        panelBotonesSimulacion.add(botonIrAlInstante);
     }
     
     /** Este m�todo es llamado desde el constructor para actualizar la mayor parte de
@@ -1307,6 +1326,11 @@ public void ponerEscenario(TScenario esc) {
     this.controlTemporizacionDesactivado = true;
     long durac = esc.getSimulation().obtenerDuracion();
     long pas = esc.getSimulation().obtenerPaso();
+    // El escenario sustituido no se va a usar mas; se liberan los hilos de
+    // su reloj.
+    if ((escenario != null) && (escenario != esc)) {
+        escenario.getTopology().obtenerReloj().dispose();
+    }
     escenario = esc;
     panelDisenio.ponerTopologia(esc.getTopology());
     panelSimulacion.ponerTopologia(esc.getTopology());
@@ -2085,6 +2109,7 @@ private void clicAlPausar(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_clic
      */
     private void clicEnComenzar(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_clicEnComenzar
         if (iconoComenzar.isEnabled()) {
+            detenerReproduccionDeTraza();
             escenario.reset();
             escenario.ponerDuracionSimulacion(new TTimestamp(duracionMs.getValue(), duracionNs.getValue()));
             escenario.ponerPasoSimulacion(pasoNs.getValue());
@@ -2103,10 +2128,10 @@ private void clicAlPausar(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_clic
             this.panelSimulacion.ponerFicheroTraza(null);
             if (this.crearTraza.isSelected()) {
                 if (this.escenario.obtenerFichero() != null) {
-                    File fAux = new File(this.escenario.obtenerFichero().getPath()+".txt");
+                    File fAux = new File(this.escenario.obtenerFichero().getPath()+TTraceWriter.FILE_EXTENSION);
                     this.panelSimulacion.ponerFicheroTraza(fAux);
                 } else {
-                    this.panelSimulacion.ponerFicheroTraza(new File(this.getTitle()+".txt"));
+                    this.panelSimulacion.ponerFicheroTraza(new File(this.getTitle()+TTraceWriter.FILE_EXTENSION));
                 }
             } else {
                 this.panelSimulacion.ponerFicheroTraza(null);
@@ -2115,6 +2140,118 @@ private void clicAlPausar(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_clic
         }
     }//GEN-LAST:event_clicEnComenzar
     
+    /**
+     * Este metodo se llama cuando se hace clic en el boton de reproducir traza
+     * de la ventana de simulacion. Si no se esta reproduciendo ninguna traza,
+     * pide una traza ya grabada y el instante desde el que reproducirla, y la
+     * muestra en el panel de simulacion sin volver a simular. Si ya se esta
+     * reproduciendo una, la detiene. Mientras haya una simulacion en curso no
+     * hace nada.
+     * @param evt El evento que hace que este metodo se dispare.
+     * @since 2.0
+     */
+    private void clicEnReproducirTraza(java.awt.event.ActionEvent evt) {
+        if (this.reproductorDeTraza != null) {
+            detenerReproduccionDeTraza();
+            return;
+        }
+        if (!iconoComenzar.isEnabled()) {
+            return;
+        }
+        JFileChooser dialogoAbrir = new JFileChooser();
+        dialogoAbrir.setDialogTitle(java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("JVentanaHija.Replay_trace"));
+        dialogoAbrir.setFileSelectionMode(JFileChooser.FILES_ONLY);
+        if (this.escenario.obtenerFichero() != null) {
+            dialogoAbrir.setSelectedFile(new File(this.escenario.obtenerFichero().getPath()+TTraceWriter.FILE_EXTENSION));
+        } else {
+            dialogoAbrir.setSelectedFile(new File(this.getTitle()+TTraceWriter.FILE_EXTENSION));
+        }
+        int resultado = dialogoAbrir.showOpenDialog(VentanaPadre);
+        if (resultado != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        TTraceReplayer reproductor = new TTraceReplayer(this.panelSimulacion, this.escenario.getTopology());
+        if (!reproductor.open(dialogoAbrir.getSelectedFile())) {
+            JVentanaAdvertencia va = new JVentanaAdvertencia(VentanaPadre, true, dispensadorDeImagenes);
+            va.mostrarMensaje(reproductor.getErrorMessage());
+            va.setVisible(true);
+            return;
+        }
+        long instante = pedirInstanteDeReproduccion(reproductor);
+        if (instante < 0) {
+            reproductor.stop();
+            return;
+        }
+        this.reproductorDeTraza = reproductor;
+        this.crearTraza.setEnabled(false);
+        this.botonIrAlInstante.setEnabled(true);
+        this.botonReproducirTraza.setText(java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("JVentanaHija.Stop_replay"));
+        reproductor.seek(instante);
+        reproductor.play();
+    }
+    
+    /**
+     * Este metodo se llama cuando se hace clic en el boton de ir al instante
+     * de la ventana de simulacion. Pide un instante y lleva a el la traza que
+     * se esta reproduciendo, usando el indice temporal de la traza.
+     * @param evt El evento que hace que este metodo se dispare.
+     * @since 2.0
+     */
+    private void clicEnIrAlInstante(java.awt.event.ActionEvent evt) {
+        TTraceReplayer reproductor = this.reproductorDeTraza;
+        if (reproductor != null) {
+            long instante = pedirInstanteDeReproduccion(reproductor);
+            if (instante >= 0) {
+                reproductor.seek(instante);
+                reproductor.play();
+            }
+        }
+    }
+    
+    /**
+     * Este metodo pide al usuario el instante, en nanosegundos, desde el que
+     * se debe reproducir una traza.
+     * @param reproductor Reproductor de la traza.
+     * @return El instante elegido, o -1 si el usuario cancela o el instante no
+     * es valido.
+     * @since 2.0
+     */
+    private long pedirInstanteDeReproduccion(TTraceReplayer reproductor) {
+        long instanteActual = Math.max(reproductor.getCurrentInstant(), reproductor.getFirstInstant());
+        String respuesta = JOptionPane.showInputDialog(this, java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("JVentanaHija.Replay_from_instant") + " " + reproductor.getFirstInstant() + " " + java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("JVentanaHija.Replay_to") + " " + reproductor.getLastInstant() + ".", Long.toString(Math.max(instanteActual, 0)));
+        if (respuesta == null) {
+            return -1;
+        }
+        try {
+            long instante = Long.parseLong(respuesta.trim());
+            if (instante >= 0) {
+                return instante;
+            }
+        } catch (NumberFormatException e) {
+            // Se avisa al usuario mas abajo.
+        }
+        JVentanaAdvertencia va = new JVentanaAdvertencia(VentanaPadre, true, dispensadorDeImagenes);
+        va.mostrarMensaje(java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("JVentanaHija.Replay_instant_not_valid"));
+        va.setVisible(true);
+        return -1;
+    }
+    
+    /**
+     * Este metodo detiene la reproduccion de la traza en curso, si la hay, y
+     * deja los botones de la ventana de simulacion como estaban antes de
+     * comenzarla.
+     * @since 2.0
+     */
+    private void detenerReproduccionDeTraza() {
+        if (this.reproductorDeTraza != null) {
+            this.reproductorDeTraza.stop();
+            this.reproductorDeTraza = null;
+            this.crearTraza.setEnabled(true);
+            this.botonIrAlInstante.setEnabled(false);
+            this.botonReproducirTraza.setText(java.util.ResourceBundle.getBundle("simMPLS/lenguajes/lenguajes").getString("JVentanaHija.Replay_trace"));
+        }
+    }
+    
     /**
      * Este m�todo se llama cuando comienza la simulaci�n del escenario. Crea una lista
      * de todos los nodos que tienen activa la generaci�n de estad�sticas para
@@ -2186,6 +2323,9 @@ private void clicAlPausar(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_clic
      * @since 2.0
      */
     public void cerrar() {
+        detenerReproduccionDeTraza();
+        // El reloj del escenario no se va a usar mas; se liberan sus hilos.
+        this.escenario.getTopology().obtenerReloj().dispose();
         this.setVisible(false);
         this.dispose();
     }
@@ -2581,6 +2721,13 @@ private void clicAlPausar(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_clic
     
     
     private boolean controlTemporizacionDesactivado;
+    /** Este atributo es el reproductor de la traza que se esta mostrando en el
+     * panel de simulacion, o NULL si no se esta reproduciendo ninguna.
+     * @since 2.0
+     */
+    private TTraceReplayer reproductorDeTraza;
+    private javax.swing.JButton botonReproducirTraza;
+    private javax.swing.JButton botonIrAlInstante;
     
     private ChartPanel panelGrafico1;
     private ChartPanel panelGrafico2;
@@ -0,0 +1,342 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.ui.simulator;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import javax.swing.SwingUtilities;
+import simMPLS.io.trace.TTraceIndex;
+import simMPLS.io.trace.TTraceReader;
+import simMPLS.io.trace.TTraceRecord;
+import simMPLS.scenario.TSimulationEvent;
+import simMPLS.scenario.TTopology;
+
+/**
+ * This class replays a binary simulation trace in a simulation panel, so an
+ * interval of a finished simulation can be watched again without simulating
+ * it again. A background thread reads the records, turns them into
+ * simulation events of the topology of the traced scenario and gives them to
+ * the panel, as the simulation would. It waits as many milliseconds as the
+ * panel shows each instant before going to the next one, so the speed
+ * selector of the window sets the speed of the replay too.
+ *
+ * The trace is indexed by time when it is opened, so the replay can go to any
+ * instant without reading the trace from the beginning.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TTraceReplayer {
+
+    /**
+     * This method is the constructor of the class. It creates a new replayer
+     * for the specified panel.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param simulationPanel The panel where the trace is shown.
+     * @param topology The topology of the traced scenario.
+     * @since 2.0
+     */
+    public TTraceReplayer(JSimulationPanel simulationPanel, TTopology topology) {
+        this.simulationPanel = simulationPanel;
+        this.topology = topology;
+        this.traceReader = null;
+        this.traceIndex = new TTraceIndex();
+        this.replayerThread = null;
+        this.requestedInstant = new AtomicLong(TTraceReplayer.NO_REQUEST);
+        this.currentInstant = -1;
+        this.playing = false;
+        this.stopping = false;
+        this.errorMessage = null;
+    }
+
+    /**
+     * This method opens a trace, builds its time index and starts the thread
+     * of the replayer. The replay is paused at the beginning of the trace
+     * until play() is called.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param traceFile The trace file.
+     * @return TRUE, if the trace can be replayed. Otherwise, returns FALSE and
+     * getErrorMessage() tells why.
+     * @since 2.0
+     */
+    public boolean open(File traceFile) {
+        this.errorMessage = null;
+        if (this.replayerThread != null) {
+            this.errorMessage = "A trace is already being replayed";
+            return false;
+        }
+        this.traceReader = new TTraceReader(traceFile);
+        if (!this.traceReader.open()) {
+            this.errorMessage = this.traceReader.getErrorMessage();
+            return false;
+        }
+        if (this.traceReader.getNumberOfDroppedEvents() > 0) {
+            this.errorMessage = traceFile.getPath() + " is not complete: " + this.traceReader.getNumberOfDroppedEvents() + " simulation events were dropped";
+            this.traceReader.close();
+            return false;
+        }
+        if (!this.traceIndex.build(this.traceReader)) {
+            this.errorMessage = "Unable to index " + traceFile.getPath();
+            this.traceReader.close();
+            return false;
+        }
+        this.stopping = false;
+        this.playing = false;
+        this.requestedInstant.set(this.traceIndex.getFirstInstant());
+        this.replayerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                replay();
+            }
+        }, "TTraceReplayer-" + traceFile.getName());
+        this.replayerThread.setDaemon(true);
+        this.replayerThread.start();
+        return true;
+    }
+
+    /**
+     * This method makes the replay go to the specified instant. The panel is
+     * cleared and the replay goes on from the first record of that instant,
+     * or of the next one that has been traced.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param instant The instant, in nanoseconds.
+     * @since 2.0
+     */
+    public void seek(long instant) {
+        this.requestedInstant.set(Math.max(instant, 0));
+        this.wakeUp();
+    }
+
+    /**
+     * This method starts or resumes the replay.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void play() {
+        this.playing = true;
+        this.wakeUp();
+    }
+
+    /**
+     * This method pauses the replay. The last instant shown stays in the
+     * panel.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void pause() {
+        this.playing = false;
+    }
+
+    /**
+     * This method stops the replay for good. The thread of the replayer
+     * closes the trace when it finishes; this method does not wait for it,
+     * so it can be called from the event dispatch thread.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void stop() {
+        this.stopping = true;
+        this.playing = false;
+        this.wakeUp();
+        this.replayerThread = null;
+    }
+
+    /**
+     * This method returns whether the trace is being replayed.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return TRUE, if the replay is not paused nor finished. Otherwise,
+     * FALSE.
+     * @since 2.0
+     */
+    public boolean isPlaying() {
+        return this.playing;
+    }
+
+    /**
+     * This method returns the instant being replayed.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The instant, in nanoseconds, or -1 if no record has been
+     * replayed yet.
+     * @since 2.0
+     */
+    public long getCurrentInstant() {
+        return this.currentInstant;
+    }
+
+    /**
+     * This method returns the lowest instant of the trace.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The instant, in nanoseconds, or -1 if the trace is empty.
+     * @since 2.0
+     */
+    public long getFirstInstant() {
+        return this.traceIndex.getFirstInstant();
+    }
+
+    /**
+     * This method returns the highest instant of the trace.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The instant, in nanoseconds, or -1 if the trace is empty.
+     * @since 2.0
+     */
+    public long getLastInstant() {
+        return this.traceIndex.getLastInstant();
+    }
+
+    /**
+     * This method returns why the trace could not be opened.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The error message, or NULL if there has been no error.
+     * @since 2.0
+     */
+    public String getErrorMessage() {
+        return this.errorMessage;
+    }
+
+    /**
+     * This method is run by the thread of the replayer. Only this thread
+     * uses the trace reader, so seeks requested from other threads are
+     * applied here, between two records. The replay pauses itself at the end
+     * of the trace.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    private void replay() {
+        TTraceRecord record = new TTraceRecord();
+        TSimulationEvent simulationEvent;
+        long nextRecord = 0;
+        long instant;
+        while (!this.stopping) {
+            instant = this.requestedInstant.getAndSet(TTraceReplayer.NO_REQUEST);
+            if (instant != TTraceReplayer.NO_REQUEST) {
+                this.resetSimulationPanel();
+                nextRecord = this.traceIndex.seek(this.traceReader, instant);
+                this.currentInstant = -1;
+                continue;
+            }
+            if (!this.playing) {
+                LockSupport.parkNanos(TTraceReplayer.IDLE_WAIT);
+                continue;
+            }
+            if (!this.traceReader.read(nextRecord, record)) {
+                this.playing = false;
+                continue;
+            }
+            if (record.getInstant() > this.currentInstant) {
+                if (this.currentInstant >= 0) {
+                    this.waitForNextInstant();
+                    if (this.stopping || (this.requestedInstant.get() != TTraceReplayer.NO_REQUEST)) {
+                        continue;
+                    }
+                }
+                this.currentInstant = record.getInstant();
+            }
+            simulationEvent = record.toSimulationEvent(this.topology);
+            if (simulationEvent != null) {
+                this.simulationPanel.addEvent(simulationEvent);
+            }
+            nextRecord++;
+        }
+        this.traceReader.close();
+    }
+
+    /**
+     * This method waits as many milliseconds as the panel shows each instant,
+     * unless the replay is stopped, paused or sent to another instant in the
+     * meantime.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    private void waitForNextInstant() {
+        long deadline = System.nanoTime() + (this.simulationPanel.obtenerMlsPorTic() * 1000000L);
+        long remaining = deadline - System.nanoTime();
+        while ((remaining > 0) && this.playing && (this.requestedInstant.get() == TTraceReplayer.NO_REQUEST)) {
+            LockSupport.parkNanos(remaining);
+            remaining = deadline - System.nanoTime();
+        }
+        while (!this.playing && !this.stopping && (this.requestedInstant.get() == TTraceReplayer.NO_REQUEST)) {
+            LockSupport.parkNanos(TTraceReplayer.IDLE_WAIT);
+        }
+    }
+
+    /**
+     * This method clears the simulation panel from the event dispatch thread
+     * and waits until it has been done, so no event of the previous instant
+     * is shown after a seek. Clearing the panel closes its trace too, so the
+     * replayed events are not traced again.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    private void resetSimulationPanel() {
+        try {
+            SwingUtilities.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                    // The replay may have been stopped to start a
+                    // simulation while this was waiting to run.
+                    if (!stopping) {
+                        simulationPanel.reset();
+                        simulationPanel.repaint();
+                    }
+                }
+            });
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * This method wakes the thread of the replayer up, if it is waiting.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    private void wakeUp() {
+        Thread replayerThreadAux = this.replayerThread;
+        if (replayerThreadAux != null) {
+            LockSupport.unpark(replayerThreadAux);
+        }
+    }
+
+    private static final long NO_REQUEST = -1;
+    private static final long IDLE_WAIT = 10000000;
+
+    private JSimulationPanel simulationPanel;
+    private TTopology topology;
+    private TTraceReader traceReader;
+    private TTraceIndex traceIndex;
+    private volatile Thread replayerThread;
+    private AtomicLong requestedInstant;
+    private volatile long currentInstant;
+    private volatile boolean playing;
+    private volatile boolean stopping;
+    private String errorMessage;
+}
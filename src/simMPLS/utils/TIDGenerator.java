@@ -15,18 +15,21 @@
  */
 package simMPLS.utils;
 
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 /** Esta es la implementaci�n de un generador de identificadores num�ricos que no se
  * repiten y que se van incrementando hasta llegar a su l�mite m�ximo.
  * @version 1.0
  * @author <B>Manuel Dom�nguez Dorado</B><br><A
  * href="mailto:ingeniero@ManoloDominguez.com">ingeniero@ManoloDominguez.com</A><br><A href="http://www.ManoloDominguez.com" target="_blank">http://www.ManoloDominguez.com</A>
  */
-public class TIDGenerator {
+public class TIDGenerator implements Serializable {
     
     /** Atributo que contendr� el valor interno del generador de identificadores
      * num�ticos.
      */
-    private int identificador;
+    private volatile int identificador;
     
     /** Crea un nuevo generador de identificadores con el valor inicial 0.
      * @since 2.0
@@ -46,20 +49,22 @@ public class TIDGenerator {
     
     /** M�todo que devuelve un identificador generado por el generador. Adem�s se
      * modifica el contador interno para que el siguiente generador sea distinto. El
-     * m�todo est� <B>sincronizado</B>.
+     * m�todo no usa bloqueos.
      * @return Un numero entero que ser� un identificador: no estar� repetido.
      * @throws EIDGeneratorOverflow Esta excepci�n se lanza cuando el contador interno del generador de
      * identificadores se desborda. Es alto por lo que ngeneralmente no ocurrir�, pero
      * hay que capturar la excepci�n por si acaso.
      * @since 2.0
      */
-    synchronized public int getNew() throws EIDGeneratorOverflow {
-        if (identificador > 2147483646) {
-            throw new EIDGeneratorOverflow();
-        } else {
-            identificador++;
-        }
-        return (identificador);
+    public int getNew() throws EIDGeneratorOverflow {
+        int actual;
+        do {
+            actual = identificador;
+            if (actual > 2147483646) {
+                throw new EIDGeneratorOverflow();
+            }
+        } while (!TIDGenerator.CONTADOR.compareAndSet(this, actual, actual + 1));
+        return (actual + 1);
     }
     
     /**
@@ -69,9 +74,13 @@ public class TIDGenerator {
      * @since 2.0
      * @param i El valor de partida con el cual deseamos iniciar el contador.
      */
-    synchronized public void setIDIfGreater(int i) {
-        if (i > identificador)
-            identificador = i;
+    public void setIDIfGreater(int i) {
+        int actual;
+        do {
+            actual = identificador;
+            if (i <= actual)
+                return;
+        } while (!TIDGenerator.CONTADOR.compareAndSet(this, actual, i));
     }
     
     /**
@@ -79,7 +88,10 @@ public class TIDGenerator {
      * @since 2.0
      * @param i El valor que deseamos poner como valor de partida para el generador.
      */
-    synchronized public void ponerIdentificador(int i) {
+    public void ponerIdentificador(int i) {
         identificador = i;
     }
+    
+    private static final long serialVersionUID = 1L;
+    private static final AtomicIntegerFieldUpdater<TIDGenerator> CONTADOR = AtomicIntegerFieldUpdater.newUpdater(TIDGenerator.class, "identificador");
 }
@@ -15,13 +15,14 @@
  */
 package simMPLS.utils;
 
+import java.io.Serializable;
 /** Esta clase permite crear un objeto que genera direcciones IP consecutivas y sin
  * repetici�n dentro del rango 10.0.0.1 - 10.255.255.254
  * @version 1.0
  * @author <B>Manuel Dom�nguez Dorado</B><br><A
  * href="mailto:ingeniero@ManoloDominguez.com">ingeniero@ManoloDominguez.com</A><br><A href="http://www.ManoloDominguez.com" target="_blank">http://www.ManoloDominguez.com</A>
  */
-public class TIPGenerator {
+public class TIPGenerator implements Serializable {
     
     /** Este m�todo es el constructor de la clase. Permite generar instancias de
      * TGeneradorDeIP.
@@ -150,6 +151,7 @@ public class TIPGenerator {
         return (octeto1 + "." + octeto2 + "." + octeto3 + "." + octeto4);
     }
     
+    private static final long serialVersionUID = 1L;
     /** Constante "10" que ser� el componente fijo de las direcciones IP generadas.
      * @since 2.0
      */
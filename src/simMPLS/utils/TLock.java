@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.utils;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class implements a lock used to create critical regions when several
+ * threads access the same data. It is backed by a ReentrantLock, so the
+ * thread that holds the lock can acquire it again, it can be created as a
+ * fair lock and it can be tried without blocking.
+ *
+ * Each lock belongs to a site, a name shared by all the locks that protect
+ * the same kind of data (for instance, the buffers of all the ports). When
+ * TLockProfiler is enabled, the number of acquisitions, the time spent
+ * waiting for the lock and the time the lock is held are accumulated for
+ * each site. When it is disabled, the cost of a lock is the cost of the
+ * underlying ReentrantLock.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TLock implements Serializable {
+
+    /**
+     * This method is the constructor of the class. It creates a new non-fair
+     * lock that belongs to the specified site.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param siteName The name of the site the lock belongs to.
+     * @since 2.0
+     */
+    public TLock(String siteName) {
+        this(siteName, false);
+    }
+
+    /**
+     * This method is the constructor of the class. It creates a new lock that
+     * belongs to the specified site.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param siteName The name of the site the lock belongs to.
+     * @param fair TRUE, if the lock has to be granted to the thread that has
+     * been waiting longest. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public TLock(String siteName, boolean fair) {
+        this.siteName = siteName;
+        this.reentrantLock = new ReentrantLock(fair);
+        this.siteStats = null;
+        this.acquisitionInstant = 0;
+        this.holdProfiled = false;
+    }
+
+    /**
+     * This method acquires the lock. If another thread holds it, the calling
+     * thread is blocked until the lock is released.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void lock() {
+        if (!TLockProfiler.isEnabled()) {
+            this.reentrantLock.lock();
+            return;
+        }
+        long requestInstant = System.nanoTime();
+        boolean contended = false;
+        if (!this.reentrantLock.tryLock()) {
+            contended = true;
+            this.reentrantLock.lock();
+        }
+        this.startProfiledHold(requestInstant, contended);
+    }
+
+    /**
+     * This method acquires the lock only if no other thread holds it.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return TRUE, if the lock has been acquired. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public boolean tryLock() {
+        if (!TLockProfiler.isEnabled()) {
+            return this.reentrantLock.tryLock();
+        }
+        long requestInstant = System.nanoTime();
+        if (this.reentrantLock.tryLock()) {
+            this.startProfiledHold(requestInstant, false);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * This method acquires the lock if it is released within the specified
+     * time.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param timeout The maximum time to wait for the lock, in nanoseconds.
+     * @return TRUE, if the lock has been acquired. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public boolean tryLock(long timeout) {
+        long requestInstant = System.nanoTime();
+        boolean contended = false;
+        boolean acquired = this.reentrantLock.tryLock();
+        try {
+            if (!acquired) {
+                contended = true;
+                acquired = this.reentrantLock.tryLock(timeout, TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        if (acquired && TLockProfiler.isEnabled()) {
+            this.startProfiledHold(requestInstant, contended);
+        }
+        return acquired;
+    }
+
+    /**
+     * This method releases the lock. If the calling thread has acquired the
+     * lock several times, it is only released when it has been unlocked the
+     * same number of times. Unlocking a lock that the calling thread does not
+     * hold has no effect.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void unlock() {
+        if (!this.reentrantLock.isHeldByCurrentThread()) {
+            return;
+        }
+        if (this.holdProfiled && (this.reentrantLock.getHoldCount() == 1)) {
+            this.holdProfiled = false;
+            this.siteStats.addHold(System.nanoTime() - this.acquisitionInstant);
+        }
+        this.reentrantLock.unlock();
+    }
+
+    /**
+     * This method checks whether the calling thread holds the lock.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return TRUE, if the calling thread holds the lock. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public boolean isHeldByCurrentThread() {
+        return this.reentrantLock.isHeldByCurrentThread();
+    }
+
+    /**
+     * This method returns the name of the site the lock belongs to.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The name of the site.
+     * @since 2.0
+     */
+    public String getSiteName() {
+        return this.siteName;
+    }
+
+    /**
+     * This method records a profiled acquisition of the lock. Only the
+     * outermost acquisition of a thread is recorded, so the hold time covers
+     * the whole time the lock is held.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param requestInstant The instant the lock was requested, in
+     * nanoseconds.
+     * @param contended TRUE, if another thread held the lock when it was
+     * requested. Otherwise, FALSE.
+     * @since 2.0
+     */
+    private void startProfiledHold(long requestInstant, boolean contended) {
+        if (this.reentrantLock.getHoldCount() != 1) {
+            return;
+        }
+        if (this.siteStats == null) {
+            this.siteStats = TLockProfiler.getSiteStats(this.siteName);
+        }
+        this.acquisitionInstant = System.nanoTime();
+        this.holdProfiled = true;
+        this.siteStats.addAcquisition(this.acquisitionInstant - requestInstant, contended);
+    }
+
+    private static final long serialVersionUID = 1L;
+    private String siteName;
+    private ReentrantLock reentrantLock;
+    private transient TLockSiteStats siteStats;
+    private transient long acquisitionInstant;
+    private transient boolean holdProfiled;
+}
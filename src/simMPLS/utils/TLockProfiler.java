@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class implements the registry of the contention statistics of every
+ * lock site. Profiling is disabled by default. It is enabled for the whole
+ * virtual machine, so that the sites that dominate the contention of a
+ * simulation can be found.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TLockProfiler {
+
+    /**
+     * This method is the constructor of the class. It is private because all
+     * the methods of this class are static.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    private TLockProfiler() {
+    }
+
+    /**
+     * This method enables or disables the profiling of locks.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param enabled TRUE, to profile every lock. FALSE, to stop profiling.
+     * @since 2.0
+     */
+    public static void setEnabled(boolean enabled) {
+        TLockProfiler.enabled = enabled;
+    }
+
+    /**
+     * This method checks whether the profiling of locks is enabled.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return TRUE, if locks are being profiled. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public static boolean isEnabled() {
+        return TLockProfiler.enabled;
+    }
+
+    /**
+     * This method returns the statistics of the specified site, creating them
+     * the first time the site is used.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param siteName The name of the lock site.
+     * @return The statistics of the site.
+     * @since 2.0
+     */
+    public static TLockSiteStats getSiteStats(String siteName) {
+        TLockSiteStats siteStats = TLockProfiler.sites.get(siteName);
+        if (siteStats == null) {
+            TLockSiteStats newSiteStats = new TLockSiteStats(siteName);
+            siteStats = TLockProfiler.sites.putIfAbsent(siteName, newSiteStats);
+            if (siteStats == null) {
+                siteStats = newSiteStats;
+            }
+        }
+        return siteStats;
+    }
+
+    /**
+     * This method returns the statistics of every site that has been used,
+     * sorted from the longest to the shortest total wait time.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The statistics of every site.
+     * @since 2.0
+     */
+    public static ArrayList<TLockSiteStats> getSiteStats() {
+        ArrayList<TLockSiteStats> siteStatsList = new ArrayList<TLockSiteStats>(TLockProfiler.sites.values());
+        Collections.sort(siteStatsList, new Comparator<TLockSiteStats>() {
+            @Override
+            public int compare(TLockSiteStats o1, TLockSiteStats o2) {
+                long waitTime1 = o1.getTotalWaitTime();
+                long waitTime2 = o2.getTotalWaitTime();
+                if (waitTime1 > waitTime2) {
+                    return -1;
+                }
+                if (waitTime1 < waitTime2) {
+                    return 1;
+                }
+                return o1.getSiteName().compareTo(o2.getSiteName());
+            }
+        });
+        return siteStatsList;
+    }
+
+    /**
+     * This method sets to zero the statistics of every site.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public static void reset() {
+        Iterator<TLockSiteStats> iterator = TLockProfiler.sites.values().iterator();
+        while (iterator.hasNext()) {
+            iterator.next().reset();
+        }
+    }
+
+    private static volatile boolean enabled = false;
+    private static final ConcurrentHashMap<String, TLockSiteStats> sites = new ConcurrentHashMap<String, TLockSiteStats>();
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class implements the contention statistics of a lock site: the
+ * number of acquisitions, how many of them had to wait for another thread,
+ * the time spent waiting and the time the locks were held. All the locks of
+ * the same site accumulate their values here, from many threads at the same
+ * time.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TLockSiteStats {
+
+    /**
+     * This method is the constructor of the class. It creates a new instance
+     * of TLockSiteStats for the specified site.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param siteName The name of the lock site.
+     * @since 2.0
+     */
+    public TLockSiteStats(String siteName) {
+        this.siteName = siteName;
+        this.numberOfAcquisitions = new LongAdder();
+        this.numberOfContendedAcquisitions = new LongAdder();
+        this.totalWaitTime = new LongAdder();
+        this.maxWaitTime = new AtomicLong(0);
+        this.totalHoldTime = new LongAdder();
+        this.maxHoldTime = new AtomicLong(0);
+    }
+
+    /**
+     * This method records an acquisition of a lock of this site.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param waitTime The time spent waiting for the lock, in nanoseconds.
+     * @param contended TRUE, if another thread held the lock when it was
+     * requested. Otherwise, FALSE.
+     * @since 2.0
+     */
+    public void addAcquisition(long waitTime, boolean contended) {
+        this.numberOfAcquisitions.increment();
+        if (contended) {
+            this.numberOfContendedAcquisitions.increment();
+        }
+        this.totalWaitTime.add(waitTime);
+        TLockSiteStats.updateMax(this.maxWaitTime, waitTime);
+    }
+
+    /**
+     * This method records the time a lock of this site has been held.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param holdTime The time the lock has been held, in nanoseconds.
+     * @since 2.0
+     */
+    public void addHold(long holdTime) {
+        this.totalHoldTime.add(holdTime);
+        TLockSiteStats.updateMax(this.maxHoldTime, holdTime);
+    }
+
+    /**
+     * This method sets to zero all the statistics of this site.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void reset() {
+        this.numberOfAcquisitions.reset();
+        this.numberOfContendedAcquisitions.reset();
+        this.totalWaitTime.reset();
+        this.maxWaitTime.set(0);
+        this.totalHoldTime.reset();
+        this.maxHoldTime.set(0);
+    }
+
+    /**
+     * This method returns the name of the lock site.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The name of the lock site.
+     * @since 2.0
+     */
+    public String getSiteName() {
+        return this.siteName;
+    }
+
+    /**
+     * This method returns the number of acquisitions of locks of this site.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of acquisitions.
+     * @since 2.0
+     */
+    public long getNumberOfAcquisitions() {
+        return this.numberOfAcquisitions.sum();
+    }
+
+    /**
+     * This method returns the number of acquisitions that had to wait because
+     * another thread held the lock.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of contended acquisitions.
+     * @since 2.0
+     */
+    public long getNumberOfContendedAcquisitions() {
+        return this.numberOfContendedAcquisitions.sum();
+    }
+
+    /**
+     * This method returns the total time spent waiting for locks of this
+     * site.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The total wait time, in nanoseconds.
+     * @since 2.0
+     */
+    public long getTotalWaitTime() {
+        return this.totalWaitTime.sum();
+    }
+
+    /**
+     * This method returns the longest time a thread has waited for a lock of
+     * this site.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The maximum wait time, in nanoseconds.
+     * @since 2.0
+     */
+    public long getMaxWaitTime() {
+        return this.maxWaitTime.get();
+    }
+
+    /**
+     * This method returns the total time locks of this site have been held.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The total hold time, in nanoseconds.
+     * @since 2.0
+     */
+    public long getTotalHoldTime() {
+        return this.totalHoldTime.sum();
+    }
+
+    /**
+     * This method returns the longest time a lock of this site has been held.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The maximum hold time, in nanoseconds.
+     * @since 2.0
+     */
+    public long getMaxHoldTime() {
+        return this.maxHoldTime.get();
+    }
+
+    /**
+     * This method raises the value of the specified maximum if the new value
+     * is greater.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param max The maximum to be updated.
+     * @param value The new value.
+     * @since 2.0
+     */
+    private static void updateMax(AtomicLong max, long value) {
+        long currentMax = max.get();
+        while ((value > currentMax) && (!max.compareAndSet(currentMax, value))) {
+            currentMax = max.get();
+        }
+    }
+
+    private String siteName;
+    private LongAdder numberOfAcquisitions;
+    private LongAdder numberOfContendedAcquisitions;
+    private LongAdder totalWaitTime;
+    private AtomicLong maxWaitTime;
+    private LongAdder totalHoldTime;
+    private AtomicLong maxHoldTime;
+}
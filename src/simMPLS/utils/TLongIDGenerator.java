@@ -15,25 +15,54 @@
  */
 package simMPLS.utils;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 /** Esta es la implementaci�n de un generador de identificadores num�ricos que no se
  * repiten y que se van incrementando hasta llegar a su l�mite m�ximo.
+ * <P>
+ * El generador no usa bloqueos: el contador se incrementa con operaciones
+ * atomicas. Si se crea con un tamanio de bloque mayor que uno, cada hilo
+ * reserva de una vez un bloque de identificadores consecutivos y los va
+ * entregando sin acceder al contador compartido, que solo se modifica una
+ * vez por bloque. En ese caso los identificadores siguen siendo unicos, pero
+ * solo son crecientes dentro de cada hilo. Ambos casos se pueden medir con
+ * simMPLS.bench.openSimMPLSIDGeneratorBench.
  * @version 1.0
  * @author <B>Manuel Dom�nguez Dorado</B><br><A
  * href="mailto:ingeniero@ManoloDominguez.com">ingeniero@ManoloDominguez.com</A><br><A href="http://www.ManoloDominguez.com" target="_blank">http://www.ManoloDominguez.com</A>
  */
-public class TLongIDGenerator {
+public class TLongIDGenerator implements Serializable {
     
     /** Atributo que almacena el valor interno del generador de identificadores
      * num�ticos largos.
      * @since 2.0
      */
-    private long identificador;
+    private volatile long identificador;
     
     /** Crea un nuevo generador de identificadores con el valor inicial 0.
      * @since 2.0
      */
     public TLongIDGenerator() {
+        this(1);
+    }
+    
+    /**
+     * Crea un nuevo generador de identificadores con el valor inicial 0 que
+     * reserva los identificadores por bloques para cada hilo que lo usa. Esta
+     * pensado para generadores compartidos por muchos hilos, como el de
+     * eventos de la topologia.
+     * @param tamanioDeBloque Numero de identificadores que reserva cada hilo de
+     * una vez. Con el valor 1 cada identificador se toma directamente del
+     * contador compartido.
+     * @since 2.0
+     */
+    public TLongIDGenerator(int tamanioDeBloque) {
         identificador = 0;
+        generacion = 0;
+        this.tamanioDeBloque = Math.max(1, tamanioDeBloque);
+        this.bloques = crearBloques();
     }
     
     /**
@@ -42,25 +71,129 @@ public class TLongIDGenerator {
      * @since 2.0
      */
     public synchronized void reset() {
+        // Los bloques reservados antes de reiniciar el generador se descartan.
+        generacion++;
         identificador = 0;
     }
     
     /** M�todo que devuelve un identificador generado por el generador. Adem�s se
      * modifica el contador interno para que el siguiente generador sea distinto. El
-     * m�todo est� <B>sincronizado</B>.
+     * m�todo no usa bloqueos.
      * @return Un n�mero enterio que ser� un identificador largo: un entero largo �nico.
      * @throws EIDGeneratorOverflow Esta excepci�n se lanza cuando el contador interno del generador de
      * identificadores se desborda. Es alto por lo que generalmente no ocurrir�, pero
      * hay que capturar la excepci�n por si acaso.
      * @since 2.0
      */
-    synchronized public long getNextID() throws EIDGeneratorOverflow {
-        if (identificador > 9223372036854775806L) {
-            throw new EIDGeneratorOverflow();
-        } else {
-            identificador++;
+    public long getNextID() throws EIDGeneratorOverflow {
+        if (tamanioDeBloque > 1) {
+            return obtenerIdentificadorDelBloque();
         }
-        return (identificador);
+        long actual;
+        do {
+            actual = identificador;
+            if (actual > TLongIDGenerator.MAXIMO) {
+                throw new EIDGeneratorOverflow();
+            }
+        } while (!TLongIDGenerator.CONTADOR.compareAndSet(this, actual, actual + 1));
+        return (actual + 1);
+    }
+    
+    /**
+     * Este metodo entrega el siguiente identificador del bloque reservado por
+     * el hilo actual, reservando un bloque nuevo cuando se ha agotado o cuando
+     * el generador se ha reiniciado desde que se reservo.
+     * @return El siguiente identificador del bloque del hilo actual.
+     * @throws EIDGeneratorOverflow Si no quedan identificadores para reservar
+     * un bloque nuevo.
+     * @since 2.0
+     */
+    private long obtenerIdentificadorDelBloque() throws EIDGeneratorOverflow {
+        long[] bloque = bloques.get();
+        if ((bloque[TLongIDGenerator.GENERACION] != generacion) || (bloque[TLongIDGenerator.RESTANTES] == 0)) {
+            reservarBloque(bloque);
+        }
+        long id = bloque[TLongIDGenerator.SIGUIENTE];
+        bloque[TLongIDGenerator.SIGUIENTE]++;
+        bloque[TLongIDGenerator.RESTANTES]--;
+        return id;
+    }
+    
+    /**
+     * Este metodo reserva en el contador compartido un bloque de
+     * identificadores consecutivos para el hilo actual. El ultimo bloque
+     * puede ser mas corto si el contador esta a punto de desbordarse.
+     * @param bloque El bloque del hilo actual, que se actualiza con los
+     * limites del nuevo bloque reservado.
+     * @throws EIDGeneratorOverflow Si el contador ya ha llegado a su limite.
+     * @since 2.0
+     */
+    private void reservarBloque(long[] bloque) throws EIDGeneratorOverflow {
+        long generacionDelBloque = generacion;
+        long actual;
+        long ultimo;
+        do {
+            actual = identificador;
+            if (actual > TLongIDGenerator.MAXIMO) {
+                throw new EIDGeneratorOverflow();
+            }
+            if (actual > Long.MAX_VALUE - tamanioDeBloque) {
+                ultimo = Long.MAX_VALUE;
+            } else {
+                ultimo = actual + tamanioDeBloque;
+            }
+        } while (!TLongIDGenerator.CONTADOR.compareAndSet(this, actual, ultimo));
+        bloque[TLongIDGenerator.SIGUIENTE] = actual + 1;
+        bloque[TLongIDGenerator.RESTANTES] = ultimo - actual;
+        bloque[TLongIDGenerator.GENERACION] = generacionDelBloque;
+    }
+    
+    /**
+     * Este metodo crea el almacen de los bloques reservados por cada hilo.
+     * Inicialmente ningun hilo tiene un bloque valido.
+     * @return El almacen de bloques por hilo.
+     * @since 2.0
+     */
+    private ThreadLocal<long[]> crearBloques() {
+        return new ThreadLocal<long[]>() {
+            @Override
+            protected long[] initialValue() {
+                long[] bloque = new long[3];
+                bloque[TLongIDGenerator.SIGUIENTE] = 1;
+                bloque[TLongIDGenerator.RESTANTES] = 0;
+                bloque[TLongIDGenerator.GENERACION] = -1;
+                return bloque;
+            }
+        };
     }
     
+    /**
+     * Este metodo lee el generador desde un flujo de objetos y crea de nuevo
+     * el almacen de bloques por hilo, que no se guarda.
+     * @param entrada El flujo desde el que se lee el generador.
+     * @throws IOException Si el generador no se puede leer.
+     * @throws ClassNotFoundException Si alguna clase guardada no existe.
+     * @since 2.0
+     */
+    private void readObject(ObjectInputStream entrada) throws IOException, ClassNotFoundException {
+        entrada.defaultReadObject();
+        this.bloques = crearBloques();
+    }
+    
+    private static final long serialVersionUID = 1L;
+    /**
+     * Tamanio de bloque recomendado para los generadores compartidos por
+     * varios hilos.
+     * @since 2.0
+     */
+    public static final int TAMANIO_DE_BLOQUE_COMPARTIDO = 1024;
+    private static final long MAXIMO = 9223372036854775806L;
+    private static final int SIGUIENTE = 0;
+    private static final int RESTANTES = 1;
+    private static final int GENERACION = 2;
+    private static final AtomicLongFieldUpdater<TLongIDGenerator> CONTADOR = AtomicLongFieldUpdater.newUpdater(TLongIDGenerator.class, "identificador");
+    
+    private volatile long generacion;
+    private int tamanioDeBloque;
+    private transient ThreadLocal<long[]> bloques;
 }
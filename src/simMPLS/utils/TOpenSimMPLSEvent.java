@@ -68,6 +68,15 @@ public abstract class TOpenSimMPLSEvent extends EventObject implements Comparabl
         identificador = id;
     }
     
+    /** Este metodo permite cambiar el instante de tiempo del evento. Lo usan
+     * los eventos que se reutilizan de un tic a otro.
+     * @since 2.0
+     * @param inst El nuevo instante de tiempo del evento.
+     */
+    protected void ponerInstante(long inst) {
+        instante = inst;
+    }
+    
     /** Este m�todo compara este evento con otro de la misma clase para determinar el
      * orden de cada uno y poder insertarlo de forma correcta en un arbol binario
      * ordenado.
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.utils;
+
+import java.io.Serializable;
+
+/**
+ * This class implements a stream of pseudo-random numbers based on the
+ * SplitMix64 algorithm. For the same seed it produces exactly the same
+ * numbers as java.util.SplittableRandom, but its state can be saved with the
+ * rest of the simulation in a checkpoint.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TRandomStream implements Serializable {
+
+    /**
+     * This method is the constructor of the class. It creates a new stream
+     * that starts at the specified seed.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param seed The seed of the stream.
+     * @since 2.0
+     */
+    public TRandomStream(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * This method returns the next pseudo-random long value of the stream.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return A pseudo-random long value.
+     * @since 2.0
+     */
+    public long nextLong() {
+        return TRandomStream.mix64(this.nextSeed());
+    }
+
+    /**
+     * This method returns the next pseudo-random int value of the stream.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return A pseudo-random int value.
+     * @since 2.0
+     */
+    public int nextInt() {
+        return TRandomStream.mix32(this.nextSeed());
+    }
+
+    /**
+     * This method returns the next pseudo-random int value of the stream
+     * between 0 (inclusive) and the specified bound (exclusive), uniformly
+     * distributed.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param bound The upper bound, that has to be positive.
+     * @return A pseudo-random int value in [0, bound).
+     * @since 2.0
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        int r = this.nextInt();
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            r &= m;
+        } else {
+            int u = r >>> 1;
+            r = u % bound;
+            while (u + m - r < 0) {
+                u = this.nextInt() >>> 1;
+                r = u % bound;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * This method advances the internal state of the stream.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The new internal state.
+     * @since 2.0
+     */
+    private long nextSeed() {
+        this.seed += TRandomStream.GOLDEN_GAMMA;
+        return this.seed;
+    }
+
+    /**
+     * This method scrambles a state into a 64 bit value.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param z The state.
+     * @return The scrambled value.
+     * @since 2.0
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * This method scrambles a state into a 32 bit value.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param z The state.
+     * @return The scrambled value.
+     * @since 2.0
+     */
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    private static final long serialVersionUID = 1L;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long seed;
+}
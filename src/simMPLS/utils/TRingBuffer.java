@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package simMPLS.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * This class implements a bounded queue of objects that several threads can
+ * fill and empty at the same time without locks. Each slot of the ring has a
+ * sequence number that tells producers and consumers whether the slot is
+ * free or holds an object, so a thread only has to win a compare-and-set on
+ * the position it wants to use. When the ring is full, offer() fails instead
+ * of blocking the producer.
+ *
+ * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+ * @version 2.0
+ */
+public class TRingBuffer {
+
+    /**
+     * This method is the constructor of the class. It creates a new empty
+     * ring buffer.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param capacity The minimum number of objects the ring can hold. It is
+     * rounded up to the next power of two.
+     * @since 2.0
+     */
+    public TRingBuffer(int capacity) {
+        int realCapacity = 2;
+        while (realCapacity < capacity) {
+            realCapacity <<= 1;
+        }
+        this.mask = realCapacity - 1;
+        this.items = new AtomicReferenceArray<Object>(realCapacity);
+        this.sequences = new AtomicLongArray(realCapacity);
+        int i;
+        for (i = 0; i < realCapacity; i++) {
+            this.sequences.set(i, i);
+        }
+        this.tail = new AtomicLong(0);
+        this.head = new AtomicLong(0);
+    }
+
+    /**
+     * This method puts an object at the end of the ring.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @param item The object. It cannot be NULL.
+     * @return TRUE, if the object has been put in the ring. FALSE, if the
+     * ring is full.
+     * @since 2.0
+     */
+    public boolean offer(Object item) {
+        long position = this.tail.get();
+        int index;
+        long difference;
+        while (true) {
+            index = (int) (position & this.mask);
+            difference = this.sequences.get(index) - position;
+            if (difference == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = this.tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = this.tail.get();
+            }
+        }
+        this.items.set(index, item);
+        this.sequences.set(index, position + 1);
+        return true;
+    }
+
+    /**
+     * This method takes the object at the beginning of the ring.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The oldest object of the ring, or NULL if the ring is empty.
+     * @since 2.0
+     */
+    public Object poll() {
+        long position = this.head.get();
+        int index;
+        long difference;
+        while (true) {
+            index = (int) (position & this.mask);
+            difference = this.sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (this.head.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = this.head.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = this.head.get();
+            }
+        }
+        Object item = this.items.get(index);
+        this.items.set(index, null);
+        this.sequences.set(index, position + this.mask + 1);
+        return item;
+    }
+
+    /**
+     * This method returns the approximate number of objects in the ring.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The number of objects, between 0 and the capacity.
+     * @since 2.0
+     */
+    public int size() {
+        long size = this.tail.get() - this.head.get();
+        if (size < 0) {
+            return 0;
+        }
+        if (size > this.getCapacity()) {
+            return this.getCapacity();
+        }
+        return (int) size;
+    }
+
+    /**
+     * This method returns the number of objects the ring can hold.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @return The capacity of the ring.
+     * @since 2.0
+     */
+    public int getCapacity() {
+        return this.mask + 1;
+    }
+
+    /**
+     * This method removes every object from the ring.
+     *
+     * @author Manuel Domínguez Dorado - ingeniero@ManoloDominguez.com
+     * @since 2.0
+     */
+    public void clear() {
+        while (this.poll() != null) {
+            // Nothing to do with the discarded objects.
+        }
+    }
+
+    private int mask;
+    private AtomicReferenceArray<Object> items;
+    private AtomicLongArray sequences;
+    private AtomicLong tail;
+    private AtomicLong head;
+}
@@ -15,6 +15,8 @@
  */
 package simMPLS.utils;
 
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 /**
  * Esta clase implementa un generador de identificadores largos, c�clico (vuelve a
  * empezar). Se utiliza para identificar los paquetes con GoS de un emisor.
@@ -22,7 +24,7 @@ package simMPLS.utils;
  * href="mailto:ingeniero@ManoloDominguez.com">ingeniero@ManoloDominguez.com</A><br><A href="http://www.ManoloDominguez.com" target="_blank">http://www.ManoloDominguez.com</A>
  * @version 1.0
  */
-public class TRotaryIDGenerator {
+public class TRotaryIDGenerator implements Serializable {
     
     /**
      * Este m�todo es el constructor de la clase. Crea una nueva instancia de
@@ -44,17 +46,22 @@ public class TRotaryIDGenerator {
     
     /**
      * Este m�todo obtiene un nuevo identificador del generador e incrementa su
-     * contador interno para la siguiente llamada.
+     * contador interno para la siguiente llamada. El metodo no usa bloqueos.
      * @return Un identificador nuevo y �nico (en este ciclo del generador).
      * @since 2.0
      */
-    synchronized public int getNextID() {
-        if (identificador > 2147483646) {
-            identificador = 0;
-        } else {
-            identificador++;
-        }
-        return (identificador);
+    public int getNextID() {
+        int actual;
+        int siguiente;
+        do {
+            actual = identificador;
+            if (actual > 2147483646) {
+                siguiente = 0;
+            } else {
+                siguiente = actual + 1;
+            }
+        } while (!TRotaryIDGenerator.CONTADOR.compareAndSet(this, actual, siguiente));
+        return (siguiente);
     }
     
     /**
@@ -63,9 +70,12 @@ public class TRotaryIDGenerator {
      * @param i El valor con el que se desea iniciar el generador.
      * @since 2.0
      */
-    synchronized public void ponerIdentificador(int i) {
+    public void ponerIdentificador(int i) {
         identificador = i;
     }
     
-    private int identificador;
+    private static final long serialVersionUID = 1L;
+    private static final AtomicIntegerFieldUpdater<TRotaryIDGenerator> CONTADOR = AtomicIntegerFieldUpdater.newUpdater(TRotaryIDGenerator.class, "identificador");
+    
+    private volatile int identificador;
 }